@@ -33,4 +33,35 @@ public interface ArgumentResolver<T> {
      * @throws ArgumentResolutionException when there was an error determine the parameter argument value
      */
     T resolveArgumentForParameter(QueueProperties queueProperties, MethodParameter methodParameter, Message message) throws ArgumentResolutionException;
+
+    /**
+     * Bind this resolver to the given {@link MethodParameter} so that anything that does not change between messages, like looking up the annotation on
+     * the parameter, is only calculated once instead of for every message.
+     *
+     * <p>This is called once when the method is being set up to process messages and the returned {@link BoundArgumentResolver} will be used for every
+     * message. This defaults to calling {@link #resolveArgumentForParameter(QueueProperties, MethodParameter, Message)} for each message and
+     * implementations should override this if there is work that can be done up front.
+     *
+     * @param queueProperties details about the queue that the arguments will be resolved for
+     * @param methodParameter details about a parameter for the method
+     * @return the resolver for this parameter
+     * @throws ArgumentResolutionException when the parameter is not able to be resolved by this resolver
+     */
+    default BoundArgumentResolver<T> bind(final QueueProperties queueProperties, final MethodParameter methodParameter) throws ArgumentResolutionException {
+        return message -> resolveArgumentForParameter(queueProperties, methodParameter, message);
+    }
+
+    /**
+     * Determine the attributes of the message that need to be retrieved from SQS so that this resolver can resolve the argument for the given
+     * {@link MethodParameter}.
+     *
+     * <p>This defaults to requiring all attributes as a resolver could use any of them. Implementations that do not use the attributes, or only use
+     * specific ones, should override this so that the response from SQS can be smaller.
+     *
+     * @param methodParameter details about a parameter for the method
+     * @return the attributes needed to resolve this parameter
+     */
+    default RequiredMessageAttributes getRequiredMessageAttributes(MethodParameter methodParameter) {
+        return RequiredMessageAttributes.all();
+    }
 }
@@ -4,6 +4,8 @@ import com.jashmore.sqs.processor.MessageProcessor;
 import com.jashmore.sqs.processor.argument.Acknowledge;
 import com.jashmore.sqs.processor.argument.VisibilityExtender;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -25,4 +27,33 @@ public interface ArgumentResolverService {
      * @throws UnsupportedArgumentResolutionException if there is no available {@link ArgumentResolver}
      */
     ArgumentResolver<?> getArgumentResolver(MethodParameter methodParameter) throws UnsupportedArgumentResolutionException;
+
+    /**
+     * Determine all of the attributes of a message that are needed to resolve the arguments for the provided method.
+     *
+     * <p>This can be used when the message listener is being built to only request the attributes from SQS that are needed, instead of all of them.
+     * Parameters for the {@link Acknowledge} or {@link VisibilityExtender} are ignored as they do not use the message attributes.
+     *
+     * @param method the method that will be processing the messages
+     * @return the attributes that are needed to process the messages
+     * @throws UnsupportedArgumentResolutionException if there is no available {@link ArgumentResolver} for one of the parameters
+     */
+    default RequiredMessageAttributes getRequiredMessageAttributes(Method method) throws UnsupportedArgumentResolutionException {
+        final Parameter[] parameters = method.getParameters();
+        RequiredMessageAttributes requiredMessageAttributes = RequiredMessageAttributes.none();
+        for (int parameterIndex = 0; parameterIndex < parameters.length; ++parameterIndex) {
+            final Parameter parameter = parameters[parameterIndex];
+            if (Acknowledge.class.isAssignableFrom(parameter.getType()) || VisibilityExtender.class.isAssignableFrom(parameter.getType())) {
+                continue;
+            }
+
+            final MethodParameter methodParameter = DefaultMethodParameter.builder()
+                    .method(method)
+                    .parameter(parameter)
+                    .parameterIndex(parameterIndex)
+                    .build();
+            requiredMessageAttributes = requiredMessageAttributes.and(getArgumentResolver(methodParameter).getRequiredMessageAttributes(methodParameter));
+        }
+        return requiredMessageAttributes;
+    }
 }
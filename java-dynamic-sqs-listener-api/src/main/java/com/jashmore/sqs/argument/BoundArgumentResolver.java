@@ -0,0 +1,29 @@
+package com.jashmore.sqs.argument;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An {@link ArgumentResolver} that has been bound to a specific parameter of a method, with everything that does not change between messages, for
+ * example the annotation on the parameter and the type to convert the argument to, already determined.
+ *
+ * <p>This is called for every message being processed and therefore should be as cheap as possible, for example by not using reflection.
+ *
+ * <p>As there could be multiple messages all being processed at once, implementations of this class must be thread safe.
+ *
+ * @param <T> the type of object that is returned when an argument is resolved
+ * @see ArgumentResolver#bind(com.jashmore.sqs.QueueProperties, MethodParameter)
+ */
+@ThreadSafe
+@FunctionalInterface
+public interface BoundArgumentResolver<T> {
+    /**
+     * Resolve the argument for the parameter that this resolver was bound to.
+     *
+     * @param message the message being processed
+     * @return the value of the argument
+     * @throws ArgumentResolutionException when there was an error determine the parameter argument value
+     */
+    T resolveArgument(Message message) throws ArgumentResolutionException;
+}
@@ -0,0 +1,123 @@
+package com.jashmore.sqs.argument;
+
+import com.google.common.collect.ImmutableSet;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.util.Arrays;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * The message system attributes and message attributes that need to be retrieved with a {@link software.amazon.awssdk.services.sqs.model.Message} so that
+ * it can be processed.
+ *
+ * <p>This is used to only request the attributes from SQS that are actually needed as requesting all of them can significantly increase the size of the
+ * response for messages with small bodies. The names are stored in the format that SQS expects in the {@link ReceiveMessageRequest} and therefore when
+ * all attributes are needed the set will only contain {@link #ALL_ATTRIBUTES}.
+ */
+@ToString
+@EqualsAndHashCode
+public final class RequiredMessageAttributes {
+    /**
+     * The name used by SQS to represent that all attributes should be returned.
+     */
+    public static final String ALL_ATTRIBUTES = QueueAttributeName.ALL.toString();
+
+    private static final Set<String> ALL_ATTRIBUTES_SET = ImmutableSet.of(ALL_ATTRIBUTES);
+    private static final RequiredMessageAttributes ALL = new RequiredMessageAttributes(ALL_ATTRIBUTES_SET, ALL_ATTRIBUTES_SET);
+    private static final RequiredMessageAttributes NONE = new RequiredMessageAttributes(ImmutableSet.of(), ImmutableSet.of());
+
+    private final Set<String> messageSystemAttributeNames;
+    private final Set<String> messageAttributeNames;
+
+    private RequiredMessageAttributes(final Set<String> messageSystemAttributeNames, final Set<String> messageAttributeNames) {
+        this.messageSystemAttributeNames = normalise(messageSystemAttributeNames);
+        this.messageAttributeNames = normalise(messageAttributeNames);
+    }
+
+    /**
+     * All of the message system attributes and message attributes are required.
+     *
+     * @return the requirements for all attributes
+     */
+    public static RequiredMessageAttributes all() {
+        return ALL;
+    }
+
+    /**
+     * None of the message system attributes or message attributes are required.
+     *
+     * @return the requirements for no attributes
+     */
+    public static RequiredMessageAttributes none() {
+        return NONE;
+    }
+
+    /**
+     * Only the provided message system attributes are required.
+     *
+     * @param attributeNames the names of the message system attributes
+     * @return the requirements for these attributes
+     */
+    public static RequiredMessageAttributes messageSystemAttributes(final MessageSystemAttributeName... attributeNames) {
+        return new RequiredMessageAttributes(
+                Arrays.stream(attributeNames).map(MessageSystemAttributeName::toString).collect(ImmutableSet.toImmutableSet()),
+                ImmutableSet.of()
+        );
+    }
+
+    /**
+     * Only the provided message attributes are required.
+     *
+     * @param attributeNames the names of the message attributes
+     * @return the requirements for these attributes
+     */
+    public static RequiredMessageAttributes messageAttributes(final String... attributeNames) {
+        return new RequiredMessageAttributes(ImmutableSet.of(), ImmutableSet.copyOf(attributeNames));
+    }
+
+    /**
+     * Combine these requirements with another set of requirements, where the result will require the attributes of both.
+     *
+     * @param other the other requirements to combine with
+     * @return the combined requirements
+     */
+    public RequiredMessageAttributes and(@Nonnull final RequiredMessageAttributes other) {
+        return new RequiredMessageAttributes(
+                ImmutableSet.<String>builder().addAll(messageSystemAttributeNames).addAll(other.messageSystemAttributeNames).build(),
+                ImmutableSet.<String>builder().addAll(messageAttributeNames).addAll(other.messageAttributeNames).build()
+        );
+    }
+
+    /**
+     * The names of the message system attributes that are required, which can be supplied to
+     * {@link ReceiveMessageRequest.Builder#attributeNamesWithStrings(java.util.Collection)}.
+     *
+     * @return the message system attribute names
+     */
+    public Set<String> getMessageSystemAttributeNames() {
+        return messageSystemAttributeNames;
+    }
+
+    /**
+     * The names of the message attributes that are required, which can be supplied to
+     * {@link ReceiveMessageRequest.Builder#messageAttributeNames(java.util.Collection)}.
+     *
+     * @return the message attribute names
+     */
+    public Set<String> getMessageAttributeNames() {
+        return messageAttributeNames;
+    }
+
+    private static Set<String> normalise(final Set<String> attributeNames) {
+        if (attributeNames.contains(ALL_ATTRIBUTES)) {
+            return ALL_ATTRIBUTES_SET;
+        }
+        return attributeNames;
+    }
+}
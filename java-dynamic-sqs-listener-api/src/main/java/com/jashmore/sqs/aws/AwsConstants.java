@@ -22,4 +22,22 @@ public final class AwsConstants {
      * for an example batching endpoint
      */
     public static final int MAX_NUMBER_OF_MESSAGES_IN_BATCH = 10;
+
+    /**
+     * This is the limit imposed by SQS for the maximum visibility timeout of a message, which is 12 hours.
+     */
+    public static final int MAX_VISIBILITY_TIMEOUT_IN_SECONDS = 43_200;
+
+    /**
+     * The suffix that the name, and therefore the URL, of all FIFO queues must end with.
+     */
+    public static final String FIFO_QUEUE_SUFFIX = ".fifo";
+
+    /**
+     * The period that SQS will return the same messages for a receive request that is retried with the same receive request attempt id, which is
+     * 5 minutes.
+     *
+     * @see software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest#receiveRequestAttemptId()
+     */
+    public static final int RECEIVE_REQUEST_ATTEMPT_ID_DEDUPLICATION_PERIOD_IN_SECONDS = 300;
 }
@@ -0,0 +1,64 @@
+package com.jashmore.sqs.broker;
+
+import com.jashmore.sqs.container.MessageListenerContainer;
+import com.jashmore.sqs.processor.BatchMessageProcessor;
+import com.jashmore.sqs.retriever.MessageRetriever;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * {@link MessageBroker} that requests the {@link Message}s in batches and processes each batch at once, for example so that a
+ * {@link BatchMessageProcessor} can invoke the message consumer once with all of the messages in the batch.
+ *
+ * <p>Containers that support batches should call {@link #processMessageBatches(ExecutorService, BooleanSupplier, IntFunction, Function)} so that the
+ * messages can be requested via {@link MessageRetriever#retrieveMessages(int)}, instead of one at a time.
+ */
+@NotThreadSafe
+public interface BatchMessageBroker extends MessageBroker {
+    /**
+     * Requests batches of {@link Message}s and processes each batch when it is eventually obtained.
+     *
+     * <p>This should keep processing batches until the {@link BooleanSupplier} returns false or the thread is interrupted. Thread interruption will be
+     * triggered by the surrounding container when it is ready to stop processing messages, for example by the {@link MessageListenerContainer}.
+     *
+     * <p>The processing of each batch should be executed on a single thread of the supplied {@link ExecutorService} which the container will own.
+     *
+     * @param messageProcessingExecutorService the executor service that should be used for every batch being processed
+     * @param keepProcessingMessages           function to determine whether we should stop processing messages
+     * @param messagesSupplier                 the function to request up to the given number of messages, see
+     *                                         {@link MessageRetriever#retrieveMessages(int)}
+     * @param batchProcessor                   the function that will process each batch of messages when it is obtained
+     * @throws InterruptedException when the container has requested the processing of messages to stop
+     */
+    void processMessageBatches(ExecutorService messageProcessingExecutorService,
+                               BooleanSupplier keepProcessingMessages,
+                               IntFunction<CompletableFuture<List<Message>>> messagesSupplier,
+                               Function<List<Message>, CompletableFuture<?>> batchProcessor) throws InterruptedException;
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The messages are processed in batches of a single message, as they can only be requested one at a time.
+     */
+    @Override
+    default void processMessages(final ExecutorService messageProcessingExecutorService,
+                                 final BooleanSupplier keepProcessingMessages,
+                                 final Supplier<CompletableFuture<Message>> messageSupplier,
+                                 final Function<Message, CompletableFuture<?>> messageProcessor) throws InterruptedException {
+        processMessageBatches(
+                messageProcessingExecutorService,
+                keepProcessingMessages,
+                ignoredMaxNumberOfMessages -> messageSupplier.get().thenApply(Collections::singletonList),
+                messages -> messageProcessor.apply(messages.get(0))
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package com.jashmore.sqs.processor;
+
+import com.jashmore.sqs.broker.BatchMessageBroker;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link MessageProcessor} that is able to process a batch of messages with a single invocation of the message consumer, for example when the batches
+ * are obtained by a {@link BatchMessageBroker}.
+ *
+ * <p>As there could be multiple batches all being processed at once, the implementations of this interface must be thread safe.
+ */
+@ThreadSafe
+public interface BatchMessageProcessor extends MessageProcessor {
+    /**
+     * Process the batch of messages received on the queue.
+     *
+     * <p>This method should return a {@link CompletableFuture} that is either resolved or rejected when the whole batch is finished processing.
+     *
+     * @param messages                the messages to process
+     * @param resolveMessageCallbacks the function to obtain the callback that should be run when each message was processed successfully
+     * @return future that is resolved when the batch was processed and another thread can be picked up, it should not return a rejected future
+     * @throws MessageProcessingException if there was an error processing the batch, e.g. an exception was thrown by the delegate method
+     */
+    CompletableFuture<?> processMessages(List<Message> messages, Function<Message, Runnable> resolveMessageCallbacks) throws MessageProcessingException;
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The message is processed as a batch containing only this message.
+     */
+    @Override
+    default CompletableFuture<?> processMessage(final Message message, final Runnable resolveMessageCallback) throws MessageProcessingException {
+        return processMessages(Collections.singletonList(message), ignoredMessage -> resolveMessageCallback);
+    }
+}
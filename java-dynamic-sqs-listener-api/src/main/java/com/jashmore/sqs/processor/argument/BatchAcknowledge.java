@@ -0,0 +1,29 @@
+package com.jashmore.sqs.processor.argument;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Used to acknowledge the completion of messages in a batch being processed by a message consumer that processes multiple messages at once.
+ *
+ * <p>If the message consumer has a parameter with this type it will indicate to the {@link com.jashmore.sqs.processor.MessageProcessor} that it should
+ * not automatically mark all of the messages in the batch as a success on the completion of the method without an exception being thrown. Instead the
+ * message consumer must call {@link #acknowledgeSuccessful(Message)} for each message that was successfully processed, or
+ * {@link #acknowledgeAllSuccessful()} if they all were.
+ */
+public interface BatchAcknowledge {
+    /**
+     * Acknowledge that the message in the batch was successfully completed, which will result in it being removed from the queue.
+     *
+     * <p>Multiple calls to this for the same message has indeterminate behaviour and should not be done.
+     *
+     * @param message the message in the batch that was successfully processed
+     */
+    void acknowledgeSuccessful(Message message);
+
+    /**
+     * Acknowledge that all of the messages in the batch were successfully completed, which will result in them being removed from the queue.
+     *
+     * <p>This should not be called if any of the messages have already been acknowledged via {@link #acknowledgeSuccessful(Message)}.
+     */
+    void acknowledgeAllSuccessful();
+}
@@ -0,0 +1,41 @@
+package com.jashmore.sqs.resolver;
+
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link MessageResolver} that is also able to negatively acknowledge messages that have failed to be processed.
+ *
+ * <p>Without this, a message that failed to be processed will remain invisible in the queue until its visibility timeout expires before it can be
+ * processed again. Negatively acknowledging the message instead changes its visibility timeout so that it can be redelivered after a shorter delay.
+ *
+ * <p>When the {@link MessageResolver} of a container implements this interface, any message whose processing fails will be negatively acknowledged.
+ */
+public interface NegativeAcknowledgingMessageResolver extends MessageResolver {
+    /**
+     * Negatively acknowledge the message so that it will be redelivered from the SQS queue sooner than its visibility timeout.
+     *
+     * <p>The implementation decides the delay before the message is redelivered and can choose to do nothing, in which case the message will be
+     * redelivered once its visibility timeout expires.
+     *
+     * @param message the message that failed to be processed
+     * @return a {@link CompletableFuture} that will be completed when the visibility of the message has been changed
+     */
+    CompletableFuture<?> rejectMessage(Message message);
+
+    /**
+     * The attributes that must be retrieved with each message so that it can be negatively acknowledged, for example the
+     * {@link software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName#APPROXIMATE_RECEIVE_COUNT} when the delay before the message is
+     * redelivered depends on how many times it has been received.
+     *
+     * <p>These should be combined with the attributes required by the message listener when building the properties of the
+     * {@link com.jashmore.sqs.retriever.MessageRetriever}, otherwise the messages will be negatively acknowledged without them.
+     *
+     * @return the attributes required to negatively acknowledge messages
+     */
+    default RequiredMessageAttributes getRequiredMessageAttributes() {
+        return RequiredMessageAttributes.none();
+    }
+}
@@ -5,6 +5,7 @@ import com.jashmore.sqs.processor.MessageProcessor;
 import com.jashmore.sqs.resolver.MessageResolver;
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import javax.annotation.concurrent.ThreadSafe;
@@ -30,6 +31,25 @@ public interface MessageRetriever {
      */
     CompletableFuture<Message> retrieveMessage();
 
+    /**
+     * Request the retrieval of a batch of messages returning a {@link CompletableFuture} that will be resolved with up to the maximum number of
+     * messages when at least one message has been obtained.
+     *
+     * <p>This does not wait until the maximum number of messages are available and instead will be resolved with the messages that are available at the
+     * time the first message is obtained. Implementations that obtain messages in batches from SQS should override this so that all of these messages
+     * can be handed over at once, instead of needing a separate {@link CompletableFuture} for every message. The default implementation will only ever
+     * resolve the future with a single message.
+     *
+     * <p>When the retriever is stopped, any of these futures that have not been resolved will be cancelled or completed exceptionally as they will never be
+     * resolved anymore.
+     *
+     * @param maxNumberOfMessages the maximum number of messages to obtain, which must be greater than zero
+     * @return the future that will be resolved with the messages when obtained eventually
+     */
+    default CompletableFuture<List<Message>> retrieveMessages(final int maxNumberOfMessages) {
+        return retrieveMessage().thenApply(Collections::singletonList);
+    }
+
     /**
      * Run the process that will perform the retrieval of messages from the server, this should be run on a background thread.
      *
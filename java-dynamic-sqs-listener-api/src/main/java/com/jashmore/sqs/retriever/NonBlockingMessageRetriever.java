@@ -0,0 +1,69 @@
+package com.jashmore.sqs.retriever;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link MessageRetriever} that is driven entirely by the completion of the asynchronous requests to SQS and therefore does not need a dedicated thread
+ * to be blocked for the duration of the retrieval process.
+ *
+ * <p>Containers that are aware of this type should call {@link #start()} and {@link #stop()} instead of running {@link #run()} on a background thread,
+ * which allows for many retrievers to share the threads of the underlying SQS client instead of each one parking a thread waiting for messages.
+ *
+ * <p>For containers that are not aware of this type, the {@link #run()} method will start the retriever and block until the thread is interrupted, which
+ * maintains the same contract as any other {@link MessageRetriever}.
+ */
+@ThreadSafe
+public interface NonBlockingMessageRetriever extends MessageRetriever {
+    /**
+     * Start the retrieval of messages, returning immediately.
+     *
+     * <p>The returned {@link CompletableFuture} will be resolved when the retriever has been stopped via {@link #stop()}, containing all of the
+     * messages that were downloaded but not taken for processing. See {@link MessageRetriever#run()} for more details about these messages.
+     *
+     * @return a future that will be resolved with the leftover messages when the retriever has stopped
+     */
+    CompletableFuture<List<Message>> start();
+
+    /**
+     * Stop the retrieval of messages.
+     *
+     * <p>This does not wait for the retriever to stop and the future returned from {@link #start()} should be used to determine when it has been
+     * stopped.
+     */
+    void stop();
+
+    /**
+     * Start the retriever and block the current thread until it has been interrupted, at which point the retriever is stopped.
+     *
+     * @return the messages that were downloaded but have not been taken for processing
+     */
+    @Override
+    default List<Message> run() {
+        final CompletableFuture<List<Message>> retrieverStoppedFuture = start();
+        boolean interrupted = false;
+        try {
+            return retrieverStoppedFuture.get();
+        } catch (final InterruptedException interruptedException) {
+            interrupted = true;
+        } catch (final ExecutionException executionException) {
+            return Collections.emptyList();
+        }
+
+        stop();
+        try {
+            return retrieverStoppedFuture.get();
+        } catch (final InterruptedException | ExecutionException exception) {
+            return Collections.emptyList();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package com.jashmore.sqs.argument.attribute;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.jashmore.sqs.QueueProperties;
 import com.jashmore.sqs.argument.ArgumentResolutionException;
 import com.jashmore.sqs.argument.ArgumentResolver;
+import com.jashmore.sqs.argument.BoundArgumentResolver;
 import com.jashmore.sqs.argument.MethodParameter;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.util.annotation.AnnotationUtils;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
 
 /**
  * An {@link ArgumentResolver} that is able to handle the extraction of information from the attributes of the SQS message.
@@ -40,82 +42,106 @@ public class MessageAttributeArgumentResolver implements ArgumentResolver<Object
         return AnnotationUtils.findParameterAnnotation(methodParameter, MessageAttribute.class).isPresent();
     }
 
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes(final MethodParameter methodParameter) {
+        return AnnotationUtils.findParameterAnnotation(methodParameter, MessageAttribute.class)
+                .map(annotation -> RequiredMessageAttributes.messageAttributes(annotation.value()))
+                .orElseGet(RequiredMessageAttributes::none);
+    }
+
     @Override
     public Object resolveArgumentForParameter(final QueueProperties queueProperties,
                                               final MethodParameter methodParameter,
                                               final Message message) throws ArgumentResolutionException {
+        return bind(queueProperties, methodParameter).resolveArgument(message);
+    }
+
+    @Override
+    public BoundArgumentResolver<Object> bind(final QueueProperties queueProperties,
+                                              final MethodParameter methodParameter) throws ArgumentResolutionException {
         final MessageAttribute annotation = AnnotationUtils.findParameterAnnotation(methodParameter, MessageAttribute.class)
                 .orElseThrow(() -> new ArgumentResolutionException("Parameter passed in does not contain the MessageAttribute annotation when it should"));
 
         final String attributeName = annotation.value();
+        final boolean required = annotation.required();
+        final Class<?> parameterType = methodParameter.getParameter().getType();
+        final AttributeValueConverter stringValueConverter = buildStringValueConverter(parameterType, attributeName);
+        final AttributeValueConverter binaryValueConverter = buildBinaryValueConverter(parameterType);
 
-        final Optional<MessageAttributeValue> optionalMessageAttributeValue = Optional.ofNullable(message.messageAttributes().get(attributeName));
+        return message -> {
+            final MessageAttributeValue messageAttributeValue = message.messageAttributes().get(attributeName);
 
-        if (!optionalMessageAttributeValue.isPresent()) {
-            if (annotation.required()) {
-                throw new ArgumentResolutionException("Required Message Attribute '" + attributeName + "' is missing from message");
-            }
+            if (messageAttributeValue == null) {
+                if (required) {
+                    throw new ArgumentResolutionException("Required Message Attribute '" + attributeName + "' is missing from message");
+                }
 
-            return null;
-        }
-
-        final MessageAttributeValue messageAttributeValue = optionalMessageAttributeValue.get();
+                return null;
+            }
 
-        if (messageAttributeValue.dataType().startsWith(MessageAttributeDataTypes.STRING.getValue())
-                || messageAttributeValue.dataType().startsWith(MessageAttributeDataTypes.NUMBER.getValue())) {
-            return handleStringParameterValue(methodParameter, messageAttributeValue, attributeName);
-        } else if (messageAttributeValue.dataType().startsWith(MessageAttributeDataTypes.BINARY.getValue())) {
-            return handleByteParameterValue(methodParameter, messageAttributeValue);
-        }
+            final String dataType = messageAttributeValue.dataType();
+            if (dataType.startsWith(MessageAttributeDataTypes.STRING.getValue()) || dataType.startsWith(MessageAttributeDataTypes.NUMBER.getValue())) {
+                return stringValueConverter.convert(messageAttributeValue);
+            } else if (dataType.startsWith(MessageAttributeDataTypes.BINARY.getValue())) {
+                return binaryValueConverter.convert(messageAttributeValue);
+            }
 
-        throw new ArgumentResolutionException("Cannot parse message attribute due to unknown data type '" + messageAttributeValue.dataType() + "'");
+            throw new ArgumentResolutionException("Cannot parse message attribute due to unknown data type '" + dataType + "'");
+        };
     }
 
     /**
-     * Handle resolving the argument from the string contents of the attribute.
+     * Build the converter for resolving the argument from the string contents of the attribute.
      *
-     * @param methodParameter       the parameter of the method to resolve
-     * @param messageAttributeValue the value of the message attribute
-     * @param attributeName         the name of the attribute that is being consumed
-     * @return the resolved argument from the attribute
+     * @param parameterType the type of the parameter to resolve
+     * @param attributeName the name of the attribute that is being consumed
+     * @return the converter of the attribute to the argument
      */
-    private Object handleStringParameterValue(final MethodParameter methodParameter,
-                                              final MessageAttributeValue messageAttributeValue,
-                                              final String attributeName) {
-        if (methodParameter.getParameter().getType().isAssignableFrom(String.class)) {
-            return messageAttributeValue.stringValue();
+    private AttributeValueConverter buildStringValueConverter(final Class<?> parameterType, final String attributeName) {
+        if (parameterType.isAssignableFrom(String.class)) {
+            return MessageAttributeValue::stringValue;
         }
 
-        try {
-            return objectMapper.readValue(messageAttributeValue.stringValue(), methodParameter.getParameter().getType());
-        } catch (final IOException ioException) {
-            throw new ArgumentResolutionException("Error parsing Message Attribute '" + attributeName + "'", ioException);
-        }
+        final ObjectReader objectReader = objectMapper.readerFor(parameterType);
+        return messageAttributeValue -> {
+            try {
+                return objectReader.readValue(messageAttributeValue.stringValue());
+            } catch (final IOException ioException) {
+                throw new ArgumentResolutionException("Error parsing Message Attribute '" + attributeName + "'", ioException);
+            }
+        };
     }
 
     /**
-     * Handle an attribute that contains the data as bytes.
+     * Build the converter for an attribute that contains the data as bytes.
      *
-     * @param methodParameter       details about the parameter to parse the message attribute into
-     * @param messageAttributeValue value of the message attribute
-     * @return the argument resolved for this attribute
+     * @param parameterType the type of the parameter to resolve
+     * @return the converter of the attribute to the argument
      */
-    private Object handleByteParameterValue(final MethodParameter methodParameter,
-                                            final MessageAttributeValue messageAttributeValue) {
-        final byte[] byteArray = messageAttributeValue.binaryValue().asByteArray();
-        final Class<?> parameterClass = methodParameter.getParameter().getType();
-        if (parameterClass == byte[].class) {
-            return byteArray;
+    private AttributeValueConverter buildBinaryValueConverter(final Class<?> parameterType) {
+        if (parameterType == byte[].class) {
+            return messageAttributeValue -> messageAttributeValue.binaryValue().asByteArray();
         }
 
-        if (parameterClass.isAssignableFrom(String.class)) {
-            return new String(byteArray, Charset.forName("UTF-8"));
+        if (parameterType.isAssignableFrom(String.class)) {
+            return messageAttributeValue -> new String(messageAttributeValue.binaryValue().asByteArray(), StandardCharsets.UTF_8);
         }
 
-        try {
-            return objectMapper.readValue(byteArray, parameterClass);
-        } catch (final IOException ioException) {
-            throw new ArgumentResolutionException("Failure to parse binary bytes to '" + parameterClass.getName() + "'", ioException);
-        }
+        final ObjectReader objectReader = objectMapper.readerFor(parameterType);
+        return messageAttributeValue -> {
+            try {
+                return objectReader.readValue(messageAttributeValue.binaryValue().asByteArray());
+            } catch (final IOException ioException) {
+                throw new ArgumentResolutionException("Failure to parse binary bytes to '" + parameterType.getName() + "'", ioException);
+            }
+        };
+    }
+
+    /**
+     * Converts the value of the message attribute to the type of the parameter.
+     */
+    @FunctionalInterface
+    private interface AttributeValueConverter {
+        Object convert(MessageAttributeValue messageAttributeValue) throws ArgumentResolutionException;
     }
 }
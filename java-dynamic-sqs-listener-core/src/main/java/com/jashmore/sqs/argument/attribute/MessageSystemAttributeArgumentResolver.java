@@ -7,14 +7,16 @@ import static software.amazon.awssdk.services.sqs.model.MessageSystemAttributeNa
 import com.jashmore.sqs.QueueProperties;
 import com.jashmore.sqs.argument.ArgumentResolutionException;
 import com.jashmore.sqs.argument.ArgumentResolver;
+import com.jashmore.sqs.argument.BoundArgumentResolver;
 import com.jashmore.sqs.argument.MethodParameter;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.util.annotation.AnnotationUtils;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 
 import java.time.Instant;
 import java.time.OffsetDateTime;
-import java.util.Optional;
+import java.util.function.Function;
 
 public class MessageSystemAttributeArgumentResolver implements ArgumentResolver<Object> {
     @Override
@@ -22,64 +24,91 @@ public class MessageSystemAttributeArgumentResolver implements ArgumentResolver<
         return AnnotationUtils.findParameterAnnotation(methodParameter, MessageSystemAttribute.class).isPresent();
     }
 
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes(final MethodParameter methodParameter) {
+        return AnnotationUtils.findParameterAnnotation(methodParameter, MessageSystemAttribute.class)
+                .map(annotation -> RequiredMessageAttributes.messageSystemAttributes(annotation.value()))
+                .orElseGet(RequiredMessageAttributes::none);
+    }
+
     @Override
     public Object resolveArgumentForParameter(final QueueProperties queueProperties,
                                               final MethodParameter methodParameter,
                                               final Message message) throws ArgumentResolutionException {
+        return bind(queueProperties, methodParameter).resolveArgument(message);
+    }
+
+    @Override
+    public BoundArgumentResolver<Object> bind(final QueueProperties queueProperties,
+                                              final MethodParameter methodParameter) throws ArgumentResolutionException {
         final MessageSystemAttribute annotation = AnnotationUtils.findParameterAnnotation(methodParameter, MessageSystemAttribute.class)
                 .orElseThrow(() -> new ArgumentResolutionException(
                         "Parameter passed in does not contain the MessageSystemAttribute annotation when it should"
                 ));
 
         final MessageSystemAttributeName messageSystemAttributeName = annotation.value();
-        final Optional<String> optionalAttributeValue = Optional.ofNullable(message.attributes().get(messageSystemAttributeName));
+        final boolean required = annotation.required();
+        final Function<String, Object> attributeValueConverter = buildAttributeValueConverter(methodParameter.getParameter().getType(),
+                messageSystemAttributeName);
 
-        if (!optionalAttributeValue.isPresent() ) {
-            if (annotation.required()) {
-                throw new ArgumentResolutionException("Missing system attribute with name: " + messageSystemAttributeName.toString());
-            }
+        return message -> {
+            final String attributeValue = message.attributes().get(messageSystemAttributeName);
 
-            return null;
-        }
-        final String attributeValue = optionalAttributeValue.get();
+            if (attributeValue == null) {
+                if (required) {
+                    throw new ArgumentResolutionException("Missing system attribute with name: " + messageSystemAttributeName.toString());
+                }
 
-        final Class<?> parameterType = methodParameter.getParameter().getType();
-        try {
-            if (parameterType == String.class) {
-                return attributeValue;
+                return null;
             }
 
-            if (parameterType == Integer.class || parameterType == int.class) {
-                return Integer.parseInt(attributeValue);
+            try {
+                return attributeValueConverter.apply(attributeValue);
+            } catch (final ArgumentResolutionException argumentResolutionException) {
+                throw argumentResolutionException;
+            } catch (final RuntimeException exception) {
+                throw new ArgumentResolutionException("Error parsing message attribute: " + messageSystemAttributeName.toString(), exception);
             }
+        };
+    }
 
-            if (parameterType == Long.class || parameterType == long.class) {
-                return Long.parseLong(attributeValue);
-            }
-        } catch (final RuntimeException exception) {
-            throw new ArgumentResolutionException("Error parsing message attribute: " + messageSystemAttributeName.toString(), exception);
+    /**
+     * Build the converter from the value of the attribute to the type of the parameter.
+     *
+     * <p>If the type is not supported for this attribute, the converter will throw an {@link ArgumentResolutionException} so that it only fails if the
+     * attribute is present.
+     *
+     * @param parameterType              the type of the parameter
+     * @param messageSystemAttributeName the attribute that is being resolved
+     * @return the converter for the attribute
+     */
+    private static Function<String, Object> buildAttributeValueConverter(final Class<?> parameterType,
+                                                                         final MessageSystemAttributeName messageSystemAttributeName) {
+        if (parameterType == String.class) {
+            return attributeValue -> attributeValue;
         }
 
-        if (messageSystemAttributeName == SENT_TIMESTAMP || messageSystemAttributeName == APPROXIMATE_FIRST_RECEIVE_TIMESTAMP) {
-            return handleTimeStampAttributes(methodParameter.getParameter().getType(), messageSystemAttributeName, attributeValue);
+        if (parameterType == Integer.class || parameterType == int.class) {
+            return Integer::parseInt;
         }
 
-        throw new ArgumentResolutionException("Unsupported parameter type " + parameterType.getName()
-                + " for system attribute " + messageSystemAttributeName.toString());
-    }
-
-    private Object handleTimeStampAttributes(final Class<?> parameterType,
-                                             final MessageSystemAttributeName messageSystemAttributeName,
-                                             final String attributeValue) {
-        if (parameterType == Instant.class) {
-            return Instant.ofEpochMilli(Long.parseLong(attributeValue));
+        if (parameterType == Long.class || parameterType == long.class) {
+            return Long::parseLong;
         }
 
-        if (parameterType == OffsetDateTime.class) {
-            return OffsetDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(attributeValue)), UTC);
+        if (messageSystemAttributeName == SENT_TIMESTAMP || messageSystemAttributeName == APPROXIMATE_FIRST_RECEIVE_TIMESTAMP) {
+            if (parameterType == Instant.class) {
+                return attributeValue -> Instant.ofEpochMilli(Long.parseLong(attributeValue));
+            }
+
+            if (parameterType == OffsetDateTime.class) {
+                return attributeValue -> OffsetDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(attributeValue)), UTC);
+            }
         }
 
-        throw new ArgumentResolutionException("Unsupported parameter type " + parameterType.getName()
-                + " for system attribute " + messageSystemAttributeName.toString());
+        return attributeValue -> {
+            throw new ArgumentResolutionException("Unsupported parameter type " + parameterType.getName()
+                    + " for system attribute " + messageSystemAttributeName.toString());
+        };
     }
 }
@@ -4,6 +4,7 @@ import com.jashmore.sqs.QueueProperties;
 import com.jashmore.sqs.argument.ArgumentResolutionException;
 import com.jashmore.sqs.argument.ArgumentResolver;
 import com.jashmore.sqs.argument.MethodParameter;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.util.annotation.AnnotationUtils;
 import software.amazon.awssdk.services.sqs.model.Message;
 
@@ -17,6 +18,11 @@ public class MessageIdArgumentResolver implements ArgumentResolver<String> {
                 && AnnotationUtils.findParameterAnnotation(methodParameter, MessageId.class).isPresent();
     }
 
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes(final MethodParameter methodParameter) {
+        return RequiredMessageAttributes.none();
+    }
+
     @Override
     public String resolveArgumentForParameter(final QueueProperties queueProperties,
                                               final MethodParameter methodParameter,
@@ -3,17 +3,24 @@ package com.jashmore.sqs.argument.payload;
 import com.jashmore.sqs.QueueProperties;
 import com.jashmore.sqs.argument.ArgumentResolutionException;
 import com.jashmore.sqs.argument.ArgumentResolver;
+import com.jashmore.sqs.argument.BoundArgumentResolver;
 import com.jashmore.sqs.argument.MethodParameter;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.argument.payload.mapper.PayloadMapper;
 import com.jashmore.sqs.argument.payload.mapper.PayloadMappingException;
 import com.jashmore.sqs.util.annotation.AnnotationUtils;
 import lombok.AllArgsConstructor;
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
 /**
  * Argument resolver that is able to create an argument from the body of a message.
  *
- * <p>This should allow for the serialisation of the body to a specific Java Bean via an implementation of the {@link PayloadMapper}.
+ * <p>This should allow for the serialisation of the body to a specific Java Bean via an implementation of the {@link PayloadMapper}. Generic parameters,
+ * for example {@code List<Order>}, will be mapped using the full generic type of the parameter.
  *
  * @see Message#body for the payload that will be consumed
  */
@@ -26,14 +33,28 @@ public class PayloadArgumentResolver implements ArgumentResolver<Object> {
         return AnnotationUtils.findParameterAnnotation(methodParameter, Payload.class).isPresent();
     }
 
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes(final MethodParameter methodParameter) {
+        return RequiredMessageAttributes.none();
+    }
+
     @Override
     public Object resolveArgumentForParameter(final QueueProperties queueProperties,
                                               final MethodParameter methodParameter,
                                               final Message message) throws ArgumentResolutionException {
-        try {
-            return payloadMapper.map(message, methodParameter.getParameter().getType());
-        } catch (final PayloadMappingException payloadMappingException) {
-            throw new ArgumentResolutionException(payloadMappingException);
-        }
+        return bind(queueProperties, methodParameter).resolveArgument(message);
+    }
+
+    @Override
+    public BoundArgumentResolver<Object> bind(final QueueProperties queueProperties, final MethodParameter methodParameter) {
+        final Parameter parameter = methodParameter.getParameter();
+        final Type parameterType = parameter.getParameterizedType() instanceof ParameterizedType ? parameter.getParameterizedType() : parameter.getType();
+        return message -> {
+            try {
+                return payloadMapper.map(message, parameterType);
+            } catch (final PayloadMappingException payloadMappingException) {
+                throw new ArgumentResolutionException(payloadMappingException);
+            }
+        };
     }
 }
@@ -1,28 +1,49 @@
 package com.jashmore.sqs.argument.payload.mapper;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectReader;
 import software.amazon.awssdk.services.sqs.model.Message;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cast the message body to a Java Bean using a Jackson {@link ObjectMapper}.
+ *
+ * <p>An {@link ObjectReader} is built and cached for each type that is mapped so that the deserializer for the type only needs to be resolved once,
+ * instead of for every message. As the cached readers are built from the {@link ObjectMapper} when the type is first mapped, any changes to the
+ * configuration of the {@link ObjectMapper} after this will not be used.
  */
-@AllArgsConstructor
 public class JacksonPayloadMapper implements PayloadMapper {
     private final ObjectMapper objectMapper;
+    private final Map<Type, ObjectReader> objectReaders;
+
+    public JacksonPayloadMapper(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.objectReaders = new ConcurrentHashMap<>();
+    }
 
     @Override
-    public Object map(Message message, Class<?> clazz) throws PayloadMappingException {
-        if (clazz.equals(String.class)) {
+    public Object map(final Message message, final Class<?> clazz) throws PayloadMappingException {
+        return map(message, (Type) clazz);
+    }
+
+    @Override
+    public Object map(final Message message, final Type type) throws PayloadMappingException {
+        if (type.equals(String.class)) {
             return message.body();
         }
 
         try {
-            return objectMapper.readValue(message.body(), clazz);
+            return objectReaders.computeIfAbsent(type, this::buildObjectReader).readValue(message.body());
         } catch (final IOException exception) {
             throw new PayloadMappingException("Error trying to resolve Payload for argument", exception);
         }
     }
+
+    private ObjectReader buildObjectReader(final Type type) {
+        return objectMapper.readerFor(objectMapper.getTypeFactory().constructType(type));
+    }
 }
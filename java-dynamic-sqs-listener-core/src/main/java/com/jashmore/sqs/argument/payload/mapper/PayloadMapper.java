@@ -2,6 +2,9 @@ package com.jashmore.sqs.argument.payload.mapper;
 
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
 /**
  * Mapper that is able to map the message body to an object of a certain type.
  *
@@ -18,4 +21,27 @@ public interface PayloadMapper {
      * @throws PayloadMappingException exception thrown if there was a failure to map the message body to the defined type
      */
     Object map(Message message, Class<?> clazz) throws PayloadMappingException;
+
+    /**
+     * Cast the message body to the provided type, which may be a generic type like {@code List<Order>}.
+     *
+     * <p>The default implementation only supports {@link Class} and {@link ParameterizedType} types and will map the body to the raw class of the type,
+     * ignoring any type arguments.
+     *
+     * @param message the message to map the body from
+     * @param type    the type to build the object from the message body
+     * @return the message body as an object of the given type
+     * @throws PayloadMappingException exception thrown if there was a failure to map the message body to the defined type
+     */
+    default Object map(Message message, Type type) throws PayloadMappingException {
+        if (type instanceof Class) {
+            return map(message, (Class<?>) type);
+        }
+
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() instanceof Class) {
+            return map(message, (Class<?>) ((ParameterizedType) type).getRawType());
+        }
+
+        throw new PayloadMappingException("Unsupported payload type: " + type);
+    }
 }
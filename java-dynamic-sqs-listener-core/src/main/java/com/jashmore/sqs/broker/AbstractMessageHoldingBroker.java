@@ -0,0 +1,181 @@
+package com.jashmore.sqs.broker;
+
+import static com.jashmore.sqs.broker.MessageHoldingBrokerConstants.DEFAULT_BACKOFF_TIME_IN_MS;
+import static com.jashmore.sqs.broker.MessageHoldingBrokerConstants.DEFAULT_CONCURRENCY_POLLING_IN_MS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.jashmore.sqs.util.ResizableSemaphore;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link MessageBroker} that holds the messages that it has obtained until they are able to be processed, for example until the previous message with
+ * the same key has finished processing.
+ *
+ * <p>The number of messages held by the broker, whether they are being processed or waiting, is bounded by a {@link ResizableSemaphore} and no more
+ * messages will be requested from the {@link com.jashmore.sqs.retriever.MessageRetriever} until one of these messages has finished processing. Each
+ * message obtained is passed to {@link #addMessage(Message, ExecutorService, Function)} and the implementation must call
+ * {@link #releaseMessagesHeld(int)} once the message is no longer held.
+ */
+@Slf4j
+public abstract class AbstractMessageHoldingBroker implements MessageBroker {
+    private final Supplier<Long> concurrencyPollingRateInMilliseconds;
+    private final Supplier<Long> errorBackoffTimeInMilliseconds;
+    private final ResizableSemaphore messagesHeldSemaphore;
+
+    /**
+     * Constructor.
+     *
+     * @param concurrencyPollingRateInMilliseconds the supplier of the time to wait for a message to finish processing before checking the properties again
+     * @param errorBackoffTimeInMilliseconds       the supplier of the time to backoff when there was an error requesting a message
+     */
+    protected AbstractMessageHoldingBroker(final Supplier<Long> concurrencyPollingRateInMilliseconds,
+                                           final Supplier<Long> errorBackoffTimeInMilliseconds) {
+        this.concurrencyPollingRateInMilliseconds = concurrencyPollingRateInMilliseconds;
+        this.errorBackoffTimeInMilliseconds = errorBackoffTimeInMilliseconds;
+        this.messagesHeldSemaphore = new ResizableSemaphore(0);
+    }
+
+    @Override
+    public final void processMessages(final ExecutorService messageProcessingExecutorService,
+                                      final BooleanSupplier keepProcessingMessages,
+                                      final Supplier<CompletableFuture<Message>> messageSupplier,
+                                      final Function<Message, CompletableFuture<?>> messageProcessor) throws InterruptedException {
+        log.debug("Beginning processing of messages");
+        while (!Thread.currentThread().isInterrupted() && keepProcessingMessages.getAsBoolean()) {
+            try {
+                updatePropertiesIfChanged(messageProcessingExecutorService, messageProcessor);
+
+                final boolean obtainedPermit = messagesHeldSemaphore.tryAcquire(getNumberOfMillisecondsToObtainPermit(), MILLISECONDS);
+                if (!obtainedPermit) {
+                    continue;
+                }
+
+                try {
+                    messageSupplier.get()
+                            .whenComplete((message, throwable) -> {
+                                if (throwable != null) {
+                                    if (!(unwrap(throwable) instanceof CancellationException)) {
+                                        log.error("Error obtaining message", unwrap(throwable));
+                                    }
+                                    releaseMessagesHeld(1);
+                                    return;
+                                }
+                                try {
+                                    addMessage(message, messageProcessingExecutorService, messageProcessor);
+                                } catch (final RuntimeException runtimeException) {
+                                    log.error("Error adding message {} to the broker", message.messageId(), runtimeException);
+                                    releaseMessagesHeld(1);
+                                }
+                            });
+                } catch (final RuntimeException runtimeException) {
+                    releaseMessagesHeld(1);
+                    // bubble the exception to deal with backing off, as we don't want to duplicate that code
+                    throw runtimeException;
+                }
+            } catch (final RuntimeException runtimeException) {
+                final long errorBackoffTimeInMilliseconds = getErrorBackoffTimeInMilliseconds();
+                log.error("Error thrown while organising threads to process messages. Backing off for {}ms", errorBackoffTimeInMilliseconds,
+                        runtimeException);
+                Thread.sleep(errorBackoffTimeInMilliseconds);
+            }
+        }
+        log.debug("Ending processing of messages");
+    }
+
+    /**
+     * Checks the properties of the broker before each message is requested, updating the maximum number of messages held via
+     * {@link #changeMaximumNumberOfMessagesHeld(int)} if necessary.
+     *
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    protected abstract void updatePropertiesIfChanged(ExecutorService messageProcessingExecutorService,
+                                                      Function<Message, CompletableFuture<?>> messageProcessor);
+
+    /**
+     * Add the message that was obtained to the broker, which now holds the message until {@link #releaseMessagesHeld(int)} is called for it.
+     *
+     * <p>If an exception is thrown the message is no longer held, and therefore the implementation must not have kept the message.
+     *
+     * @param message                          the message that was obtained
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    protected abstract void addMessage(Message message,
+                                       ExecutorService messageProcessingExecutorService,
+                                       Function<Message, CompletableFuture<?>> messageProcessor);
+
+    /**
+     * Change the maximum number of messages that can be held by this broker, where messages already held are never discarded if it decreases.
+     *
+     * @param maximumNumberOfMessagesHeld the new maximum number of messages held
+     */
+    protected final void changeMaximumNumberOfMessagesHeld(final int maximumNumberOfMessagesHeld) {
+        if (messagesHeldSemaphore.getMaximumPermits() != maximumNumberOfMessagesHeld) {
+            log.info("Changing maximum number of messages held from {} to {}", messagesHeldSemaphore.getMaximumPermits(), maximumNumberOfMessagesHeld);
+            messagesHeldSemaphore.changePermitSize(maximumNumberOfMessagesHeld);
+        }
+    }
+
+    /**
+     * Release messages that are no longer held by the broker, allowing more messages to be requested.
+     *
+     * @param numberOfMessages the number of messages that are no longer held
+     */
+    protected final void releaseMessagesHeld(final int numberOfMessages) {
+        messagesHeldSemaphore.release(numberOfMessages);
+    }
+
+    /**
+     * Start processing the message on the executor service, logging any error that was thrown while processing it.
+     *
+     * @param message                          the message to process
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     * @return the future that will be resolved when the message has finished processing
+     */
+    protected static CompletableFuture<?> startProcessing(final Message message,
+                                                          final ExecutorService messageProcessingExecutorService,
+                                                          final Function<Message, CompletableFuture<?>> messageProcessor) {
+        return CompletableFuture.completedFuture(message)
+                .thenComposeAsync(messageProcessor::apply, messageProcessingExecutorService)
+                .whenComplete((ignoredResult, throwable) -> {
+                    if (throwable != null && !(unwrap(throwable) instanceof CancellationException)) {
+                        log.error("Error processing message", unwrap(throwable));
+                    }
+                });
+    }
+
+    private static Throwable unwrap(final Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    private long getNumberOfMillisecondsToObtainPermit() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "concurrencyPollingRateInMilliseconds",
+                concurrencyPollingRateInMilliseconds,
+                DEFAULT_CONCURRENCY_POLLING_IN_MS
+        );
+    }
+
+    private long getErrorBackoffTimeInMilliseconds() {
+        return PropertyUtils.safelyGetPositiveOrZeroLongValue(
+                "errorBackoffTimeInMilliseconds",
+                errorBackoffTimeInMilliseconds,
+                DEFAULT_BACKOFF_TIME_IN_MS
+        );
+    }
+}
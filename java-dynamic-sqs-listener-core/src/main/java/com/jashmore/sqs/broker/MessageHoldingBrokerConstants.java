@@ -0,0 +1,16 @@
+package com.jashmore.sqs.broker;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class MessageHoldingBrokerConstants {
+    /**
+     * The default amount of time to sleep the thread when there was an error organising the processing of messages.
+     */
+    static final long DEFAULT_BACKOFF_TIME_IN_MS = 10_000L;
+
+    /**
+     * The default amount of time the thread should wait for a message to finish processing before it checks the properties again.
+     */
+    static final long DEFAULT_CONCURRENCY_POLLING_IN_MS = 60_000L;
+}
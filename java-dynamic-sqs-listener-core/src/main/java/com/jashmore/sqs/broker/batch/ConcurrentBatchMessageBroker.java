@@ -0,0 +1,218 @@
+package com.jashmore.sqs.broker.batch;
+
+import static com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerConstants.DEFAULT_BACKOFF_TIME_IN_MS;
+import static com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerConstants.DEFAULT_CONCURRENCY_POLLING_IN_MS;
+import static com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerConstants.DEFAULT_MAX_BATCHING_PERIOD_IN_MS;
+import static com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerConstants.DEFAULT_MAX_BATCH_SIZE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.jashmore.sqs.broker.BatchMessageBroker;
+import com.jashmore.sqs.util.ResizableSemaphore;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import javax.annotation.Nullable;
+
+/**
+ * {@link BatchMessageBroker} that requests batches of messages and allows for a number of these batches to be processed concurrently, with each batch
+ * being processed by a single thread.
+ *
+ * <p>For each batch, up to {@link ConcurrentBatchMessageBrokerProperties#getMaxBatchSize()} messages are requested. Once the first messages have been
+ * obtained, the broker will keep requesting the remaining messages until the batch is full or
+ * {@link ConcurrentBatchMessageBrokerProperties#getMaxBatchingPeriodInMs()} has elapsed, at which point the batch is processed with the messages
+ * collected so far. If a request for messages has not been resolved by then, it will be used for the next batch so that no messages are lost.
+ *
+ * <p>The number of batches being processed concurrently is maintained via a {@link ResizableSemaphore}, in the same way as the
+ * {@link com.jashmore.sqs.broker.concurrent.ConcurrentMessageBroker}, and the next batch is only requested once a permit has been obtained.
+ *
+ * @see ConcurrentBatchMessageBrokerProperties for how to configure this broker
+ */
+@Slf4j
+public class ConcurrentBatchMessageBroker implements BatchMessageBroker {
+    private final ConcurrentBatchMessageBrokerProperties properties;
+    private final ResizableSemaphore concurrentBatchesBeingProcessedSemaphore;
+
+    public ConcurrentBatchMessageBroker(final ConcurrentBatchMessageBrokerProperties properties) {
+        this.properties = properties;
+        this.concurrentBatchesBeingProcessedSemaphore = new ResizableSemaphore(0);
+    }
+
+    @Override
+    public void processMessageBatches(final ExecutorService messageProcessingExecutorService,
+                                      final BooleanSupplier keepProcessingMessages,
+                                      final IntFunction<CompletableFuture<List<Message>>> messagesSupplier,
+                                      final Function<List<Message>, CompletableFuture<?>> batchProcessor) throws InterruptedException {
+        log.debug("Beginning processing of message batches");
+        CompletableFuture<List<Message>> pendingMessagesRequest = null;
+        try {
+            while (!Thread.currentThread().isInterrupted() && keepProcessingMessages.getAsBoolean()) {
+                try {
+                    updateConcurrencyLevelIfChanged(concurrentBatchesBeingProcessedSemaphore);
+
+                    final long numberOfMillisecondsToObtainPermit = getNumberOfMillisecondsToObtainPermit();
+                    final boolean obtainedPermit = concurrentBatchesBeingProcessedSemaphore.tryAcquire(numberOfMillisecondsToObtainPermit, MILLISECONDS);
+                    if (!obtainedPermit) {
+                        continue;
+                    }
+
+                    final List<Message> batch = new ArrayList<>();
+                    try {
+                        pendingMessagesRequest = fillBatch(batch, pendingMessagesRequest, messagesSupplier, numberOfMillisecondsToObtainPermit);
+                        if (batch.isEmpty()) {
+                            concurrentBatchesBeingProcessedSemaphore.release();
+                            continue;
+                        }
+
+                        CompletableFuture.completedFuture(batch)
+                                .thenComposeAsync(messages -> batchProcessor.apply(messages), messageProcessingExecutorService)
+                                .whenComplete((ignoredResult, throwable) -> {
+                                    logBatchProcessingError(throwable);
+                                    concurrentBatchesBeingProcessedSemaphore.release();
+                                });
+                    } catch (final RuntimeException runtimeException) {
+                        concurrentBatchesBeingProcessedSemaphore.release();
+                        // bubble the exception to deal with backing off, as we don't want to duplicate that code
+                        throw runtimeException;
+                    }
+                } catch (final RuntimeException runtimeException) {
+                    final long errorBackoffTimeInMilliseconds = getErrorBackoffTimeInMilliseconds();
+                    log.error("Error thrown while organising batches of messages to process. Backing off for {}ms", errorBackoffTimeInMilliseconds,
+                            runtimeException);
+                    Thread.sleep(errorBackoffTimeInMilliseconds);
+                }
+            }
+        } finally {
+            if (pendingMessagesRequest != null) {
+                // The messages requested have not been obtained yet and they still need to be processed when they are
+                pendingMessagesRequest
+                        .thenComposeAsync(
+                                messages -> messages.isEmpty() ? CompletableFuture.completedFuture(null) : batchProcessor.apply(messages),
+                                messageProcessingExecutorService
+                        )
+                        .whenComplete((ignoredResult, throwable) -> logBatchProcessingError(throwable));
+            }
+        }
+        log.debug("Ending processing of message batches");
+    }
+
+    /**
+     * Fill the batch with messages until it has the maximum number of messages or the maximum batching period has elapsed since the first messages
+     * were obtained.
+     *
+     * <p>If the thread is interrupted while waiting for messages, the interrupt flag is restored and the request that has not been resolved is
+     * returned instead of throwing, so that the messages already in the batch and those in the unresolved request can still be processed.
+     *
+     * @param batch                                      the batch to add the messages to
+     * @param pendingMessagesRequest                     the request for messages that was not resolved while filling the previous batch, if any
+     * @param messagesSupplier                           the function to request up to the given number of messages
+     * @param numberOfMillisecondsToWaitForFirstMessages the maximum time to wait for the first messages of the batch
+     * @return the request for messages that has not been resolved and should be used for the next batch, or null if there is no such request
+     */
+    @Nullable
+    private CompletableFuture<List<Message>> fillBatch(final List<Message> batch,
+                                                       @Nullable final CompletableFuture<List<Message>> pendingMessagesRequest,
+                                                       final IntFunction<CompletableFuture<List<Message>>> messagesSupplier,
+                                                       final long numberOfMillisecondsToWaitForFirstMessages) {
+        final int maxBatchSize = getMaxBatchSize();
+        CompletableFuture<List<Message>> messagesRequest = pendingMessagesRequest != null ? pendingMessagesRequest : messagesSupplier.apply(maxBatchSize);
+        try {
+            batch.addAll(messagesRequest.get(numberOfMillisecondsToWaitForFirstMessages, MILLISECONDS));
+
+            final long batchingDeadline = System.nanoTime() + MILLISECONDS.toNanos(getMaxBatchingPeriodInMs());
+            while (batch.size() < maxBatchSize) {
+                final long remainingBatchingTimeInNanoseconds = batchingDeadline - System.nanoTime();
+                if (remainingBatchingTimeInNanoseconds <= 0) {
+                    break;
+                }
+
+                messagesRequest = messagesSupplier.apply(maxBatchSize - batch.size());
+                batch.addAll(messagesRequest.get(remainingBatchingTimeInNanoseconds, NANOSECONDS));
+            }
+            return null;
+        } catch (final TimeoutException timeoutException) {
+            return messagesRequest;
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return messagesRequest;
+        } catch (final CancellationException cancellationException) {
+            return null;
+        } catch (final ExecutionException executionException) {
+            if (!(executionException.getCause() instanceof CancellationException)) {
+                log.error("Error requesting messages", executionException.getCause());
+            }
+            return null;
+        }
+    }
+
+    private static void logBatchProcessingError(@Nullable final Throwable throwable) {
+        if (throwable != null && !(throwable.getCause() instanceof CancellationException)) {
+            log.error("Error processing batch of messages", throwable.getCause());
+        }
+    }
+
+    /**
+     * Checks the concurrency level of the broker and will update the number of batches that can be processed concurrently if necessary.
+     *
+     * <p>If the concurrency level decreases any batches being processed currently will keep running.
+     */
+    private void updateConcurrencyLevelIfChanged(final ResizableSemaphore resizableSemaphore) {
+        final int newConcurrencyLevel = getConcurrencyLevel();
+
+        if (resizableSemaphore.getMaximumPermits() != newConcurrencyLevel) {
+            log.info("Changing concurrency from {} to {}", resizableSemaphore.getMaximumPermits(), newConcurrencyLevel);
+            resizableSemaphore.changePermitSize(newConcurrencyLevel);
+        }
+    }
+
+    private int getMaxBatchSize() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "maxBatchSize",
+                properties::getMaxBatchSize,
+                DEFAULT_MAX_BATCH_SIZE
+        );
+    }
+
+    private long getMaxBatchingPeriodInMs() {
+        return PropertyUtils.safelyGetPositiveOrZeroLongValue(
+                "maxBatchingPeriodInMs",
+                properties::getMaxBatchingPeriodInMs,
+                DEFAULT_MAX_BATCHING_PERIOD_IN_MS
+        );
+    }
+
+    private int getConcurrencyLevel() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "concurrencyLevel",
+                properties::getConcurrencyLevel,
+                0
+        );
+    }
+
+    private long getNumberOfMillisecondsToObtainPermit() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "concurrencyPollingRateInMilliseconds",
+                properties::getConcurrencyPollingRateInMilliseconds,
+                DEFAULT_CONCURRENCY_POLLING_IN_MS
+        );
+    }
+
+    private long getErrorBackoffTimeInMilliseconds() {
+        return PropertyUtils.safelyGetPositiveOrZeroLongValue(
+                "errorBackoffTimeInMilliseconds",
+                properties::getErrorBackoffTimeInMilliseconds,
+                DEFAULT_BACKOFF_TIME_IN_MS
+        );
+    }
+}
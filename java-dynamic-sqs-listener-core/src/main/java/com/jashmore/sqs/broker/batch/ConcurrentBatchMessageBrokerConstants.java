@@ -0,0 +1,27 @@
+package com.jashmore.sqs.broker.batch;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class ConcurrentBatchMessageBrokerConstants {
+    /**
+     * The default maximum number of messages in a batch if there was an error obtaining the value.
+     */
+    static final int DEFAULT_MAX_BATCH_SIZE = 1;
+
+    /**
+     * The default amount of time that a batch will wait for more messages after the first messages have been received.
+     */
+    static final long DEFAULT_MAX_BATCHING_PERIOD_IN_MS = 1_000L;
+
+    /**
+     * The default amount of time to sleep the thread when there was an error organising the batches of messages.
+     */
+    static final int DEFAULT_BACKOFF_TIME_IN_MS = 10_000;
+
+    /**
+     * The default amount of time the thread should wait for a batch to finish processing, or the first messages of a batch, before it checks the
+     * available concurrency again.
+     */
+    static final long DEFAULT_CONCURRENCY_POLLING_IN_MS = 60_000L;
+}
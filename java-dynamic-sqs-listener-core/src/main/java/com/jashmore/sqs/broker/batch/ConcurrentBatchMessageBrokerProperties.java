@@ -0,0 +1,78 @@
+package com.jashmore.sqs.broker.batch;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for dynamically configuring how the {@link ConcurrentBatchMessageBroker} collects and processes batches of messages.
+ *
+ * <p>These properties will be consumed by the {@link ConcurrentBatchMessageBroker} every time a new batch is requested and therefore can change
+ * dynamically during runtime.
+ *
+ * <p>Implementations of these properties do not need to be thread safe because there is only a single coordinating thread that will be consuming this
+ * object.
+ */
+@NotThreadSafe
+public interface ConcurrentBatchMessageBrokerProperties {
+    /**
+     * The maximum number of messages that will be included in a single batch.
+     *
+     * <p>This is the number of messages that will be requested from the retriever for each batch and therefore, if the messages are being received
+     * directly from SQS, values above 10 will require multiple requests to fill a batch.
+     *
+     * <p>If this value is not positive, {@link ConcurrentBatchMessageBrokerConstants#DEFAULT_MAX_BATCH_SIZE} will be used instead.
+     *
+     * @return the maximum number of messages in a batch
+     */
+    @Positive
+    int getMaxBatchSize();
+
+    /**
+     * The maximum amount of time that a batch will wait for more messages after the first messages in it have been received, before the batch is
+     * processed with the messages that have been collected so far.
+     *
+     * <p>If this value is zero, the batch will only contain the messages that were received in the first request. If this value is null or negative,
+     * {@link ConcurrentBatchMessageBrokerConstants#DEFAULT_MAX_BATCHING_PERIOD_IN_MS} will be used.
+     *
+     * @return the maximum time in milliseconds to wait for the batch to fill
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getMaxBatchingPeriodInMs();
+
+    /**
+     * The number of batches that can be processed concurrently, e.g. the number of threads that can process batches at the same time.
+     *
+     * <p>As with the {@link com.jashmore.sqs.broker.concurrent.ConcurrentMessageBroker}, a decrease in this value will only take effect once enough
+     * batches have finished processing.
+     *
+     * @return the level of concurrency for processing batches
+     */
+    @PositiveOrZero
+    int getConcurrencyLevel();
+
+    /**
+     * The number of milliseconds that the coordinating thread will wait for a batch to finish processing, or for the first messages of a batch to be
+     * obtained, before checking the concurrency level again.
+     *
+     * <p>If this value is null or not positive, {@link ConcurrentBatchMessageBrokerConstants#DEFAULT_CONCURRENCY_POLLING_IN_MS} will be used instead.
+     *
+     * @return the number of milliseconds between polls for the concurrency level
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getConcurrencyPollingRateInMilliseconds();
+
+    /**
+     * The number of milliseconds that the coordinating thread should backoff if there was an error trying to request a batch of messages.
+     *
+     * <p>If this value is null or negative, {@link ConcurrentBatchMessageBrokerConstants#DEFAULT_BACKOFF_TIME_IN_MS} will be used as the backoff period.
+     *
+     * @return the number of milliseconds to sleep the thread after an error is thrown
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getErrorBackoffTimeInMilliseconds();
+}
@@ -0,0 +1,54 @@
+package com.jashmore.sqs.broker.batch;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticConcurrentBatchMessageBrokerProperties implements ConcurrentBatchMessageBrokerProperties {
+    private final int maxBatchSize;
+    private final Long maxBatchingPeriodInMs;
+    private final int concurrencyLevel;
+    private final Long concurrencyPollingRateInMilliseconds;
+    private final Long errorBackoffTimeInMilliseconds;
+
+    @Positive
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getMaxBatchingPeriodInMs() {
+        return maxBatchingPeriodInMs;
+    }
+
+    @PositiveOrZero
+    @Override
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return concurrencyPollingRateInMilliseconds;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return errorBackoffTimeInMilliseconds;
+    }
+}
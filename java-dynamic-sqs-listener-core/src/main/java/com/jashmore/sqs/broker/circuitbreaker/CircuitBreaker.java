@@ -0,0 +1,291 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import static com.jashmore.sqs.broker.circuitbreaker.CircuitBreakerConstants.DEFAULT_FAILURE_RATE_THRESHOLD;
+import static com.jashmore.sqs.broker.circuitbreaker.CircuitBreakerConstants.DEFAULT_NUMBER_OF_PROBE_MESSAGES;
+import static com.jashmore.sqs.broker.circuitbreaker.CircuitBreakerConstants.DEFAULT_OPEN_DURATION_IN_MS;
+import static com.jashmore.sqs.broker.circuitbreaker.CircuitBreakerConstants.DEFAULT_WINDOW_SIZE;
+import static com.jashmore.sqs.broker.circuitbreaker.CircuitBreakerConstants.PROBE_POLLING_TIME_IN_MS;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Circuit breaker that stops messages from being processed when too many of them are failing, for example because a downstream dependency is down.
+ *
+ * <p>The circuit breaker has three states:
+ * <ul>
+ *     <li>{@link State#CLOSED}: permits are given out straight away and the outcome of the last {@link CircuitBreakerProperties#getWindowSize()}
+ *     messages are tracked. Once the window is full and the proportion of failures reaches {@link CircuitBreakerProperties#getFailureRateThreshold()},
+ *     the circuit is opened.</li>
+ *     <li>{@link State#OPEN}: no permits are given out until {@link CircuitBreakerProperties#getOpenDurationInMs()} has elapsed, after which the circuit
+ *     is half open.</li>
+ *     <li>{@link State#HALF_OPEN}: only {@link CircuitBreakerProperties#getNumberOfProbeMessages()} permits are given out. If all of these probe messages
+ *     succeed the circuit is closed, but if any of them fail the circuit is opened again.</li>
+ * </ul>
+ *
+ * <p>Each {@link Permit} records the state of the circuit that it was issued in, and only the outcomes of messages processed with a permit issued in the
+ * current state are used. For example, a message that was requested before the circuit was opened will not be counted as a probe message if it finishes
+ * once the circuit is half open.
+ *
+ * <p>The current state can be obtained via {@link #getState()}, for example to publish it as a metric.
+ */
+@Slf4j
+@ThreadSafe
+public class CircuitBreaker {
+    private final CircuitBreakerProperties properties;
+    private final LongSupplier nanoTimeSupplier;
+
+    @GuardedBy("this")
+    private State state;
+    /**
+     * Incremented each time that the state changes so that the permits issued in a previous state can be ignored.
+     */
+    @GuardedBy("this")
+    private long generation;
+    /**
+     * The outcomes of the most recently processed messages while the circuit is closed, where true indicates that the message was successful.
+     */
+    @GuardedBy("this")
+    private final Deque<Boolean> outcomes;
+    @GuardedBy("this")
+    private int numberOfFailures;
+    @GuardedBy("this")
+    private long openedTimeInNanoseconds;
+    @GuardedBy("this")
+    private int numberOfProbesRemaining;
+    @GuardedBy("this")
+    private int numberOfProbesSucceeded;
+
+    public CircuitBreaker(final CircuitBreakerProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    CircuitBreaker(final CircuitBreakerProperties properties, final LongSupplier nanoTimeSupplier) {
+        this.properties = properties;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+
+        this.state = State.CLOSED;
+        this.outcomes = new ArrayDeque<>();
+    }
+
+    /**
+     * Get the current state of the circuit.
+     *
+     * @return the state of the circuit
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Obtain a permit to process a message, waiting while the circuit is open.
+     *
+     * @return the permit that must be provided when the message has been processed
+     * @throws InterruptedException if the thread was interrupted while waiting for a permit
+     */
+    public Permit acquire() throws InterruptedException {
+        Permit permit;
+        while ((permit = tryAcquire()) == null) {
+            TimeUnit.NANOSECONDS.sleep(getTimeUntilNextPermitInNanoseconds());
+        }
+        return permit;
+    }
+
+    /**
+     * Try to obtain a permit without waiting.
+     *
+     * @return the permit if one was obtained, otherwise null
+     */
+    @Nullable
+    @VisibleForTesting
+    synchronized Permit tryAcquire() {
+        if (getTimeUntilNextPermitInNanoseconds() > 0) {
+            return null;
+        }
+
+        if (state == State.HALF_OPEN) {
+            numberOfProbesRemaining--;
+        }
+        return new Permit(generation);
+    }
+
+    /**
+     * Determine how long until a permit can be obtained, moving the circuit to half open once it has been open for long enough.
+     *
+     * @return zero if a permit can be obtained, otherwise the amount of time in nanoseconds to wait before trying again
+     */
+    @VisibleForTesting
+    synchronized long getTimeUntilNextPermitInNanoseconds() {
+        if (state == State.OPEN) {
+            final long timeUntilHalfOpenInNanoseconds = openedTimeInNanoseconds + TimeUnit.MILLISECONDS.toNanos(getOpenDurationInMs())
+                    - nanoTimeSupplier.getAsLong();
+            if (timeUntilHalfOpenInNanoseconds > 0) {
+                return timeUntilHalfOpenInNanoseconds;
+            }
+            log.info("Circuit is half open, allowing probe messages to be processed");
+            changeState(State.HALF_OPEN);
+            numberOfProbesRemaining = getNumberOfProbeMessages();
+            numberOfProbesSucceeded = 0;
+        }
+
+        if (state == State.HALF_OPEN && numberOfProbesRemaining <= 0) {
+            return TimeUnit.MILLISECONDS.toNanos(PROBE_POLLING_TIME_IN_MS);
+        }
+        return 0;
+    }
+
+    /**
+     * Return a permit that was not used to process a message, for example because there was an error obtaining the message.
+     *
+     * <p>This allows another probe message to be requested if the circuit is half open and the permit was issued as a probe.
+     *
+     * @param permit the permit that was not used
+     */
+    public synchronized void releaseUnusedPermit(final Permit permit) {
+        if (permit.generation == generation && state == State.HALF_OPEN) {
+            numberOfProbesRemaining++;
+        }
+    }
+
+    /**
+     * Record the outcome of a message that was processed with a permit from this circuit breaker.
+     *
+     * <p>The outcome is ignored if the state of the circuit has changed since the permit was issued, so that only the messages requested while the
+     * circuit was half open are counted as probe messages.
+     *
+     * @param permit        the permit that the message was processed with
+     * @param wasSuccessful whether the message was successfully processed
+     */
+    public synchronized void onMessageProcessed(final Permit permit, final boolean wasSuccessful) {
+        if (permit.generation != generation) {
+            log.debug("Ignoring outcome of message requested before the circuit changed to {}", state);
+            return;
+        }
+
+        if (state == State.CLOSED) {
+            recordOutcome(wasSuccessful);
+        } else if (!wasSuccessful) {
+            log.warn("Probe message failed, opening the circuit again");
+            open();
+        } else if (++numberOfProbesSucceeded >= getNumberOfProbeMessages()) {
+            log.info("Probe messages succeeded, closing the circuit");
+            changeState(State.CLOSED);
+        }
+    }
+
+    @GuardedBy("this")
+    private void recordOutcome(final boolean wasSuccessful) {
+        outcomes.addLast(wasSuccessful);
+        if (!wasSuccessful) {
+            numberOfFailures++;
+        }
+
+        final int windowSize = getWindowSize();
+        while (outcomes.size() > windowSize) {
+            if (!outcomes.removeFirst()) {
+                numberOfFailures--;
+            }
+        }
+
+        if (outcomes.size() < windowSize) {
+            return;
+        }
+
+        final double failureRate = numberOfFailures / (double) outcomes.size();
+        if (failureRate >= getFailureRateThreshold()) {
+            log.warn("Failure rate of {} has reached the threshold, opening the circuit", failureRate);
+            open();
+        }
+    }
+
+    @GuardedBy("this")
+    private void open() {
+        changeState(State.OPEN);
+        openedTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+        outcomes.clear();
+        numberOfFailures = 0;
+    }
+
+    @GuardedBy("this")
+    private void changeState(final State newState) {
+        state = newState;
+        generation++;
+    }
+
+    private double getFailureRateThreshold() {
+        try {
+            final Double failureRateThreshold = properties.getFailureRateThreshold();
+            if (failureRateThreshold != null && failureRateThreshold > 0 && failureRateThreshold <= 1) {
+                return failureRateThreshold;
+            }
+        } catch (final RuntimeException runtimeException) {
+            log.error("Error obtaining Property value failureRateThreshold returning default value {}", DEFAULT_FAILURE_RATE_THRESHOLD,
+                    runtimeException);
+        }
+        return DEFAULT_FAILURE_RATE_THRESHOLD;
+    }
+
+    private int getWindowSize() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "windowSize",
+                properties::getWindowSize,
+                DEFAULT_WINDOW_SIZE
+        );
+    }
+
+    private long getOpenDurationInMs() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "openDurationInMs",
+                properties::getOpenDurationInMs,
+                DEFAULT_OPEN_DURATION_IN_MS
+        );
+    }
+
+    private int getNumberOfProbeMessages() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "numberOfProbeMessages",
+                properties::getNumberOfProbeMessages,
+                DEFAULT_NUMBER_OF_PROBE_MESSAGES
+        );
+    }
+
+    /**
+     * A permit to process a single message, which records the state of the circuit that it was issued in.
+     */
+    public static final class Permit {
+        private final long generation;
+
+        private Permit(final long generation) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The state of the circuit.
+     */
+    public enum State {
+        /**
+         * Messages are being processed as normal.
+         */
+        CLOSED,
+        /**
+         * Too many messages have failed and no messages will be processed.
+         */
+        OPEN,
+        /**
+         * A limited number of probe messages are being processed to determine whether the circuit can be closed.
+         */
+        HALF_OPEN
+    }
+}
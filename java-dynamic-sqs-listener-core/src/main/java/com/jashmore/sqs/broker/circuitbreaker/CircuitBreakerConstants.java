@@ -0,0 +1,31 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class CircuitBreakerConstants {
+    /**
+     * The default proportion of messages that can fail within the window before the circuit is opened.
+     */
+    static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /**
+     * The default number of the most recently processed messages that the failure rate is calculated from.
+     */
+    static final int DEFAULT_WINDOW_SIZE = 20;
+
+    /**
+     * The default amount of time that the circuit stays open before probe messages are allowed through.
+     */
+    static final long DEFAULT_OPEN_DURATION_IN_MS = 30_000L;
+
+    /**
+     * The default number of probe messages that must succeed before the circuit is closed again.
+     */
+    static final int DEFAULT_NUMBER_OF_PROBE_MESSAGES = 1;
+
+    /**
+     * The amount of time to wait before checking again for a permit while all of the probe messages are being processed.
+     */
+    static final long PROBE_POLLING_TIME_IN_MS = 1_000L;
+}
@@ -0,0 +1,56 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+
+/**
+ * Properties for configuring the {@link CircuitBreaker}, which will be checked each time a permit is requested or a message finishes processing and
+ * therefore can change dynamically during runtime.
+ */
+public interface CircuitBreakerProperties {
+    /**
+     * The proportion of the messages in the window that can fail before the circuit is opened.
+     *
+     * <p>If this value is null, not greater than zero or greater than one, {@link CircuitBreakerConstants#DEFAULT_FAILURE_RATE_THRESHOLD} will be used.
+     *
+     * @return the failure rate that will open the circuit
+     */
+    @Nullable
+    Double getFailureRateThreshold();
+
+    /**
+     * The number of the most recently processed messages that the failure rate is calculated from.
+     *
+     * <p>The circuit will not be opened until at least this many messages have been processed so that a small number of failures, for example when the
+     * application has just started, does not open the circuit.
+     *
+     * <p>If this value is null or not positive, {@link CircuitBreakerConstants#DEFAULT_WINDOW_SIZE} will be used.
+     *
+     * @return the number of messages in the window
+     */
+    @Nullable
+    @Positive
+    Integer getWindowSize();
+
+    /**
+     * The amount of time that the circuit stays open, where no messages will be requested, before probe messages are allowed through.
+     *
+     * <p>If this value is null or not positive, {@link CircuitBreakerConstants#DEFAULT_OPEN_DURATION_IN_MS} will be used.
+     *
+     * @return the time in milliseconds that the circuit stays open
+     */
+    @Nullable
+    @Positive
+    Long getOpenDurationInMs();
+
+    /**
+     * The number of messages that are allowed through when the circuit is half open, all of which must succeed for the circuit to be closed.
+     *
+     * <p>If this value is null or not positive, {@link CircuitBreakerConstants#DEFAULT_NUMBER_OF_PROBE_MESSAGES} will be used.
+     *
+     * @return the number of probe messages
+     */
+    @Nullable
+    @Positive
+    Integer getNumberOfProbeMessages();
+}
@@ -0,0 +1,137 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import com.jashmore.sqs.broker.MessageBroker;
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link MessageBroker} that stops requesting messages for the delegate broker while the {@link CircuitBreaker} is open.
+ *
+ * <p>When a downstream dependency is unavailable every message will fail and be placed back onto the queue, only to be received and fail again until it
+ * is eventually moved to the dead letter queue. By not requesting messages while the circuit is open, the messages remain in the SQS queue without
+ * using up their receive count and no requests to SQS or threads are used to process them. When used with a retriever that prefetches messages, only
+ * the messages that have already been prefetched will be held.
+ *
+ * <p>For example, to stop processing messages for a minute once half of the last 20 messages have failed:
+ * <pre class="code">
+ * final CircuitBreaker circuitBreaker = new CircuitBreaker(StaticCircuitBreakerProperties.builder()
+ *         .failureRateThreshold(0.5)
+ *         .windowSize(20)
+ *         .openDurationInMs(60_000L)
+ *         .build());
+ * new CircuitBreakingMessageBroker(new ConcurrentMessageBroker(StaticConcurrentMessageBrokerProperties.builder().concurrencyLevel(4).build()),
+ *         circuitBreaker);
+ * </pre>
+ */
+@Slf4j
+public class CircuitBreakingMessageBroker implements MessageBroker {
+    private final MessageBroker delegate;
+    private final CircuitBreaker circuitBreaker;
+    /**
+     * The permits of the messages that have been obtained but have not started processing, keyed by the identity of the message.
+     */
+    private final Map<Message, CircuitBreaker.Permit> permitsForMessages;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate       the broker that will process the messages
+     * @param circuitBreaker the circuit breaker for the messages, which can be shared between multiple brokers that call the same dependency
+     */
+    public CircuitBreakingMessageBroker(final MessageBroker delegate, final CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.permitsForMessages = Collections.synchronizedMap(new IdentityHashMap<>());
+    }
+
+    @Override
+    public void processMessages(final ExecutorService messageProcessingExecutorService,
+                                final BooleanSupplier keepProcessingMessages,
+                                final Supplier<CompletableFuture<Message>> messageSupplier,
+                                final Function<Message, CompletableFuture<?>> messageProcessor) throws InterruptedException {
+        delegate.processMessages(
+                messageProcessingExecutorService,
+                keepProcessingMessages,
+                () -> obtainPermitAndSupplyMessage(messageSupplier),
+                message -> processMessage(message, messageProcessor)
+        );
+    }
+
+    /**
+     * Wait for a permit from the circuit breaker before requesting the next message.
+     *
+     * <p>As the {@link Supplier} is unable to throw an {@link InterruptedException}, if the thread is interrupted while waiting for a permit the
+     * interrupted status of the thread is restored and a cancelled future is returned so that the delegate broker can stop processing messages.
+     *
+     * @param messageSupplier the supplier of the next message
+     * @return the future that will be resolved with the next message
+     */
+    private CompletableFuture<Message> obtainPermitAndSupplyMessage(final Supplier<CompletableFuture<Message>> messageSupplier) {
+        final CircuitBreaker.Permit permit;
+        try {
+            permit = circuitBreaker.acquire();
+        } catch (final InterruptedException interruptedException) {
+            log.debug("Interrupted while waiting for the circuit to close");
+            Thread.currentThread().interrupt();
+            return CompletableFutureUtils.completedExceptionally(new CancellationException("Interrupted while waiting for a permit"));
+        }
+
+        final CompletableFuture<Message> messageFuture;
+        try {
+            messageFuture = messageSupplier.get();
+        } catch (final RuntimeException runtimeException) {
+            circuitBreaker.releaseUnusedPermit(permit);
+            throw runtimeException;
+        }
+        return messageFuture.whenComplete((message, throwable) -> {
+            if (throwable != null) {
+                circuitBreaker.releaseUnusedPermit(permit);
+            } else {
+                permitsForMessages.put(message, permit);
+            }
+        });
+    }
+
+    /**
+     * Process the message, notifying the {@link CircuitBreaker} of whether it was successful with the permit that the message was obtained with.
+     *
+     * @param message          the message to process
+     * @param messageProcessor the function that will process the message
+     * @return the future that will be resolved when the message has finished processing
+     */
+    private CompletableFuture<?> processMessage(final Message message, final Function<Message, CompletableFuture<?>> messageProcessor) {
+        final CircuitBreaker.Permit permit = permitsForMessages.remove(message);
+        if (permit == null) {
+            log.warn("No permit was obtained for message {}, its outcome will not be recorded", message.messageId());
+            return messageProcessor.apply(message);
+        }
+
+        final CompletableFuture<?> processingFuture;
+        try {
+            processingFuture = messageProcessor.apply(message);
+        } catch (final RuntimeException runtimeException) {
+            circuitBreaker.onMessageProcessed(permit, false);
+            throw runtimeException;
+        }
+
+        return processingFuture.whenComplete((ignoredResult, throwable) -> {
+            if (throwable instanceof CancellationException || (throwable != null && throwable.getCause() instanceof CancellationException)) {
+                // the message was cancelled due to the container shutting down and therefore does not indicate a failure
+                circuitBreaker.releaseUnusedPermit(permit);
+                return;
+            }
+            circuitBreaker.onMessageProcessed(permit, throwable == null);
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticCircuitBreakerProperties implements CircuitBreakerProperties {
+    private final Double failureRateThreshold;
+    private final Integer windowSize;
+    private final Long openDurationInMs;
+    private final Integer numberOfProbeMessages;
+
+    @Nullable
+    @Override
+    public Double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getWindowSize() {
+        return windowSize;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Long getOpenDurationInMs() {
+        return openDurationInMs;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getNumberOfProbeMessages() {
+        return numberOfProbeMessages;
+    }
+}
@@ -0,0 +1,180 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import static com.jashmore.sqs.broker.concurrent.AdaptiveConcurrencyLimitConstants.DEFAULT_BACKOFF_RATIO;
+import static com.jashmore.sqs.broker.concurrent.AdaptiveConcurrencyLimitConstants.DEFAULT_ERROR_RATE_THRESHOLD;
+import static com.jashmore.sqs.broker.concurrent.AdaptiveConcurrencyLimitConstants.DEFAULT_LATENCY_TOLERANCE_RATIO;
+import static com.jashmore.sqs.broker.concurrent.AdaptiveConcurrencyLimitConstants.MINIMUM_SAMPLES_PER_WINDOW;
+
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+import java.util.function.DoublePredicate;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * {@link ConcurrentMessageBrokerProperties} that discovers the level of concurrency from how the processing of messages is performing, using an additive
+ * increase/multiplicative decrease (AIMD) algorithm.
+ *
+ * <p>The outcomes of the messages being processed are grouped into windows that contain at least as many messages as the current concurrency limit. At
+ * the end of each window:
+ * <ul>
+ *     <li>if the proportion of messages that failed is greater than {@link AdaptiveConcurrencyLimitProperties#getErrorRateThreshold()} or the average
+ *     processing time is greater than the baseline processing time multiplied by {@link AdaptiveConcurrencyLimitProperties#getLatencyToleranceRatio()},
+ *     the limit is multiplied by {@link AdaptiveConcurrencyLimitProperties#getBackoffRatio()}</li>
+ *     <li>otherwise the limit is increased by one</li>
+ * </ul>
+ *
+ * <p>The limit is always kept between {@link AdaptiveConcurrencyLimitProperties#getMinimumConcurrencyLevel()} and
+ * {@link AdaptiveConcurrencyLimitProperties#getMaximumConcurrencyLevel()}.
+ *
+ * <p>The baseline processing time is the lowest average processing time seen in a window and therefore represents how long it takes to process a
+ * message when there is no contention. It slowly drifts towards the current average processing time so that a permanent change in how long messages
+ * take to process will eventually become the new baseline, allowing the concurrency to ramp back up.
+ *
+ * <p>This must be provided as both the properties and the {@link MessageProcessingOutcomeListener} of the broker, for example:
+ * <pre class="code">
+ * final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(properties);
+ * new ConcurrentMessageBroker(concurrencyLimit, concurrencyLimit);
+ * </pre>
+ */
+@Slf4j
+@ThreadSafe
+public class AdaptiveConcurrencyLimit implements ConcurrentMessageBrokerProperties, MessageProcessingOutcomeListener {
+    /**
+     * The weighting given to the current average processing time when the baseline is drifting towards it.
+     */
+    private static final double BASELINE_DRIFT_FACTOR = 0.05;
+
+    private final AdaptiveConcurrencyLimitProperties properties;
+
+    private volatile int concurrencyLimit;
+
+    @GuardedBy("this")
+    private int numberOfSamples;
+    @GuardedBy("this")
+    private int numberOfFailures;
+    @GuardedBy("this")
+    private long totalProcessingTimeInNanoseconds;
+    @GuardedBy("this")
+    private double baselineProcessingTimeInNanoseconds = -1;
+
+    public AdaptiveConcurrencyLimit(final AdaptiveConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.concurrencyLimit = clamp(PropertyUtils.safelyGetPositiveIntegerValue(
+                "initialConcurrencyLevel",
+                properties::getInitialConcurrencyLevel,
+                getMinimumConcurrencyLevel()
+        ));
+    }
+
+    @PositiveOrZero
+    @Override
+    public int getConcurrencyLevel() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>As the limit will only change when a message finishes processing, which will also release a permit in the broker, this will use the default
+     * polling rate.
+     */
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return null;
+    }
+
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return null;
+    }
+
+    @Override
+    public synchronized void onMessageProcessed(final long processingTimeInNanoseconds, final boolean wasSuccessful) {
+        numberOfSamples++;
+        totalProcessingTimeInNanoseconds += processingTimeInNanoseconds;
+        if (!wasSuccessful) {
+            numberOfFailures++;
+        }
+
+        if (numberOfSamples < Math.max(concurrencyLimit, MINIMUM_SAMPLES_PER_WINDOW)) {
+            return;
+        }
+
+        final double averageProcessingTimeInNanoseconds = totalProcessingTimeInNanoseconds / (double) numberOfSamples;
+        final double errorRate = numberOfFailures / (double) numberOfSamples;
+        numberOfSamples = 0;
+        numberOfFailures = 0;
+        totalProcessingTimeInNanoseconds = 0;
+
+        if (baselineProcessingTimeInNanoseconds < 0 || averageProcessingTimeInNanoseconds < baselineProcessingTimeInNanoseconds) {
+            baselineProcessingTimeInNanoseconds = averageProcessingTimeInNanoseconds;
+        }
+
+        final int newConcurrencyLimit;
+        if (errorRate > getErrorRateThreshold()
+                || averageProcessingTimeInNanoseconds > baselineProcessingTimeInNanoseconds * getLatencyToleranceRatio()) {
+            newConcurrencyLimit = clamp(Math.min(concurrencyLimit - 1, (int) Math.floor(concurrencyLimit * getBackoffRatio())));
+        } else {
+            newConcurrencyLimit = clamp(concurrencyLimit + 1);
+        }
+
+        baselineProcessingTimeInNanoseconds += BASELINE_DRIFT_FACTOR * (averageProcessingTimeInNanoseconds - baselineProcessingTimeInNanoseconds);
+
+        if (newConcurrencyLimit != concurrencyLimit) {
+            log.debug("Changing concurrency limit from {} to {} with average processing time {}ms and error rate {}",
+                    concurrencyLimit, newConcurrencyLimit, averageProcessingTimeInNanoseconds / 1_000_000, errorRate);
+            concurrencyLimit = newConcurrencyLimit;
+        }
+    }
+
+    private int clamp(final int value) {
+        final int minimumConcurrencyLevel = getMinimumConcurrencyLevel();
+        final int maximumConcurrencyLevel = Math.max(minimumConcurrencyLevel, PropertyUtils.safelyGetPositiveIntegerValue(
+                "maximumConcurrencyLevel",
+                properties::getMaximumConcurrencyLevel,
+                minimumConcurrencyLevel
+        ));
+        return Math.max(minimumConcurrencyLevel, Math.min(maximumConcurrencyLevel, value));
+    }
+
+    private int getMinimumConcurrencyLevel() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "minimumConcurrencyLevel",
+                properties::getMinimumConcurrencyLevel,
+                1
+        );
+    }
+
+    private double getLatencyToleranceRatio() {
+        return safelyGetDoubleValue("latencyToleranceRatio", properties::getLatencyToleranceRatio, DEFAULT_LATENCY_TOLERANCE_RATIO,
+                value -> value > 1);
+    }
+
+    private double getBackoffRatio() {
+        return safelyGetDoubleValue("backoffRatio", properties::getBackoffRatio, DEFAULT_BACKOFF_RATIO, value -> value > 0 && value < 1);
+    }
+
+    private double getErrorRateThreshold() {
+        return safelyGetDoubleValue("errorRateThreshold", properties::getErrorRateThreshold, DEFAULT_ERROR_RATE_THRESHOLD,
+                value -> value >= 0 && value <= 1);
+    }
+
+    private static double safelyGetDoubleValue(final String propertyName,
+                                               final Supplier<Double> valueSupplier,
+                                               final double defaultValue,
+                                               final DoublePredicate valueValidator) {
+        try {
+            return Optional.ofNullable(valueSupplier.get())
+                    .filter(valueValidator::test)
+                    .orElse(defaultValue);
+        } catch (final RuntimeException runtimeException) {
+            log.error("Error obtaining Property value {} returning default value {}", propertyName, defaultValue, runtimeException);
+            return defaultValue;
+        }
+    }
+}
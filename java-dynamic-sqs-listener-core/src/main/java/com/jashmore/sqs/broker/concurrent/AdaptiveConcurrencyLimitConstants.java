@@ -0,0 +1,26 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class AdaptiveConcurrencyLimitConstants {
+    /**
+     * The default ratio of the processing time against the baseline that is tolerated before backing off.
+     */
+    static final double DEFAULT_LATENCY_TOLERANCE_RATIO = 2.0;
+
+    /**
+     * The default ratio that the concurrency limit is multiplied by when backing off.
+     */
+    static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    /**
+     * The default proportion of messages that can fail before backing off.
+     */
+    static final double DEFAULT_ERROR_RATE_THRESHOLD = 0.1;
+
+    /**
+     * The minimum number of messages that need to be processed before the concurrency limit is recalculated.
+     */
+    static final int MINIMUM_SAMPLES_PER_WINDOW = 10;
+}
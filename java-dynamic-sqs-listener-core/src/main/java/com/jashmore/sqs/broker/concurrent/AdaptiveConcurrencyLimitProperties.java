@@ -0,0 +1,74 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for configuring how the {@link AdaptiveConcurrencyLimit} changes the rate of concurrency.
+ */
+public interface AdaptiveConcurrencyLimitProperties {
+    /**
+     * The lowest level of concurrency that the limit can back off to.
+     *
+     * @return the minimum level of concurrency
+     */
+    @Positive
+    int getMinimumConcurrencyLevel();
+
+    /**
+     * The highest level of concurrency that the limit can increase to.
+     *
+     * <p>If this is less than {@link #getMinimumConcurrencyLevel()}, the minimum concurrency level will be used instead.
+     *
+     * @return the maximum level of concurrency
+     */
+    @Positive
+    int getMaximumConcurrencyLevel();
+
+    /**
+     * The level of concurrency to use before any messages have been processed.
+     *
+     * <p>If this value is null, {@link #getMinimumConcurrencyLevel()} will be used.
+     *
+     * @return the initial level of concurrency
+     */
+    @Nullable
+    @Positive
+    Integer getInitialConcurrencyLevel();
+
+    /**
+     * The ratio of the average processing time compared to the baseline processing time that indicates that the message processing is slowing down,
+     * for example because a downstream dependency has too much load.
+     *
+     * <p>For example, if this value is 2.0 and the baseline processing time is 100ms, the limit will back off when the average processing time
+     * exceeds 200ms.
+     *
+     * <p>If this value is null or not greater than one, {@link AdaptiveConcurrencyLimitConstants#DEFAULT_LATENCY_TOLERANCE_RATIO} will be used.
+     *
+     * @return the tolerated ratio of the processing time against the baseline
+     */
+    @Nullable
+    Double getLatencyToleranceRatio();
+
+    /**
+     * The ratio that the concurrency limit is multiplied by when it backs off.
+     *
+     * <p>If this value is null or not between zero and one, {@link AdaptiveConcurrencyLimitConstants#DEFAULT_BACKOFF_RATIO} will be used.
+     *
+     * @return the ratio to decrease the concurrency limit by
+     */
+    @Nullable
+    Double getBackoffRatio();
+
+    /**
+     * The proportion of messages that can fail to be processed before the limit will back off.
+     *
+     * <p>If this value is null or not between zero and one, {@link AdaptiveConcurrencyLimitConstants#DEFAULT_ERROR_RATE_THRESHOLD} will be used.
+     *
+     * @return the maximum tolerated error rate
+     */
+    @Nullable
+    @PositiveOrZero
+    Double getErrorRateThreshold();
+}
@@ -5,6 +5,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import com.jashmore.sqs.broker.MessageBroker;
 import com.jashmore.sqs.util.ResizableSemaphore;
+import com.jashmore.sqs.util.properties.ObservableProperty;
 import com.jashmore.sqs.util.properties.PropertyUtils;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sqs.model.Message;
@@ -12,9 +13,13 @@ import software.amazon.awssdk.services.sqs.model.Message;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 /**
  * Broker that will allow for messages to be processed concurrently up to a certain limit that can change dynamically.
@@ -31,16 +36,56 @@ import java.util.function.Supplier;
  * the concurrency rate once another message is being used. The other way that the concurrency rate can be changed is if the request for a permit goes
  * over the desired length it will recalculate the concurrency and try again.
  *
+ * <p>If the properties are {@link ObservableConcurrentMessageBrokerProperties}, the concurrency rate is instead changed as soon as the property changes,
+ * waking the coordinating thread if it is waiting for a permit, and it is no longer recalculated for each message. The polling rate is also cached and
+ * only recalculated when its property changes.
+ *
+ * <p>If the broker is a participant of a {@link SharedConcurrencyBudget}, it must also obtain a permit from the budget before requesting each message,
+ * which allows for the total concurrency and number of messages held by multiple brokers to be bounded. The permit is released if the message could
+ * not be obtained, for example if the request was cancelled.
+ *
  * @see ConcurrentMessageBrokerProperties for how to configure this broker
  */
 @Slf4j
 public class ConcurrentMessageBroker implements MessageBroker {
+    private static final MessageProcessingOutcomeListener NO_OP_OUTCOME_LISTENER = (processingTimeInNanoseconds, wasSuccessful) -> {
+    };
+
     private final ConcurrentMessageBrokerProperties properties;
+    private final MessageProcessingOutcomeListener messageProcessingOutcomeListener;
     private final ResizableSemaphore concurrentMessagesBeingProcessedSemaphore;
+    @Nullable
+    private final SharedConcurrencyBudget.Participant sharedConcurrencyBudgetParticipant;
 
     public ConcurrentMessageBroker(final ConcurrentMessageBrokerProperties properties) {
+        this(properties, NO_OP_OUTCOME_LISTENER);
+    }
+
+    public ConcurrentMessageBroker(final ConcurrentMessageBrokerProperties properties,
+                                   final MessageProcessingOutcomeListener messageProcessingOutcomeListener) {
+        this(properties, messageProcessingOutcomeListener, null);
+    }
+
+    public ConcurrentMessageBroker(final ConcurrentMessageBrokerProperties properties,
+                                   final SharedConcurrencyBudget.Participant sharedConcurrencyBudgetParticipant) {
+        this(properties, NO_OP_OUTCOME_LISTENER, sharedConcurrencyBudgetParticipant);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param properties                         the properties for configuring the concurrency of the broker
+     * @param messageProcessingOutcomeListener   the listener that will be notified when each message has finished processing
+     * @param sharedConcurrencyBudgetParticipant the participant of the budget shared with other brokers, or null if this broker is not bounded by one
+     * @see AdaptiveConcurrencyLimit for changing the concurrency depending on the outcomes of the messages being processed
+     */
+    public ConcurrentMessageBroker(final ConcurrentMessageBrokerProperties properties,
+                                   final MessageProcessingOutcomeListener messageProcessingOutcomeListener,
+                                   @Nullable final SharedConcurrencyBudget.Participant sharedConcurrencyBudgetParticipant) {
         this.properties = properties;
+        this.messageProcessingOutcomeListener = messageProcessingOutcomeListener;
         this.concurrentMessagesBeingProcessedSemaphore = new ResizableSemaphore(0);
+        this.sharedConcurrencyBudgetParticipant = sharedConcurrencyBudgetParticipant;
     }
 
     @Override
@@ -49,27 +94,83 @@ public class ConcurrentMessageBroker implements MessageBroker {
                                 final Supplier<CompletableFuture<Message>> messageSupplier,
                                 final Function<Message, CompletableFuture<?>> messageProcessor) throws InterruptedException {
         log.debug("Beginning processing of messages");
+        if (properties instanceof ObservableConcurrentMessageBrokerProperties) {
+            processMessagesWithObservableProperties((ObservableConcurrentMessageBrokerProperties) properties, messageProcessingExecutorService,
+                    keepProcessingMessages, messageSupplier, messageProcessor);
+        } else {
+            processMessagesUntilStopped(messageProcessingExecutorService, keepProcessingMessages, messageSupplier, messageProcessor, true,
+                    this::getNumberOfMillisecondsToObtainPermit);
+        }
+        log.debug("Ending processing of messages");
+    }
+
+    /**
+     * Process the messages, listening to the observable properties for changes instead of obtaining the level of concurrency and the polling rate for
+     * each message.
+     *
+     * <p>The listeners are added before the current values are obtained so that a change made while starting is not missed.
+     */
+    private void processMessagesWithObservableProperties(final ObservableConcurrentMessageBrokerProperties observableProperties,
+                                                         final ExecutorService messageProcessingExecutorService,
+                                                         final BooleanSupplier keepProcessingMessages,
+                                                         final Supplier<CompletableFuture<Message>> messageSupplier,
+                                                         final Function<Message, CompletableFuture<?>> messageProcessor) throws InterruptedException {
+        final ObservableProperty<Integer> observableConcurrencyLevel = observableProperties.getObservableConcurrencyLevel();
+        final ObservableProperty<Long> observableConcurrencyPollingRate = observableProperties.getObservableConcurrencyPollingRateInMilliseconds();
+        final AtomicLong numberOfMillisecondsToObtainPermit = new AtomicLong();
+        final Consumer<Integer> concurrencyLevelListener = ignoredConcurrencyLevel -> updateConcurrencyLevelIfChanged(
+                concurrentMessagesBeingProcessedSemaphore
+        );
+        final Consumer<Long> concurrencyPollingRateListener = ignoredPollingRate -> numberOfMillisecondsToObtainPermit.set(
+                getNumberOfMillisecondsToObtainPermit()
+        );
+        observableConcurrencyLevel.addListener(concurrencyLevelListener);
+        observableConcurrencyPollingRate.addListener(concurrencyPollingRateListener);
+        try {
+            updateConcurrencyLevelIfChanged(concurrentMessagesBeingProcessedSemaphore);
+            numberOfMillisecondsToObtainPermit.set(getNumberOfMillisecondsToObtainPermit());
+            processMessagesUntilStopped(messageProcessingExecutorService, keepProcessingMessages, messageSupplier, messageProcessor, false,
+                    numberOfMillisecondsToObtainPermit::get);
+        } finally {
+            observableConcurrencyLevel.removeListener(concurrencyLevelListener);
+            observableConcurrencyPollingRate.removeListener(concurrencyPollingRateListener);
+        }
+    }
+
+    private void processMessagesUntilStopped(final ExecutorService messageProcessingExecutorService,
+                                             final BooleanSupplier keepProcessingMessages,
+                                             final Supplier<CompletableFuture<Message>> messageSupplier,
+                                             final Function<Message, CompletableFuture<?>> messageProcessor,
+                                             final boolean shouldPollConcurrencyLevel,
+                                             final LongSupplier numberOfMillisecondsToObtainPermitSupplier) throws InterruptedException {
         while (!Thread.currentThread().isInterrupted() && keepProcessingMessages.getAsBoolean()) {
             try {
-                updateConcurrencyLevelIfChanged(concurrentMessagesBeingProcessedSemaphore);
+                if (shouldPollConcurrencyLevel) {
+                    updateConcurrencyLevelIfChanged(concurrentMessagesBeingProcessedSemaphore);
+                }
 
-                final long numberOfMillisecondsToObtainPermit = getNumberOfMillisecondsToObtainPermit();
+                final long numberOfMillisecondsToObtainPermit = numberOfMillisecondsToObtainPermitSupplier.getAsLong();
                 final boolean obtainedPermit = concurrentMessagesBeingProcessedSemaphore.tryAcquire(numberOfMillisecondsToObtainPermit, MILLISECONDS);
                 if (!obtainedPermit) {
                     continue;
                 }
 
+                if (!tryAcquireSharedPermit(numberOfMillisecondsToObtainPermit)) {
+                    concurrentMessagesBeingProcessedSemaphore.release();
+                    continue;
+                }
+
                 try {
                     messageSupplier.get()
-                            .thenComposeAsync(messageProcessor::apply, messageProcessingExecutorService)
+                            .thenComposeAsync(message -> processMessage(message, messageProcessor), messageProcessingExecutorService)
                             .whenComplete((ignoredResult, throwable) -> {
                                 if (throwable != null && !(throwable.getCause() instanceof CancellationException)) {
                                     log.error("Error processing message", throwable.getCause());
                                 }
-                                concurrentMessagesBeingProcessedSemaphore.release();
+                                releasePermits();
                             });
                 } catch (final RuntimeException runtimeException) {
-                    concurrentMessagesBeingProcessedSemaphore.release();
+                    releasePermits();
                     // bubble the exception to deal with backing off, as we don't want to duplicate that code
                     throw runtimeException;
                 }
@@ -80,7 +181,63 @@ public class ConcurrentMessageBroker implements MessageBroker {
                 Thread.sleep(errorBackoffTimeInMilliseconds);
             }
         }
-        log.debug("Ending processing of messages");
+    }
+
+    /**
+     * Try to obtain a permit from the {@link SharedConcurrencyBudget}, if this broker is a participant of one.
+     *
+     * <p>The permit is obtained by the coordinating thread before the message is requested so that the number of messages being processed, and
+     * therefore threads being used, across all of the brokers is bounded. The wait is bounded by the polling rate so that changes to the properties
+     * and requests to stop processing are noticed while the budget is exhausted.
+     *
+     * <p>If the thread is interrupted while waiting, the permit obtained from the concurrency level of this broker is released.
+     *
+     * @param numberOfMillisecondsToObtainPermit the maximum time to wait for a permit
+     * @return whether a permit was obtained, which is always true if this broker is not a participant of a budget
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    private boolean tryAcquireSharedPermit(final long numberOfMillisecondsToObtainPermit) throws InterruptedException {
+        if (sharedConcurrencyBudgetParticipant == null) {
+            return true;
+        }
+
+        try {
+            return sharedConcurrencyBudgetParticipant.tryAcquire(numberOfMillisecondsToObtainPermit, MILLISECONDS);
+        } catch (final InterruptedException interruptedException) {
+            concurrentMessagesBeingProcessedSemaphore.release();
+            throw interruptedException;
+        }
+    }
+
+    /**
+     * Release the permits obtained for a message, which is done once it has finished processing or could not be obtained.
+     */
+    private void releasePermits() {
+        if (sharedConcurrencyBudgetParticipant != null) {
+            sharedConcurrencyBudgetParticipant.release();
+        }
+        concurrentMessagesBeingProcessedSemaphore.release();
+    }
+
+    /**
+     * Process the message, notifying the {@link MessageProcessingOutcomeListener} of how long it took and whether it was successful.
+     *
+     * @param message          the message to process
+     * @param messageProcessor the function that will process the message
+     * @return the future that will be resolved when the message has finished processing
+     */
+    private CompletableFuture<?> processMessage(final Message message, final Function<Message, CompletableFuture<?>> messageProcessor) {
+        final long startTime = System.nanoTime();
+        final CompletableFuture<?> processingFuture;
+        try {
+            processingFuture = messageProcessor.apply(message);
+        } catch (final RuntimeException runtimeException) {
+            messageProcessingOutcomeListener.onMessageProcessed(System.nanoTime() - startTime, false);
+            throw runtimeException;
+        }
+
+        return processingFuture.whenComplete((ignoredResult, throwable) ->
+                messageProcessingOutcomeListener.onMessageProcessed(System.nanoTime() - startTime, throwable == null));
     }
 
     /**
@@ -101,6 +258,8 @@ public class ConcurrentMessageBroker implements MessageBroker {
      * Checks the concurrency level of the broker and will update the number of threads that can be run concurrently if necessary.
      *
      * <p>If the concurrency level decreases any threads running currently will keep running.
+     *
+     * <p>This may be called by the thread that changed an {@link ObservableProperty} as well as the coordinating thread.
      */
     private void updateConcurrencyLevelIfChanged(final ResizableSemaphore resizableSemaphore) {
         final int newConcurrencyLevel = getConcurrencyLevel();
@@ -0,0 +1,27 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Listener that is notified by the {@link ConcurrentMessageBroker} each time that a message has finished being processed.
+ *
+ * <p>This can be used to measure how the processing of messages is performing, for example to change the rate of concurrency depending on how long it
+ * takes to process each message.
+ *
+ * <p>Implementations must be thread safe as messages will finish processing on multiple threads at the same time.
+ *
+ * @see AdaptiveConcurrencyLimit for an implementation that changes the rate of concurrency using these outcomes
+ */
+@ThreadSafe
+@FunctionalInterface
+public interface MessageProcessingOutcomeListener {
+    /**
+     * Called when a message has finished being processed, either successfully or with an error.
+     *
+     * <p>This should return quickly as it will be called on the thread that processed the message.
+     *
+     * @param processingTimeInNanoseconds the amount of time that it took to process the message
+     * @param wasSuccessful               whether the message was successfully processed
+     */
+    void onMessageProcessed(long processingTimeInNanoseconds, boolean wasSuccessful);
+}
@@ -0,0 +1,85 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import com.jashmore.sqs.util.properties.ObservableProperty;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * {@link ConcurrentMessageBrokerProperties} that are backed by {@link ObservableProperty}s so that the {@link ConcurrentMessageBroker} is notified as
+ * soon as the level of concurrency changes.
+ *
+ * <p>When the {@link ConcurrentMessageBroker} is provided these properties it will no longer check the level of concurrency each time it requests a
+ * message, instead it will change the level of concurrency as soon as the {@link #getObservableConcurrencyLevel()} changes. This means that an increase
+ * in the concurrency will be applied immediately instead of waiting up to {@link #getConcurrencyPollingRateInMilliseconds()} for a permit to be
+ * released, and the polling rate now only determines how often the broker checks whether it should stop processing messages. The polling rate is
+ * likewise only obtained when {@link #getObservableConcurrencyPollingRateInMilliseconds()} changes.
+ *
+ * <p>For example, the values could be updated when the configuration of the application changes:
+ * <pre class="code">
+ * final ObservableProperty&lt;Integer&gt; concurrencyLevel = new ObservableProperty&lt;&gt;(5);
+ * new ConcurrentMessageBroker(new ObservableConcurrentMessageBrokerProperties(concurrencyLevel, new ObservableProperty&lt;&gt;(null),
+ *         new ObservableProperty&lt;&gt;(null)));
+ * ...
+ * concurrencyLevel.set(10);
+ * </pre>
+ */
+@ThreadSafe
+public class ObservableConcurrentMessageBrokerProperties implements ConcurrentMessageBrokerProperties {
+    private final ObservableProperty<Integer> concurrencyLevel;
+    private final ObservableProperty<Long> concurrencyPollingRateInMilliseconds;
+    private final ObservableProperty<Long> errorBackoffTimeInMilliseconds;
+
+    public ObservableConcurrentMessageBrokerProperties(final ObservableProperty<Integer> concurrencyLevel,
+                                                       final ObservableProperty<Long> concurrencyPollingRateInMilliseconds,
+                                                       final ObservableProperty<Long> errorBackoffTimeInMilliseconds) {
+        this.concurrencyLevel = concurrencyLevel;
+        this.concurrencyPollingRateInMilliseconds = concurrencyPollingRateInMilliseconds;
+        this.errorBackoffTimeInMilliseconds = errorBackoffTimeInMilliseconds;
+    }
+
+    /**
+     * The property for the level of concurrency that the {@link ConcurrentMessageBroker} will listen to for changes.
+     *
+     * @return the observable level of concurrency
+     */
+    public ObservableProperty<Integer> getObservableConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    /**
+     * The property for the polling rate that the {@link ConcurrentMessageBroker} will listen to for changes, instead of obtaining it for each message.
+     *
+     * @return the observable polling rate in milliseconds
+     */
+    public ObservableProperty<Long> getObservableConcurrencyPollingRateInMilliseconds() {
+        return concurrencyPollingRateInMilliseconds;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the value of the property is null, a level of concurrency of zero will be used.
+     */
+    @PositiveOrZero
+    @Override
+    public int getConcurrencyLevel() {
+        final Integer value = concurrencyLevel.get();
+        return value == null ? 0 : value;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return concurrencyPollingRateInMilliseconds.get();
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return errorBackoffTimeInMilliseconds.get();
+    }
+}
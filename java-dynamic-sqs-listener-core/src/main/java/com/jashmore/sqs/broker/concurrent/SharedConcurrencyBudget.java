@@ -0,0 +1,249 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import com.jashmore.sqs.util.properties.PropertyUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Budget of concurrency that is shared between multiple {@link ConcurrentMessageBroker}s so that the total number of messages being processed across
+ * all of the brokers in the application is bounded.
+ *
+ * <p>Each broker registers as a {@link Participant} of the budget and must obtain a permit from the budget, as well as from its own concurrency level,
+ * before processing a message. When the budget is contended the permits are shared between the participants that want them as follows:
+ * <ul>
+ *     <li>a participant that is processing fewer messages than its minimum concurrency has priority over all other participants</li>
+ *     <li>otherwise, a participant that is processing fewer messages than its fair share has priority over participants that have exceeded their fair
+ *     share, where the fair share is the total concurrency split between the active participants proportionally to their weight</li>
+ * </ul>
+ *
+ * <p>A participant is only active while it is processing messages or waiting for a permit, and therefore the capacity of idle participants, including
+ * their minimum concurrency, is lent to the busy participants. As messages being processed are never interrupted, a participant that becomes busy
+ * will receive its guaranteed and fair share of permits as the messages of the other participants finish processing.
+ *
+ * <p>For example, sharing a budget of 20 between two brokers:
+ * <pre class="code">
+ * final SharedConcurrencyBudget budget = new SharedConcurrencyBudget(StaticSharedConcurrencyBudgetProperties.builder().totalConcurrency(20).build());
+ * new ConcurrentMessageBroker(firstProperties, budget.register("first", 2, 1));
+ * new ConcurrentMessageBroker(secondProperties, budget.register("second", 0, 3));
+ * </pre>
+ */
+@ThreadSafe
+public class SharedConcurrencyBudget {
+    private final SharedConcurrencyBudgetProperties properties;
+    private final List<Participant> participants;
+    private final Lock lock;
+    private final Condition budgetChanged;
+
+    @GuardedBy("lock")
+    private int numberOfPermitsInUse;
+
+    public SharedConcurrencyBudget(final SharedConcurrencyBudgetProperties properties) {
+        this.properties = properties;
+        this.participants = new CopyOnWriteArrayList<>();
+        this.lock = new ReentrantLock();
+        this.budgetChanged = lock.newCondition();
+    }
+
+    /**
+     * Register a new participant that will obtain permits from this budget.
+     *
+     * <p>Participants are never removed from the budget, so the same participant should be reused by each {@link ConcurrentMessageBroker} created for
+     * a container, for example when the container is restarted.
+     *
+     * @param identifier         the identifier of the participant, used for logging
+     * @param minimumConcurrency the number of permits that this participant has priority for when it wants them
+     * @param weight             the relative weight of this participant when sharing the budget with the other participants
+     * @return the participant to obtain permits with
+     */
+    public Participant register(final String identifier, final int minimumConcurrency, final int weight) {
+        Preconditions.checkArgument(minimumConcurrency >= 0, "minimumConcurrency should not be negative");
+        Preconditions.checkArgument(weight > 0, "weight should be positive");
+
+        final Participant participant = new Participant(identifier, minimumConcurrency, weight);
+        participants.add(participant);
+        return participant;
+    }
+
+    /**
+     * The total number of permits currently being used by all of the participants.
+     *
+     * @return the number of permits in use
+     */
+    public int getNumberOfPermitsInUse() {
+        lock.lock();
+        try {
+            return numberOfPermitsInUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryAcquire(final Participant participant, final long timeout, final TimeUnit unit) throws InterruptedException {
+        long remainingTimeInNanoseconds = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            participant.numberOfWaitingThreads++;
+            try {
+                while (!canAcquire(participant)) {
+                    if (remainingTimeInNanoseconds <= 0) {
+                        return false;
+                    }
+                    remainingTimeInNanoseconds = budgetChanged.awaitNanos(remainingTimeInNanoseconds);
+                }
+            } finally {
+                participant.numberOfWaitingThreads--;
+            }
+            participant.numberOfPermitsInUse++;
+            numberOfPermitsInUse++;
+            // other participants may have been waiting for this participant to obtain its share
+            budgetChanged.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(final Participant participant) {
+        lock.lock();
+        try {
+            Preconditions.checkState(participant.numberOfPermitsInUse > 0, "Participant %s released more permits than it acquired", participant.identifier);
+            participant.numberOfPermitsInUse--;
+            numberOfPermitsInUse--;
+            budgetChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Determine whether the participant can obtain a permit, giving priority to the other participants waiting for a permit that have not reached
+     * their minimum concurrency or fair share.
+     *
+     * @param participant the participant requesting the permit
+     * @return whether a permit can be obtained
+     */
+    @GuardedBy("lock")
+    private boolean canAcquire(final Participant participant) {
+        final int totalConcurrency = getTotalConcurrency();
+        if (numberOfPermitsInUse >= totalConcurrency) {
+            return false;
+        }
+
+        if (participant.numberOfPermitsInUse < participant.minimumConcurrency) {
+            return true;
+        }
+
+        final boolean otherParticipantBelowMinimumIsWaiting = participants.stream()
+                .anyMatch(other -> other != participant && other.isWaiting() && other.numberOfPermitsInUse < other.minimumConcurrency);
+        if (otherParticipantBelowMinimumIsWaiting) {
+            return false;
+        }
+
+        final int totalWeightOfActiveParticipants = participants.stream()
+                .filter(Participant::isActive)
+                .mapToInt(other -> other.weight)
+                .sum();
+        if (participant.numberOfPermitsInUse < fairShare(participant, totalConcurrency, totalWeightOfActiveParticipants)) {
+            return true;
+        }
+
+        return participants.stream()
+                .noneMatch(other -> other != participant && other.isWaiting()
+                        && other.numberOfPermitsInUse < fairShare(other, totalConcurrency, totalWeightOfActiveParticipants));
+    }
+
+    private static double fairShare(final Participant participant, final int totalConcurrency, final int totalWeightOfActiveParticipants) {
+        return (double) totalConcurrency * participant.weight / totalWeightOfActiveParticipants;
+    }
+
+    private int getTotalConcurrency() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "totalConcurrency",
+                properties::getTotalConcurrency,
+                0
+        );
+    }
+
+    /**
+     * A participant of the {@link SharedConcurrencyBudget}, which is used by a single {@link ConcurrentMessageBroker} to obtain permits.
+     */
+    public final class Participant {
+        private final String identifier;
+        private final int minimumConcurrency;
+        private final int weight;
+
+        @GuardedBy("lock")
+        private int numberOfPermitsInUse;
+        @GuardedBy("lock")
+        private int numberOfWaitingThreads;
+
+        private Participant(final String identifier, final int minimumConcurrency, final int weight) {
+            this.identifier = identifier;
+            this.minimumConcurrency = minimumConcurrency;
+            this.weight = weight;
+        }
+
+        /**
+         * Try to obtain a permit from the budget, waiting up until the timeout for one to be available.
+         *
+         * @param timeout the maximum time to wait for a permit
+         * @param unit    the unit of the timeout
+         * @return whether a permit was obtained
+         * @throws InterruptedException if the thread was interrupted while waiting
+         */
+        public boolean tryAcquire(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return SharedConcurrencyBudget.this.tryAcquire(this, timeout, unit);
+        }
+
+        /**
+         * Release a permit that was previously obtained back to the budget.
+         */
+        public void release() {
+            SharedConcurrencyBudget.this.release(this);
+        }
+
+        /**
+         * The number of permits currently being used by this participant.
+         *
+         * @return the number of permits in use
+         */
+        public int getNumberOfPermitsInUse() {
+            lock.lock();
+            try {
+                return numberOfPermitsInUse;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @VisibleForTesting
+        boolean isWaitingForPermit() {
+            lock.lock();
+            try {
+                return isWaiting();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @GuardedBy("lock")
+        private boolean isWaiting() {
+            return numberOfWaitingThreads > 0;
+        }
+
+        @GuardedBy("lock")
+        private boolean isActive() {
+            return numberOfWaitingThreads > 0 || numberOfPermitsInUse > 0;
+        }
+    }
+}
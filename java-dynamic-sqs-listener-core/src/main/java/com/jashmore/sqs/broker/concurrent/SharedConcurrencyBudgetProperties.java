@@ -0,0 +1,20 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for configuring the {@link SharedConcurrencyBudget}, which will be checked each time a permit is requested and therefore can change
+ * dynamically during runtime.
+ */
+public interface SharedConcurrencyBudgetProperties {
+    /**
+     * The total number of messages that can be processed concurrently across all of the brokers sharing the budget.
+     *
+     * <p>If this value is decreased, the messages currently being processed will continue until they complete and no more messages will be processed
+     * until the number of messages being processed is below the new total. If this value is negative, zero will be used.
+     *
+     * @return the total concurrency of the budget
+     */
+    @PositiveOrZero
+    int getTotalConcurrency();
+}
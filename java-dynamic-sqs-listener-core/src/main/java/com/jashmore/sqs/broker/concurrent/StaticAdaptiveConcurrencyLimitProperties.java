@@ -0,0 +1,60 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticAdaptiveConcurrencyLimitProperties implements AdaptiveConcurrencyLimitProperties {
+    private final int minimumConcurrencyLevel;
+    private final int maximumConcurrencyLevel;
+    private final Integer initialConcurrencyLevel;
+    private final Double latencyToleranceRatio;
+    private final Double backoffRatio;
+    private final Double errorRateThreshold;
+
+    @Positive
+    @Override
+    public int getMinimumConcurrencyLevel() {
+        return minimumConcurrencyLevel;
+    }
+
+    @Positive
+    @Override
+    public int getMaximumConcurrencyLevel() {
+        return maximumConcurrencyLevel;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getInitialConcurrencyLevel() {
+        return initialConcurrencyLevel;
+    }
+
+    @Nullable
+    @Override
+    public Double getLatencyToleranceRatio() {
+        return latencyToleranceRatio;
+    }
+
+    @Nullable
+    @Override
+    public Double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Double getErrorRateThreshold() {
+        return errorRateThreshold;
+    }
+}
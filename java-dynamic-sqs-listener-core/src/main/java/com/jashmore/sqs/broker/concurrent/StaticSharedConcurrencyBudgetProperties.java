@@ -0,0 +1,21 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticSharedConcurrencyBudgetProperties implements SharedConcurrencyBudgetProperties {
+    private final int totalConcurrency;
+
+    @PositiveOrZero
+    @Override
+    public int getTotalConcurrency() {
+        return totalConcurrency;
+    }
+}
@@ -0,0 +1,324 @@
+package com.jashmore.sqs.broker.fifo;
+
+import static com.jashmore.sqs.broker.fifo.FifoMessageBrokerConstants.DEFAULT_FAILED_MESSAGE_GROUP_BLOCKING_PERIOD_IN_MS;
+import static com.jashmore.sqs.broker.fifo.FifoMessageBrokerConstants.DEFAULT_MAX_BUFFERED_MESSAGES;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Ints;
+
+import com.jashmore.sqs.broker.AbstractMessageHoldingBroker;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Broker for FIFO queues that will process the messages of each message group one at a time in the order that they were received, while processing the
+ * messages of different groups concurrently up to a limit that can change dynamically.
+ *
+ * <p>The {@link com.jashmore.sqs.broker.concurrent.ConcurrentMessageBroker} hands each message to a thread as soon as it is received and therefore the
+ * messages in a group may be processed out of order, unless the concurrency level is one. Instead, this broker will hold a message until the previous
+ * message in its group has finished processing, and any group that has a message ready to process will be given a thread in the order that the groups
+ * became ready, so that a group with many messages cannot starve the other groups.
+ *
+ * <p>The number of messages held by the broker, whether they are being processed or waiting for their group, is bounded by the concurrency level plus
+ * the {@link FifoMessageBrokerProperties#getMaxBufferedMessages()} and no more messages will be requested from the
+ * {@link com.jashmore.sqs.retriever.MessageRetriever} until one of these messages has finished processing.
+ *
+ * <p>When a message fails to be processed, it will be received again after its visibility timeout expires and any later messages in the group must not
+ * be processed before it. Therefore, the other messages in the group held by this broker will be skipped, as well as any messages in the group that are
+ * obtained until the failed message is received again or the {@link FifoMessageBrokerProperties#getFailedMessageGroupBlockingPeriodInMilliseconds()}
+ * has elapsed. Skipped messages are not deleted and so they will be received again after the failed message, in the order of the group.
+ *
+ * <p>The group of the message is determined by the {@link MessageSystemAttributeName#MESSAGE_GROUP_ID} attribute and therefore this attribute must be
+ * requested by the {@link com.jashmore.sqs.retriever.MessageRetriever}. The core retrievers always request it for FIFO queues, regardless of the
+ * attributes required by the message listener. A message without this attribute is treated as being in its own group.
+ *
+ * @see FifoMessageBrokerProperties for how to configure this broker
+ * @see com.jashmore.sqs.broker.concurrent.ConcurrentMessageBroker
+ */
+@Slf4j
+public class FifoMessageBroker extends AbstractMessageHoldingBroker {
+    private final FifoMessageBrokerProperties properties;
+    private final LongSupplier nanoTimeSupplier;
+
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    private final Map<String, MessageGroup> messageGroups;
+    @GuardedBy("lock")
+    private final Queue<MessageGroup> messageGroupsReadyForProcessing;
+    @GuardedBy("lock")
+    private final Map<String, FailedMessageGroup> failedMessageGroups;
+    @GuardedBy("lock")
+    private int numberOfMessageGroupsBeingProcessed;
+
+    /**
+     * The values of the properties that are needed when messages finish processing, which are updated by the coordinating thread as the properties are
+     * not thread safe.
+     */
+    private volatile int concurrencyLevel;
+    private volatile long failedMessageGroupBlockingPeriodInNanoseconds;
+
+    public FifoMessageBroker(final FifoMessageBrokerProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    FifoMessageBroker(final FifoMessageBrokerProperties properties, final LongSupplier nanoTimeSupplier) {
+        super(properties::getConcurrencyPollingRateInMilliseconds, properties::getErrorBackoffTimeInMilliseconds);
+        this.properties = properties;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+
+        this.messageGroups = new HashMap<>();
+        this.messageGroupsReadyForProcessing = new ArrayDeque<>();
+        this.failedMessageGroups = new HashMap<>();
+    }
+
+    /**
+     * Add the message to its group, starting the processing of the message if no other message in the group is being processed and the concurrency
+     * level has not been reached.
+     *
+     * @param message                          the message that was obtained
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    @Override
+    protected void addMessage(final Message message,
+                              final ExecutorService messageProcessingExecutorService,
+                              final Function<Message, CompletableFuture<?>> messageProcessor) {
+        final String messageGroupId = getMessageGroupId(message);
+        final List<Message> messagesToProcess;
+        synchronized (lock) {
+            if (isBlockedByFailedMessage(messageGroupId, message)) {
+                messagesToProcess = null;
+            } else {
+                final MessageGroup messageGroup = messageGroups.computeIfAbsent(messageGroupId, ignored -> new MessageGroup());
+                messageGroup.messages.add(message);
+                if (!messageGroup.isBeingProcessed && messageGroup.messages.size() == 1) {
+                    messageGroupsReadyForProcessing.add(messageGroup);
+                }
+                messagesToProcess = pollMessagesToProcess();
+            }
+        }
+
+        if (messagesToProcess == null) {
+            log.warn("Skipping message {} as a previous message in group {} failed to be processed", message.messageId(), messageGroupId);
+            releaseMessagesHeld(1);
+            return;
+        }
+        messagesToProcess.forEach(messageToProcess -> processMessage(messageToProcess, messageProcessingExecutorService, messageProcessor));
+    }
+
+    /**
+     * Process the message on the executor service and when it is finished start processing the next messages that are ready.
+     *
+     * @param message                          the message to process
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    private void processMessage(final Message message,
+                                final ExecutorService messageProcessingExecutorService,
+                                final Function<Message, CompletableFuture<?>> messageProcessor) {
+        startProcessing(message, messageProcessingExecutorService, messageProcessor)
+                .whenComplete((ignoredResult, throwable) ->
+                        messageProcessed(message, throwable == null, messageProcessingExecutorService, messageProcessor));
+    }
+
+    /**
+     * Release the group of the message that has finished processing so that its next message can be processed, skipping the rest of the messages in the
+     * group if it failed.
+     *
+     * @param message                          the message that finished processing
+     * @param wasSuccessful                    whether the message was successfully processed
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    private void messageProcessed(final Message message,
+                                  final boolean wasSuccessful,
+                                  final ExecutorService messageProcessingExecutorService,
+                                  final Function<Message, CompletableFuture<?>> messageProcessor) {
+        final String messageGroupId = getMessageGroupId(message);
+        final int numberOfMessagesSkipped;
+        final List<Message> messagesToProcess;
+        synchronized (lock) {
+            numberOfMessageGroupsBeingProcessed--;
+            final MessageGroup messageGroup = messageGroups.get(messageGroupId);
+            messageGroup.isBeingProcessed = false;
+            if (wasSuccessful) {
+                numberOfMessagesSkipped = 0;
+            } else {
+                numberOfMessagesSkipped = messageGroup.messages.size();
+                messageGroup.messages.clear();
+                blockMessageGroup(messageGroupId, message);
+            }
+
+            if (messageGroup.messages.isEmpty()) {
+                messageGroups.remove(messageGroupId);
+            } else {
+                messageGroupsReadyForProcessing.add(messageGroup);
+            }
+            messagesToProcess = pollMessagesToProcess();
+        }
+
+        if (numberOfMessagesSkipped > 0) {
+            log.warn("Skipping {} messages in group {} as message {} failed to be processed", numberOfMessagesSkipped, messageGroupId, message.messageId());
+        }
+        releaseMessagesHeld(1 + numberOfMessagesSkipped);
+        messagesToProcess.forEach(messageToProcess -> processMessage(messageToProcess, messageProcessingExecutorService, messageProcessor));
+    }
+
+    /**
+     * Take the next message from each of the groups that are ready to be processed until the concurrency level has been reached.
+     *
+     * @return the messages that should be processed
+     */
+    @GuardedBy("lock")
+    private List<Message> pollMessagesToProcess() {
+        final List<Message> messagesToProcess = new ArrayList<>();
+        while (numberOfMessageGroupsBeingProcessed < concurrencyLevel && !messageGroupsReadyForProcessing.isEmpty()) {
+            final MessageGroup messageGroup = messageGroupsReadyForProcessing.poll();
+            messageGroup.isBeingProcessed = true;
+            numberOfMessageGroupsBeingProcessed++;
+            messagesToProcess.add(messageGroup.messages.poll());
+        }
+        return messagesToProcess;
+    }
+
+    /**
+     * Block the other messages of the group from being processed until the failed message is received again or the blocking period has elapsed.
+     *
+     * @param messageGroupId the group of the failed message
+     * @param failedMessage  the message that failed
+     */
+    @GuardedBy("lock")
+    private void blockMessageGroup(final String messageGroupId, final Message failedMessage) {
+        final long currentTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+        failedMessageGroups.values().removeIf(failedMessageGroup -> failedMessageGroup.hasExpired(currentTimeInNanoseconds));
+        failedMessageGroups.put(messageGroupId, new FailedMessageGroup(
+                failedMessage.messageId(),
+                currentTimeInNanoseconds + failedMessageGroupBlockingPeriodInNanoseconds
+        ));
+    }
+
+    /**
+     * Determine whether the message should be skipped because a previous message in its group failed to be processed and has not been received again.
+     *
+     * @param messageGroupId the group of the message
+     * @param message        the message that was obtained
+     * @return whether the message should be skipped
+     */
+    @GuardedBy("lock")
+    private boolean isBlockedByFailedMessage(final String messageGroupId, final Message message) {
+        final FailedMessageGroup failedMessageGroup = failedMessageGroups.get(messageGroupId);
+        if (failedMessageGroup == null) {
+            return false;
+        }
+
+        if (failedMessageGroup.getFailedMessageId().equals(message.messageId()) || failedMessageGroup.hasExpired(nanoTimeSupplier.getAsLong())) {
+            failedMessageGroups.remove(messageGroupId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks the properties of the broker and will update the number of messages that can be held and processed if necessary.
+     *
+     * <p>If the concurrency level increases, the groups that are waiting for a thread will start being processed. If it decreases any messages being
+     * processed will keep being processed.
+     *
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    @Override
+    protected void updatePropertiesIfChanged(final ExecutorService messageProcessingExecutorService,
+                                             final Function<Message, CompletableFuture<?>> messageProcessor) {
+        failedMessageGroupBlockingPeriodInNanoseconds = MILLISECONDS.toNanos(getFailedMessageGroupBlockingPeriodInMilliseconds());
+
+        final int newConcurrencyLevel = getConcurrencyLevel();
+        final int newMaximumMessagesHeld = newConcurrencyLevel == 0 ? 0 : Ints.saturatedCast((long) newConcurrencyLevel + getMaxBufferedMessages());
+        changeMaximumNumberOfMessagesHeld(newMaximumMessagesHeld);
+
+        if (concurrencyLevel != newConcurrencyLevel) {
+            log.info("Changing concurrency from {} to {}", concurrencyLevel, newConcurrencyLevel);
+            concurrencyLevel = newConcurrencyLevel;
+            final List<Message> messagesToProcess;
+            synchronized (lock) {
+                messagesToProcess = pollMessagesToProcess();
+            }
+            messagesToProcess.forEach(messageToProcess -> processMessage(messageToProcess, messageProcessingExecutorService, messageProcessor));
+        }
+    }
+
+    private static String getMessageGroupId(final Message message) {
+        final String messageGroupId = message.attributes().get(MessageSystemAttributeName.MESSAGE_GROUP_ID);
+        if (messageGroupId == null) {
+            return message.messageId();
+        }
+        return messageGroupId;
+    }
+
+    /**
+     * Determine the concurrency level safely, returning zero if there was an error or the value was negative.
+     *
+     * @return the expected concurrency level
+     */
+    private int getConcurrencyLevel() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "concurrencyLevel",
+                properties::getConcurrencyLevel,
+                0
+        );
+    }
+
+    private int getMaxBufferedMessages() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "maxBufferedMessages",
+                properties::getMaxBufferedMessages,
+                DEFAULT_MAX_BUFFERED_MESSAGES
+        );
+    }
+
+    private long getFailedMessageGroupBlockingPeriodInMilliseconds() {
+        return PropertyUtils.safelyGetPositiveOrZeroLongValue(
+                "failedMessageGroupBlockingPeriodInMilliseconds",
+                properties::getFailedMessageGroupBlockingPeriodInMilliseconds,
+                DEFAULT_FAILED_MESSAGE_GROUP_BLOCKING_PERIOD_IN_MS
+        );
+    }
+
+    /**
+     * The messages of a single message group that are waiting to be processed.
+     */
+    private static final class MessageGroup {
+        private final Queue<Message> messages = new ArrayDeque<>();
+        private boolean isBeingProcessed;
+    }
+
+    /**
+     * A message group that had a message fail to be processed.
+     */
+    @Value
+    private static class FailedMessageGroup {
+        private final String failedMessageId;
+        private final long blockedUntilTimeInNanoseconds;
+
+        private boolean hasExpired(final long currentTimeInNanoseconds) {
+            return currentTimeInNanoseconds - blockedUntilTimeInNanoseconds >= 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.jashmore.sqs.broker.fifo;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class FifoMessageBrokerConstants {
+    /**
+     * The default number of messages that can be held waiting for the previous message in their group to finish processing, which is the maximum
+     * number of messages that can be received from SQS in a single request.
+     */
+    static final int DEFAULT_MAX_BUFFERED_MESSAGES = 10;
+
+    /**
+     * The default amount of time that the messages of a group will be skipped after a message in that group failed to be processed, which is the
+     * default visibility timeout of an SQS queue.
+     */
+    static final long DEFAULT_FAILED_MESSAGE_GROUP_BLOCKING_PERIOD_IN_MS = 30_000L;
+}
@@ -0,0 +1,86 @@
+package com.jashmore.sqs.broker.fifo;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for dynamically configuring how the {@link FifoMessageBroker} is able to process messages concurrently.
+ *
+ * <p>These properties will be consumed by the {@link FifoMessageBroker} at a high rate (every time a new message is needed) and therefore the performance
+ * of this implementation should be considered.
+ *
+ * <p>Implementations of these properties do not need to be thread safe because there is only a single coordinating thread that will be consuming this
+ * object.
+ */
+@NotThreadSafe
+public interface FifoMessageBrokerProperties {
+    /**
+     * The number of message groups that can be processed concurrently, e.g. the number of threads that can process messages at the same time.
+     *
+     * <p>As the messages in a single group are processed one after another, the concurrency will only be reached if there are at least this many message
+     * groups with messages available.
+     *
+     * @return the level of concurrency for processing messages
+     */
+    @PositiveOrZero
+    int getConcurrencyLevel();
+
+    /**
+     * The maximum number of messages, in addition to those being processed, that can be held by the broker while waiting for the previous message in
+     * their group to finish processing.
+     *
+     * <p>As SQS will return multiple messages from the same group in a single request, buffering these messages allows the broker to keep requesting
+     * messages for other groups instead of waiting for the group to be processed. Messages held in this buffer are not visible to other consumers and
+     * therefore this value should be small enough that the messages will be processed before their visibility timeout expires.
+     *
+     * <p>If this value is null or negative, {@link FifoMessageBrokerConstants#DEFAULT_MAX_BUFFERED_MESSAGES} will be used instead.
+     *
+     * @return the maximum number of messages that can be buffered
+     */
+    @Nullable
+    @PositiveOrZero
+    Integer getMaxBufferedMessages();
+
+    /**
+     * The number of milliseconds that the coordinating thread will wait for a message to finish processing when the maximum number of messages are being
+     * held before checking the concurrency level again.
+     *
+     * <p>If this value is null or negative, {@code com.jashmore.sqs.broker.MessageHoldingBrokerConstants#DEFAULT_CONCURRENCY_POLLING_IN_MS} will be
+     * used instead.
+     *
+     * @return the number of milliseconds between polls for the concurrency level
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getConcurrencyPollingRateInMilliseconds();
+
+    /**
+     * The number of milliseconds that the coordinating thread should backoff if there was an error trying to request a message.
+     *
+     * <p>If this value is null or negative, {@code com.jashmore.sqs.broker.MessageHoldingBrokerConstants#DEFAULT_BACKOFF_TIME_IN_MS} will be used as
+     * the backoff period.
+     *
+     * @return the number of milliseconds to sleep the thread after an error is thrown
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getErrorBackoffTimeInMilliseconds();
+
+    /**
+     * The number of milliseconds after a message in a group fails to be processed that any other messages in that group will be skipped, unless the
+     * failed message is received again before this.
+     *
+     * <p>Messages in the same group that were received before the failed message was processed, for example in the same batch, must not be processed
+     * before the failed message is retried. As the broker is unable to determine when these messages were received, this should be at least the visibility
+     * timeout of the messages so that they will have been made visible again in SQS by the time this period ends. The skipped messages are not
+     * processed and will be received again after their visibility timeout expires, in the order of the group.
+     *
+     * <p>If this value is null or negative, {@link FifoMessageBrokerConstants#DEFAULT_FAILED_MESSAGE_GROUP_BLOCKING_PERIOD_IN_MS} will be used instead.
+     *
+     * @return the number of milliseconds that the other messages of a failed group will be skipped
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getFailedMessageGroupBlockingPeriodInMilliseconds();
+}
@@ -0,0 +1,54 @@
+package com.jashmore.sqs.broker.fifo;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticFifoMessageBrokerProperties implements FifoMessageBrokerProperties {
+    private final int concurrencyLevel;
+    private final Integer maxBufferedMessages;
+    private final Long concurrencyPollingRateInMilliseconds;
+    private final Long errorBackoffTimeInMilliseconds;
+    private final Long failedMessageGroupBlockingPeriodInMilliseconds;
+
+    @PositiveOrZero
+    @Override
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Integer getMaxBufferedMessages() {
+        return maxBufferedMessages;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return concurrencyPollingRateInMilliseconds;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return errorBackoffTimeInMilliseconds;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getFailedMessageGroupBlockingPeriodInMilliseconds() {
+        return failedMessageGroupBlockingPeriodInMilliseconds;
+    }
+}
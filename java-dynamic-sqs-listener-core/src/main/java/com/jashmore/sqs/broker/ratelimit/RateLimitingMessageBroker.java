@@ -0,0 +1,78 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import com.jashmore.sqs.broker.MessageBroker;
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link MessageBroker} that limits the rate that messages are processed by the delegate broker using a {@link TokenBucketRateLimiter}.
+ *
+ * <p>A permit is obtained before each message is requested from the {@link com.jashmore.sqs.retriever.MessageRetriever}, and therefore while waiting
+ * for a permit the messages are not requested and no threads are used to process messages. When used with a retriever that does not prefetch messages,
+ * this means that the messages remain in the SQS queue instead of being held in memory.
+ *
+ * <p>For example, to limit the processing of messages to 5 a second with up to 4 being processed concurrently:
+ * <pre class="code">
+ * final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(StaticTokenBucketRateLimiterProperties.builder()
+ *         .permitsPerSecond(5)
+ *         .build());
+ * new RateLimitingMessageBroker(new ConcurrentMessageBroker(StaticConcurrentMessageBrokerProperties.builder().concurrencyLevel(4).build()), rateLimiter);
+ * </pre>
+ */
+@Slf4j
+public class RateLimitingMessageBroker implements MessageBroker {
+    private final MessageBroker delegate;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate    the broker that will process the messages
+     * @param rateLimiter the rate limiter for the messages, which can be shared between multiple brokers
+     */
+    public RateLimitingMessageBroker(final MessageBroker delegate, final TokenBucketRateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void processMessages(final ExecutorService messageProcessingExecutorService,
+                                final BooleanSupplier keepProcessingMessages,
+                                final Supplier<CompletableFuture<Message>> messageSupplier,
+                                final Function<Message, CompletableFuture<?>> messageProcessor) throws InterruptedException {
+        delegate.processMessages(
+                messageProcessingExecutorService,
+                keepProcessingMessages,
+                () -> obtainPermitAndSupplyMessage(messageSupplier),
+                messageProcessor
+        );
+    }
+
+    /**
+     * Wait for a permit from the rate limiter before requesting the next message.
+     *
+     * <p>As the {@link Supplier} is unable to throw an {@link InterruptedException}, if the thread is interrupted while waiting for a permit the
+     * interrupted status of the thread is restored and a cancelled future is returned so that the delegate broker can stop processing messages.
+     *
+     * @param messageSupplier the supplier of the next message
+     * @return the future that will be resolved with the next message
+     */
+    private CompletableFuture<Message> obtainPermitAndSupplyMessage(final Supplier<CompletableFuture<Message>> messageSupplier) {
+        try {
+            rateLimiter.acquire();
+        } catch (final InterruptedException interruptedException) {
+            log.debug("Interrupted while waiting for a permit to process a message");
+            Thread.currentThread().interrupt();
+            return CompletableFutureUtils.completedExceptionally(new CancellationException("Interrupted while waiting for a permit"));
+        }
+        return messageSupplier.get();
+    }
+}
@@ -0,0 +1,31 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticTokenBucketRateLimiterProperties implements TokenBucketRateLimiterProperties {
+    private final double permitsPerSecond;
+    private final Integer burstCapacity;
+
+    @PositiveOrZero
+    @Override
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getBurstCapacity() {
+        return burstCapacity;
+    }
+}
@@ -0,0 +1,104 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import static com.jashmore.sqs.broker.ratelimit.TokenBucketRateLimiterConstants.DISABLED_POLLING_TIME_IN_MS;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Rate limiter that uses the token bucket algorithm to limit the rate that permits are given out while allowing for bursts.
+ *
+ * <p>Permits are added to the bucket at the rate of {@link TokenBucketRateLimiterProperties#getPermitsPerSecond()} up until the
+ * {@link TokenBucketRateLimiterProperties#getBurstCapacity()}, and each permit given out removes one from the bucket. The bucket starts full so that a
+ * burst of permits can be given out straight away.
+ *
+ * <p>The same rate limiter can be used by multiple {@link RateLimitingMessageBroker}s, for example if multiple containers call the same rate limited
+ * API, in which case the rate is shared between all of them.
+ */
+@Slf4j
+@ThreadSafe
+public class TokenBucketRateLimiter {
+    private final TokenBucketRateLimiterProperties properties;
+    private final LongSupplier nanoTimeSupplier;
+
+    @GuardedBy("this")
+    private double availableTokens;
+    @GuardedBy("this")
+    private long lastRefillTimeInNanoseconds;
+
+    public TokenBucketRateLimiter(final TokenBucketRateLimiterProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    TokenBucketRateLimiter(final TokenBucketRateLimiterProperties properties, final LongSupplier nanoTimeSupplier) {
+        this.properties = properties;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+
+        this.availableTokens = getBurstCapacity(getPermitsPerSecond());
+        this.lastRefillTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+    }
+
+    /**
+     * Obtain a permit, waiting until one is available.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting for a permit
+     */
+    public void acquire() throws InterruptedException {
+        long timeUntilNextPermitInNanoseconds;
+        while ((timeUntilNextPermitInNanoseconds = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(timeUntilNextPermitInNanoseconds);
+        }
+    }
+
+    /**
+     * Try to obtain a permit without waiting.
+     *
+     * @return zero if the permit was obtained, otherwise the expected amount of time in nanoseconds until the next permit is available
+     */
+    @VisibleForTesting
+    synchronized long tryAcquire() {
+        final double permitsPerSecond = getPermitsPerSecond();
+        final long currentTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+        final double elapsedTimeInSeconds = Math.max(0, currentTimeInNanoseconds - lastRefillTimeInNanoseconds) / (double) TimeUnit.SECONDS.toNanos(1);
+        lastRefillTimeInNanoseconds = currentTimeInNanoseconds;
+        availableTokens = Math.min(getBurstCapacity(permitsPerSecond), availableTokens + elapsedTimeInSeconds * permitsPerSecond);
+
+        if (availableTokens >= 1) {
+            availableTokens -= 1;
+            return 0;
+        }
+
+        if (permitsPerSecond <= 0) {
+            return TimeUnit.MILLISECONDS.toNanos(DISABLED_POLLING_TIME_IN_MS);
+        }
+        return Math.max(1, (long) Math.ceil((1 - availableTokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private double getPermitsPerSecond() {
+        try {
+            final double permitsPerSecond = properties.getPermitsPerSecond();
+            if (permitsPerSecond >= 0 && !Double.isNaN(permitsPerSecond)) {
+                return permitsPerSecond;
+            }
+        } catch (final RuntimeException runtimeException) {
+            log.error("Error obtaining Property value permitsPerSecond returning default value 0", runtimeException);
+        }
+        return 0;
+    }
+
+    private int getBurstCapacity(final double permitsPerSecond) {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "burstCapacity",
+                properties::getBurstCapacity,
+                (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(permitsPerSecond)))
+        );
+    }
+}
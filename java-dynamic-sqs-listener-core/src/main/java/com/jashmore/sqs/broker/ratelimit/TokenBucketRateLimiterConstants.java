@@ -0,0 +1,11 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class TokenBucketRateLimiterConstants {
+    /**
+     * The amount of time to wait before checking the properties again when no permits are being given out.
+     */
+    static final long DISABLED_POLLING_TIME_IN_MS = 1_000L;
+}
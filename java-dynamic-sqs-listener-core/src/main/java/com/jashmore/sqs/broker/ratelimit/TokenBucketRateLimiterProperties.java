@@ -0,0 +1,33 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for configuring the {@link TokenBucketRateLimiter}, which will be checked each time a permit is requested and therefore can change
+ * dynamically during runtime.
+ */
+public interface TokenBucketRateLimiterProperties {
+    /**
+     * The number of permits that are added to the bucket each second, which is the sustained rate that messages can be processed.
+     *
+     * <p>If this value is zero or negative, no permits will be given out until this value is changed to be positive.
+     *
+     * @return the number of permits per second
+     */
+    @PositiveOrZero
+    double getPermitsPerSecond();
+
+    /**
+     * The maximum number of permits that can be stored in the bucket, which is the number of messages that can be processed in a burst after a period
+     * of inactivity.
+     *
+     * <p>If this value is null or not positive, the number of permits added in a single second will be used, with a minimum of one permit.
+     *
+     * @return the maximum number of permits in the bucket
+     */
+    @Nullable
+    @Positive
+    Integer getBurstCapacity();
+}
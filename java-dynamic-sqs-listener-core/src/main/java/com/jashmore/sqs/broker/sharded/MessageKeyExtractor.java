@@ -0,0 +1,71 @@
+package com.jashmore.sqs.broker.sharded;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.util.Optional;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Extracts the key of a message that is used by the {@link ShardedMessageBroker} to determine which lane the message should be processed in, where all
+ * messages with the same key will be processed one at a time.
+ *
+ * <p>For example, to process all of the messages for a single account one at a time using the {@code accountId} message attribute:
+ * <pre class="code">
+ * new ShardedMessageBroker(properties, MessageKeyExtractor.messageAttribute("accountId"), sqsAsyncClient, queueProperties);
+ * </pre>
+ */
+@ThreadSafe
+@FunctionalInterface
+public interface MessageKeyExtractor {
+    /**
+     * Extract the key from the message.
+     *
+     * <p>If an exception is thrown the message will not be processed, as it could otherwise be processed at the same time as other messages with the same
+     * key, and it will be received again once its visibility timeout expires.
+     *
+     * @param message the message to extract the key from
+     * @return the key of the message, or null if the message does not have a key and can be processed in any lane
+     */
+    @Nullable
+    String extractKey(Message message);
+
+    /**
+     * Use the string value of a message attribute as the key of the message.
+     *
+     * @param attributeName the name of the message attribute
+     * @return the extractor for the message attribute
+     */
+    static MessageKeyExtractor messageAttribute(final String attributeName) {
+        return message -> Optional.ofNullable(message.messageAttributes().get(attributeName))
+                .map(MessageAttributeValue::stringValue)
+                .orElse(null);
+    }
+
+    /**
+     * Use the value of a message system attribute as the key of the message.
+     *
+     * <p>The {@link com.jashmore.sqs.retriever.MessageRetriever} must request this system attribute when receiving the messages.
+     *
+     * @param attributeName the name of the message system attribute
+     * @return the extractor for the message system attribute
+     */
+    static MessageKeyExtractor systemAttribute(final MessageSystemAttributeName attributeName) {
+        return message -> message.attributes().get(attributeName);
+    }
+
+    /**
+     * Use the value of a field in the JSON payload of the message as the key of the message.
+     *
+     * @param objectMapper the object mapper used to parse the payload
+     * @param fieldPointer the JSON pointer to the field in the payload, e.g. {@code /account/id}
+     * @return the extractor for the payload field
+     * @see PayloadFieldMessageKeyExtractor for more details
+     */
+    static MessageKeyExtractor payloadField(final ObjectMapper objectMapper, final String fieldPointer) {
+        return new PayloadFieldMessageKeyExtractor(objectMapper, fieldPointer);
+    }
+}
@@ -0,0 +1,55 @@
+package com.jashmore.sqs.broker.sharded;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * {@link MessageKeyExtractor} that uses the value of a field in the JSON payload of the message as the key.
+ *
+ * <p>The field is found using a {@link JsonPointer} and the text of the field is used as the key, e.g. {@code 123} for both {@code {"id": 123}} and
+ * {@code {"id": "123"}}. If the payload is not valid JSON or the field is missing or is an object or array, the message will not have a key.
+ */
+@Slf4j
+public class PayloadFieldMessageKeyExtractor implements MessageKeyExtractor {
+    private final ObjectMapper objectMapper;
+    private final JsonPointer fieldPointer;
+
+    /**
+     * Constructor.
+     *
+     * @param objectMapper the object mapper used to parse the payload
+     * @param fieldPointer the JSON pointer to the field in the payload, e.g. {@code /account/id}
+     * @throws IllegalArgumentException if the field pointer is not a valid JSON pointer
+     */
+    public PayloadFieldMessageKeyExtractor(final ObjectMapper objectMapper, final String fieldPointer) {
+        this.objectMapper = objectMapper;
+        this.fieldPointer = JsonPointer.compile(fieldPointer);
+    }
+
+    @Nullable
+    @Override
+    public String extractKey(final Message message) {
+        if (message.body() == null) {
+            return null;
+        }
+
+        final JsonNode fieldNode;
+        try {
+            fieldNode = objectMapper.readTree(message.body()).at(fieldPointer);
+        } catch (final IOException ioException) {
+            log.warn("Unable to parse the payload of message {} to extract the key", message.messageId(), ioException);
+            return null;
+        }
+
+        if (!fieldNode.isValueNode() || fieldNode.isNull()) {
+            return null;
+        }
+        return fieldNode.asText();
+    }
+}
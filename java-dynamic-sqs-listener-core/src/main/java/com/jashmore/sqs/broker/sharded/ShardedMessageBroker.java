@@ -0,0 +1,268 @@
+package com.jashmore.sqs.broker.sharded;
+
+import static com.jashmore.sqs.broker.sharded.ShardedMessageBrokerConstants.DEFAULT_MAX_BUFFERED_MESSAGES;
+import static com.jashmore.sqs.broker.sharded.ShardedMessageBrokerConstants.DEFAULT_MAX_BUFFERED_MESSAGES_PER_LANE;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.broker.AbstractMessageHoldingBroker;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Broker that shards the messages between a number of serial lanes using the key of each message, so that messages with the same key, for example all
+ * of the events for a single account, are never processed at the same time.
+ *
+ * <p>Each lane processes a single message at a time and the lanes are processed concurrently. The lane of a message is determined by consistently
+ * hashing the key obtained from the {@link MessageKeyExtractor}, and messages without a key are distributed between the lanes in turn, while a message
+ * whose key could not be extracted is not processed and will be received again once its visibility timeout expires. Within a lane the
+ * messages are processed in the order that they were obtained, however as messages in a standard SQS queue are not ordered, this broker only guarantees
+ * that messages with the same key are not processed concurrently.
+ *
+ * <p>The number of messages held by the broker, whether they are being processed or waiting for their lane, is bounded by the number of lanes plus the
+ * {@link ShardedMessageBrokerProperties#getMaxBufferedMessages()} and no more messages will be requested from the
+ * {@link com.jashmore.sqs.retriever.MessageRetriever} until one of these messages has finished processing. As the lane of a message is only known once
+ * it has been received, a message obtained for a lane that already holds {@link ShardedMessageBrokerProperties#getMaxBufferedMessagesPerLane()} waiting
+ * messages is returned to the queue by changing its visibility timeout to zero, so that it can be received again later. Therefore, a key with many
+ * messages can neither fill the buffer shared by the other lanes nor stop the messages for the other lanes being requested.
+ *
+ * <p>For example, to process messages for each account one at a time across 10 lanes:
+ * <pre class="code">
+ * new ShardedMessageBroker(
+ *         StaticShardedMessageBrokerProperties.builder().numberOfLanes(10).build(),
+ *         MessageKeyExtractor.payloadField(objectMapper, "/accountId"),
+ *         sqsAsyncClient,
+ *         queueProperties
+ * );
+ * </pre>
+ *
+ * @see ShardedMessageBrokerProperties for how to configure this broker
+ */
+@Slf4j
+public class ShardedMessageBroker extends AbstractMessageHoldingBroker {
+    private final ShardedMessageBrokerProperties properties;
+    private final MessageKeyExtractor messageKeyExtractor;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final QueueProperties queueProperties;
+    private final List<Lane> lanes;
+    private final AtomicInteger nextLaneForMessageWithoutKey;
+
+    private final Object lock = new Object();
+
+    /**
+     * The maximum number of messages per lane, which is needed when messages are obtained and so is updated by the coordinating thread as the properties
+     * are not thread safe.
+     */
+    private volatile int maxBufferedMessagesPerLane;
+
+    /**
+     * Constructor.
+     *
+     * @param properties          the properties for configuring the lanes of the broker
+     * @param messageKeyExtractor the extractor of the key that determines the lane of each message
+     * @param sqsAsyncClient      the client used to return the messages for lanes that have no capacity to the queue
+     * @param queueProperties     the properties of the queue that the messages are obtained from
+     */
+    public ShardedMessageBroker(final ShardedMessageBrokerProperties properties,
+                                final MessageKeyExtractor messageKeyExtractor,
+                                final SqsAsyncClient sqsAsyncClient,
+                                final QueueProperties queueProperties) {
+        super(properties::getConcurrencyPollingRateInMilliseconds, properties::getErrorBackoffTimeInMilliseconds);
+        final int numberOfLanes = properties.getNumberOfLanes();
+        Preconditions.checkArgument(numberOfLanes > 0, "numberOfLanes should be greater than zero");
+
+        this.properties = properties;
+        this.messageKeyExtractor = messageKeyExtractor;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.queueProperties = queueProperties;
+        this.lanes = IntStream.range(0, numberOfLanes)
+                .mapToObj(Lane::new)
+                .collect(Collectors.toList());
+        this.nextLaneForMessageWithoutKey = new AtomicInteger();
+    }
+
+    /**
+     * Add the message to its lane, processing it straight away if the lane is not processing another message or otherwise waiting for the previous
+     * messages in the lane.
+     *
+     * <p>If the lane already holds the maximum number of buffered messages, the message is returned to the queue instead, and if the key of the message
+     * could not be extracted the message is failed without being processed.
+     *
+     * @param message                          the message that was obtained
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    @Override
+    protected void addMessage(final Message message,
+                              final ExecutorService messageProcessingExecutorService,
+                              final Function<Message, CompletableFuture<?>> messageProcessor) {
+        final String key;
+        try {
+            key = messageKeyExtractor.extractKey(message);
+        } catch (final RuntimeException runtimeException) {
+            log.error("Error extracting key for message {}, it will not be processed until it is received again", message.messageId(), runtimeException);
+            releaseMessagesHeld(1);
+            return;
+        }
+
+        final Lane lane = getLane(key);
+        final boolean laneIsFull;
+        synchronized (lock) {
+            if (!lane.isBeingProcessed) {
+                lane.isBeingProcessed = true;
+                laneIsFull = false;
+            } else if (lane.messages.size() < maxBufferedMessagesPerLane) {
+                lane.messages.add(message);
+                return;
+            } else {
+                laneIsFull = true;
+            }
+        }
+
+        if (laneIsFull) {
+            log.debug("Lane {} has reached the maximum number of buffered messages, returning message {} to the queue", lane.index, message.messageId());
+            releaseMessagesHeld(1);
+            returnMessageToQueue(message);
+            return;
+        }
+
+        processMessage(lane, message, messageProcessingExecutorService, messageProcessor);
+    }
+
+    /**
+     * Return the message to the queue by changing its visibility timeout to zero, so that it can be received again once its lane has capacity.
+     *
+     * @param message the message to return
+     */
+    private void returnMessageToQueue(final Message message) {
+        sqsAsyncClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                .queueUrl(queueProperties.getQueueUrl())
+                .receiptHandle(message.receiptHandle())
+                .visibilityTimeout(0)
+                .build())
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        log.error("Error returning message {} to the queue", message.messageId(), throwable);
+                    }
+                });
+    }
+
+    /**
+     * Process the message on the executor service and when it is finished start processing the next message in the lane.
+     *
+     * @param lane                             the lane that the message is being processed in
+     * @param message                          the message to process
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    private void processMessage(final Lane lane,
+                                final Message message,
+                                final ExecutorService messageProcessingExecutorService,
+                                final Function<Message, CompletableFuture<?>> messageProcessor) {
+        startProcessing(message, messageProcessingExecutorService, messageProcessor)
+                .whenComplete((ignoredResult, throwable) -> {
+                    releaseMessagesHeld(1);
+
+                    final Message nextMessage;
+                    synchronized (lock) {
+                        nextMessage = lane.messages.poll();
+                        if (nextMessage == null) {
+                            lane.isBeingProcessed = false;
+                        }
+                    }
+                    if (nextMessage != null) {
+                        processMessage(lane, nextMessage, messageProcessingExecutorService, messageProcessor);
+                    }
+                });
+    }
+
+    /**
+     * Determine the lane that the message with the given key should be processed in.
+     *
+     * @param key the key of the message, or null if it does not have a key
+     * @return the lane for the message
+     */
+    private Lane getLane(@Nullable final String key) {
+        if (key == null) {
+            return lanes.get(Math.floorMod(nextLaneForMessageWithoutKey.getAndIncrement(), lanes.size()));
+        }
+        return lanes.get(getLaneIndex(key, lanes.size()));
+    }
+
+    /**
+     * Consistently hash the key to a lane, which spreads the keys evenly between the lanes.
+     *
+     * @param key           the key of the message
+     * @param numberOfLanes the total number of lanes
+     * @return the index of the lane for the key
+     */
+    @VisibleForTesting
+    static int getLaneIndex(final String key, final int numberOfLanes) {
+        return Hashing.consistentHash(Hashing.murmur3_32().hashString(key, StandardCharsets.UTF_8), numberOfLanes);
+    }
+
+    /**
+     * Checks the properties of the broker and will update the number of messages that can be held if necessary.
+     *
+     * @param messageProcessingExecutorService the executor service to process the messages on
+     * @param messageProcessor                 the function that will process the messages
+     */
+    @Override
+    protected void updatePropertiesIfChanged(final ExecutorService messageProcessingExecutorService,
+                                             final Function<Message, CompletableFuture<?>> messageProcessor) {
+        maxBufferedMessagesPerLane = getMaxBufferedMessagesPerLane();
+
+        changeMaximumNumberOfMessagesHeld(Ints.saturatedCast((long) lanes.size() + getMaxBufferedMessages()));
+    }
+
+    private int getMaxBufferedMessages() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "maxBufferedMessages",
+                properties::getMaxBufferedMessages,
+                DEFAULT_MAX_BUFFERED_MESSAGES
+        );
+    }
+
+    private int getMaxBufferedMessagesPerLane() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "maxBufferedMessagesPerLane",
+                properties::getMaxBufferedMessagesPerLane,
+                DEFAULT_MAX_BUFFERED_MESSAGES_PER_LANE
+        );
+    }
+
+    /**
+     * A lane that processes its messages one at a time.
+     */
+    private static final class Lane {
+        private final int index;
+        @GuardedBy("lock")
+        private final Queue<Message> messages = new ArrayDeque<>();
+        @GuardedBy("lock")
+        private boolean isBeingProcessed;
+
+        private Lane(final int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.jashmore.sqs.broker.sharded;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class ShardedMessageBrokerConstants {
+    /**
+     * The default number of messages that can be held across all of the lanes waiting for the previous message in their lane to finish processing.
+     */
+    static final int DEFAULT_MAX_BUFFERED_MESSAGES = 20;
+
+    /**
+     * The default number of messages that a single lane can hold waiting for the previous message in the lane to finish processing.
+     */
+    static final int DEFAULT_MAX_BUFFERED_MESSAGES_PER_LANE = 5;
+}
@@ -0,0 +1,84 @@
+package com.jashmore.sqs.broker.sharded;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for configuring how the {@link ShardedMessageBroker} processes messages in its lanes.
+ *
+ * <p>Except for the {@link #getNumberOfLanes()}, these properties will be consumed by the {@link ShardedMessageBroker} every time a new message is needed
+ * and therefore the performance of this implementation should be considered.
+ *
+ * <p>Implementations of these properties do not need to be thread safe because there is only a single coordinating thread that will be consuming this
+ * object.
+ */
+@NotThreadSafe
+public interface ShardedMessageBrokerProperties {
+    /**
+     * The number of lanes that the messages are sharded between, which is the maximum number of messages that can be processed concurrently.
+     *
+     * <p>This value is only obtained when the broker is built, as changing the number of lanes would move keys to a different lane while messages with
+     * that key are still being processed in the previous lane.
+     *
+     * @return the number of lanes
+     */
+    @Positive
+    int getNumberOfLanes();
+
+    /**
+     * The maximum number of messages, in addition to those being processed, that can be held across all of the lanes while waiting for the previous
+     * message in their lane to finish processing.
+     *
+     * <p>No more messages will be requested from the {@link com.jashmore.sqs.retriever.MessageRetriever} while this many messages are waiting, and
+     * therefore this value should be small enough that the messages will be processed before their visibility timeout expires.
+     *
+     * <p>If this value is null or negative, {@link ShardedMessageBrokerConstants#DEFAULT_MAX_BUFFERED_MESSAGES} will be used instead.
+     *
+     * @return the maximum number of messages that can be buffered
+     */
+    @Nullable
+    @PositiveOrZero
+    Integer getMaxBufferedMessages();
+
+    /**
+     * The maximum number of messages that a single lane can hold while waiting for the previous message in the lane to finish processing.
+     *
+     * <p>This stops a lane with a key that has many messages from using all of the {@link #getMaxBufferedMessages()} and therefore stopping the messages
+     * for the other lanes being requested. As the lane of a message is only known once it has been received, a message obtained for a lane that has
+     * reached this limit is returned to the queue by changing its visibility timeout to zero, so that it can be received again later.
+     *
+     * <p>If this value is null or negative, {@link ShardedMessageBrokerConstants#DEFAULT_MAX_BUFFERED_MESSAGES_PER_LANE} will be used instead.
+     *
+     * @return the maximum number of messages that can be buffered in a single lane
+     */
+    @Nullable
+    @PositiveOrZero
+    Integer getMaxBufferedMessagesPerLane();
+
+    /**
+     * The number of milliseconds that the coordinating thread will wait for a message to finish processing when the maximum number of messages are being
+     * held before checking the properties again.
+     *
+     * <p>If this value is null or negative, {@code com.jashmore.sqs.broker.MessageHoldingBrokerConstants#DEFAULT_CONCURRENCY_POLLING_IN_MS} will be
+     * used instead.
+     *
+     * @return the number of milliseconds between polls for the properties
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getConcurrencyPollingRateInMilliseconds();
+
+    /**
+     * The number of milliseconds that the coordinating thread should backoff if there was an error trying to request a message.
+     *
+     * <p>If this value is null or negative, {@code com.jashmore.sqs.broker.MessageHoldingBrokerConstants#DEFAULT_BACKOFF_TIME_IN_MS} will be used as
+     * the backoff period.
+     *
+     * @return the number of milliseconds to sleep the thread after an error is thrown
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getErrorBackoffTimeInMilliseconds();
+}
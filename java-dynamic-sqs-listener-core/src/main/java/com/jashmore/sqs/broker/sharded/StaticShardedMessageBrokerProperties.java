@@ -0,0 +1,55 @@
+package com.jashmore.sqs.broker.sharded;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticShardedMessageBrokerProperties implements ShardedMessageBrokerProperties {
+    private final int numberOfLanes;
+    private final Integer maxBufferedMessages;
+    private final Integer maxBufferedMessagesPerLane;
+    private final Long concurrencyPollingRateInMilliseconds;
+    private final Long errorBackoffTimeInMilliseconds;
+
+    @Positive
+    @Override
+    public int getNumberOfLanes() {
+        return numberOfLanes;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Integer getMaxBufferedMessages() {
+        return maxBufferedMessages;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Integer getMaxBufferedMessagesPerLane() {
+        return maxBufferedMessagesPerLane;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return concurrencyPollingRateInMilliseconds;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return errorBackoffTimeInMilliseconds;
+    }
+}
@@ -9,10 +9,17 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
+import com.jashmore.sqs.broker.BatchMessageBroker;
 import com.jashmore.sqs.broker.MessageBroker;
+import com.jashmore.sqs.container.executor.CachedThreadPoolMessageProcessingExecutorFactory;
+import com.jashmore.sqs.container.executor.MessageProcessingExecutorFactory;
+import com.jashmore.sqs.container.visibility.VisibilityHeartbeat;
+import com.jashmore.sqs.processor.BatchMessageProcessor;
 import com.jashmore.sqs.processor.MessageProcessor;
 import com.jashmore.sqs.resolver.MessageResolver;
+import com.jashmore.sqs.resolver.NegativeAcknowledgingMessageResolver;
 import com.jashmore.sqs.retriever.MessageRetriever;
+import com.jashmore.sqs.retriever.NonBlockingMessageRetriever;
 import com.jashmore.sqs.util.properties.PropertyUtils;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sqs.model.Message;
@@ -20,6 +27,7 @@ import software.amazon.awssdk.utils.StringUtils;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -29,8 +37,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -41,6 +52,14 @@ import javax.annotation.concurrent.ThreadSafe;
  * also will wait for all background threads to finish, for example it will wait until all of the resolved messages in a {@link MessageResolver} to
  * be completed before finishing the shutdown.
  *
+ * <p>If the {@link MessageBroker} is a {@link BatchMessageBroker}, the messages will be requested and processed in batches, with a
+ * {@link BatchMessageProcessor} being able to process each batch with a single invocation.
+ *
+ * <p>If the {@link MessageResolver} is a {@link NegativeAcknowledgingMessageResolver}, any message that fails to be processed will be negatively
+ * acknowledged so that it can be redelivered without waiting for its visibility timeout to expire.
+ *
+ * <p>If a {@link VisibilityHeartbeat} is provided, the visibility timeout of each message will be automatically extended while it is being processed.
+ *
  * <p>This container expects a new instance of each component (e.g. {@link MessageResolver}) each time that it is started up to remove the need for each
  * component to maintain state between start up.
  */
@@ -53,6 +72,9 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
     private final Supplier<MessageProcessor> messageProcessorSupplier;
     private final Supplier<MessageResolver> messageResolverSupplier;
     private final CoreMessageListenerContainerProperties properties;
+    private final MessageProcessingExecutorFactory messageProcessingExecutorFactory;
+    @Nullable
+    private final Supplier<VisibilityHeartbeat> visibilityHeartbeatSupplier;
 
     /**
      * The service that is running this container's thread.
@@ -86,6 +108,68 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
                                         final Supplier<MessageProcessor> messageProcessorSupplier,
                                         final Supplier<MessageResolver> messageResolverSupplier,
                                         final CoreMessageListenerContainerProperties properties) {
+        this(
+                identifier,
+                messageBrokerSupplier,
+                messageRetrieverSupplier,
+                messageProcessorSupplier,
+                messageResolverSupplier,
+                properties,
+                new CachedThreadPoolMessageProcessingExecutorFactory()
+        );
+    }
+
+    /**
+     * Constructor for a container that does not automatically extend the visibility of the messages being processed.
+     *
+     * @param identifier                       the unique identifier for this container
+     * @param messageBrokerSupplier            supplies a new {@link MessageBroker} each time the container is started
+     * @param messageRetrieverSupplier         supplies a new {@link MessageRetriever} each time the container is started
+     * @param messageProcessorSupplier         supplies a new {@link MessageProcessor} each time the container is started
+     * @param messageResolverSupplier          supplies a new {@link MessageResolver} each time the container is started
+     * @param properties                       the properties for configuring the container
+     * @param messageProcessingExecutorFactory the factory for the {@link ExecutorService} that will process the messages
+     */
+    public CoreMessageListenerContainer(final String identifier,
+                                        final Supplier<MessageBroker> messageBrokerSupplier,
+                                        final Supplier<MessageRetriever> messageRetrieverSupplier,
+                                        final Supplier<MessageProcessor> messageProcessorSupplier,
+                                        final Supplier<MessageResolver> messageResolverSupplier,
+                                        final CoreMessageListenerContainerProperties properties,
+                                        final MessageProcessingExecutorFactory messageProcessingExecutorFactory) {
+        this(
+                identifier,
+                messageBrokerSupplier,
+                messageRetrieverSupplier,
+                messageProcessorSupplier,
+                messageResolverSupplier,
+                properties,
+                messageProcessingExecutorFactory,
+                null
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param identifier                       the unique identifier for this container
+     * @param messageBrokerSupplier            supplies a new {@link MessageBroker} each time the container is started
+     * @param messageRetrieverSupplier         supplies a new {@link MessageRetriever} each time the container is started
+     * @param messageProcessorSupplier         supplies a new {@link MessageProcessor} each time the container is started
+     * @param messageResolverSupplier          supplies a new {@link MessageResolver} each time the container is started
+     * @param properties                       the properties for configuring the container
+     * @param messageProcessingExecutorFactory the factory for the {@link ExecutorService} that will process the messages
+     * @param visibilityHeartbeatSupplier      supplies a new {@link VisibilityHeartbeat} each time the container is started, or null if the visibility
+     *                                         of the messages being processed should not be automatically extended
+     */
+    public CoreMessageListenerContainer(final String identifier,
+                                        final Supplier<MessageBroker> messageBrokerSupplier,
+                                        final Supplier<MessageRetriever> messageRetrieverSupplier,
+                                        final Supplier<MessageProcessor> messageProcessorSupplier,
+                                        final Supplier<MessageResolver> messageResolverSupplier,
+                                        final CoreMessageListenerContainerProperties properties,
+                                        final MessageProcessingExecutorFactory messageProcessingExecutorFactory,
+                                        @Nullable final Supplier<VisibilityHeartbeat> visibilityHeartbeatSupplier) {
         Preconditions.checkArgument(StringUtils.isNotBlank(identifier), "identifier should not be empty");
 
         this.identifier = identifier;
@@ -94,6 +178,8 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
         this.messageProcessorSupplier = messageProcessorSupplier;
         this.messageResolverSupplier = messageResolverSupplier;
         this.properties = properties;
+        this.messageProcessingExecutorFactory = messageProcessingExecutorFactory;
+        this.visibilityHeartbeatSupplier = visibilityHeartbeatSupplier;
     }
 
     @Override
@@ -150,11 +236,12 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
             final MessageRetriever messageRetriever = messageRetrieverSupplier.get();
             final MessageResolver messageResolver = messageResolverSupplier.get();
             final MessageBroker messageBroker = messageBrokerSupplier.get();
-            final MessageProcessor messageProcessor = messageProcessorSupplier.get();
+            final MessageProcessor messageProcessor = buildMessageProcessor();
 
             final ExecutorService messageBrokerExecutorService = Executors.newSingleThreadExecutor(threadFactory(identifier + "-message-broker"));
 
             final BlockingRunnable shutdownMessageResolver = startupMessageResolver(messageResolver);
+            final BlockingRunnable shutdownVisibilityHeartbeat = startupVisibilityHeartbeat(messageProcessor);
             final ExecutorService messageProcessingExecutorService = buildMessageProcessingExecutorService();
 
             // As the AsyncMessageRetriever may have extra messages batched, they will be placed in here
@@ -169,6 +256,7 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
             processExtraMessages(messageBroker, messageProcessor, messageResolver, messageBrokerExecutorService,
                     messageProcessingExecutorService, extraMessages);
             shutdownMessageProcessingThreads(messageProcessingExecutorService);
+            shutdownVisibilityHeartbeat.run();
             shutdownMessageResolver.run();
             log.info("Container '{}' has stopped", identifier);
         } catch (final InterruptedException interruptedException) {
@@ -201,11 +289,20 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
                                               final ExecutorService messageProcessingExecutorService) throws InterruptedException {
         log.info("Container '{}' is beginning to process messages", identifier);
         try {
-            runUntilInterruption(brokerExecutorService, () -> messageBroker.processMessages(
-                    messageProcessingExecutorService,
-                    messageRetriever::retrieveMessage,
-                    message -> messageProcessor.processMessage(message, () -> messageResolver.resolveMessage(message))
-            ));
+            if (messageBroker instanceof BatchMessageBroker) {
+                runUntilInterruption(brokerExecutorService, () -> ((BatchMessageBroker) messageBroker).processMessageBatches(
+                        messageProcessingExecutorService,
+                        () -> true,
+                        messageRetriever::retrieveMessages,
+                        messages -> processMessages(messageProcessor, messageResolver, messages)
+                ));
+            } else {
+                runUntilInterruption(brokerExecutorService, () -> messageBroker.processMessages(
+                        messageProcessingExecutorService,
+                        messageRetriever::retrieveMessage,
+                        message -> processMessage(messageProcessor, messageResolver, message)
+                ));
+            }
         } catch (final ExecutionException executionException) {
             log.error("Error processing messages", executionException.getCause());
         }
@@ -230,18 +327,124 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
         if (!messages.isEmpty() && shouldProcessAnyExtraRetrievedMessagesOnShutdown()) {
             log.debug("Container '{}' is processing {} extra messages before shutdown", identifier, messages.size());
             try {
-                runUntilInterruption(messageBrokerExecutorService, () -> messageBroker.processMessages(
-                        executorService,
-                        () -> !messages.isEmpty(),
-                        () -> CompletableFuture.completedFuture(messages.poll()),
-                        message -> messageProcessor.processMessage(message, () -> messageResolver.resolveMessage(message))
-                ));
+                if (messageBroker instanceof BatchMessageBroker) {
+                    runUntilInterruption(messageBrokerExecutorService, () -> ((BatchMessageBroker) messageBroker).processMessageBatches(
+                            executorService,
+                            () -> !messages.isEmpty(),
+                            maxNumberOfMessages -> CompletableFuture.completedFuture(pollMessages(messages, maxNumberOfMessages)),
+                            batch -> processMessages(messageProcessor, messageResolver, batch)
+                    ));
+                } else {
+                    runUntilInterruption(messageBrokerExecutorService, () -> messageBroker.processMessages(
+                            executorService,
+                            () -> !messages.isEmpty(),
+                            () -> CompletableFuture.completedFuture(messages.poll()),
+                            message -> processMessage(messageProcessor, messageResolver, message)
+                    ));
+                }
             } catch (final ExecutionException executionException) {
                 log.error("Exception thrown processing extra messages", executionException.getCause());
             }
         }
     }
 
+    /**
+     * Process the message, resolving it on successful processing and negatively acknowledging it if the processing failed and the
+     * {@link MessageResolver} supports it.
+     *
+     * @param messageProcessor the processor that will execute the message
+     * @param messageResolver  the resolver that will resolve the message
+     * @param message          the message to process
+     * @return the future that will be completed when the message has finished processing
+     */
+    private static CompletableFuture<?> processMessage(final MessageProcessor messageProcessor,
+                                                       final MessageResolver messageResolver,
+                                                       final Message message) {
+        if (!(messageResolver instanceof NegativeAcknowledgingMessageResolver)) {
+            return messageProcessor.processMessage(message, () -> messageResolver.resolveMessage(message));
+        }
+
+        final NegativeAcknowledgingMessageResolver negativeAcknowledgingMessageResolver = (NegativeAcknowledgingMessageResolver) messageResolver;
+        final CompletableFuture<?> processingFuture;
+        try {
+            processingFuture = messageProcessor.processMessage(message, () -> messageResolver.resolveMessage(message));
+        } catch (final RuntimeException runtimeException) {
+            negativeAcknowledgingMessageResolver.rejectMessage(message);
+            throw runtimeException;
+        }
+        return processingFuture.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                negativeAcknowledgingMessageResolver.rejectMessage(message);
+            }
+        });
+    }
+
+    /**
+     * Process the batch of messages, resolving each message on successful processing and negatively acknowledging all of the messages if the processing
+     * failed and the {@link MessageResolver} supports it.
+     *
+     * <p>If the {@link MessageProcessor} is a {@link BatchMessageProcessor} the batch will be processed with a single invocation, otherwise each message is
+     * processed one after another on the current thread.
+     *
+     * @param messageProcessor the processor that will execute the messages
+     * @param messageResolver  the resolver that will resolve the messages
+     * @param messages         the batch of messages to process
+     * @return the future that will be completed when all of the messages have finished processing
+     */
+    private static CompletableFuture<?> processMessages(final MessageProcessor messageProcessor,
+                                                        final MessageResolver messageResolver,
+                                                        final List<Message> messages) {
+        if (!(messageProcessor instanceof BatchMessageProcessor)) {
+            return CompletableFuture.allOf(messages.stream()
+                    .map(message -> {
+                        try {
+                            return processMessage(messageProcessor, messageResolver, message);
+                        } catch (final RuntimeException runtimeException) {
+                            // make sure that the rest of the messages in the batch are still processed
+                            final CompletableFuture<?> processingFuture = new CompletableFuture<>();
+                            processingFuture.completeExceptionally(runtimeException);
+                            return processingFuture;
+                        }
+                    })
+                    .toArray(CompletableFuture[]::new));
+        }
+
+        final BatchMessageProcessor batchMessageProcessor = (BatchMessageProcessor) messageProcessor;
+        final Function<Message, Runnable> resolveMessageCallbacks = message -> () -> messageResolver.resolveMessage(message);
+        if (!(messageResolver instanceof NegativeAcknowledgingMessageResolver)) {
+            return batchMessageProcessor.processMessages(messages, resolveMessageCallbacks);
+        }
+
+        final NegativeAcknowledgingMessageResolver negativeAcknowledgingMessageResolver = (NegativeAcknowledgingMessageResolver) messageResolver;
+        final CompletableFuture<?> processingFuture;
+        try {
+            processingFuture = batchMessageProcessor.processMessages(messages, resolveMessageCallbacks);
+        } catch (final RuntimeException runtimeException) {
+            messages.forEach(negativeAcknowledgingMessageResolver::rejectMessage);
+            throw runtimeException;
+        }
+        return processingFuture.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                messages.forEach(negativeAcknowledgingMessageResolver::rejectMessage);
+            }
+        });
+    }
+
+    /**
+     * Remove up to the provided number of messages from the queue.
+     *
+     * @param messages            the queue of messages
+     * @param maxNumberOfMessages the maximum number of messages to remove
+     * @return the messages removed from the queue
+     */
+    private static List<Message> pollMessages(final Queue<Message> messages, final int maxNumberOfMessages) {
+        final List<Message> polledMessages = new ArrayList<>(Math.min(messages.size(), maxNumberOfMessages));
+        while (polledMessages.size() < maxNumberOfMessages && !messages.isEmpty()) {
+            polledMessages.add(messages.poll());
+        }
+        return polledMessages;
+    }
+
     /**
      * Run the provided {@link Runnable} on the {@link ExecutorService} and wait until the thread is interrupted in which case the {@link Runnable} should
      * also be interrupted.
@@ -299,12 +502,19 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
      * <p>A callback is provided that will be called when the {@link MessageRetriever} finishes which will contain a drain of any of the extra messages
      * that had not been processed yet.
      *
+     * <p>If the retriever is a {@link NonBlockingMessageRetriever} no background thread will be started and it will instead be started and stopped
+     * directly.
+     *
      * @param messageRetriever      the retriever to start
      * @param extraMessagesConsumer the callback for consuming leftover messages
      * @return the method for shutting down the retriever background thread
      */
     private BlockingRunnable startupMessageRetriever(final MessageRetriever messageRetriever,
                                                      final Consumer<List<Message>> extraMessagesConsumer) {
+        if (messageRetriever instanceof NonBlockingMessageRetriever) {
+            return startupNonBlockingMessageRetriever((NonBlockingMessageRetriever) messageRetriever, extraMessagesConsumer);
+        }
+
         final ExecutorService executorService = Executors.newSingleThreadExecutor(threadFactory(getIdentifier() + "-message-retriever"));
         CompletableFuture.supplyAsync(messageRetriever::run, executorService)
                 .thenAccept(extraMessagesConsumer);
@@ -321,6 +531,31 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
         };
     }
 
+    /**
+     * Start the {@link NonBlockingMessageRetriever}, returning a {@link BlockingRunnable} that can be executed when it needs to be shutdown.
+     *
+     * @param messageRetriever      the retriever to start
+     * @param extraMessagesConsumer the callback for consuming leftover messages
+     * @return the method for shutting down the retriever
+     */
+    private BlockingRunnable startupNonBlockingMessageRetriever(final NonBlockingMessageRetriever messageRetriever,
+                                                                final Consumer<List<Message>> extraMessagesConsumer) {
+        final CompletableFuture<List<Message>> retrieverStoppedFuture = messageRetriever.start();
+        return () -> {
+            log.info("Shutting down MessageRetriever");
+            messageRetriever.stop();
+
+            final int retrieverShutdownTimeoutInSeconds = getMessageRetrieverShutdownTimeoutInSeconds();
+            try {
+                extraMessagesConsumer.accept(retrieverStoppedFuture.get(retrieverShutdownTimeoutInSeconds, SECONDS));
+            } catch (final TimeoutException timeoutException) {
+                log.error("MessageRetriever did not shutdown within {} seconds", retrieverShutdownTimeoutInSeconds);
+            } catch (final ExecutionException executionException) {
+                log.error("MessageRetriever failed to shutdown", executionException.getCause());
+            }
+        };
+    }
+
     /**
      * Start a background thread of the {@link MessageResolver}, returning a {@link BlockingRunnable} that can be executed
      * when it needs to be shutdown.
@@ -343,13 +578,55 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
         };
     }
 
+    /**
+     * Build the {@link MessageProcessor} for processing the messages, which will also track the messages being processed in a {@link VisibilityHeartbeat}
+     * if one has been configured.
+     *
+     * @return the processor for the messages
+     */
+    private MessageProcessor buildMessageProcessor() {
+        final MessageProcessor messageProcessor = messageProcessorSupplier.get();
+        if (visibilityHeartbeatSupplier == null) {
+            return messageProcessor;
+        }
+
+        if (messageProcessor instanceof BatchMessageProcessor) {
+            return new VisibilityHeartbeatBatchMessageProcessor((BatchMessageProcessor) messageProcessor, visibilityHeartbeatSupplier.get());
+        }
+        return new VisibilityHeartbeatMessageProcessor(messageProcessor, visibilityHeartbeatSupplier.get());
+    }
+
+    /**
+     * Start a background thread for the {@link VisibilityHeartbeat}, if one has been configured, returning a {@link BlockingRunnable} that can be
+     * executed when it needs to be shutdown.
+     *
+     * @param messageProcessor the processor for the messages which will contain the heartbeat if it has been configured
+     * @return the method for shutting down the heartbeat background thread
+     */
+    private BlockingRunnable startupVisibilityHeartbeat(final MessageProcessor messageProcessor) {
+        if (!(messageProcessor instanceof VisibilityHeartbeatMessageProcessor)) {
+            return () -> {
+            };
+        }
+
+        final VisibilityHeartbeat visibilityHeartbeat = ((VisibilityHeartbeatMessageProcessor) messageProcessor).getVisibilityHeartbeat();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor(threadFactory(getIdentifier() + "-visibility-heartbeat"));
+        CompletableFuture.runAsync(visibilityHeartbeat::run, executorService);
+        return () -> {
+            log.info("Shutting down VisibilityHeartbeat");
+            executorService.shutdownNow();
+            executorService.awaitTermination(getMessageResolverShutdownTimeoutInSeconds(), SECONDS);
+        };
+    }
+
     /**
      * Build the {@link ExecutorService} that will be used for the threads that are processing the messages.
      *
      * @return the executor service that will be used for processing messages
+     * @see MessageProcessingExecutorFactory
      */
     private ExecutorService buildMessageProcessingExecutorService() {
-        return Executors.newCachedThreadPool(threadFactory(getIdentifier() + "-message-processing-%d"));
+        return messageProcessingExecutorFactory.createExecutorService(getIdentifier());
     }
 
     /**
@@ -401,6 +678,60 @@ public class CoreMessageListenerContainer implements MessageListenerContainer {
                 .orElse(DEFAULT_SHOULD_PROCESS_EXTRA_MESSAGES_ON_SHUTDOWN);
     }
 
+    /**
+     * {@link MessageProcessor} that tracks each message in the {@link VisibilityHeartbeat} while it is being processed.
+     */
+    private static class VisibilityHeartbeatMessageProcessor implements MessageProcessor {
+        private final MessageProcessor delegate;
+        private final VisibilityHeartbeat visibilityHeartbeat;
+
+        VisibilityHeartbeatMessageProcessor(final MessageProcessor delegate, final VisibilityHeartbeat visibilityHeartbeat) {
+            this.delegate = delegate;
+            this.visibilityHeartbeat = visibilityHeartbeat;
+        }
+
+        VisibilityHeartbeat getVisibilityHeartbeat() {
+            return visibilityHeartbeat;
+        }
+
+        @Override
+        public CompletableFuture<?> processMessage(final Message message, final Runnable resolveMessageCallback) {
+            visibilityHeartbeat.track(message);
+            try {
+                return delegate.processMessage(message, resolveMessageCallback)
+                        .whenComplete((ignored, throwable) -> visibilityHeartbeat.untrack(message));
+            } catch (final RuntimeException runtimeException) {
+                visibilityHeartbeat.untrack(message);
+                throw runtimeException;
+            }
+        }
+    }
+
+    /**
+     * {@link BatchMessageProcessor} that tracks each message of a batch in the {@link VisibilityHeartbeat} while the batch is being processed.
+     */
+    private static class VisibilityHeartbeatBatchMessageProcessor extends VisibilityHeartbeatMessageProcessor implements BatchMessageProcessor {
+        private final BatchMessageProcessor delegate;
+
+        VisibilityHeartbeatBatchMessageProcessor(final BatchMessageProcessor delegate, final VisibilityHeartbeat visibilityHeartbeat) {
+            super(delegate, visibilityHeartbeat);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CompletableFuture<?> processMessages(final List<Message> messages, final Function<Message, Runnable> resolveMessageCallbacks) {
+            final VisibilityHeartbeat visibilityHeartbeat = getVisibilityHeartbeat();
+            messages.forEach(visibilityHeartbeat::track);
+            try {
+                return delegate.processMessages(messages, resolveMessageCallbacks)
+                        .whenComplete((ignored, throwable) -> messages.forEach(visibilityHeartbeat::untrack));
+            } catch (final RuntimeException runtimeException) {
+                messages.forEach(visibilityHeartbeat::untrack);
+                throw runtimeException;
+            }
+        }
+    }
+
     /**
      * Similar to a {@link Runnable} but it allows for {@link InterruptedException}s to be thrown.
      */
@@ -0,0 +1,67 @@
+package com.jashmore.sqs.container.backlog;
+
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverProperties;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * {@link BatchingMessageRetrieverProperties} that reduces the batch size of the delegate properties when there are fewer messages in the queue than
+ * the batch size.
+ *
+ * <p>When the backlog of the queue is smaller than the batch size, waiting for more threads to request messages will not result in larger batches and
+ * only adds latency, so the messages are requested as soon as there are as many threads requesting messages as there are messages in the queue. When
+ * the backlog is large the batch size of the delegate properties is used so that each request to SQS is as full as possible.
+ */
+@ThreadSafe
+public class BacklogScalingBatchingMessageRetrieverProperties implements BatchingMessageRetrieverProperties {
+    private final QueueBacklogMonitor queueBacklogMonitor;
+    private final BatchingMessageRetrieverProperties delegateProperties;
+
+    public BacklogScalingBatchingMessageRetrieverProperties(final QueueBacklogMonitor queueBacklogMonitor,
+                                                            final BatchingMessageRetrieverProperties delegateProperties) {
+        this.queueBacklogMonitor = queueBacklogMonitor;
+        this.delegateProperties = delegateProperties;
+    }
+
+    @Positive
+    @Override
+    public int getBatchSize() {
+        final int batchSize = delegateProperties.getBatchSize();
+        final QueueBacklog queueBacklog = queueBacklogMonitor.getQueueBacklog();
+        if (queueBacklog == null) {
+            return batchSize;
+        }
+        return Math.max(1, Math.min(batchSize, queueBacklog.getApproximateNumberOfMessages()));
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getBatchingPeriodInMs() {
+        return delegateProperties.getBatchingPeriodInMs();
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getMessageVisibilityTimeoutInSeconds() {
+        return delegateProperties.getMessageVisibilityTimeoutInSeconds();
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return delegateProperties.getErrorBackoffTimeInMilliseconds();
+    }
+
+    @Nullable
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes() {
+        return delegateProperties.getRequiredMessageAttributes();
+    }
+}
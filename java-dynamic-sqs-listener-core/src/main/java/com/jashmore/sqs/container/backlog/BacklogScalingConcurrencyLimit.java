@@ -0,0 +1,76 @@
+package com.jashmore.sqs.container.backlog;
+
+import static com.jashmore.sqs.container.backlog.BacklogScalingConcurrencyLimitConstants.DEFAULT_BACKLOG_PER_CONCURRENCY_LEVEL;
+
+import com.jashmore.sqs.broker.concurrent.ConcurrentMessageBrokerProperties;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * {@link ConcurrentMessageBrokerProperties} that scales the level of concurrency with the backlog of the queue obtained by a {@link QueueBacklogMonitor}.
+ *
+ * <p>The level of concurrency is the number of messages that are in the queue or are being processed divided by
+ * {@link BacklogScalingConcurrencyLimitProperties#getBacklogPerConcurrencyLevel()}, which is kept between
+ * {@link BacklogScalingConcurrencyLimitProperties#getMinimumConcurrencyLevel()} and
+ * {@link BacklogScalingConcurrencyLimitProperties#getMaximumConcurrencyLevel()}. The messages that are being processed are included in the backlog
+ * so that the level of concurrency does not drop while the messages that were in the queue are still being processed.
+ *
+ * <p>This allows for a backlog of messages to be drained quickly while not holding onto threads when the queue is idle. Until the backlog has been
+ * obtained the minimum level of concurrency will be used.
+ */
+@ThreadSafe
+public class BacklogScalingConcurrencyLimit implements ConcurrentMessageBrokerProperties {
+    private final QueueBacklogMonitor queueBacklogMonitor;
+    private final BacklogScalingConcurrencyLimitProperties properties;
+
+    public BacklogScalingConcurrencyLimit(final QueueBacklogMonitor queueBacklogMonitor,
+                                          final BacklogScalingConcurrencyLimitProperties properties) {
+        this.queueBacklogMonitor = queueBacklogMonitor;
+        this.properties = properties;
+    }
+
+    @PositiveOrZero
+    @Override
+    public int getConcurrencyLevel() {
+        final int minimumConcurrencyLevel = PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "minimumConcurrencyLevel",
+                properties::getMinimumConcurrencyLevel,
+                1
+        );
+        final QueueBacklog queueBacklog = queueBacklogMonitor.getQueueBacklog();
+        if (queueBacklog == null) {
+            return minimumConcurrencyLevel;
+        }
+
+        final int maximumConcurrencyLevel = Math.max(minimumConcurrencyLevel, PropertyUtils.safelyGetPositiveIntegerValue(
+                "maximumConcurrencyLevel",
+                properties::getMaximumConcurrencyLevel,
+                minimumConcurrencyLevel
+        ));
+        final int backlogPerConcurrencyLevel = PropertyUtils.safelyGetPositiveIntegerValue(
+                "backlogPerConcurrencyLevel",
+                properties::getBacklogPerConcurrencyLevel,
+                DEFAULT_BACKLOG_PER_CONCURRENCY_LEVEL
+        );
+        final long backlog = (long) queueBacklog.getApproximateNumberOfMessages() + queueBacklog.getApproximateNumberOfMessagesNotVisible();
+        final long concurrencyLevelForBacklog = (backlog + backlogPerConcurrencyLevel - 1) / backlogPerConcurrencyLevel;
+        return (int) Math.max(minimumConcurrencyLevel, Math.min(maximumConcurrencyLevel, concurrencyLevelForBacklog));
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return properties.getConcurrencyPollingRateInMilliseconds();
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return properties.getErrorBackoffTimeInMilliseconds();
+    }
+}
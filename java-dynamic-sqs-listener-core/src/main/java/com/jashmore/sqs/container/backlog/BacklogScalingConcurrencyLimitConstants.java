@@ -0,0 +1,11 @@
+package com.jashmore.sqs.container.backlog;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class BacklogScalingConcurrencyLimitConstants {
+    /**
+     * The default number of messages in the backlog of the queue for each level of concurrency.
+     */
+    static final int DEFAULT_BACKLOG_PER_CONCURRENCY_LEVEL = 10;
+}
@@ -0,0 +1,67 @@
+package com.jashmore.sqs.container.backlog;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Properties for configuring how the {@link BacklogScalingConcurrencyLimit} scales the rate of concurrency with the backlog of the queue.
+ */
+public interface BacklogScalingConcurrencyLimitProperties {
+    /**
+     * The level of concurrency when there are no messages in the queue.
+     *
+     * <p>This can be zero so that no messages are requested while the queue is empty, in which case messages will only start being processed once the
+     * {@link QueueBacklogMonitor} has seen them in the queue.
+     *
+     * @return the minimum level of concurrency
+     */
+    @PositiveOrZero
+    int getMinimumConcurrencyLevel();
+
+    /**
+     * The highest level of concurrency that will be used no matter how large the backlog is.
+     *
+     * <p>If this is less than {@link #getMinimumConcurrencyLevel()}, the minimum concurrency level will be used instead.
+     *
+     * @return the maximum level of concurrency
+     */
+    @Positive
+    int getMaximumConcurrencyLevel();
+
+    /**
+     * The number of messages in the backlog of the queue that each level of concurrency should be responsible for.
+     *
+     * <p>For example, if this value is 10 and there are 55 messages in the queue or being processed, the level of concurrency will be 6.
+     *
+     * <p>If this value is null or not positive, {@link BacklogScalingConcurrencyLimitConstants#DEFAULT_BACKLOG_PER_CONCURRENCY_LEVEL} will be used.
+     *
+     * @return the number of messages for each level of concurrency
+     */
+    @Nullable
+    @Positive
+    Integer getBacklogPerConcurrencyLevel();
+
+    /**
+     * The number of milliseconds that the broker will wait for a message to finish processing before checking the concurrency rate again.
+     *
+     * <p>As the concurrency rate only changes when the {@link QueueBacklogMonitor} obtains the backlog of the queue, this should be similar to
+     * {@link QueueBacklogMonitorProperties#getPollingPeriodInMs()}.
+     *
+     * @return the number of milliseconds between polls for the concurrency level
+     * @see com.jashmore.sqs.broker.concurrent.ConcurrentMessageBrokerProperties#getConcurrencyPollingRateInMilliseconds() for more details
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getConcurrencyPollingRateInMilliseconds();
+
+    /**
+     * The number of milliseconds that the broker should backoff if there was an error trying to request a message.
+     *
+     * @return the number of milliseconds to sleep the thread after an error is thrown
+     * @see com.jashmore.sqs.broker.concurrent.ConcurrentMessageBrokerProperties#getErrorBackoffTimeInMilliseconds() for more details
+     */
+    @Nullable
+    @PositiveOrZero
+    Long getErrorBackoffTimeInMilliseconds();
+}
@@ -0,0 +1,19 @@
+package com.jashmore.sqs.container.backlog;
+
+import lombok.Value;
+
+/**
+ * The approximate number of messages in a queue at the time that the {@link QueueBacklogMonitor} last checked the queue.
+ */
+@Value
+public class QueueBacklog {
+    /**
+     * The approximate number of messages that are available to be received from the queue.
+     */
+    private final int approximateNumberOfMessages;
+    /**
+     * The approximate number of messages that have been received but have not been deleted or reached their visibility timeout, e.g. the messages that
+     * are currently being processed.
+     */
+    private final int approximateNumberOfMessagesNotVisible;
+}
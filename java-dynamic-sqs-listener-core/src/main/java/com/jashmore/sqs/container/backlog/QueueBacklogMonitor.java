@@ -0,0 +1,129 @@
+package com.jashmore.sqs.container.backlog;
+
+import static com.jashmore.sqs.container.backlog.QueueBacklogMonitorConstants.DEFAULT_POLLING_PERIOD_IN_MS;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Periodically requests the approximate number of messages in the queue so that the rate that messages are processed can be scaled to the size of
+ * the backlog, for example by using a {@link BacklogScalingConcurrencyLimit} for the broker and a
+ * {@link BacklogScalingBatchingMessageRetrieverProperties} for the retriever.
+ *
+ * <p>The latest backlog is also exposed via {@link #getQueueBacklog()} so that it can be published as a metric.
+ *
+ * <p>A single background thread, see {@link #run()}, is needed to request the attributes of the queue, for example:
+ * <pre class="code">
+ * final QueueBacklogMonitor queueBacklogMonitor = new QueueBacklogMonitor(queueProperties, sqsAsyncClient, properties);
+ * executorService.submit(queueBacklogMonitor::run);
+ * </pre>
+ */
+@Slf4j
+@ThreadSafe
+public class QueueBacklogMonitor {
+    private final QueueProperties queueProperties;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final QueueBacklogMonitorProperties properties;
+
+    private volatile QueueBacklog queueBacklog;
+
+    public QueueBacklogMonitor(final QueueProperties queueProperties,
+                               final SqsAsyncClient sqsAsyncClient,
+                               final QueueBacklogMonitorProperties properties) {
+        this.queueProperties = queueProperties;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.properties = properties;
+    }
+
+    /**
+     * The backlog of the queue from the last successful request for the attributes of the queue.
+     *
+     * @return the latest backlog of the queue, or null if it has not been successfully obtained yet
+     */
+    @Nullable
+    public QueueBacklog getQueueBacklog() {
+        return queueBacklog;
+    }
+
+    /**
+     * Periodically request the number of messages in the queue until the thread is interrupted, in which case the interrupt flag of the thread will
+     * still be set when this returns.
+     */
+    public void run() {
+        log.info("Started QueueBacklogMonitor background thread");
+        while (true) {
+            try {
+                refreshQueueBacklog();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (final RuntimeException runtimeException) {
+                log.error("Error obtaining the backlog of the queue", runtimeException);
+            }
+
+            try {
+                Thread.sleep(getPollingPeriodInMs());
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info("QueueBacklogMonitor has been successfully stopped");
+    }
+
+    /**
+     * Request the number of messages in the queue and store it as the latest backlog.
+     *
+     * <p>If the request fails the previous backlog will be kept.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting for the response
+     */
+    @VisibleForTesting
+    void refreshQueueBacklog() throws InterruptedException {
+        final GetQueueAttributesResponse response;
+        try {
+            response = sqsAsyncClient.getQueueAttributes(GetQueueAttributesRequest.builder()
+                    .queueUrl(queueProperties.getQueueUrl())
+                    .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+                    .build())
+                    .get();
+        } catch (final ExecutionException executionException) {
+            log.error("Error obtaining the backlog of the queue", executionException.getCause());
+            return;
+        }
+
+        final QueueBacklog latestQueueBacklog = new QueueBacklog(
+                getAttributeValue(response, QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES),
+                getAttributeValue(response, QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+        );
+        log.debug("Queue backlog: {}", latestQueueBacklog);
+        queueBacklog = latestQueueBacklog;
+    }
+
+    private static int getAttributeValue(final GetQueueAttributesResponse response, final QueueAttributeName attributeName) {
+        final String value = response.attributes().get(attributeName);
+        if (value == null) {
+            return 0;
+        }
+        return Integer.parseInt(value);
+    }
+
+    private long getPollingPeriodInMs() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "pollingPeriodInMs",
+                properties::getPollingPeriodInMs,
+                DEFAULT_POLLING_PERIOD_IN_MS
+        );
+    }
+}
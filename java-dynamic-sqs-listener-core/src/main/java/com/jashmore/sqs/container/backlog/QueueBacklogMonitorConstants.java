@@ -0,0 +1,14 @@
+package com.jashmore.sqs.container.backlog;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class QueueBacklogMonitorConstants {
+    /**
+     * The default amount of time between each request for the number of messages in the queue.
+     *
+     * <p>The values returned by SQS are only approximate and may lag behind the actual state of the queue, so there is little benefit in requesting
+     * them more often than this.
+     */
+    static final long DEFAULT_POLLING_PERIOD_IN_MS = 30_000L;
+}
@@ -0,0 +1,21 @@
+package com.jashmore.sqs.container.backlog;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+
+/**
+ * Properties for configuring the {@link QueueBacklogMonitor}, which will be checked each time the monitor runs and therefore can change dynamically
+ * during runtime.
+ */
+public interface QueueBacklogMonitorProperties {
+    /**
+     * The amount of time between each request for the number of messages in the queue.
+     *
+     * <p>If this value is null or not positive, {@link QueueBacklogMonitorConstants#DEFAULT_POLLING_PERIOD_IN_MS} will be used.
+     *
+     * @return the period in milliseconds between each request
+     */
+    @Nullable
+    @Positive
+    Long getPollingPeriodInMs();
+}
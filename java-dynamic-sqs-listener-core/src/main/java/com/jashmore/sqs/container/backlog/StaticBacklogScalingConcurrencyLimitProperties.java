@@ -0,0 +1,54 @@
+package com.jashmore.sqs.container.backlog;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticBacklogScalingConcurrencyLimitProperties implements BacklogScalingConcurrencyLimitProperties {
+    private final int minimumConcurrencyLevel;
+    private final int maximumConcurrencyLevel;
+    private final Integer backlogPerConcurrencyLevel;
+    private final Long concurrencyPollingRateInMilliseconds;
+    private final Long errorBackoffTimeInMilliseconds;
+
+    @PositiveOrZero
+    @Override
+    public int getMinimumConcurrencyLevel() {
+        return minimumConcurrencyLevel;
+    }
+
+    @Positive
+    @Override
+    public int getMaximumConcurrencyLevel() {
+        return maximumConcurrencyLevel;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getBacklogPerConcurrencyLevel() {
+        return backlogPerConcurrencyLevel;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getConcurrencyPollingRateInMilliseconds() {
+        return concurrencyPollingRateInMilliseconds;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Long getErrorBackoffTimeInMilliseconds() {
+        return errorBackoffTimeInMilliseconds;
+    }
+}
@@ -0,0 +1,23 @@
+package com.jashmore.sqs.container.backlog;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticQueueBacklogMonitorProperties implements QueueBacklogMonitorProperties {
+    private final Long pollingPeriodInMs;
+
+    @Nullable
+    @Positive
+    @Override
+    public Long getPollingPeriodInMs() {
+        return pollingPeriodInMs;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jashmore.sqs.container.executor;
+
+import static com.jashmore.sqs.util.thread.ThreadUtils.threadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link MessageProcessingExecutorFactory} that will create a new platform thread for each message being processed concurrently, reusing threads that
+ * have finished processing a message.
+ *
+ * <p>This is the default used by the {@link com.jashmore.sqs.container.CoreMessageListenerContainer}.
+ */
+public class CachedThreadPoolMessageProcessingExecutorFactory implements MessageProcessingExecutorFactory {
+    @Override
+    public ExecutorService createExecutorService(final String containerIdentifier) {
+        return Executors.newCachedThreadPool(threadFactory(containerIdentifier + "-message-processing-%d"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.jashmore.sqs.container.executor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link java.util.concurrent.ExecutorService} that runs its tasks on a shared {@link Executor} but can be shut down without affecting the shared
+ * {@link Executor} or the tasks submitted by anyone else.
+ *
+ * <p>Shutting down this service will stop new tasks being submitted and {@link #awaitTermination(long, TimeUnit)} will wait for only the tasks submitted to
+ * this service. {@link #shutdownNow()} will interrupt the tasks that are running and any that have not started yet will be skipped when the shared
+ * {@link Executor} gets to them.
+ */
+@ThreadSafe
+class ContainerScopedExecutorService extends AbstractExecutorService {
+    private final Executor sharedExecutor;
+
+    @GuardedBy("this")
+    private final Set<ScopedTask> pendingTasks = new HashSet<>();
+    @GuardedBy("this")
+    private boolean isShutdown;
+
+    ContainerScopedExecutorService(final Executor sharedExecutor) {
+        this.sharedExecutor = sharedExecutor;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final ScopedTask task = new ScopedTask(command);
+        synchronized (this) {
+            if (isShutdown) {
+                throw new RejectedExecutionException("Executor has been shutdown");
+            }
+            pendingTasks.add(task);
+        }
+
+        try {
+            sharedExecutor.execute(task);
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+            taskFinished(task);
+            throw rejectedExecutionException;
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        isShutdown = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        isShutdown = true;
+        final List<Runnable> tasksNotStarted = new ArrayList<>();
+        for (final ScopedTask task : new ArrayList<>(pendingTasks)) {
+            if (task.thread == null) {
+                task.cancelled = true;
+                pendingTasks.remove(task);
+                tasksNotStarted.add(task.command);
+            } else {
+                task.thread.interrupt();
+            }
+        }
+        notifyAll();
+        return tasksNotStarted;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return isShutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return isShutdown && pendingTasks.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            final long remainingTimeInNanoseconds = deadline - System.nanoTime();
+            if (remainingTimeInNanoseconds <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remainingTimeInNanoseconds);
+        }
+        return true;
+    }
+
+    private synchronized void taskFinished(final ScopedTask task) {
+        pendingTasks.remove(task);
+        if (isTerminated()) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wrapper around a submitted task which keeps track of the thread running it so that it can be interrupted.
+     */
+    private final class ScopedTask implements Runnable {
+        private final Runnable command;
+        @GuardedBy("ContainerScopedExecutorService.this")
+        private Thread thread;
+        @GuardedBy("ContainerScopedExecutorService.this")
+        private boolean cancelled;
+
+        private ScopedTask(final Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            synchronized (ContainerScopedExecutorService.this) {
+                if (cancelled) {
+                    return;
+                }
+                thread = Thread.currentThread();
+            }
+
+            try {
+                command.run();
+            } finally {
+                synchronized (ContainerScopedExecutorService.this) {
+                    thread = null;
+                    // clear any interruption from shutdownNow so that it does not leak into the next task run by this shared thread
+                    Thread.interrupted();
+                }
+                taskFinished(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.jashmore.sqs.container.executor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Factory for building the {@link ExecutorService} that the {@link com.jashmore.sqs.container.CoreMessageListenerContainer} will use to process
+ * messages.
+ *
+ * <p>A new {@link ExecutorService} is requested each time that the container is started and the container will shut it down when the container is
+ * stopped. Therefore, if the threads should be shared between containers, the returned {@link ExecutorService} should only shut down the tasks that
+ * were submitted to it, see {@link SharedThreadPoolMessageProcessingExecutorFactory}.
+ */
+@FunctionalInterface
+public interface MessageProcessingExecutorFactory {
+    /**
+     * Create the {@link ExecutorService} that will be used to process the messages for the container.
+     *
+     * @param containerIdentifier the identifier of the container, which can be used for naming the threads
+     * @return the executor service for processing messages
+     */
+    ExecutorService createExecutorService(String containerIdentifier);
+}
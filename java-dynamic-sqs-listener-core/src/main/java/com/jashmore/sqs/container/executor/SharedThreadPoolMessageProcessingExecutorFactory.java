@@ -0,0 +1,52 @@
+package com.jashmore.sqs.container.executor;
+
+import static com.jashmore.sqs.util.thread.ThreadUtils.threadFactory;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link MessageProcessingExecutorFactory} that will process the messages for all of the containers using it on a single bounded pool of platform
+ * threads.
+ *
+ * <p>This limits the total number of threads used for processing messages across every container, instead of each container creating as many threads
+ * as its level of concurrency. If more messages are being processed than there are threads in the pool, the messages will wait for a thread to become
+ * available.
+ *
+ * <p>Each container is given a view of the pool that can be shut down independently, which will only wait for or interrupt the messages submitted by that
+ * container. The pool itself is never shut down by the containers.
+ */
+public class SharedThreadPoolMessageProcessingExecutorFactory implements MessageProcessingExecutorFactory {
+    private final Executor sharedExecutor;
+
+    /**
+     * Constructor.
+     *
+     * @param sharedExecutor the executor that will run the messages for all of the containers
+     */
+    public SharedThreadPoolMessageProcessingExecutorFactory(final Executor sharedExecutor) {
+        this.sharedExecutor = sharedExecutor;
+    }
+
+    /**
+     * Create a factory backed by a new fixed size pool of platform threads.
+     *
+     * @param numberOfThreads the number of threads in the pool
+     * @return the factory for sharing the pool between containers
+     */
+    public static SharedThreadPoolMessageProcessingExecutorFactory withNumberOfThreads(final int numberOfThreads) {
+        Preconditions.checkArgument(numberOfThreads > 0, "numberOfThreads should be greater than zero");
+
+        return new SharedThreadPoolMessageProcessingExecutorFactory(
+                Executors.newFixedThreadPool(numberOfThreads, threadFactory("shared-message-processing-%d"))
+        );
+    }
+
+    @Override
+    public ExecutorService createExecutorService(final String containerIdentifier) {
+        return new ContainerScopedExecutorService(sharedExecutor);
+    }
+}
@@ -0,0 +1,103 @@
+package com.jashmore.sqs.container.executor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link MessageProcessingExecutorFactory} that will process each message on a new virtual thread.
+ *
+ * <p>Virtual threads are much cheaper than platform threads when they are blocked, e.g. waiting for a response from an outbound call, and therefore
+ * this is useful for listeners that spend most of their time waiting on I/O with a high level of concurrency.
+ *
+ * <p>As virtual threads are only available from JDK 21, they are created via reflection and if the JDK that is being used does not support them the
+ * fallback {@link MessageProcessingExecutorFactory} will be used instead.
+ */
+@Slf4j
+public class VirtualThreadMessageProcessingExecutorFactory implements MessageProcessingExecutorFactory {
+    private static final VirtualThreadMethods VIRTUAL_THREAD_METHODS = VirtualThreadMethods.load();
+
+    private final MessageProcessingExecutorFactory fallbackExecutorFactory;
+
+    public VirtualThreadMessageProcessingExecutorFactory() {
+        this(new CachedThreadPoolMessageProcessingExecutorFactory());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param fallbackExecutorFactory the factory to use if virtual threads are not supported by this JDK
+     */
+    public VirtualThreadMessageProcessingExecutorFactory(final MessageProcessingExecutorFactory fallbackExecutorFactory) {
+        this.fallbackExecutorFactory = fallbackExecutorFactory;
+
+        if (!isSupported()) {
+            log.warn("Virtual threads are not supported by this JDK, falling back to {}", fallbackExecutorFactory.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Whether the JDK that is being used supports virtual threads.
+     *
+     * @return true if virtual threads can be used to process messages
+     */
+    public static boolean isSupported() {
+        return VIRTUAL_THREAD_METHODS != null;
+    }
+
+    @Override
+    public ExecutorService createExecutorService(final String containerIdentifier) {
+        if (!isSupported()) {
+            return fallbackExecutorFactory.createExecutorService(containerIdentifier);
+        }
+
+        try {
+            final Object builder = VIRTUAL_THREAD_METHODS.name.invoke(VIRTUAL_THREAD_METHODS.ofVirtual.invoke(null),
+                    containerIdentifier + "-message-processing-", 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) VIRTUAL_THREAD_METHODS.factory.invoke(builder);
+            return (ExecutorService) VIRTUAL_THREAD_METHODS.newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (final IllegalAccessException | InvocationTargetException exception) {
+            throw new IllegalStateException("Unable to create virtual thread executor", exception);
+        }
+    }
+
+    /**
+     * The methods needed to build an {@link ExecutorService} that runs each task on a named virtual thread.
+     */
+    private static final class VirtualThreadMethods {
+        private final Method ofVirtual;
+        private final Method name;
+        private final Method factory;
+        private final Method newThreadPerTaskExecutor;
+
+        private VirtualThreadMethods(final Method ofVirtual, final Method name, final Method factory, final Method newThreadPerTaskExecutor) {
+            this.ofVirtual = ofVirtual;
+            this.name = name;
+            this.factory = factory;
+            this.newThreadPerTaskExecutor = newThreadPerTaskExecutor;
+        }
+
+        /**
+         * Load the methods from the JDK.
+         *
+         * @return the methods or null if this JDK does not support virtual threads
+         */
+        private static VirtualThreadMethods load() {
+            try {
+                final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                return new VirtualThreadMethods(
+                        Thread.class.getMethod("ofVirtual"),
+                        builderClass.getMethod("name", String.class, long.class),
+                        builderClass.getMethod("factory"),
+                        Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                );
+            } catch (final ClassNotFoundException | NoSuchMethodException exception) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.jashmore.sqs.container.visibility;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+
+/**
+ * Static implementation of the properties that will never change during the processing of the messages.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StaticVisibilityHeartbeatProperties implements VisibilityHeartbeatProperties {
+    private final int visibilityTimeoutInSeconds;
+    private final Integer extensionThresholdInSeconds;
+    private final Long heartbeatIntervalInMs;
+
+    @Positive
+    @Override
+    public int getVisibilityTimeoutInSeconds() {
+        return visibilityTimeoutInSeconds;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getExtensionThresholdInSeconds() {
+        return extensionThresholdInSeconds;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Long getHeartbeatIntervalInMs() {
+        return heartbeatIntervalInMs;
+    }
+}
@@ -0,0 +1,224 @@
+package com.jashmore.sqs.container.visibility;
+
+import static com.jashmore.sqs.container.visibility.VisibilityHeartbeatConstants.DEFAULT_HEARTBEAT_INTERVAL_IN_MS;
+import static com.jashmore.sqs.container.visibility.VisibilityHeartbeatConstants.DEFAULT_VISIBILITY_TIMEOUT_IN_SECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.aws.AwsConstants;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Automatically extends the visibility timeout of the messages that are currently being processed so that they are not redelivered to another consumer
+ * while they are still being processed.
+ *
+ * <p>This allows for a short visibility timeout to be used for the queue, so that messages are quickly redelivered if the consumer dies, while still
+ * supporting messages that take a long time to process.
+ *
+ * <p>Each message is tracked from when it begins processing until it has finished, see {@link #track(Message)} and {@link #untrack(Message)}. A single
+ * background thread, see {@link #run()}, periodically finds all of the tracked messages that are within
+ * {@link VisibilityHeartbeatProperties#getExtensionThresholdInSeconds()} of their visibility timeout expiring and extends them back to the full
+ * {@link VisibilityHeartbeatProperties#getVisibilityTimeoutInSeconds()}. The extensions for all of these messages are sent in batches to reduce the
+ * number of requests sent to SQS.
+ *
+ * <p>The visibility timeout of a message is considered to have started when it is tracked, and therefore if messages are prefetched before they are
+ * processed, the {@link VisibilityHeartbeatProperties#getExtensionThresholdInSeconds()} should also cover the time that they may be prefetched for.
+ */
+@Slf4j
+@ThreadSafe
+public class VisibilityHeartbeat {
+    private final QueueProperties queueProperties;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final VisibilityHeartbeatProperties properties;
+    private final LongSupplier nanoTimeSupplier;
+
+    /**
+     * The messages being processed keyed by their receipt handle, as the same message may be received multiple times with different receipt handles.
+     */
+    private final Map<String, TrackedMessage> trackedMessages;
+
+    public VisibilityHeartbeat(final QueueProperties queueProperties,
+                               final SqsAsyncClient sqsAsyncClient,
+                               final VisibilityHeartbeatProperties properties) {
+        this(queueProperties, sqsAsyncClient, properties, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    VisibilityHeartbeat(final QueueProperties queueProperties,
+                        final SqsAsyncClient sqsAsyncClient,
+                        final VisibilityHeartbeatProperties properties,
+                        final LongSupplier nanoTimeSupplier) {
+        this.queueProperties = queueProperties;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.properties = properties;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+
+        this.trackedMessages = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Start extending the visibility of the message until it is untracked.
+     *
+     * <p>The visibility of the message will be extended by the background thread once it is within the extension threshold of its visibility timeout
+     * expiring.
+     *
+     * @param message the message that is about to be processed
+     */
+    public void track(final Message message) {
+        final long visibilityExpiryInNanoseconds = nanoTimeSupplier.getAsLong() + TimeUnit.SECONDS.toNanos(getVisibilityTimeoutInSeconds());
+        trackedMessages.put(message.receiptHandle(), new TrackedMessage(message, visibilityExpiryInNanoseconds));
+    }
+
+    /**
+     * Stop extending the visibility of the message as it has finished processing.
+     *
+     * @param message the message that has finished processing
+     */
+    public void untrack(final Message message) {
+        trackedMessages.remove(message.receiptHandle());
+    }
+
+    /**
+     * Periodically extend the visibility of the tracked messages that are close to expiring until the thread is interrupted, in which case the interrupt
+     * flag of the thread will still be set when this returns.
+     */
+    public void run() {
+        log.info("Started VisibilityHeartbeat background thread");
+        while (true) {
+            try {
+                Thread.sleep(getHeartbeatIntervalInMs());
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            try {
+                extendMessagesCloseToExpiry();
+            } catch (final RuntimeException runtimeException) {
+                log.error("Error extending the visibility of messages", runtimeException);
+            }
+        }
+        log.info("VisibilityHeartbeat has been successfully stopped");
+    }
+
+    /**
+     * Extend the visibility of all of the tracked messages that are within the extension threshold of their visibility timeout expiring.
+     */
+    @VisibleForTesting
+    void extendMessagesCloseToExpiry() {
+        final int visibilityTimeoutInSeconds = getVisibilityTimeoutInSeconds();
+        final long extensionThresholdInNanoseconds = TimeUnit.SECONDS.toNanos(getExtensionThresholdInSeconds(visibilityTimeoutInSeconds));
+        final long currentTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+
+        final List<TrackedMessage> messagesToExtend = trackedMessages.values().stream()
+                .filter(trackedMessage -> trackedMessage.getVisibilityExpiryInNanoseconds() - currentTimeInNanoseconds < extensionThresholdInNanoseconds)
+                .collect(Collectors.toList());
+        if (messagesToExtend.isEmpty()) {
+            return;
+        }
+
+        log.debug("Extending the visibility of {} messages that are close to their visibility timeout expiring", messagesToExtend.size());
+        extendVisibility(messagesToExtend, visibilityTimeoutInSeconds, currentTimeInNanoseconds);
+    }
+
+    /**
+     * Extend the visibility of the messages back to the full visibility timeout, sending the requests to SQS in batches.
+     *
+     * @param messagesToExtend           the messages to extend
+     * @param visibilityTimeoutInSeconds the visibility timeout to extend the messages to
+     * @param currentTimeInNanoseconds   the current time, used to determine when the visibility of the messages will next expire
+     */
+    private void extendVisibility(final List<TrackedMessage> messagesToExtend, final int visibilityTimeoutInSeconds, final long currentTimeInNanoseconds) {
+        final long newVisibilityExpiryInNanoseconds = currentTimeInNanoseconds + TimeUnit.SECONDS.toNanos(visibilityTimeoutInSeconds);
+        for (final List<TrackedMessage> batch : Lists.partition(messagesToExtend, AwsConstants.MAX_NUMBER_OF_MESSAGES_IN_BATCH)) {
+            batch.forEach(trackedMessage -> trackedMessage.setVisibilityExpiryInNanoseconds(newVisibilityExpiryInNanoseconds));
+            sqsAsyncClient.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                    .queueUrl(queueProperties.getQueueUrl())
+                    .entries(IntStream.range(0, batch.size())
+                            .mapToObj(index -> ChangeMessageVisibilityBatchRequestEntry.builder()
+                                    .id(String.valueOf(index))
+                                    .receiptHandle(batch.get(index).getMessage().receiptHandle())
+                                    .visibilityTimeout(visibilityTimeoutInSeconds)
+                                    .build())
+                            .collect(Collectors.toList()))
+                    .build())
+                    .whenComplete((response, throwable) -> {
+                        if (throwable != null) {
+                            log.error("Error extending the visibility of messages", throwable);
+                        } else if (!response.failed().isEmpty()) {
+                            log.warn("Unable to extend the visibility of {} messages", response.failed().size());
+                        }
+                    });
+        }
+    }
+
+    private int getVisibilityTimeoutInSeconds() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "visibilityTimeoutInSeconds",
+                properties::getVisibilityTimeoutInSeconds,
+                DEFAULT_VISIBILITY_TIMEOUT_IN_SECONDS
+        );
+    }
+
+    private int getExtensionThresholdInSeconds(final int visibilityTimeoutInSeconds) {
+        final int defaultExtensionThresholdInSeconds = Math.max(1, visibilityTimeoutInSeconds / 2);
+        final int extensionThresholdInSeconds = PropertyUtils.safelyGetPositiveIntegerValue(
+                "extensionThresholdInSeconds",
+                properties::getExtensionThresholdInSeconds,
+                defaultExtensionThresholdInSeconds
+        );
+        if (extensionThresholdInSeconds >= visibilityTimeoutInSeconds) {
+            return defaultExtensionThresholdInSeconds;
+        }
+        return extensionThresholdInSeconds;
+    }
+
+    private long getHeartbeatIntervalInMs() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "heartbeatIntervalInMs",
+                properties::getHeartbeatIntervalInMs,
+                DEFAULT_HEARTBEAT_INTERVAL_IN_MS
+        );
+    }
+
+    /**
+     * Internal bean for a message that is being tracked and when its visibility timeout is expected to expire.
+     */
+    private static class TrackedMessage {
+        private final Message message;
+        private volatile long visibilityExpiryInNanoseconds;
+
+        TrackedMessage(final Message message, final long visibilityExpiryInNanoseconds) {
+            this.message = message;
+            this.visibilityExpiryInNanoseconds = visibilityExpiryInNanoseconds;
+        }
+
+        Message getMessage() {
+            return message;
+        }
+
+        long getVisibilityExpiryInNanoseconds() {
+            return visibilityExpiryInNanoseconds;
+        }
+
+        void setVisibilityExpiryInNanoseconds(final long visibilityExpiryInNanoseconds) {
+            this.visibilityExpiryInNanoseconds = visibilityExpiryInNanoseconds;
+        }
+    }
+}
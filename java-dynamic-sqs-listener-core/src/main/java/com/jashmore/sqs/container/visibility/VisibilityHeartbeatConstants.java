@@ -0,0 +1,16 @@
+package com.jashmore.sqs.container.visibility;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class VisibilityHeartbeatConstants {
+    /**
+     * The default visibility timeout of the messages if there was an error obtaining the value, which is the default visibility timeout of a SQS queue.
+     */
+    static final int DEFAULT_VISIBILITY_TIMEOUT_IN_SECONDS = 30;
+
+    /**
+     * The default amount of time between each check for messages that are close to their visibility timeout expiring.
+     */
+    static final long DEFAULT_HEARTBEAT_INTERVAL_IN_MS = 1_000L;
+}
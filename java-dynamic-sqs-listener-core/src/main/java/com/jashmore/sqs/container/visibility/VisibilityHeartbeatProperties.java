@@ -0,0 +1,45 @@
+package com.jashmore.sqs.container.visibility;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+
+/**
+ * Properties for configuring the {@link VisibilityHeartbeat}, which will be checked each time the heartbeat runs and therefore can change dynamically
+ * during runtime.
+ */
+public interface VisibilityHeartbeatProperties {
+    /**
+     * The visibility timeout of the messages when they are received and the visibility timeout that they will be extended to each time the heartbeat
+     * extends them.
+     *
+     * <p>This should be the same as the visibility timeout used by the {@link com.jashmore.sqs.retriever.MessageRetriever}, or the default visibility
+     * timeout of the queue if the retriever does not set one, otherwise the messages may expire before they are extended.
+     *
+     * @return the visibility timeout of the messages in seconds
+     */
+    @Positive
+    int getVisibilityTimeoutInSeconds();
+
+    /**
+     * The amount of time before the visibility timeout of a message expires that it will be extended.
+     *
+     * <p>This should be large enough to cover the time taken for the request to SQS to complete. If this value is null, not positive or not less than
+     * the visibility timeout, half of the visibility timeout will be used.
+     *
+     * @return the time in seconds before the visibility timeout expires that the message will be extended
+     */
+    @Nullable
+    @Positive
+    Integer getExtensionThresholdInSeconds();
+
+    /**
+     * The amount of time between each check for messages that are close to their visibility timeout expiring.
+     *
+     * <p>If this value is null or not positive, {@link VisibilityHeartbeatConstants#DEFAULT_HEARTBEAT_INTERVAL_IN_MS} will be used.
+     *
+     * @return the interval in milliseconds between each check
+     */
+    @Nullable
+    @Positive
+    Long getHeartbeatIntervalInMs();
+}
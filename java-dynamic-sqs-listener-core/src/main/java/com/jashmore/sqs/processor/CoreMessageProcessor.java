@@ -1,16 +1,18 @@
 package com.jashmore.sqs.processor;
 
-import static java.util.stream.Collectors.toList;
-
 import com.jashmore.sqs.QueueProperties;
 import com.jashmore.sqs.argument.ArgumentResolver;
 import com.jashmore.sqs.argument.ArgumentResolverService;
+import com.jashmore.sqs.argument.BoundArgumentResolver;
 import com.jashmore.sqs.argument.DefaultMethodParameter;
 import com.jashmore.sqs.argument.MethodParameter;
 import com.jashmore.sqs.argument.visibility.DefaultVisibilityExtender;
 import com.jashmore.sqs.processor.argument.Acknowledge;
 import com.jashmore.sqs.processor.argument.VisibilityExtender;
+import com.jashmore.sqs.processor.invoker.MethodInvoker;
+import com.jashmore.sqs.processor.invoker.MethodInvokers;
 import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import org.reactivestreams.Publisher;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.Message;
 
@@ -18,24 +20,29 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.IntStream;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Default implementation of the {@link MessageProcessor} that will simply resolve arguments, process the message and delete the
  * message from the queue if it was completed successfully.
+ *
+ * <p>If the method returns a {@link CompletionStage}, like a {@link CompletableFuture}, or a Reactive Streams {@link Publisher}, like a Reactor
+ * {@code Mono} or {@code Flux}, the message will only be resolved when the result completes successfully, see {@link MethodResults}. The future
+ * returned from {@link #processMessage(Message, Runnable)} will also not complete until then, which means that the message will still count towards
+ * the concurrency limit of the broker while the asynchronous processing is running.
  */
 @ThreadSafe
 public class CoreMessageProcessor implements MessageProcessor {
     private final QueueProperties queueProperties;
     private final SqsAsyncClient sqsAsyncClient;
     private final Method messageConsumerMethod;
-    private final Object messageConsumerBean;
 
     // These are calculated in the constructor so that it is not recalculated each time a message is processed
-    private final List<InternalArgumentResolver> methodArgumentResolvers;
+    private final InternalArgumentResolver[] methodArgumentResolvers;
+    private final MethodInvoker methodInvoker;
     private final Class<?> returnType;
     private final boolean hasAcknowledgeParameter;
 
@@ -47,10 +54,10 @@ public class CoreMessageProcessor implements MessageProcessor {
         this.queueProperties = queueProperties;
         this.sqsAsyncClient = sqsAsyncClient;
         this.messageConsumerMethod = messageConsumerMethod;
-        this.messageConsumerBean = messageConsumerBean;
 
         this.methodArgumentResolvers = getArgumentResolvers(argumentResolverService);
         this.hasAcknowledgeParameter = hasAcknowledgeParameter();
+        this.methodInvoker = MethodInvokers.create(messageConsumerMethod, messageConsumerBean);
         this.returnType = messageConsumerMethod.getReturnType();
     }
 
@@ -60,7 +67,7 @@ public class CoreMessageProcessor implements MessageProcessor {
 
         final Object result;
         try {
-            result = messageConsumerMethod.invoke(messageConsumerBean, arguments);
+            result = methodInvoker.invoke(arguments);
         } catch (final InvocationTargetException | IllegalAccessException | RuntimeException exception) {
             return CompletableFutureUtils.completedExceptionally(new MessageProcessingException("Error processing message", exception));
         }
@@ -70,19 +77,7 @@ public class CoreMessageProcessor implements MessageProcessor {
             return CompletableFuture.completedFuture(null);
         }
 
-        if (CompletableFuture.class.isAssignableFrom(returnType)) {
-            final CompletableFuture<?> resultCompletableFuture = (CompletableFuture) result;
-
-            if (resultCompletableFuture == null) {
-                return CompletableFutureUtils.completedExceptionally(new MessageProcessingException("Method returns CompletableFuture but null was returned"));
-            }
-
-            return resultCompletableFuture
-                    .thenAccept((ignored) -> resolveMessageCallback.run());
-        } else {
-            resolveMessageCallback.run();
-            return CompletableFuture.completedFuture(null);
-        }
+        return MethodResults.resolveMessagesOnCompletion(returnType, result, resolveMessageCallback);
     }
 
     /**
@@ -92,12 +87,21 @@ public class CoreMessageProcessor implements MessageProcessor {
      * @return the array of arguments to call the method with
      */
     private Object[] getArguments(final Message message, final Runnable resolveMessageCallback) {
-        return methodArgumentResolvers.stream()
-                .map(resolver -> resolver.resolveArgument(message, resolveMessageCallback))
-                .toArray(Object[]::new);
+        final Object[] arguments = new Object[methodArgumentResolvers.length];
+        for (int i = 0; i < methodArgumentResolvers.length; ++i) {
+            arguments[i] = methodArgumentResolvers[i].resolveArgument(message, resolveMessageCallback);
+        }
+        return arguments;
     }
 
-    private List<InternalArgumentResolver> getArgumentResolvers(final ArgumentResolverService argumentResolverService) {
+    /**
+     * Build the resolvers for each parameter of the method, binding each {@link ArgumentResolver} to its parameter so that the annotations and types
+     * of the parameters are not looked up for each message.
+     *
+     * @param argumentResolverService the service for obtaining the {@link ArgumentResolver} for each parameter
+     * @return the resolvers for each parameter of the method
+     */
+    private InternalArgumentResolver[] getArgumentResolvers(final ArgumentResolverService argumentResolverService) {
         final Parameter[] parameters = messageConsumerMethod.getParameters();
         return IntStream.range(0, parameters.length)
                 .<InternalArgumentResolver>mapToObj(parameterIndex -> {
@@ -118,9 +122,10 @@ public class CoreMessageProcessor implements MessageProcessor {
                     }
 
                     final ArgumentResolver<?> argumentResolver = argumentResolverService.getArgumentResolver(methodParameter);
-                    return (message, resolveMessageCallback) -> argumentResolver.resolveArgumentForParameter(queueProperties, methodParameter, message);
+                    final BoundArgumentResolver<?> boundArgumentResolver = argumentResolver.bind(queueProperties, methodParameter);
+                    return (message, resolveMessageCallback) -> boundArgumentResolver.resolveArgument(message);
                 })
-                .collect(toList());
+                .toArray(InternalArgumentResolver[]::new);
     }
 
     private boolean hasAcknowledgeParameter() {
@@ -0,0 +1,112 @@
+package com.jashmore.sqs.processor;
+
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import lombok.experimental.UtilityClass;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javax.annotation.Nullable;
+
+/**
+ * Handles the values returned by the methods that are processing messages so that the messages are only resolved once the processing has completed.
+ *
+ * <p>If the method returns a {@link CompletionStage}, like a {@link CompletableFuture}, or a Reactive Streams {@link Publisher}, like a Reactor
+ * {@code Mono} or {@code Flux}, the messages will only be resolved when the result completes successfully. Otherwise the messages are resolved
+ * straight away as the method has already finished processing them.
+ */
+@UtilityClass
+public class MethodResults {
+    /**
+     * Resolve the messages once the value returned from the method has completed successfully.
+     *
+     * @param returnType              the return type of the method
+     * @param result                  the value returned from the method
+     * @param resolveMessagesCallback the callback to resolve the messages that were processed by the method
+     * @return the future that will be completed when the result completes and the messages have been resolved
+     */
+    public CompletableFuture<?> resolveMessagesOnCompletion(final Class<?> returnType,
+                                                            @Nullable final Object result,
+                                                            final Runnable resolveMessagesCallback) {
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            if (result == null) {
+                return CompletableFutureUtils.completedExceptionally(new MessageProcessingException("Method returns CompletionStage but null was returned"));
+            }
+
+            return resolveMessagesOnCompletion((CompletionStage<?>) result, resolveMessagesCallback);
+        } else if (Publisher.class.isAssignableFrom(returnType)) {
+            if (result == null) {
+                return CompletableFutureUtils.completedExceptionally(new MessageProcessingException("Method returns Publisher but null was returned"));
+            }
+
+            final CompletableFuture<Object> publisherCompletedFuture = new CompletableFuture<>();
+            ((Publisher<?>) result).subscribe(new CompletingSubscriber(publisherCompletedFuture));
+            return resolveMessagesOnCompletion(publisherCompletedFuture, resolveMessagesCallback);
+        } else {
+            resolveMessagesCallback.run();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Resolve the messages when the asynchronous result of the method completes successfully.
+     *
+     * <p>A new {@link CompletableFuture} is used instead of {@link CompletionStage#toCompletableFuture()} as not all implementations of the
+     * {@link CompletionStage} support that conversion.
+     *
+     * @param completionStage         the asynchronous result of the method
+     * @param resolveMessagesCallback the callback to resolve the messages
+     * @return the future that will be completed when the result completes and the messages have been resolved
+     */
+    private CompletableFuture<?> resolveMessagesOnCompletion(final CompletionStage<?> completionStage, final Runnable resolveMessagesCallback) {
+        final CompletableFuture<Object> messagesResolvedFuture = new CompletableFuture<>();
+        completionStage.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                messagesResolvedFuture.completeExceptionally(throwable);
+                return;
+            }
+
+            try {
+                resolveMessagesCallback.run();
+                messagesResolvedFuture.complete(null);
+            } catch (final RuntimeException runtimeException) {
+                messagesResolvedFuture.completeExceptionally(runtimeException);
+            }
+        });
+        return messagesResolvedFuture;
+    }
+
+    /**
+     * {@link Subscriber} that requests all of the elements from the {@link Publisher}, ignoring them, and completes the future when the
+     * {@link Publisher} has finished.
+     */
+    private static class CompletingSubscriber implements Subscriber<Object> {
+        private final CompletableFuture<Object> completedFuture;
+
+        CompletingSubscriber(final CompletableFuture<Object> completedFuture) {
+            this.completedFuture = completedFuture;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final Object element) {
+            // The elements published are not used to determine whether the messages were successfully processed
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            completedFuture.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completedFuture.complete(null);
+        }
+    }
+}
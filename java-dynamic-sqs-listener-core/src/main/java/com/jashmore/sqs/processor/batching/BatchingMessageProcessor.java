@@ -0,0 +1,242 @@
+package com.jashmore.sqs.processor.batching;
+
+import static java.util.stream.Collectors.toList;
+
+import com.jashmore.sqs.argument.ArgumentResolutionException;
+import com.jashmore.sqs.argument.DefaultMethodParameter;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.argument.UnsupportedArgumentResolutionException;
+import com.jashmore.sqs.argument.payload.Payload;
+import com.jashmore.sqs.argument.payload.mapper.PayloadMapper;
+import com.jashmore.sqs.argument.payload.mapper.PayloadMappingException;
+import com.jashmore.sqs.broker.BatchMessageBroker;
+import com.jashmore.sqs.processor.BatchMessageProcessor;
+import com.jashmore.sqs.processor.CoreMessageProcessor;
+import com.jashmore.sqs.processor.MessageProcessingException;
+import com.jashmore.sqs.processor.MethodResults;
+import com.jashmore.sqs.processor.argument.BatchAcknowledge;
+import com.jashmore.sqs.processor.invoker.MethodInvoker;
+import com.jashmore.sqs.processor.invoker.MethodInvokers;
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link BatchMessageProcessor} that invokes the message consumer once with all of the messages in a batch, instead of once per message like the
+ * {@link CoreMessageProcessor}.
+ *
+ * <p>The batches are collected by a {@link BatchMessageBroker}, like the {@link com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBroker}, and the
+ * message consumer is invoked on the thread that the broker is processing the batch on. If the messages are processed individually, via
+ * {@link #processMessage(Message, Runnable)}, the message consumer will be invoked with a batch of a single message.
+ *
+ * <p>The parameters of the message consumer can be one of the following:
+ * <ul>
+ *     <li>a {@link List} of {@link Message}s which will be all of the messages in the batch</li>
+ *     <li>a {@link List} annotated with {@link Payload @Payload} which will be the payloads of each message in the batch mapped to the type of the
+ *     elements of the list via the {@link PayloadMapper}</li>
+ *     <li>a {@link BatchAcknowledge} which can be used to acknowledge each message in the batch individually</li>
+ * </ul>
+ *
+ * <p>If the message consumer does not have a {@link BatchAcknowledge} parameter, all of the messages in the batch will be resolved if the method
+ * executes without throwing an exception or, if it returns a {@link java.util.concurrent.CompletionStage} or a Reactive Streams
+ * {@link org.reactivestreams.Publisher}, when that result completes successfully, see {@link MethodResults}.
+ *
+ * <p>As each message is resolved individually, a {@link com.jashmore.sqs.resolver.MessageResolver} that batches the deletion of messages, like the
+ * {@link com.jashmore.sqs.resolver.batching.BatchingMessageResolver}, should be used so that the batch is deleted with as few requests as possible.
+ */
+@Slf4j
+@ThreadSafe
+public class BatchingMessageProcessor implements BatchMessageProcessor {
+    private final PayloadMapper payloadMapper;
+    private final Method messageConsumerMethod;
+
+    // These are calculated in the constructor so that it is not recalculated each time a batch is processed
+    private final List<BatchArgumentResolver> methodArgumentResolvers;
+    private final MethodInvoker methodInvoker;
+    private final Class<?> returnType;
+    private final boolean hasBatchAcknowledgeParameter;
+
+    public BatchingMessageProcessor(final PayloadMapper payloadMapper,
+                                    final Method messageConsumerMethod,
+                                    final Object messageConsumerBean) {
+        this.payloadMapper = payloadMapper;
+        this.messageConsumerMethod = messageConsumerMethod;
+
+        this.methodArgumentResolvers = getArgumentResolvers();
+        this.hasBatchAcknowledgeParameter = hasBatchAcknowledgeParameter(messageConsumerMethod);
+        this.methodInvoker = MethodInvokers.create(messageConsumerMethod, messageConsumerBean);
+        this.returnType = messageConsumerMethod.getReturnType();
+    }
+
+    /**
+     * Determine the attributes of the messages that are needed to resolve the arguments of a method that processes batches of messages.
+     *
+     * @param method the method that will be processing the batches of messages
+     * @return the attributes that are needed to process the messages
+     */
+    public static RequiredMessageAttributes getRequiredMessageAttributes(final Method method) {
+        final boolean hasMessageListParameter = Arrays.stream(method.getParameters())
+                .anyMatch(parameter -> !parameter.isAnnotationPresent(Payload.class) && getListElementType(parameter) == Message.class);
+        return hasMessageListParameter ? RequiredMessageAttributes.all() : RequiredMessageAttributes.none();
+    }
+
+    @Override
+    public CompletableFuture<?> processMessages(final List<Message> messages,
+                                                final Function<Message, Runnable> resolveMessageCallbacks) throws MessageProcessingException {
+        log.debug("Processing batch of {} messages", messages.size());
+        final Batch batch = new Batch(messages, resolveMessageCallbacks);
+        final Object result;
+        try {
+            final Object[] arguments = methodArgumentResolvers.stream()
+                    .map(resolver -> resolver.resolveArgument(batch))
+                    .toArray(Object[]::new);
+            result = methodInvoker.invoke(arguments);
+        } catch (final InvocationTargetException | IllegalAccessException | RuntimeException exception) {
+            return CompletableFutureUtils.completedExceptionally(new MessageProcessingException("Error processing batch of messages", exception));
+        }
+
+        if (hasBatchAcknowledgeParameter) {
+            // If the method has the BatchAcknowledge parameter it is up to them to resolve the messages
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return MethodResults.resolveMessagesOnCompletion(returnType, result, batch::resolveAllMessages);
+    }
+
+    private List<BatchArgumentResolver> getArgumentResolvers() {
+        final Parameter[] parameters = messageConsumerMethod.getParameters();
+        return IntStream.range(0, parameters.length)
+                .<BatchArgumentResolver>mapToObj(parameterIndex -> {
+                    final Parameter parameter = parameters[parameterIndex];
+
+                    if (BatchAcknowledge.class.isAssignableFrom(parameter.getType())) {
+                        return Batch::getBatchAcknowledge;
+                    }
+
+                    final Type elementType = getListElementType(parameter);
+                    if (elementType != null && parameter.isAnnotationPresent(Payload.class)) {
+                        return batch -> batch.getMessages().stream()
+                                .map(message -> mapPayload(message, elementType))
+                                .collect(toList());
+                    }
+
+                    if (elementType == Message.class) {
+                        return Batch::getMessages;
+                    }
+
+                    throw new UnsupportedArgumentResolutionException(DefaultMethodParameter.builder()
+                            .method(messageConsumerMethod)
+                            .parameter(parameter)
+                            .parameterIndex(parameterIndex)
+                            .build());
+                })
+                .collect(toList());
+    }
+
+    private Object mapPayload(final Message message, final Type payloadType) {
+        try {
+            return payloadMapper.map(message, payloadType);
+        } catch (final PayloadMappingException payloadMappingException) {
+            throw new ArgumentResolutionException(payloadMappingException);
+        }
+    }
+
+    private static boolean hasBatchAcknowledgeParameter(final Method method) {
+        return Arrays.stream(method.getParameters())
+                .anyMatch(parameter -> BatchAcknowledge.class.isAssignableFrom(parameter.getType()));
+    }
+
+    /**
+     * Get the type of the elements of the parameter if it is able to be assigned a {@link List}.
+     *
+     * @param parameter the parameter of the method
+     * @return the type of the elements in the list, which may be a generic type, or null if the parameter is not a list or the type of the elements
+     *     could not be determined
+     */
+    private static Type getListElementType(final Parameter parameter) {
+        if (!parameter.getType().isAssignableFrom(List.class) || !(parameter.getParameterizedType() instanceof ParameterizedType)) {
+            return null;
+        }
+
+        final Type elementType = ((ParameterizedType) parameter.getParameterizedType()).getActualTypeArguments()[0];
+        if (elementType instanceof Class || elementType instanceof ParameterizedType) {
+            return elementType;
+        }
+        return null;
+    }
+
+    /**
+     * Internal resolver for resolving the argument given the batch of messages.
+     */
+    @FunctionalInterface
+    interface BatchArgumentResolver {
+        /**
+         * Resolve the argument of the method.
+         *
+         * @param batch the batch of messages that is being processed
+         * @return the argument that should be used for the corresponding parameter
+         */
+        Object resolveArgument(Batch batch);
+    }
+
+    /**
+     * The messages that are being processed together.
+     */
+    static final class Batch {
+        private final List<Message> messages;
+        private final List<Runnable> resolveMessageCallbacks;
+
+        private Batch(final List<Message> messages, final Function<Message, Runnable> resolveMessageCallbacks) {
+            this.messages = messages;
+            this.resolveMessageCallbacks = messages.stream()
+                    .map(resolveMessageCallbacks)
+                    .collect(toList());
+        }
+
+        List<Message> getMessages() {
+            return Collections.unmodifiableList(messages);
+        }
+
+        BatchAcknowledge getBatchAcknowledge() {
+            final Map<Message, Runnable> resolveMessageCallbacksByMessage = new IdentityHashMap<>(messages.size());
+            for (int i = 0; i < messages.size(); ++i) {
+                resolveMessageCallbacksByMessage.put(messages.get(i), resolveMessageCallbacks.get(i));
+            }
+
+            return new BatchAcknowledge() {
+                @Override
+                public void acknowledgeSuccessful(final Message message) {
+                    final Runnable resolveMessageCallback = resolveMessageCallbacksByMessage.get(message);
+                    if (resolveMessageCallback == null) {
+                        throw new IllegalArgumentException("Message is not in this batch: " + message.messageId());
+                    }
+                    resolveMessageCallback.run();
+                }
+
+                @Override
+                public void acknowledgeAllSuccessful() {
+                    resolveAllMessages();
+                }
+            };
+        }
+
+        private void resolveAllMessages() {
+            resolveMessageCallbacks.forEach(Runnable::run);
+        }
+    }
+}
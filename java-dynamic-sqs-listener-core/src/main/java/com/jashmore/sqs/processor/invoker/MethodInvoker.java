@@ -0,0 +1,26 @@
+package com.jashmore.sqs.processor.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Invokes a method that is processing messages on a specific bean with the resolved arguments.
+ *
+ * <p>This has the same semantics as {@link java.lang.reflect.Method#invoke(Object, Object...)}, e.g. any exception thrown by the method is wrapped in an
+ * {@link InvocationTargetException}, but implementations can avoid the cost of reflection on each call.
+ *
+ * @see MethodInvokers for building the invoker of a method
+ */
+@ThreadSafe
+@FunctionalInterface
+public interface MethodInvoker {
+    /**
+     * Invoke the method with the provided arguments.
+     *
+     * @param arguments the arguments for each parameter of the method
+     * @return the value returned by the method, or null if it does not return a value
+     * @throws InvocationTargetException if the method threw an exception
+     * @throws IllegalAccessException    if the method is not able to be accessed
+     */
+    Object invoke(Object[] arguments) throws InvocationTargetException, IllegalAccessException;
+}
@@ -0,0 +1,139 @@
+package com.jashmore.sqs.processor.invoker;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Builds {@link MethodInvoker}s for the methods that are processing messages.
+ *
+ * <p>Where possible, the method is invoked via a {@link MethodHandle} that has been bound to the bean and adapted to take {@link Object} arguments. Methods
+ * with a small number of parameters have an invoker specialised for that number of parameters so that the arguments are passed directly to the
+ * {@link MethodHandle} without spreading them from an array. This avoids the varargs array and spreading of the arguments on each invocation, as well
+ * as the access checks that are performed on each reflective {@link Method#invoke(Object, Object...)}.
+ *
+ * <p>If the method or its class is not public it will be made accessible. If a {@link MethodHandle} still cannot be created for the method, the
+ * method will be invoked via reflection instead.
+ */
+@Slf4j
+@UtilityClass
+public class MethodInvokers {
+    /**
+     * The maximum number of parameters that an invoker will be specialised for, methods with more parameters will spread the arguments.
+     */
+    private static final int MAX_SPECIALISED_PARAMETER_COUNT = 4;
+
+    /**
+     * Build the invoker for the method on the provided bean.
+     *
+     * @param method the method to invoke
+     * @param bean   the bean to invoke the method on, which is ignored for static methods
+     * @return the invoker for the method
+     */
+    public MethodInvoker create(final Method method, final Object bean) {
+        makeAccessible(method);
+
+        final MethodHandle methodHandle;
+        try {
+            methodHandle = MethodHandles.publicLookup().unreflect(method);
+        } catch (final IllegalAccessException illegalAccessException) {
+            log.debug("Unable to build MethodHandle for method {}, using reflection instead", method);
+            return arguments -> method.invoke(bean, arguments);
+        }
+
+        final MethodHandle boundMethodHandle = Modifier.isStatic(method.getModifiers()) ? methodHandle : methodHandle.bindTo(bean);
+        return createMethodHandleInvoker(boundMethodHandle, method.getParameterCount());
+    }
+
+    /**
+     * Make the method accessible if it or its class is not public, e.g. a package-private listener class, so that it can still be invoked from this
+     * package.
+     *
+     * @param method the method to make accessible
+     */
+    private void makeAccessible(final Method method) {
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return;
+        }
+
+        try {
+            method.setAccessible(true);
+        } catch (final RuntimeException runtimeException) {
+            log.debug("Unable to make method {} accessible", method, runtimeException);
+        }
+    }
+
+    /**
+     * Build the invoker that will call the {@link MethodHandle}, wrapping any exception in an {@link InvocationTargetException} to match the semantics
+     * of {@link Method#invoke(Object, Object...)}.
+     *
+     * <p>Each arity has its own lambda, instead of sharing a helper method, so that no objects are allocated when the method is invoked.
+     *
+     * @param methodHandle   the handle for the method that has been bound to the bean
+     * @param parameterCount the number of parameters of the method
+     * @return the invoker for the method
+     */
+    private MethodInvoker createMethodHandleInvoker(final MethodHandle methodHandle, final int parameterCount) {
+        if (parameterCount > MAX_SPECIALISED_PARAMETER_COUNT) {
+            final MethodHandle spreadMethodHandle = methodHandle.asSpreader(Object[].class, parameterCount)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return arguments -> {
+                try {
+                    return spreadMethodHandle.invokeExact(arguments);
+                } catch (final Throwable throwable) {
+                    throw new InvocationTargetException(throwable);
+                }
+            };
+        }
+
+        final MethodHandle genericMethodHandle = methodHandle.asType(MethodType.genericMethodType(parameterCount));
+        switch (parameterCount) {
+            case 0:
+                return arguments -> {
+                    try {
+                        return genericMethodHandle.invokeExact();
+                    } catch (final Throwable throwable) {
+                        throw new InvocationTargetException(throwable);
+                    }
+                };
+            case 1:
+                return arguments -> {
+                    try {
+                        return genericMethodHandle.invokeExact(arguments[0]);
+                    } catch (final Throwable throwable) {
+                        throw new InvocationTargetException(throwable);
+                    }
+                };
+            case 2:
+                return arguments -> {
+                    try {
+                        return genericMethodHandle.invokeExact(arguments[0], arguments[1]);
+                    } catch (final Throwable throwable) {
+                        throw new InvocationTargetException(throwable);
+                    }
+                };
+            case 3:
+                return arguments -> {
+                    try {
+                        return genericMethodHandle.invokeExact(arguments[0], arguments[1], arguments[2]);
+                    } catch (final Throwable throwable) {
+                        throw new InvocationTargetException(throwable);
+                    }
+                };
+            default:
+                return arguments -> {
+                    try {
+                        return genericMethodHandle.invokeExact(arguments[0], arguments[1], arguments[2], arguments[3]);
+                    } catch (final Throwable throwable) {
+                        throw new InvocationTargetException(throwable);
+                    }
+                };
+        }
+    }
+}
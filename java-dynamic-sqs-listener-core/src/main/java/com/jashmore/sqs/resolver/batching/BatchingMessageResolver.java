@@ -1,36 +1,66 @@
 package com.jashmore.sqs.resolver.batching;
 
 import static com.jashmore.sqs.aws.AwsConstants.MAX_NUMBER_OF_MESSAGES_IN_BATCH;
+import static com.jashmore.sqs.aws.AwsConstants.MAX_VISIBILITY_TIMEOUT_IN_SECONDS;
+import static com.jashmore.sqs.resolver.batching.BatchingMessageResolverConstants.DEFAULT_MAX_IN_FLIGHT_BATCHES;
+import static com.jashmore.sqs.resolver.batching.BatchingMessageResolverConstants.DEFAULT_MAX_RETRY_ATTEMPTS;
+import static com.jashmore.sqs.resolver.batching.BatchingMessageResolverConstants.DEFAULT_MAX_RETRY_PERIOD_IN_MS;
+import static com.jashmore.sqs.resolver.batching.BatchingMessageResolverConstants.DEFAULT_RETRY_BACKOFF_IN_MS;
+import static com.jashmore.sqs.resolver.batching.BatchingMessageResolverConstants.RESOLUTION_RATE_SMOOTHING_FACTOR;
+import static com.jashmore.sqs.resolver.batching.BatchingMessageResolverConstants.RETRIABLE_ERROR_CODES;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 
 import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.resolver.MessageResolver;
+import com.jashmore.sqs.resolver.NegativeAcknowledgingMessageResolver;
+import com.jashmore.sqs.util.properties.PropertyUtils;
 import com.jashmore.sqs.util.thread.ThreadUtils;
 import lombok.AllArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.exception.SdkInterruptedException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -39,15 +69,29 @@ import javax.annotation.concurrent.ThreadSafe;
  * <p>This uses a {@link BlockingQueue} to store all of the messages that need to be resolved and once the timeout provided by
  * {@link BatchingMessageResolverProperties#getBufferingTimeInMs()} is reached or the number of messages goes above
  * {@link BatchingMessageResolverProperties#getBufferingSizeLimit()}, the messages are sent out to be deleted.
+ *
+ * <p>The number of batches that are being deleted at the same time is limited by {@link BatchingMessageResolverProperties#getMaxInFlightBatches()}. When
+ * this limit is reached the resolver waits for a batch to complete before sending the next one, which means that under a high load the messages are
+ * naturally grouped into full batches.
+ *
+ * <p>Messages that failed to be deleted due to a retriable error, for example the request being throttled or an internal error in SQS, can be retried
+ * up to {@link BatchingMessageResolverProperties#getMaxRetryAttempts()} times. These messages are placed back into the buffer after a jittered
+ * exponential backoff and therefore will be merged into the subsequent batches.
+ *
+ * <p>Messages that failed to be processed can be negatively acknowledged via {@link #rejectMessage(Message)}, which buffers the messages in the same
+ * way as the deletions and changes their visibility in batches so that they are redelivered after
+ * {@link BatchingMessageResolverProperties#getNegativeAcknowledgementDelayInSeconds()}.
  */
 @Slf4j
 @ThreadSafe
-public class BatchingMessageResolver implements MessageResolver {
+public class BatchingMessageResolver implements NegativeAcknowledgingMessageResolver {
     private final QueueProperties queueProperties;
     private final SqsAsyncClient sqsAsyncClient;
     private final BatchingMessageResolverProperties properties;
 
     private final BlockingQueue<MessageResolutionBean> messagesToBeResolved;
+    private final LongAdder numberOfRetries;
+    private final LongAdder numberOfRetriesExhausted;
 
     /**
      * Builds a {@link BatchingMessageResolver} that will perform a deletion of a message every time a single message is received.
@@ -78,43 +122,109 @@ public class BatchingMessageResolver implements MessageResolver {
         this.properties = properties;
 
         this.messagesToBeResolved = new LinkedBlockingQueue<>();
+        this.numberOfRetries = new LongAdder();
+        this.numberOfRetriesExhausted = new LongAdder();
     }
 
     @Override
     public CompletableFuture<?> resolveMessage(final Message message) {
         final CompletableFuture<Object> completableFuture = new CompletableFuture<>();
-        messagesToBeResolved.add(new MessageResolutionBean(message, completableFuture));
+        messagesToBeResolved.add(new MessageResolutionBean(message, completableFuture, 1, System.nanoTime(), null));
+        return completableFuture;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If {@link BatchingMessageResolverProperties#getNegativeAcknowledgementDelayInSeconds()} is null or negative, negative acknowledgements are
+     * disabled and the message will be redelivered once its visibility timeout expires.
+     */
+    @Override
+    public CompletableFuture<?> rejectMessage(final Message message) {
+        final Integer negativeAcknowledgementDelayInSeconds = properties.getNegativeAcknowledgementDelayInSeconds();
+        if (negativeAcknowledgementDelayInSeconds == null || negativeAcknowledgementDelayInSeconds < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final int visibilityTimeoutInSeconds = calculateNegativeAcknowledgementDelayInSeconds(message, negativeAcknowledgementDelayInSeconds,
+                shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount());
+        final CompletableFuture<Object> completableFuture = new CompletableFuture<>();
+        messagesToBeResolved.add(new MessageResolutionBean(message, completableFuture, 1, System.nanoTime(), visibilityTimeoutInSeconds));
         return completableFuture;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>When negative acknowledgements are enabled the {@link MessageSystemAttributeName#APPROXIMATE_RECEIVE_COUNT} is required so that the delay can
+     * be increased with the number of times the message has been received.
+     */
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes() {
+        final Integer negativeAcknowledgementDelayInSeconds = properties.getNegativeAcknowledgementDelayInSeconds();
+        if (negativeAcknowledgementDelayInSeconds == null || negativeAcknowledgementDelayInSeconds < 0) {
+            return RequiredMessageAttributes.none();
+        }
+        return RequiredMessageAttributes.messageSystemAttributes(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+    }
+
+    /**
+     * The total number of times that messages have been placed back into the buffer to retry their deletion.
+     *
+     * @return the number of retries
+     */
+    public long getNumberOfRetries() {
+        return numberOfRetries.sum();
+    }
+
+    /**
+     * The total number of messages that failed to be deleted due to a retriable error but could not be retried again as they had reached the
+     * maximum number of attempts or the maximum retry period.
+     *
+     * @return the number of messages that exhausted their retries
+     */
+    public long getNumberOfRetriesExhausted() {
+        return numberOfRetriesExhausted.sum();
+    }
+
     @Override
     public void run() {
         log.info("Started MessageResolver background thread");
         boolean continueProcessing = true;
-        final ExecutorService executorService = buildExecutorServiceForSendingBatchDeletion();
+        final int maxInFlightBatches = getMaxInFlightBatches();
+        final Semaphore inFlightBatchPermits = new Semaphore(maxInFlightBatches);
+        final ExecutorService executorService = buildExecutorServiceForSendingBatchDeletion(maxInFlightBatches);
+        final RetryScheduler retryScheduler = new RetryScheduler();
+        final ResolutionRateTracker resolutionRateTracker = new ResolutionRateTracker();
         // all of the batches currently being sent so that they can be waited on during shutdown
         final Set<CompletableFuture<?>> batchesBeingPublished = Sets.newConcurrentHashSet();
         while (continueProcessing) {
             final List<MessageResolutionBean> batchOfMessagesToResolve = new LinkedList<>();
             try {
-                final int batchSize = getBatchSize();
-                final long bufferingTimeInMs = getBufferingTimeInMs();
-                log.trace("Waiting {}ms for {} messages to be submitted for deletion", bufferingTimeInMs, batchSize);
-                Queues.drain(messagesToBeResolved, batchOfMessagesToResolve, batchSize, bufferingTimeInMs, TimeUnit.MILLISECONDS);
+                drainBatchOfMessagesToResolve(batchOfMessagesToResolve, resolutionRateTracker);
             } catch (final InterruptedException interruptedException) {
                 log.info("Shutting down MessageResolver");
                 // Do nothing, we still want to send the current batch of messages
                 continueProcessing = false;
             }
 
-            if (!batchOfMessagesToResolve.isEmpty()) {
-                log.debug("Sending batch deletion for {} messages", batchOfMessagesToResolve.size());
-                final CompletableFuture<?> completableFuture = submitMessageDeletionBatch(batchOfMessagesToResolve, executorService);
-                batchesBeingPublished.add(completableFuture);
-                completableFuture
-                        .whenComplete((response, throwable) -> batchesBeingPublished.remove(completableFuture));
+            final Map<Boolean, List<MessageResolutionBean>> batchesByWhetherMessagesAreDeleted = batchOfMessagesToResolve.stream()
+                    .collect(Collectors.partitioningBy(bean -> bean.getVisibilityTimeoutInSeconds() == null));
+            final List<MessageResolutionBean> messagesToDelete = batchesByWhetherMessagesAreDeleted.get(true);
+            final List<MessageResolutionBean> messagesToReject = batchesByWhetherMessagesAreDeleted.get(false);
+            if (!messagesToDelete.isEmpty()) {
+                log.debug("Sending batch deletion for {} messages", messagesToDelete.size());
+                submitWithinInFlightBatchLimit(inFlightBatchPermits, batchesBeingPublished,
+                        () -> submitMessageDeletionBatch(messagesToDelete, executorService, retryScheduler));
+            }
+            if (!messagesToReject.isEmpty()) {
+                log.debug("Sending batch visibility change for {} messages", messagesToReject.size());
+                submitWithinInFlightBatchLimit(inFlightBatchPermits, batchesBeingPublished,
+                        () -> submitMessageVisibilityChangeBatch(messagesToReject, executorService, retryScheduler));
             }
         }
+        // messages can no longer be retried as there is nothing consuming the buffer
+        retryScheduler.shutdown();
         try {
             log.debug("Waiting for {} batches to complete", batchesBeingPublished.size());
             CompletableFuture.allOf(batchesBeingPublished.toArray(new CompletableFuture<?>[0]))
@@ -129,6 +239,82 @@ public class BatchingMessageResolver implements MessageResolver {
         }
     }
 
+    /**
+     * Submit a batch once there are less than the maximum number of batches in flight, tracking it until it has completed.
+     *
+     * @param inFlightBatchPermits  the permits for the batches that are in flight
+     * @param batchesBeingPublished all of the batches currently being sent
+     * @param batchSubmitter        submits the batch, returning the future that is completed when the batch has completed
+     */
+    private void submitWithinInFlightBatchLimit(final Semaphore inFlightBatchPermits,
+                                                final Set<CompletableFuture<?>> batchesBeingPublished,
+                                                final Supplier<CompletableFuture<?>> batchSubmitter) {
+        // This provides the back-pressure, while waiting for a batch to complete more messages will be buffered for the next batch
+        inFlightBatchPermits.acquireUninterruptibly();
+        final CompletableFuture<?> completableFuture = batchSubmitter.get();
+        batchesBeingPublished.add(completableFuture);
+        completableFuture
+                .whenComplete((response, throwable) -> {
+                    batchesBeingPublished.remove(completableFuture);
+                    inFlightBatchPermits.release();
+                });
+    }
+
+    /**
+     * Wait for the next batch of messages to be resolved, either until the batch is full or the buffering time has elapsed.
+     *
+     * <p>If the buffering time should adapt to the rate of messages being resolved, this will wait for at least one message and then only wait for the
+     * rest of the batch if it is expected to be filled within the buffering time.
+     *
+     * @param batchOfMessagesToResolve the list to place the messages into
+     * @param resolutionRateTracker    tracks the rate that messages are being resolved
+     * @throws InterruptedException if the thread was interrupted while waiting, in which case any messages already obtained will be in the list
+     */
+    private void drainBatchOfMessagesToResolve(final List<MessageResolutionBean> batchOfMessagesToResolve,
+                                               final ResolutionRateTracker resolutionRateTracker) throws InterruptedException {
+        final int batchSize = getBatchSize();
+        final long bufferingTimeInMs = getBufferingTimeInMs();
+        if (!shouldAdaptBufferingTime()) {
+            log.trace("Waiting {}ms for {} messages to be submitted for deletion", bufferingTimeInMs, batchSize);
+            Queues.drain(messagesToBeResolved, batchOfMessagesToResolve, batchSize, bufferingTimeInMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        batchOfMessagesToResolve.add(messagesToBeResolved.take());
+        final long adaptiveBufferingTimeInMs = calculateAdaptiveBufferingTimeInMs(resolutionRateTracker.getMessagesResolvedPerMs(), batchSize,
+                bufferingTimeInMs);
+        log.trace("Waiting {}ms for {} messages to be submitted for deletion", adaptiveBufferingTimeInMs, batchSize);
+        try {
+            Queues.drain(messagesToBeResolved, batchOfMessagesToResolve, batchSize - 1, adaptiveBufferingTimeInMs, TimeUnit.MILLISECONDS);
+        } finally {
+            resolutionRateTracker.recordMessagesResolved(batchOfMessagesToResolve.size());
+        }
+    }
+
+    /**
+     * Calculate how long the resolver should wait for the rest of the batch to be filled after it has obtained the first message.
+     *
+     * <p>If the rest of the batch is not expected to be filled within the maximum buffering time, there is no point waiting as it will only delay the
+     * deletion of the messages, and therefore the messages should be sent straight away.
+     *
+     * @param messagesResolvedPerMs the current rate that messages are being resolved
+     * @param batchSize             the maximum number of messages in a batch
+     * @param maxBufferingTimeInMs  the maximum amount of time to wait for the batch to be filled
+     * @return the time to wait for the rest of the batch in milliseconds
+     */
+    @VisibleForTesting
+    static long calculateAdaptiveBufferingTimeInMs(final double messagesResolvedPerMs, final int batchSize, final long maxBufferingTimeInMs) {
+        if (batchSize <= 1 || messagesResolvedPerMs <= 0) {
+            return 0;
+        }
+
+        final double expectedTimeToFillBatchInMs = (batchSize - 1) / messagesResolvedPerMs;
+        if (expectedTimeToFillBatchInMs > maxBufferingTimeInMs) {
+            return 0;
+        }
+        return (long) Math.ceil(expectedTimeToFillBatchInMs);
+    }
+
     /**
      * Build the {@link ExecutorService} to send the batch message delete messages.
      *
@@ -136,12 +322,16 @@ public class BatchingMessageResolver implements MessageResolver {
      * ultimately not what we want. We instead want to know that this has been done and wait for the delete requests to eventually finish. Therefore,
      * running it on extra threads provides this extra safety.
      *
-     * <p>The extra service also allows for multiple batches to be sent concurrently.
+     * <p>The number of threads is bounded by the maximum number of batches that can be in flight at once, with idle threads being removed.
      *
+     * @param maxInFlightBatches the maximum number of batches that can be sent concurrently
      * @return the service for running message deletion on a separate thread
      */
-    private ExecutorService buildExecutorServiceForSendingBatchDeletion() {
-        return Executors.newCachedThreadPool(ThreadUtils.threadFactory(Thread.currentThread().getName() + "-batch-delete-%d"));
+    private ExecutorService buildExecutorServiceForSendingBatchDeletion(final int maxInFlightBatches) {
+        final ThreadPoolExecutor executorService = new ThreadPoolExecutor(maxInFlightBatches, maxInFlightBatches, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), ThreadUtils.threadFactory(Thread.currentThread().getName() + "-batch-delete-%d"));
+        executorService.allowCoreThreadTimeOut(true);
+        return executorService;
     }
 
     /**
@@ -165,44 +355,95 @@ public class BatchingMessageResolver implements MessageResolver {
     /**
      * Submit the batch of messages to be resolved asynchronously.
      *
-     * <p>When the batch is completed successfully (or unsuccessfully), the futures for each message will be completed.
+     * <p>When the batch is completed successfully (or unsuccessfully), the futures for each message will be completed, unless the message failed with
+     * a retriable error in which case it will be given to the {@link RetryScheduler} to be attempted again.
      *
      * @param batchOfMessagesToResolve the messages to resolve
+     * @param executorService          the service to send the request on
+     * @param retryScheduler           the scheduler for retrying messages that failed to be deleted
      */
     private CompletableFuture<?> submitMessageDeletionBatch(final List<MessageResolutionBean> batchOfMessagesToResolve,
-                                                            final ExecutorService executorService) {
-        final Map<String, CompletableFuture<Object>> messageCompletableFutures = batchOfMessagesToResolve.stream()
-                .map(bean -> Maps.immutableEntry(bean.getMessage().messageId(), bean.getCompletableFuture()))
+                                                            final ExecutorService executorService,
+                                                            final RetryScheduler retryScheduler) {
+        final DeleteMessageBatchRequest deleteMessageBatchRequest = buildBatchDeleteMessageRequest(batchOfMessagesToResolve);
+        return submitBatch(batchOfMessagesToResolve, "delete", retryScheduler, CompletableFuture
+                .supplyAsync(() -> sqsAsyncClient.deleteMessageBatch(deleteMessageBatchRequest), executorService)
+                .thenCompose(Function.identity())
+                .thenApply(response -> new BatchResult(
+                        response.successful().stream().map(DeleteMessageBatchResultEntry::id).collect(Collectors.toList()),
+                        response.failed()
+                )));
+    }
+
+    /**
+     * Submit the batch of messages to have their visibility changed asynchronously so that they are redelivered after their negative acknowledgement
+     * delay.
+     *
+     * @param batchOfMessagesToReject the messages to change the visibility of
+     * @param executorService         the service to send the request on
+     * @param retryScheduler          the scheduler for retrying messages that failed to have their visibility changed
+     */
+    private CompletableFuture<?> submitMessageVisibilityChangeBatch(final List<MessageResolutionBean> batchOfMessagesToReject,
+                                                                    final ExecutorService executorService,
+                                                                    final RetryScheduler retryScheduler) {
+        final ChangeMessageVisibilityBatchRequest changeMessageVisibilityBatchRequest = buildBatchChangeMessageVisibilityRequest(batchOfMessagesToReject);
+        return submitBatch(batchOfMessagesToReject, "visibility change", retryScheduler, CompletableFuture
+                .supplyAsync(() -> sqsAsyncClient.changeMessageVisibilityBatch(changeMessageVisibilityBatchRequest), executorService)
+                .thenCompose(Function.identity())
+                .thenApply(response -> new BatchResult(
+                        response.successful().stream().map(ChangeMessageVisibilityBatchResultEntry::id).collect(Collectors.toList()),
+                        response.failed()
+                )));
+    }
+
+    /**
+     * Complete the futures for each of the messages in the batch when the batch request has completed, retrying any messages that failed with a
+     * retriable error.
+     *
+     * @param batchOfMessages the messages in the batch
+     * @param batchType       the type of batch request being sent, used for logging
+     * @param retryScheduler  the scheduler for retrying messages that failed
+     * @param batchResult     the future that will be completed with the result of the batch request
+     * @return the future that will be completed when the batch has completed
+     */
+    private CompletableFuture<?> submitBatch(final List<MessageResolutionBean> batchOfMessages,
+                                             final String batchType,
+                                             final RetryScheduler retryScheduler,
+                                             final CompletableFuture<BatchResult> batchResult) {
+        final Map<String, MessageResolutionBean> messageResolutionBeans = batchOfMessages.stream()
+                .map(bean -> Maps.immutableEntry(bean.getMessage().messageId(), bean))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
-        return CompletableFuture.supplyAsync(() -> buildBatchDeleteMessageRequest(batchOfMessagesToResolve))
-                .thenComposeAsync(sqsAsyncClient::deleteMessageBatch, executorService)
+        return batchResult
                 .whenComplete((response, exception) -> {
                     if (exception != null) {
-                        log.error("Error deleting messages", exception);
+                        log.error("Error sending batch {} of messages", batchType, exception);
 
-                        messageCompletableFutures.values()
-                                .forEach(completableFuture -> completableFuture.completeExceptionally(exception));
+                        final boolean isRetriable = isRetriable(exception);
+                        messageResolutionBeans.values()
+                                .forEach(bean -> retryScheduler.retryOrFail(bean, exception, isRetriable));
                         return;
                     }
 
-                    log.debug("{} messages successfully deleted, {} failed", response.successful().size(), response.failed().size());
+                    log.debug("{} messages successful in batch {}, {} failed", response.getSuccessfulIds().size(), batchType,
+                            response.getFailed().size());
 
-                    response.successful().stream()
-                            .map(entry -> messageCompletableFutures.remove(entry.id()))
-                            .forEach(completableFuture -> completableFuture.complete("completed"));
+                    response.getSuccessfulIds().stream()
+                            .map(messageResolutionBeans::remove)
+                            .forEach(bean -> bean.getCompletableFuture().complete("completed"));
 
-                    response.failed()
+                    response.getFailed()
                             .forEach(entry -> {
-                                final CompletableFuture<?> completableFuture = messageCompletableFutures.remove(entry.id());
-                                completableFuture.completeExceptionally(new RuntimeException(entry.message()));
+                                final MessageResolutionBean bean = messageResolutionBeans.remove(entry.id());
+                                retryScheduler.retryOrFail(bean, new RuntimeException(entry.message()), isRetriable(entry));
                             });
 
-                    if (!messageCompletableFutures.isEmpty()) {
-                        log.error("{} messages were not handled in the deletion. This could be a bug in the AWS SDK", messageCompletableFutures.size());
-                        messageCompletableFutures.values()
-                                .forEach(completableFuture -> completableFuture.completeExceptionally(
-                                        new RuntimeException("Message not handled by batch delete. This should not happen")
+                    if (!messageResolutionBeans.isEmpty()) {
+                        log.error("{} messages were not handled in the batch {}. This could be a bug in the AWS SDK", messageResolutionBeans.size(),
+                                batchType);
+                        messageResolutionBeans.values()
+                                .forEach(bean -> bean.getCompletableFuture().completeExceptionally(
+                                        new RuntimeException("Message not handled by batch " + batchType + ". This should not happen")
                                 ));
                     }
                 });
@@ -222,6 +463,239 @@ public class BatchingMessageResolver implements MessageResolver {
                 .build();
     }
 
+    private ChangeMessageVisibilityBatchRequest buildBatchChangeMessageVisibilityRequest(final List<MessageResolutionBean> batchOfMessagesToReject) {
+        return ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl(queueProperties.getQueueUrl())
+                .entries(batchOfMessagesToReject.stream()
+                        .map(bean -> ChangeMessageVisibilityBatchRequestEntry.builder()
+                                .id(bean.getMessage().messageId())
+                                .receiptHandle(bean.getMessage().receiptHandle())
+                                .visibilityTimeout(bean.getVisibilityTimeoutInSeconds())
+                                .build())
+                        .collect(Collectors.toList())
+                )
+                .build();
+    }
+
+    /**
+     * Calculate the visibility timeout to set for a message that is being negatively acknowledged, which is the time before it will be redelivered.
+     *
+     * <p>When the delay should increase with the receive count, the delay is doubled for each time that the message has been received before, using the
+     * {@link MessageSystemAttributeName#APPROXIMATE_RECEIVE_COUNT} attribute of the message. If this attribute was not requested when the message was
+     * retrieved, the message is assumed to have only been received once.
+     *
+     * @param message                                 the message being negatively acknowledged
+     * @param negativeAcknowledgementDelayInSeconds   the delay before the message is redelivered for the first time
+     * @param shouldIncreaseDelayWithReceiveCount     whether the delay should grow with the number of times the message has been received
+     * @return the visibility timeout in seconds, which is never more than the maximum visibility timeout allowed by SQS
+     */
+    @VisibleForTesting
+    static int calculateNegativeAcknowledgementDelayInSeconds(final Message message,
+                                                              final int negativeAcknowledgementDelayInSeconds,
+                                                              final boolean shouldIncreaseDelayWithReceiveCount) {
+        final int delayInSeconds = Math.min(negativeAcknowledgementDelayInSeconds, MAX_VISIBILITY_TIMEOUT_IN_SECONDS);
+        if (!shouldIncreaseDelayWithReceiveCount) {
+            return delayInSeconds;
+        }
+
+        final int previousReceiveCount = Ints.constrainToRange(getApproximateReceiveCount(message) - 1, 0, 30);
+        return (int) Math.min((long) delayInSeconds << previousReceiveCount, MAX_VISIBILITY_TIMEOUT_IN_SECONDS);
+    }
+
+    private static int getApproximateReceiveCount(final Message message) {
+        return Optional.ofNullable(message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT))
+                .map(Ints::tryParse)
+                .orElse(1);
+    }
+
+    /**
+     * Determine whether a message that failed to be deleted in the batch should be retried.
+     *
+     * <p>Errors that are the fault of the sender, for example an invalid receipt handle, will fail again and therefore are not retried unless they
+     * indicate that the request was throttled.
+     *
+     * @param entry the entry for the message that failed to be deleted
+     * @return whether the deletion of the message should be retried
+     */
+    @VisibleForTesting
+    static boolean isRetriable(final BatchResultErrorEntry entry) {
+        return !Boolean.TRUE.equals(entry.senderFault()) || RETRIABLE_ERROR_CODES.contains(entry.code());
+    }
+
+    /**
+     * Determine whether an exception thrown when deleting the whole batch of messages should result in the messages being retried.
+     *
+     * @param throwable the exception thrown by the batch deletion
+     * @return whether the deletion of the messages should be retried
+     */
+    @VisibleForTesting
+    static boolean isRetriable(final Throwable throwable) {
+        final Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable;
+        if (cause instanceof SdkServiceException) {
+            final SdkServiceException serviceException = (SdkServiceException) cause;
+            return serviceException.isThrottlingException() || serviceException.statusCode() >= 500 || serviceException.retryable();
+        }
+        return cause instanceof SdkException && ((SdkException) cause).retryable();
+    }
+
+    /**
+     * Calculate the amount of time to wait before retrying the deletion of a message using an exponential backoff with full jitter.
+     *
+     * <p>The jitter spreads out the retries for messages that failed in the same batch so that they do not all hit SQS at the same time, for example when
+     * the requests are being throttled.
+     *
+     * @param numberOfAttempts the number of times that the deletion of the message has been attempted
+     * @param retryBackoffInMs the base backoff that is doubled for each attempt
+     * @return the time to wait in milliseconds before retrying
+     */
+    @VisibleForTesting
+    static long calculateRetryBackoffInMs(final int numberOfAttempts, final long retryBackoffInMs) {
+        final int exponent = Ints.constrainToRange(numberOfAttempts - 1, 0, 30);
+        final long maxBackoffInMs = retryBackoffInMs > (Long.MAX_VALUE >> exponent) ? Long.MAX_VALUE : retryBackoffInMs << exponent;
+        return ThreadLocalRandom.current().nextLong(maxBackoffInMs) + 1;
+    }
+
+    private int getMaxRetryAttempts() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "maxRetryAttempts",
+                properties::getMaxRetryAttempts,
+                DEFAULT_MAX_RETRY_ATTEMPTS
+        );
+    }
+
+    private long getRetryBackoffInMs() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "retryBackoffInMs",
+                properties::getRetryBackoffInMs,
+                DEFAULT_RETRY_BACKOFF_IN_MS
+        );
+    }
+
+    private long getMaxRetryPeriodInMs() {
+        return PropertyUtils.safelyGetPositiveLongValue(
+                "maxRetryPeriodInMs",
+                properties::getMaxRetryPeriodInMs,
+                DEFAULT_MAX_RETRY_PERIOD_IN_MS
+        );
+    }
+
+    private boolean shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount() {
+        return Optional.ofNullable(properties.shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount())
+                .orElse(false);
+    }
+
+    private int getMaxInFlightBatches() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "maxInFlightBatches",
+                properties::getMaxInFlightBatches,
+                DEFAULT_MAX_IN_FLIGHT_BATCHES
+        );
+    }
+
+    private boolean shouldAdaptBufferingTime() {
+        return Optional.ofNullable(properties.shouldAdaptBufferingTime())
+                .orElse(false);
+    }
+
+    /**
+     * Tracks the rate that messages are being resolved using an exponentially weighted moving average of the rate between each batch.
+     *
+     * <p>This is only used by the resolver thread and therefore does not need to be thread safe.
+     */
+    private static class ResolutionRateTracker {
+        private long lastRecordedTimeInNanoseconds = System.nanoTime();
+        private double messagesResolvedPerMs = 0;
+
+        void recordMessagesResolved(final int numberOfMessages) {
+            final long currentTimeInNanoseconds = System.nanoTime();
+            final double elapsedTimeInMs = Math.max(1, currentTimeInNanoseconds - lastRecordedTimeInNanoseconds) / 1_000_000.0;
+            lastRecordedTimeInNanoseconds = currentTimeInNanoseconds;
+            messagesResolvedPerMs += RESOLUTION_RATE_SMOOTHING_FACTOR * (numberOfMessages / elapsedTimeInMs - messagesResolvedPerMs);
+        }
+
+        double getMessagesResolvedPerMs() {
+            return messagesResolvedPerMs;
+        }
+    }
+
+    /**
+     * Schedules messages that failed to be deleted to be placed back into the buffer after a backoff, so that they are merged into a subsequent batch.
+     *
+     * <p>Once the resolver is being shutdown the buffer is no longer being consumed and therefore any messages waiting to be retried, or that fail
+     * after this point, will have their futures completed exceptionally. These messages will be redelivered by SQS once their visibility timeout expires.
+     */
+    private class RetryScheduler {
+        private final ScheduledExecutorService scheduledExecutorService;
+        private final Set<MessageResolutionBean> messagesWaitingForRetry;
+        private volatile boolean isShutdown;
+
+        RetryScheduler() {
+            this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+                    ThreadUtils.threadFactory(Thread.currentThread().getName() + "-retry-%d")
+            );
+            this.messagesWaitingForRetry = Sets.newConcurrentHashSet();
+        }
+
+        /**
+         * Retry the deletion of the message if possible, otherwise complete the future for the message exceptionally.
+         *
+         * @param bean        the message that failed to be deleted
+         * @param failure     the reason that the message failed to be deleted
+         * @param isRetriable whether the failure is one that can be retried
+         */
+        void retryOrFail(final MessageResolutionBean bean, final Throwable failure, final boolean isRetriable) {
+            if (!isRetriable || isShutdown) {
+                bean.getCompletableFuture().completeExceptionally(failure);
+                return;
+            }
+
+            final int maxRetryAttempts = getMaxRetryAttempts();
+            if (maxRetryAttempts == 0) {
+                bean.getCompletableFuture().completeExceptionally(failure);
+                return;
+            }
+
+            final long backoffInMs = calculateRetryBackoffInMs(bean.getNumberOfAttempts(), getRetryBackoffInMs());
+            final long elapsedTimeInMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bean.getFirstAttemptTimeInNanoseconds());
+            if (bean.getNumberOfAttempts() > maxRetryAttempts || elapsedTimeInMs + backoffInMs > getMaxRetryPeriodInMs()) {
+                log.warn("Message {} failed to be resolved after {} attempts", bean.getMessage().messageId(), bean.getNumberOfAttempts());
+                numberOfRetriesExhausted.increment();
+                bean.getCompletableFuture().completeExceptionally(failure);
+                return;
+            }
+
+            log.debug("Retrying resolution of message {} in {}ms", bean.getMessage().messageId(), backoffInMs);
+            numberOfRetries.increment();
+            final MessageResolutionBean retryBean = bean.nextAttempt();
+            messagesWaitingForRetry.add(retryBean);
+            try {
+                scheduledExecutorService.schedule(() -> {
+                    if (messagesWaitingForRetry.remove(retryBean)) {
+                        messagesToBeResolved.add(retryBean);
+                    }
+                }, backoffInMs, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException rejectedExecutionException) {
+                // the resolver was shutdown while scheduling this retry
+                if (messagesWaitingForRetry.remove(retryBean)) {
+                    retryBean.getCompletableFuture().completeExceptionally(failure);
+                }
+            }
+        }
+
+        /**
+         * Stop retrying messages, completing the futures of the messages waiting to be retried exceptionally.
+         */
+        void shutdown() {
+            isShutdown = true;
+            scheduledExecutorService.shutdownNow();
+            messagesWaitingForRetry.forEach(bean -> {
+                if (messagesWaitingForRetry.remove(bean)) {
+                    bean.getCompletableFuture().completeExceptionally(new RuntimeException("MessageResolver shutdown before message could be retried"));
+                }
+            });
+        }
+    }
+
     /**
      * Internal bean used for storing the message to be resolved in the internal queue.
      */
@@ -236,5 +710,33 @@ public class BatchingMessageResolver implements MessageResolver {
          * The future that should be resolved when the message is successfully or unsuccessfully deleted.
          */
         private final CompletableFuture<Object> completableFuture;
+        /**
+         * The number of times that the deletion of this message will have been attempted when this is next sent.
+         */
+        private final int numberOfAttempts;
+        /**
+         * The time that the message was first requested to be resolved, used to limit how long the message can be retried for.
+         */
+        private final long firstAttemptTimeInNanoseconds;
+
+        /**
+         * The visibility timeout to change the message to if it is being negatively acknowledged, or null if the message should be deleted.
+         */
+        @Nullable
+        private final Integer visibilityTimeoutInSeconds;
+
+        MessageResolutionBean nextAttempt() {
+            return new MessageResolutionBean(message, completableFuture, numberOfAttempts + 1, firstAttemptTimeInNanoseconds, visibilityTimeoutInSeconds);
+        }
+    }
+
+    /**
+     * Internal bean for the result of a batch request, as each of the SQS batch requests have a different response type.
+     */
+    @Value
+    @AllArgsConstructor
+    private static class BatchResult {
+        private final List<String> successfulIds;
+        private final List<BatchResultErrorEntry> failed;
     }
 }
@@ -0,0 +1,40 @@
+package com.jashmore.sqs.resolver.batching;
+
+import com.google.common.collect.ImmutableSet;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Set;
+
+@UtilityClass
+class BatchingMessageResolverConstants {
+    /**
+     * The default maximum number of batches that can be in the process of being deleted at the same time.
+     */
+    static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 10;
+
+    /**
+     * The weighting given to the latest measurement of the rate that messages are being resolved when adapting the buffering time.
+     */
+    static final double RESOLUTION_RATE_SMOOTHING_FACTOR = 0.3;
+
+    /**
+     * The default maximum number of times that the deletion of a message will be retried, which disables retries.
+     */
+    static final int DEFAULT_MAX_RETRY_ATTEMPTS = 0;
+
+    /**
+     * The default base amount of time to wait before retrying the deletion of a message.
+     */
+    static final long DEFAULT_RETRY_BACKOFF_IN_MS = 100L;
+
+    /**
+     * The default maximum amount of time that the deletion of a message can be retried for.
+     */
+    static final long DEFAULT_MAX_RETRY_PERIOD_IN_MS = 10_000L;
+
+    /**
+     * Error codes of failed batch entries that indicate the request was throttled and therefore can be retried even though they are a sender fault.
+     */
+    static final Set<String> RETRIABLE_ERROR_CODES = ImmutableSet.of("RequestThrottled", "ThrottlingException", "Throttling");
+}
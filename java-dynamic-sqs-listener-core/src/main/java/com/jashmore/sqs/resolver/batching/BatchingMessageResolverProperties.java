@@ -2,9 +2,11 @@ package com.jashmore.sqs.resolver.batching;
 
 import com.jashmore.sqs.aws.AwsConstants;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 
 /**
  * Properties used for configuring the {@link BatchingMessageResolver} specifically the size of the buffer that should be used.
@@ -32,4 +34,93 @@ public interface BatchingMessageResolverProperties {
     @Min(1)
     @Max(AwsConstants.MAX_NUMBER_OF_MESSAGES_IN_BATCH)
     int getBufferingSizeLimit();
+
+    /**
+     * The maximum number of batches of messages that can be in the process of being deleted at the same time.
+     *
+     * <p>When this limit is reached no more batches will be sent until one of them completes, during which time any messages being resolved will wait in
+     * the buffer and therefore will be sent in larger batches. This value is only checked when the resolver is started. If this value is null or not
+     * positive, {@link BatchingMessageResolverConstants#DEFAULT_MAX_IN_FLIGHT_BATCHES} will be used.
+     *
+     * @return the maximum number of batches being deleted concurrently
+     */
+    @Nullable
+    @Positive
+    Integer getMaxInFlightBatches();
+
+    /**
+     * Whether the time that messages remain in the buffer should adapt to the rate that messages are being resolved, instead of always waiting for
+     * {@link #getBufferingTimeInMs()}.
+     *
+     * <p>When this is enabled the rate that messages are being resolved is tracked. If the buffer is expected to be filled within
+     * {@link #getBufferingTimeInMs()} at that rate the resolver will wait for the buffer to be filled, otherwise the messages in the buffer will be sent
+     * straight away as waiting would only delay their deletion. If this value is null it will be disabled.
+     *
+     * @return whether the buffering time should adapt to the rate of messages being resolved
+     */
+    @Nullable
+    Boolean shouldAdaptBufferingTime();
+
+    /**
+     * The maximum number of times that the deletion of a message will be retried when it fails due to a retriable error, for example the request being
+     * throttled or an internal error in SQS.
+     *
+     * <p>Retried messages are placed back into the buffer and therefore are merged into the subsequent batches. If this value is null or negative,
+     * {@link BatchingMessageResolverConstants#DEFAULT_MAX_RETRY_ATTEMPTS} will be used, which disables retries.
+     *
+     * @return the maximum number of retries for the deletion of a message
+     */
+    @Nullable
+    @PositiveOrZero
+    Integer getMaxRetryAttempts();
+
+    /**
+     * The base amount of time to wait before retrying the deletion of a message, which is doubled for each subsequent attempt with a random jitter applied.
+     *
+     * <p>If this value is null or not positive, {@link BatchingMessageResolverConstants#DEFAULT_RETRY_BACKOFF_IN_MS} will be used.
+     *
+     * @return the base backoff in milliseconds
+     */
+    @Nullable
+    @Positive
+    Long getRetryBackoffInMs();
+
+    /**
+     * The maximum amount of time since the message was first requested to be resolved that its deletion can be retried for.
+     *
+     * <p>There is no point retrying the deletion after the visibility timeout of the message has expired, as the message will have been redelivered and
+     * the receipt handle will no longer be valid, so this should be less than the remaining visibility timeout of the messages when they have been
+     * processed. If this value is null or not positive, {@link BatchingMessageResolverConstants#DEFAULT_MAX_RETRY_PERIOD_IN_MS} will be used.
+     *
+     * @return the maximum time in milliseconds that a message can be retried for
+     */
+    @Nullable
+    @Positive
+    Long getMaxRetryPeriodInMs();
+
+    /**
+     * The amount of time that a message that failed to be processed will remain invisible before it is redelivered, when it is negatively acknowledged
+     * via {@link BatchingMessageResolver#rejectMessage(software.amazon.awssdk.services.sqs.model.Message)}.
+     *
+     * <p>A value of zero will make the message visible immediately. If this value is null or negative, negative acknowledgements are disabled and the
+     * message will only be redelivered once its visibility timeout expires.
+     *
+     * @return the delay in seconds before a negatively acknowledged message is redelivered
+     */
+    @Nullable
+    @PositiveOrZero
+    Integer getNegativeAcknowledgementDelayInSeconds();
+
+    /**
+     * Whether the delay before a negatively acknowledged message is redelivered should double for each time that the message has been received.
+     *
+     * <p>This uses the {@link software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName#APPROXIMATE_RECEIVE_COUNT} attribute of the message
+     * and therefore the {@link com.jashmore.sqs.retriever.MessageRetriever} must request this attribute, which is included in
+     * {@link BatchingMessageResolver#getRequiredMessageAttributes()} whenever negative acknowledgements are enabled. If this value is null it will be
+     * disabled.
+     *
+     * @return whether the negative acknowledgement delay should increase with the receive count of the message
+     */
+    @Nullable
+    Boolean shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount();
 }
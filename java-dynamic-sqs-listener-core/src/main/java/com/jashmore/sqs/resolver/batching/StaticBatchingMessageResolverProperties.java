@@ -3,8 +3,10 @@ package com.jashmore.sqs.resolver.batching;
 import lombok.Builder;
 import lombok.Value;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 
 /**
  * Static implementation that will contain constant size and time limit for the buffer.
@@ -14,6 +16,13 @@ import javax.validation.constraints.Positive;
 public class StaticBatchingMessageResolverProperties implements BatchingMessageResolverProperties {
     private final long bufferingTimeInMs;
     private final int bufferingSizeLimit;
+    private final Integer maxInFlightBatches;
+    private final Boolean shouldAdaptBufferingTime;
+    private final Integer maxRetryAttempts;
+    private final Long retryBackoffInMs;
+    private final Long maxRetryPeriodInMs;
+    private final Integer negativeAcknowledgementDelayInSeconds;
+    private final Boolean shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount;
 
     @Positive
     @Override
@@ -27,4 +36,51 @@ public class StaticBatchingMessageResolverProperties implements BatchingMessageR
     public int getBufferingSizeLimit() {
         return bufferingSizeLimit;
     }
+
+    @Nullable
+    @Positive
+    @Override
+    public Integer getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    @Nullable
+    @Override
+    public Boolean shouldAdaptBufferingTime() {
+        return shouldAdaptBufferingTime;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Integer getMaxRetryAttempts() {
+        return maxRetryAttempts;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Long getRetryBackoffInMs() {
+        return retryBackoffInMs;
+    }
+
+    @Nullable
+    @Positive
+    @Override
+    public Long getMaxRetryPeriodInMs() {
+        return maxRetryPeriodInMs;
+    }
+
+    @Nullable
+    @PositiveOrZero
+    @Override
+    public Integer getNegativeAcknowledgementDelayInSeconds() {
+        return negativeAcknowledgementDelayInSeconds;
+    }
+
+    @Nullable
+    @Override
+    public Boolean shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount() {
+        return shouldIncreaseNegativeAcknowledgementDelayWithReceiveCount;
+    }
 }
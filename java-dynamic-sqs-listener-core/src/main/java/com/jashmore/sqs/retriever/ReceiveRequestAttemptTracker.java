@@ -0,0 +1,121 @@
+package com.jashmore.sqs.retriever;
+
+import static com.jashmore.sqs.aws.AwsConstants.FIFO_QUEUE_SUFFIX;
+import static com.jashmore.sqs.aws.AwsConstants.RECEIVE_REQUEST_ATTEMPT_ID_DEDUPLICATION_PERIOD_IN_SECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Tracks the attempts of the requests to receive messages from a FIFO queue so that a request that failed, for example due to a networking error, can be
+ * retried with the same receive request attempt id.
+ *
+ * <p>When a receive request to a FIFO queue fails after SQS has received it, the messages that were received are hidden from other consumers until their
+ * visibility timeout expires and the message groups that they belong to are blocked for that period. Retrying the request with the same attempt id will
+ * return the same messages instead of waiting for them to become visible again.
+ *
+ * <p>For queues that are not FIFO queues no attempts are made and the receive requests should not include an attempt id.
+ *
+ * <p>As the order of the messages of a FIFO queue depends on their group, the {@link MessageSystemAttributeName#MESSAGE_GROUP_ID} is always included
+ * in the attributes requested for a FIFO queue via {@link #includeQueueRequiredMessageAttributes(RequiredMessageAttributes)}.
+ */
+@Slf4j
+@ThreadSafe
+public class ReceiveRequestAttemptTracker {
+    private static final long DEDUPLICATION_PERIOD_IN_NANOSECONDS = TimeUnit.SECONDS.toNanos(RECEIVE_REQUEST_ATTEMPT_ID_DEDUPLICATION_PERIOD_IN_SECONDS);
+
+    private final boolean isFifoQueue;
+    private final LongSupplier nanoTimeSupplier;
+    private final Queue<Attempt> attemptsToRetry;
+
+    public ReceiveRequestAttemptTracker(final QueueProperties queueProperties) {
+        this(queueProperties, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    ReceiveRequestAttemptTracker(final QueueProperties queueProperties, final LongSupplier nanoTimeSupplier) {
+        this.isFifoQueue = queueProperties.getQueueUrl() != null && queueProperties.getQueueUrl().endsWith(FIFO_QUEUE_SUFFIX);
+        this.nanoTimeSupplier = nanoTimeSupplier;
+        this.attemptsToRetry = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Start the attempt for the next receive request, which will reuse the attempt id of a previously failed request if one can still be retried.
+     *
+     * @return the attempt to include in the receive request, or null if the queue is not a FIFO queue
+     */
+    @Nullable
+    public Attempt startAttempt() {
+        if (!isFifoQueue) {
+            return null;
+        }
+
+        final long currentTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+        Attempt attemptToRetry;
+        while ((attemptToRetry = attemptsToRetry.poll()) != null) {
+            if (currentTimeInNanoseconds - attemptToRetry.getFirstAttemptTimeInNanoseconds() < DEDUPLICATION_PERIOD_IN_NANOSECONDS) {
+                log.debug("Retrying receive request attempt: {}", attemptToRetry.getId());
+                return attemptToRetry;
+            }
+        }
+        return new Attempt(UUID.randomUUID().toString(), currentTimeInNanoseconds);
+    }
+
+    /**
+     * Include the attributes that are always needed for the messages of this queue in the attributes requested for the messages.
+     *
+     * <p>For a FIFO queue this is the {@link MessageSystemAttributeName#MESSAGE_GROUP_ID}, so that the message group is known even if the message
+     * listener does not need it, for example when it only consumes the payload of the message.
+     *
+     * @param requiredMessageAttributes the attributes required to process the messages
+     * @return the attributes that should be requested for the messages
+     */
+    public RequiredMessageAttributes includeQueueRequiredMessageAttributes(final RequiredMessageAttributes requiredMessageAttributes) {
+        if (!isFifoQueue) {
+            return requiredMessageAttributes;
+        }
+        return requiredMessageAttributes.and(RequiredMessageAttributes.messageSystemAttributes(MessageSystemAttributeName.MESSAGE_GROUP_ID));
+    }
+
+    /**
+     * Mark that the receive request for the attempt failed so that the next receive request will retry it.
+     *
+     * <p>This should only be called if none of the messages from the attempt were obtained, as SQS will not return the messages again for an attempt if any
+     * of them have been deleted or had their visibility changed.
+     *
+     * @param attempt the attempt that failed, or null if the queue is not a FIFO queue
+     */
+    public void attemptFailed(@Nullable final Attempt attempt) {
+        if (attempt != null) {
+            attemptsToRetry.add(attempt);
+        }
+    }
+
+    /**
+     * A single attempt of a receive request, which may be retried by multiple requests.
+     */
+    @Value
+    public static class Attempt {
+        /**
+         * The identifier that should be used as the receive request attempt id.
+         */
+        private final String id;
+        /**
+         * The time that the first request for this attempt was made, as SQS will only return the same messages for a certain period after this time.
+         */
+        private final long firstAttemptTimeInNanoseconds;
+    }
+}
@@ -5,31 +5,35 @@ import static com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverConsta
 import static com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverConstants.DEFAULT_BATCHING_PERIOD_IN_MS;
 import static com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverConstants.DEFAULT_BATCHING_TRIGGER;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
 import com.google.common.primitives.Ints;
 
 import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.aws.AwsConstants;
 import com.jashmore.sqs.broker.concurrent.ConcurrentMessageBrokerProperties;
 import com.jashmore.sqs.retriever.MessageRetriever;
+import com.jashmore.sqs.retriever.ReceiveRequestAttemptTracker;
 import com.jashmore.sqs.util.properties.PropertyUtils;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.exception.SdkInterruptedException;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.Message;
-import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * This implementation of the {@link MessageRetriever} will group requests for messages into batches to reduce the number of times that messages are requested
@@ -37,14 +41,18 @@ import java.util.concurrent.TimeUnit;
  *
  * <p>The advantage of this retriever is that the overall number of times that the SQS queue is queried are reduced but the overall throughput is reduced
  * because threads are waiting for the batch to be let through to get messages.
+ *
+ * <p>A request for multiple messages via {@link #retrieveMessages(int)} counts as that many requests towards the
+ * {@link BatchingMessageRetrieverProperties#getBatchSize()} so that a consumer of batches does not need to submit a request for each message.
  */
 @Slf4j
 public class BatchingMessageRetriever implements MessageRetriever {
     private final QueueProperties queueProperties;
     private final SqsAsyncClient sqsAsyncClient;
     private final BatchingMessageRetrieverProperties properties;
+    private final ReceiveRequestAttemptTracker receiveRequestAttemptTracker;
 
-    private final LinkedBlockingDeque<CompletableFuture<Message>> futuresWaitingForMessages;
+    private final LinkedBlockingDeque<MessagesRequest> futuresWaitingForMessages;
 
     public BatchingMessageRetriever(final QueueProperties queueProperties,
                                     final SqsAsyncClient sqsAsyncClient,
@@ -52,6 +60,7 @@ public class BatchingMessageRetriever implements MessageRetriever {
         this.queueProperties = queueProperties;
         this.sqsAsyncClient = sqsAsyncClient;
         this.properties = properties;
+        this.receiveRequestAttemptTracker = new ReceiveRequestAttemptTracker(queueProperties);
 
         this.futuresWaitingForMessages = new LinkedBlockingDeque<>();
     }
@@ -59,15 +68,30 @@ public class BatchingMessageRetriever implements MessageRetriever {
     @Override
     public CompletableFuture<Message> retrieveMessage() {
         final CompletableFuture<Message> messageCompletableFuture = new CompletableFuture<>();
-        futuresWaitingForMessages.add(messageCompletableFuture);
+        futuresWaitingForMessages.add(MessagesRequest.forSingleMessage(messageCompletableFuture));
         return messageCompletableFuture;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The future is resolved with the messages from the next batch request to SQS, which may be fewer than requested if there were not enough messages
+     * in the queue or the batch was shared with other requests.
+     */
+    @Override
+    public CompletableFuture<List<Message>> retrieveMessages(final int maxNumberOfMessages) {
+        Preconditions.checkArgument(maxNumberOfMessages > 0, "maxNumberOfMessages must be greater than zero");
+
+        final CompletableFuture<List<Message>> messagesCompletableFuture = new CompletableFuture<>();
+        futuresWaitingForMessages.add(MessagesRequest.forMessages(messagesCompletableFuture, maxNumberOfMessages));
+        return messagesCompletableFuture;
+    }
+
     @Override
     public List<Message> run() {
         log.info("Started MessageRetriever");
         while (!Thread.currentThread().isInterrupted()) {
-            final Queue<CompletableFuture<Message>> messagesToObtain;
+            final Queue<MessagesRequest> messagesToObtain;
             try {
                 messagesToObtain = obtainRequestForMessagesBatch();
             } catch (final InterruptedException interruptedException) {
@@ -75,17 +99,18 @@ public class BatchingMessageRetriever implements MessageRetriever {
                 break;
             }
 
-            log.debug("Requesting {} messages", messagesToObtain.size());
-
             if (messagesToObtain.isEmpty()) {
                 continue;
             }
 
+            final int numberOfMessagesToObtain = Math.min(MessagesRequest.getTotalNumberOfMessages(messagesToObtain),
+                    AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS);
+            log.debug("Requesting {} messages", numberOfMessagesToObtain);
+
+            final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt = receiveRequestAttemptTracker.startAttempt();
             final List<Message> messages;
             try {
-                messages = CompletableFuture.supplyAsync(messagesToObtain::size)
-                        .thenApply(this::buildReceiveMessageRequest)
-                        .thenComposeAsync(sqsAsyncClient::receiveMessage)
+                messages = sqsAsyncClient.receiveMessage(buildReceiveMessageRequest(numberOfMessagesToObtain, receiveRequestAttempt))
                         .thenApply(ReceiveMessageResponse::messages)
                         .get();
             } catch (final RuntimeException | ExecutionException exception) {
@@ -104,6 +129,7 @@ public class BatchingMessageRetriever implements MessageRetriever {
                 log.error("Error request messages", exception);
                 // If there was an exception receiving messages we need to put these back into the queue
                 futuresWaitingForMessages.addAll(messagesToObtain);
+                receiveRequestAttemptTracker.attemptFailed(receiveRequestAttempt);
                 performBackoff();
                 continue;
             } catch (final InterruptedException interruptedException) {
@@ -112,26 +138,27 @@ public class BatchingMessageRetriever implements MessageRetriever {
             }
 
             log.debug("Downloaded {} messages", messages.size());
-            if (messages.size() > messagesToObtain.size()) {
+            if (messages.size() > numberOfMessagesToObtain) {
                 log.error("More messages were downloaded than requested, this shouldn't happen");
             }
 
-            for (final Message message : messages) {
-                final CompletableFuture<Message> completableFuture = messagesToObtain.poll();
-                if (completableFuture != null) {
-                    completableFuture.complete(message);
-                }
+            int nextMessageIndex = 0;
+            while (nextMessageIndex < messages.size() && !messagesToObtain.isEmpty()) {
+                final MessagesRequest messagesRequest = messagesToObtain.poll();
+                final int endIndex = Math.min(messages.size(), nextMessageIndex + messagesRequest.getNumberOfMessages());
+                messagesRequest.complete(new ArrayList<>(messages.subList(nextMessageIndex, endIndex)));
+                nextMessageIndex = endIndex;
             }
             // Any threads that weren't completed send back for processing again
             futuresWaitingForMessages.addAll(messagesToObtain);
         }
-        futuresWaitingForMessages.forEach(future -> future.cancel(true));
+        futuresWaitingForMessages.forEach(MessagesRequest::cancel);
         log.info("MessageRetriever has been successfully stopped");
         return ImmutableList.of();
     }
 
-    private Queue<CompletableFuture<Message>> obtainRequestForMessagesBatch() throws InterruptedException {
-        final Queue<CompletableFuture<Message>> messagesToObtain = Lists.newLinkedList();
+    private Queue<MessagesRequest> obtainRequestForMessagesBatch() throws InterruptedException {
+        final Queue<MessagesRequest> messagesToObtain = Lists.newLinkedList();
         final int batchSize = getbatchSize();
         final long pollingPeriod = getMaxBatchingPeriodInMs();
         if (log.isDebugEnabled()) {
@@ -141,10 +168,44 @@ public class BatchingMessageRetriever implements MessageRetriever {
                     futuresWaitingForMessages.size()
             );
         }
-        Queues.drain(futuresWaitingForMessages, messagesToObtain, batchSize, pollingPeriod, TimeUnit.MILLISECONDS);
+        try {
+            drain(messagesToObtain, batchSize, pollingPeriod);
+        } catch (final InterruptedException interruptedException) {
+            // Place the requests back so that they will be cancelled when the retriever stops
+            futuresWaitingForMessages.addAll(messagesToObtain);
+            throw interruptedException;
+        }
         return messagesToObtain;
     }
 
+    /**
+     * Drain the requests for messages into the provided queue until the total number of messages requested reaches the batch size or the polling period
+     * has elapsed.
+     *
+     * <p>This is similar to {@link com.google.common.collect.Queues#drain} except that each request counts as the number of messages it is requesting
+     * instead of a single element.
+     *
+     * @param messagesToObtain  the queue to add the requests to
+     * @param batchSize         the number of messages that should be requested before the batch is sent
+     * @param pollingPeriodInMs the maximum amount of time to wait for the batch size to be reached
+     * @throws InterruptedException if the thread was interrupted while waiting for requests
+     */
+    private void drain(final Queue<MessagesRequest> messagesToObtain, final int batchSize, final long pollingPeriodInMs) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pollingPeriodInMs);
+        int numberOfMessagesRequested = 0;
+        while (numberOfMessagesRequested < batchSize) {
+            MessagesRequest messagesRequest = futuresWaitingForMessages.poll();
+            if (messagesRequest == null) {
+                messagesRequest = futuresWaitingForMessages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (messagesRequest == null) {
+                    break;
+                }
+            }
+            messagesToObtain.add(messagesRequest);
+            numberOfMessagesRequested += messagesRequest.getNumberOfMessages();
+        }
+    }
+
     private void performBackoff() {
         try {
             final long errorBackoffTimeInMilliseconds = getErrorBackoffTimeInMilliseconds();
@@ -188,15 +249,23 @@ public class BatchingMessageRetriever implements MessageRetriever {
      * Build the request that will download the messages from SQS.
      *
      * @param numberOfMessagesToObtain the maximum number of messages to obtain
+     * @param receiveRequestAttempt    the attempt for this request if the queue is a FIFO queue
      * @return the request that will be sent to SQS
      */
-    private ReceiveMessageRequest buildReceiveMessageRequest(final int numberOfMessagesToObtain) {
+    private ReceiveMessageRequest buildReceiveMessageRequest(final int numberOfMessagesToObtain,
+                                                             @Nullable final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt) {
+        final RequiredMessageAttributes requiredMessageAttributes = receiveRequestAttemptTracker.includeQueueRequiredMessageAttributes(
+                Optional.ofNullable(properties.getRequiredMessageAttributes()).orElseGet(RequiredMessageAttributes::all)
+        );
         final ReceiveMessageRequest.Builder requestBuilder = ReceiveMessageRequest.builder()
                 .queueUrl(queueProperties.getQueueUrl())
-                .attributeNames(QueueAttributeName.ALL)
-                .messageAttributeNames(QueueAttributeName.ALL.toString())
+                .attributeNamesWithStrings(requiredMessageAttributes.getMessageSystemAttributeNames())
+                .messageAttributeNames(requiredMessageAttributes.getMessageAttributeNames())
                 .maxNumberOfMessages(numberOfMessagesToObtain)
                 .waitTimeSeconds(MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS);
+        if (receiveRequestAttempt != null) {
+            requestBuilder.receiveRequestAttemptId(receiveRequestAttempt.getId());
+        }
 
         try {
             final Integer visibilityTimeoutInSeconds = properties.getMessageVisibilityTimeoutInSeconds();
@@ -1,5 +1,6 @@
 package com.jashmore.sqs.retriever.batching;
 
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.aws.AwsConstants;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
@@ -81,4 +82,18 @@ public interface BatchingMessageRetrieverProperties {
     @Nullable
     @PositiveOrZero
     Long getErrorBackoffTimeInMilliseconds();
+
+    /**
+     * The attributes of the messages that should be retrieved from SQS.
+     *
+     * <p>Requesting only the attributes that are needed to process the message reduces the size of the responses from SQS, which is significant for
+     * messages with small bodies. These can be determined from the method processing the messages via
+     * {@link com.jashmore.sqs.argument.ArgumentResolverService#getRequiredMessageAttributes(java.lang.reflect.Method)}.
+     *
+     * <p>If this value is null, all message system attributes and message attributes will be retrieved.
+     *
+     * @return the attributes to retrieve for each message
+     */
+    @Nullable
+    RequiredMessageAttributes getRequiredMessageAttributes();
 }
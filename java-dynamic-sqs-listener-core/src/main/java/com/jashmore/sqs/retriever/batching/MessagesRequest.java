@@ -0,0 +1,73 @@
+package com.jashmore.sqs.retriever.batching;
+
+import com.google.common.primitives.Ints;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request for messages from a consumer of a batching retriever, which is either for a single message via
+ * {@link com.jashmore.sqs.retriever.MessageRetriever#retrieveMessage()} or for a batch of messages via
+ * {@link com.jashmore.sqs.retriever.MessageRetriever#retrieveMessages(int)}.
+ */
+final class MessagesRequest {
+    private final CompletableFuture<Message> messageFuture;
+    private final CompletableFuture<List<Message>> messagesFuture;
+    private final int numberOfMessages;
+
+    private MessagesRequest(final CompletableFuture<Message> messageFuture,
+                            final CompletableFuture<List<Message>> messagesFuture,
+                            final int numberOfMessages) {
+        this.messageFuture = messageFuture;
+        this.messagesFuture = messagesFuture;
+        this.numberOfMessages = numberOfMessages;
+    }
+
+    static MessagesRequest forSingleMessage(final CompletableFuture<Message> messageFuture) {
+        return new MessagesRequest(messageFuture, null, 1);
+    }
+
+    static MessagesRequest forMessages(final CompletableFuture<List<Message>> messagesFuture, final int numberOfMessages) {
+        return new MessagesRequest(null, messagesFuture, numberOfMessages);
+    }
+
+    int getNumberOfMessages() {
+        return numberOfMessages;
+    }
+
+    /**
+     * Get the total number of messages for the requests, saturating at {@link Integer#MAX_VALUE}.
+     *
+     * @param messagesRequests the requests for messages
+     * @return the total number of messages requested
+     */
+    static int getTotalNumberOfMessages(final Collection<MessagesRequest> messagesRequests) {
+        return messagesRequests.stream()
+                .mapToInt(MessagesRequest::getNumberOfMessages)
+                .reduce(0, (first, second) -> Ints.saturatedCast((long) first + second));
+    }
+
+    /**
+     * Complete the request with the messages, which must contain at least one message and no more than {@link #getNumberOfMessages()}.
+     *
+     * @param messages the messages for this request
+     */
+    void complete(final List<Message> messages) {
+        if (messageFuture != null) {
+            messageFuture.complete(messages.get(0));
+        } else {
+            messagesFuture.complete(messages);
+        }
+    }
+
+    void cancel() {
+        if (messageFuture != null) {
+            messageFuture.cancel(true);
+        } else {
+            messagesFuture.cancel(true);
+        }
+    }
+}
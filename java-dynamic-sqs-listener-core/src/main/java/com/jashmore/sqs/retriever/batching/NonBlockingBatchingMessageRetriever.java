@@ -0,0 +1,487 @@
+package com.jashmore.sqs.retriever.batching;
+
+import static com.jashmore.sqs.aws.AwsConstants.MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS;
+import static com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverConstants.DEFAULT_BACKOFF_TIME_IN_MS;
+import static com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverConstants.DEFAULT_BATCHING_PERIOD_IN_MS;
+import static com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverConstants.DEFAULT_BATCHING_TRIGGER;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.aws.AwsConstants;
+import com.jashmore.sqs.retriever.NonBlockingMessageRetriever;
+import com.jashmore.sqs.retriever.ReceiveRequestAttemptTracker;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Batching {@link NonBlockingMessageRetriever} that is driven entirely by the completion callbacks of the {@link SqsAsyncClient} and therefore does not
+ * require a dedicated thread to be blocked waiting for the batch to fill or for the long poll to SQS to complete.
+ *
+ * <p>This retriever has the same batching semantics as the {@link BatchingMessageRetriever}. The requests for messages are grouped together until
+ * {@link BatchingMessageRetrieverProperties#getBatchSize()} messages have been requested or {@link BatchingMessageRetrieverProperties#getBatchingPeriodInMs()}
+ * has elapsed, at which point a single request is made to SQS for all of them. Only one request to SQS is in flight at a time and any requests for
+ * messages made while it is in flight will be included in the next batch.
+ *
+ * <p>Instead of a thread waiting for the batch to fill, the batch is sent by the thread that requested the message that filled it or by the provided
+ * {@link ScheduledExecutorService} when the batching period elapses. The messages are handed over to the {@link CompletableFuture}s on the thread that
+ * the SQS client uses to complete its requests, so many retrievers can share the same client without needing any extra threads.
+ *
+ * <p>When an error is returned from SQS the retriever will wait for the error backoff time before requesting messages again, which is also scheduled on
+ * the provided {@link ScheduledExecutorService}. By default this is a single daemon thread shared between all instances of this retriever.
+ */
+@Slf4j
+@ThreadSafe
+public class NonBlockingBatchingMessageRetriever implements NonBlockingMessageRetriever {
+    private static final ScheduledExecutorService SHARED_SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("non-blocking-batching-message-retriever-scheduler")
+            .setDaemon(true)
+            .build());
+
+    private final QueueProperties queueProperties;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final BatchingMessageRetrieverProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final ReceiveRequestAttemptTracker receiveRequestAttemptTracker;
+
+    /**
+     * Used to make sure that only one thread is determining whether a batch should be sent at a time. As the completion of a request can occur on the
+     * same thread that made the request, this prevents the retriever from recursively making requests.
+     */
+    private final AtomicInteger sendBatchWorkInProgress = new AtomicInteger();
+
+    @GuardedBy("this")
+    private final Queue<MessagesRequest> futuresWaitingForMessages = new LinkedList<>();
+    @GuardedBy("this")
+    private boolean requestInFlight;
+    @GuardedBy("this")
+    private CompletableFuture<ReceiveMessageResponse> requestInFlightFuture;
+    @GuardedBy("this")
+    private ScheduledFuture<?> batchingPeriodFuture;
+    /**
+     * Identifies the current batching period so that a batching period that elapses after its batch was already sent is ignored.
+     */
+    @GuardedBy("this")
+    private long batchingPeriodId;
+    @GuardedBy("this")
+    private boolean batchingPeriodElapsed;
+    @GuardedBy("this")
+    private boolean backingOff;
+    @GuardedBy("this")
+    private CompletableFuture<List<Message>> retrieverStoppedFuture;
+    @GuardedBy("this")
+    private boolean stopped;
+
+    public NonBlockingBatchingMessageRetriever(final QueueProperties queueProperties,
+                                               final SqsAsyncClient sqsAsyncClient,
+                                               final BatchingMessageRetrieverProperties properties) {
+        this(queueProperties, sqsAsyncClient, properties, SHARED_SCHEDULER);
+    }
+
+    public NonBlockingBatchingMessageRetriever(final QueueProperties queueProperties,
+                                               final SqsAsyncClient sqsAsyncClient,
+                                               final BatchingMessageRetrieverProperties properties,
+                                               final ScheduledExecutorService scheduler) {
+        Preconditions.checkNotNull(queueProperties, "queueProperties");
+        Preconditions.checkNotNull(sqsAsyncClient, "sqsAsyncClient");
+        Preconditions.checkNotNull(properties, "properties");
+        Preconditions.checkNotNull(scheduler, "scheduler");
+
+        this.queueProperties = queueProperties;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.properties = properties;
+        this.scheduler = scheduler;
+        this.receiveRequestAttemptTracker = new ReceiveRequestAttemptTracker(queueProperties);
+    }
+
+    @Override
+    public CompletableFuture<Message> retrieveMessage() {
+        final CompletableFuture<Message> messageCompletableFuture = new CompletableFuture<>();
+        addRequest(MessagesRequest.forSingleMessage(messageCompletableFuture));
+        return messageCompletableFuture;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The future is resolved with the messages from the next batch request to SQS, which may be fewer than requested if there were not enough messages
+     * in the queue or the batch was shared with other requests.
+     */
+    @Override
+    public CompletableFuture<List<Message>> retrieveMessages(final int maxNumberOfMessages) {
+        Preconditions.checkArgument(maxNumberOfMessages > 0, "maxNumberOfMessages must be greater than zero");
+
+        final CompletableFuture<List<Message>> messagesCompletableFuture = new CompletableFuture<>();
+        addRequest(MessagesRequest.forMessages(messagesCompletableFuture, maxNumberOfMessages));
+        return messagesCompletableFuture;
+    }
+
+    @Override
+    public CompletableFuture<List<Message>> start() {
+        final CompletableFuture<List<Message>> stoppedFuture = new CompletableFuture<>();
+        synchronized (this) {
+            Preconditions.checkState(retrieverStoppedFuture == null, "The retriever has already been started");
+            log.info("Started MessageRetriever");
+            retrieverStoppedFuture = stoppedFuture;
+        }
+        sendBatchIfNecessary();
+        return stoppedFuture;
+    }
+
+    @Override
+    public void stop() {
+        final CompletableFuture<ReceiveMessageResponse> requestToCancel;
+        synchronized (this) {
+            if (retrieverStoppedFuture == null || stopped) {
+                return;
+            }
+            log.info("Stopping MessageRetriever");
+            stopped = true;
+            requestToCancel = requestInFlightFuture;
+            cancelBatchingPeriod();
+        }
+
+        // Cancelling the request will complete it which will trigger the retriever to be completely stopped
+        if (requestToCancel != null) {
+            requestToCancel.cancel(true);
+        }
+        completeStopIfNoRequestInFlight();
+    }
+
+    private void addRequest(final MessagesRequest messagesRequest) {
+        synchronized (this) {
+            futuresWaitingForMessages.add(messagesRequest);
+        }
+        sendBatchIfNecessary();
+    }
+
+    /**
+     * Determine whether the batch of requests for messages should be sent to SQS and send it.
+     *
+     * <p>Only a single thread will be sending the batch at a time. If another thread calls this while it is already being run, the thread already
+     * running will recheck whether the batch should be sent before it exits.
+     */
+    private void sendBatchIfNecessary() {
+        if (sendBatchWorkInProgress.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missedRequests = 1;
+        while (missedRequests != 0) {
+            final Queue<MessagesRequest> messagesToObtain = reserveBatch();
+            if (messagesToObtain != null) {
+                sendReceiveMessageRequest(messagesToObtain);
+            }
+            missedRequests = sendBatchWorkInProgress.addAndGet(-missedRequests);
+        }
+    }
+
+    /**
+     * Take the requests for messages that should be sent in the next request to SQS, starting the batching period if the batch is not yet full.
+     *
+     * @return the requests for messages to send or null if no request should be made yet
+     */
+    @Nullable
+    private synchronized Queue<MessagesRequest> reserveBatch() {
+        if (retrieverStoppedFuture == null || stopped || backingOff || requestInFlight || futuresWaitingForMessages.isEmpty()) {
+            return null;
+        }
+
+        final int batchSize = getBatchSize();
+        if (MessagesRequest.getTotalNumberOfMessages(futuresWaitingForMessages) < batchSize && !batchingPeriodElapsed) {
+            startBatchingPeriod();
+            return null;
+        }
+
+        cancelBatchingPeriod();
+        batchingPeriodElapsed = false;
+        final Queue<MessagesRequest> messagesToObtain = new LinkedList<>();
+        int numberOfMessagesRequested = 0;
+        while (!futuresWaitingForMessages.isEmpty() && (messagesToObtain.isEmpty() || numberOfMessagesRequested < batchSize)) {
+            final MessagesRequest messagesRequest = futuresWaitingForMessages.poll();
+            messagesToObtain.add(messagesRequest);
+            numberOfMessagesRequested += messagesRequest.getNumberOfMessages();
+        }
+        requestInFlight = true;
+        return messagesToObtain;
+    }
+
+    /**
+     * Schedule the batch to be sent when the batching period elapses, if it has not already been scheduled.
+     */
+    @GuardedBy("this")
+    private void startBatchingPeriod() {
+        if (batchingPeriodFuture != null) {
+            return;
+        }
+
+        final long batchingPeriodInMs = getMaxBatchingPeriodInMs();
+        if (log.isDebugEnabled()) {
+            log.debug("Waiting for {} requests for messages {}. Total currently waiting: {}",
+                    getBatchSize(),
+                    batchingPeriodInMs == Long.MAX_VALUE ? "until batch size reached" : "within " + batchingPeriodInMs + "ms",
+                    futuresWaitingForMessages.size()
+            );
+        }
+        if (batchingPeriodInMs == Long.MAX_VALUE) {
+            return;
+        }
+
+        final long currentBatchingPeriodId = ++batchingPeriodId;
+        batchingPeriodFuture = scheduler.schedule(() -> {
+            synchronized (this) {
+                if (batchingPeriodFuture == null || batchingPeriodId != currentBatchingPeriodId) {
+                    return;
+                }
+                batchingPeriodFuture = null;
+                batchingPeriodElapsed = true;
+            }
+            sendBatchIfNecessary();
+        }, batchingPeriodInMs, TimeUnit.MILLISECONDS);
+    }
+
+    @GuardedBy("this")
+    private void cancelBatchingPeriod() {
+        if (batchingPeriodFuture != null) {
+            batchingPeriodFuture.cancel(false);
+            batchingPeriodFuture = null;
+        }
+    }
+
+    /**
+     * Send the request to SQS for the batch of requests for messages.
+     *
+     * @param messagesToObtain the requests for messages in this batch
+     */
+    private void sendReceiveMessageRequest(final Queue<MessagesRequest> messagesToObtain) {
+        final int numberOfMessagesToObtain = Math.min(MessagesRequest.getTotalNumberOfMessages(messagesToObtain),
+                AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS);
+        log.debug("Requesting {} messages", numberOfMessagesToObtain);
+
+        final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt = receiveRequestAttemptTracker.startAttempt();
+        final CompletableFuture<ReceiveMessageResponse> receiveMessageFuture;
+        try {
+            receiveMessageFuture = sqsAsyncClient.receiveMessage(buildReceiveMessageRequest(numberOfMessagesToObtain, receiveRequestAttempt));
+        } catch (final RuntimeException runtimeException) {
+            receiveRequestAttemptTracker.attemptFailed(receiveRequestAttempt);
+            handleReceiveMessageCompleted(messagesToObtain, numberOfMessagesToObtain, null, runtimeException);
+            return;
+        }
+
+        final boolean isStopped;
+        synchronized (this) {
+            isStopped = stopped;
+            if (!receiveMessageFuture.isDone()) {
+                requestInFlightFuture = receiveMessageFuture;
+            }
+        }
+        if (isStopped) {
+            // The retriever was stopped while this request was being sent so it would not have been cancelled
+            receiveMessageFuture.cancel(true);
+        }
+        receiveMessageFuture.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                receiveRequestAttemptTracker.attemptFailed(receiveRequestAttempt);
+            }
+            handleReceiveMessageCompleted(messagesToObtain, numberOfMessagesToObtain, response, throwable);
+        });
+    }
+
+    /**
+     * Handle the completion of a request to SQS, handing the messages to the requests in the batch.
+     *
+     * <p>Any requests in the batch that did not receive a message are placed back to be included in the next batch.
+     *
+     * @param messagesToObtain         the requests for messages in the batch
+     * @param numberOfMessagesToObtain the number of messages that were requested from SQS
+     * @param response                 the response from SQS if it was successful
+     * @param throwable                the exception if the request failed
+     */
+    private void handleReceiveMessageCompleted(final Queue<MessagesRequest> messagesToObtain,
+                                               final int numberOfMessagesToObtain,
+                                               final ReceiveMessageResponse response,
+                                               final Throwable throwable) {
+        final List<Message> messages = throwable == null ? response.messages() : ImmutableList.of();
+        final List<MessagesRequest> requestsToComplete = new ArrayList<>();
+        final List<List<Message>> messagesForRequests = new ArrayList<>();
+        final boolean isStopped;
+        synchronized (this) {
+            requestInFlight = false;
+            requestInFlightFuture = null;
+            isStopped = stopped;
+
+            if (throwable == null) {
+                log.debug("Downloaded {} messages", messages.size());
+                if (messages.size() > numberOfMessagesToObtain) {
+                    log.error("More messages were downloaded than requested, this shouldn't happen");
+                }
+            } else if (!isStopped) {
+                log.error("Error request messages", throwable);
+                startBackoff();
+            }
+
+            int nextMessageIndex = 0;
+            while (nextMessageIndex < messages.size() && !messagesToObtain.isEmpty()) {
+                final MessagesRequest messagesRequest = messagesToObtain.poll();
+                final int endIndex = Math.min(messages.size(), nextMessageIndex + messagesRequest.getNumberOfMessages());
+                requestsToComplete.add(messagesRequest);
+                messagesForRequests.add(new ArrayList<>(messages.subList(nextMessageIndex, endIndex)));
+                nextMessageIndex = endIndex;
+            }
+            // Any requests that weren't completed are sent back to be included in the next batch
+            futuresWaitingForMessages.addAll(messagesToObtain);
+        }
+
+        for (int i = 0; i < requestsToComplete.size(); ++i) {
+            requestsToComplete.get(i).complete(messagesForRequests.get(i));
+        }
+
+        if (isStopped) {
+            completeStopIfNoRequestInFlight();
+        } else {
+            sendBatchIfNecessary();
+        }
+    }
+
+    /**
+     * Stop any requests for messages until the error backoff time has passed.
+     */
+    @GuardedBy("this")
+    private void startBackoff() {
+        final long errorBackoffTimeInMilliseconds = getErrorBackoffTimeInMilliseconds();
+        log.debug("Backing off for {}ms", errorBackoffTimeInMilliseconds);
+        backingOff = true;
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                backingOff = false;
+            }
+            sendBatchIfNecessary();
+        }, errorBackoffTimeInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * If the retriever has been stopped and the request to SQS has completed, cancel any requests for messages that will never be resolved and complete
+     * the future returned from {@link #start()}.
+     *
+     * <p>As the messages are only requested from SQS when there are requests waiting for them, there will never be any leftover messages.
+     */
+    private void completeStopIfNoRequestInFlight() {
+        final List<MessagesRequest> requestsToCancel;
+        final CompletableFuture<List<Message>> stoppedFuture;
+        synchronized (this) {
+            if (!stopped || requestInFlight || retrieverStoppedFuture.isDone()) {
+                return;
+            }
+            requestsToCancel = new ArrayList<>(futuresWaitingForMessages);
+            futuresWaitingForMessages.clear();
+            stoppedFuture = retrieverStoppedFuture;
+        }
+
+        requestsToCancel.forEach(MessagesRequest::cancel);
+        log.info("MessageRetriever has been successfully stopped");
+        stoppedFuture.complete(ImmutableList.of());
+    }
+
+    /**
+     * Build the request that will download the messages from SQS.
+     *
+     * @param numberOfMessagesToObtain the maximum number of messages to obtain
+     * @param receiveRequestAttempt    the attempt for this request if the queue is a FIFO queue
+     * @return the request that will be sent to SQS
+     */
+    @SuppressWarnings("Duplicates")
+    private ReceiveMessageRequest buildReceiveMessageRequest(final int numberOfMessagesToObtain,
+                                                             @Nullable final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt) {
+        final RequiredMessageAttributes requiredMessageAttributes = receiveRequestAttemptTracker.includeQueueRequiredMessageAttributes(
+                Optional.ofNullable(properties.getRequiredMessageAttributes()).orElseGet(RequiredMessageAttributes::all)
+        );
+        final ReceiveMessageRequest.Builder requestBuilder = ReceiveMessageRequest.builder()
+                .queueUrl(queueProperties.getQueueUrl())
+                .attributeNamesWithStrings(requiredMessageAttributes.getMessageSystemAttributeNames())
+                .messageAttributeNames(requiredMessageAttributes.getMessageAttributeNames())
+                .maxNumberOfMessages(numberOfMessagesToObtain)
+                .waitTimeSeconds(MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS);
+        if (receiveRequestAttempt != null) {
+            requestBuilder.receiveRequestAttemptId(receiveRequestAttempt.getId());
+        }
+
+        try {
+            final Integer visibilityTimeoutInSeconds = properties.getMessageVisibilityTimeoutInSeconds();
+            if (visibilityTimeoutInSeconds != null) {
+                if (visibilityTimeoutInSeconds <= 0) {
+                    log.warn("Non-positive visibilityTimeoutInSeconds provided: {}", visibilityTimeoutInSeconds);
+                } else {
+                    requestBuilder.visibilityTimeout(visibilityTimeoutInSeconds);
+                }
+            }
+        } catch (final RuntimeException exception) {
+            log.error("Error getting visibility timeout, none will be supplied in request", exception);
+        }
+
+        return requestBuilder.build();
+    }
+
+    /**
+     * Get the amount of time in milliseconds that the retriever should wait after a failure to get messages.
+     *
+     * @return the backoff time in milliseconds
+     */
+    private long getErrorBackoffTimeInMilliseconds() {
+        return PropertyUtils.safelyGetPositiveOrZeroLongValue(
+                "errorBackoffTimeInMilliseconds",
+                properties::getErrorBackoffTimeInMilliseconds,
+                DEFAULT_BACKOFF_TIME_IN_MS
+        );
+    }
+
+    /**
+     * Safely get the total number of messages that need to be requested before a batch request for messages is sent.
+     *
+     * @return the number of messages for the batch
+     */
+    private int getBatchSize() {
+        final int batchSize = PropertyUtils.safelyGetIntegerValue(
+                "batchSize",
+                properties::getBatchSize,
+                DEFAULT_BATCHING_TRIGGER
+        );
+        return Ints.constrainToRange(batchSize, 0, AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS);
+    }
+
+    /**
+     * Safely get the maximum amount of time to wait for the batch size to be reached, where {@link Long#MAX_VALUE} indicates that it should wait until
+     * the batch size is reached.
+     *
+     * @return the batching period in ms
+     */
+    private long getMaxBatchingPeriodInMs() {
+        return PropertyUtils.safelyGetLongValue(
+                "batchingPeriodInMs",
+                properties::getBatchingPeriodInMs,
+                DEFAULT_BATCHING_PERIOD_IN_MS
+        );
+    }
+}
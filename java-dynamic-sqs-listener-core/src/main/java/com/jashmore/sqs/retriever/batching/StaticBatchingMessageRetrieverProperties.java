@@ -1,5 +1,6 @@
 package com.jashmore.sqs.retriever.batching;
 
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import lombok.Builder;
 import lombok.Value;
 
@@ -17,6 +18,7 @@ public class StaticBatchingMessageRetrieverProperties implements BatchingMessage
     private final Long batchingPeriodInMs;
     private final Integer messageVisibilityTimeoutInSeconds;
     private final Long errorBackoffTimeInMilliseconds;
+    private final RequiredMessageAttributes requiredMessageAttributes;
 
     @Positive
     @Override
@@ -44,4 +46,10 @@ public class StaticBatchingMessageRetrieverProperties implements BatchingMessage
     public Long getErrorBackoffTimeInMilliseconds() {
         return errorBackoffTimeInMilliseconds;
     }
+
+    @Nullable
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes() {
+        return requiredMessageAttributes;
+    }
 }
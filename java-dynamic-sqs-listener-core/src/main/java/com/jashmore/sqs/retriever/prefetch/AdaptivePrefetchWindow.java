@@ -0,0 +1,179 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import com.jashmore.sqs.aws.AwsConstants;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Sizes the prefetch window of a retriever at runtime from the observed rate that messages are being consumed and the time it takes for SQS to return
+ * messages.
+ *
+ * <p>Using Little's law, the number of messages that need to be prefetched so that the consumers are not starved while more messages are being retrieved
+ * is the rate that they are being consumed multiplied by the round trip time of a receive request. The desired minimum number of prefetched messages is
+ * set to this value and the maximum allows for another full batch from SQS on top of it, so that each request can obtain as many messages as possible.
+ *
+ * <p>As the visibility timeout of a message is running while it is prefetched, the window is also capped so that a message at the back of it would be
+ * expected to be consumed within half of the visibility timeout.
+ *
+ * <p>The window is always kept within the bounds of {@link PrefetchingMessageRetrieverProperties#getDesiredMinPrefetchedMessages()} and
+ * {@link PrefetchingMessageRetrieverProperties#getMaxPrefetchedMessages()}, which is also the window used before any measurements have been taken.
+ *
+ * <p>The consumption rate will increase immediately when there is a burst of messages being consumed but will only slowly decrease when consumption drops
+ * off, which prevents the window from collapsing during short pauses in bursty traffic.
+ */
+@Slf4j
+@ThreadSafe
+class AdaptivePrefetchWindow {
+    /**
+     * The minimum amount of time between each recalculation of the window, which makes sure there are enough messages consumed to measure the rate.
+     */
+    private static final long RECALCULATION_INTERVAL_IN_NANOSECONDS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The weighting given to each new measurement when it is smaller than the current value.
+     */
+    private static final double SMOOTHING_FACTOR = 0.2;
+
+    /**
+     * The proportion of the visibility timeout that a message is allowed to be prefetched for.
+     */
+    private static final double VISIBILITY_TIMEOUT_PROPORTION = 0.5;
+
+    private final PrefetchingMessageRetrieverProperties properties;
+    private final int lowerBound;
+    private final int upperBound;
+    private final LongSupplier nanoTimeSupplier;
+    private final LongAdder messagesConsumed = new LongAdder();
+
+    @GuardedBy("this")
+    private long lastCalculationTimeInNanoseconds;
+    @GuardedBy("this")
+    private double consumptionRatePerSecond;
+    @GuardedBy("this")
+    private double receiveRoundTripTimeInSeconds = -1;
+
+    private volatile int desiredMinPrefetchedMessages;
+    private volatile int maxPrefetchedMessages;
+
+    AdaptivePrefetchWindow(final PrefetchingMessageRetrieverProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    AdaptivePrefetchWindow(final PrefetchingMessageRetrieverProperties properties, final LongSupplier nanoTimeSupplier) {
+        this.properties = properties;
+        this.lowerBound = properties.getDesiredMinPrefetchedMessages();
+        this.upperBound = properties.getMaxPrefetchedMessages();
+        this.nanoTimeSupplier = nanoTimeSupplier;
+        this.lastCalculationTimeInNanoseconds = nanoTimeSupplier.getAsLong();
+        this.desiredMinPrefetchedMessages = lowerBound;
+        this.maxPrefetchedMessages = upperBound;
+    }
+
+    /**
+     * Record that a message has been requested by a consumer.
+     */
+    void recordMessageConsumed() {
+        messagesConsumed.increment();
+    }
+
+    /**
+     * Record that a batch of messages has been taken by a consumer.
+     *
+     * @param numberOfMessages the number of messages taken
+     */
+    void recordMessagesConsumed(final int numberOfMessages) {
+        messagesConsumed.add(numberOfMessages);
+    }
+
+    /**
+     * Record the completion of a receive request.
+     *
+     * <p>Requests that returned no messages are ignored as they would have waited for the full long poll, which is not representative of the time taken
+     * to obtain messages when they are needed.
+     *
+     * @param roundTripTimeInNanoseconds the time taken for SQS to respond to the request
+     * @param numberOfMessagesReceived   the number of messages returned by SQS
+     */
+    void recordReceive(final long roundTripTimeInNanoseconds, final int numberOfMessagesReceived) {
+        if (numberOfMessagesReceived == 0) {
+            return;
+        }
+
+        final double roundTripTimeInSeconds = roundTripTimeInNanoseconds / (double) TimeUnit.SECONDS.toNanos(1);
+        synchronized (this) {
+            if (receiveRoundTripTimeInSeconds < 0) {
+                receiveRoundTripTimeInSeconds = roundTripTimeInSeconds;
+            } else {
+                receiveRoundTripTimeInSeconds += SMOOTHING_FACTOR * (roundTripTimeInSeconds - receiveRoundTripTimeInSeconds);
+            }
+        }
+    }
+
+    /**
+     * Recalculate the size of the window if enough time has passed since it was last calculated.
+     */
+    synchronized void recalculateIfNecessary() {
+        final long now = nanoTimeSupplier.getAsLong();
+        final long elapsedTimeInNanoseconds = now - lastCalculationTimeInNanoseconds;
+        if (elapsedTimeInNanoseconds < RECALCULATION_INTERVAL_IN_NANOSECONDS) {
+            return;
+        }
+        lastCalculationTimeInNanoseconds = now;
+
+        final double measuredRatePerSecond = messagesConsumed.sumThenReset() * TimeUnit.SECONDS.toNanos(1) / (double) elapsedTimeInNanoseconds;
+        if (measuredRatePerSecond >= consumptionRatePerSecond) {
+            consumptionRatePerSecond = measuredRatePerSecond;
+        } else {
+            consumptionRatePerSecond += SMOOTHING_FACTOR * (measuredRatePerSecond - consumptionRatePerSecond);
+        }
+
+        if (receiveRoundTripTimeInSeconds < 0) {
+            return;
+        }
+
+        int desiredMin = (int) Math.ceil(consumptionRatePerSecond * receiveRoundTripTimeInSeconds);
+        int max = desiredMin + AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS;
+        final Integer visibilityTimeoutInSeconds = properties.getMessageVisibilityTimeoutInSeconds();
+        if (visibilityTimeoutInSeconds != null && visibilityTimeoutInSeconds > 0) {
+            final int visibilityTimeoutCap = (int) Math.floor(consumptionRatePerSecond * visibilityTimeoutInSeconds * VISIBILITY_TIMEOUT_PROPORTION);
+            desiredMin = Math.min(desiredMin, visibilityTimeoutCap);
+            max = Math.min(max, visibilityTimeoutCap);
+        }
+
+        final int newDesiredMinPrefetchedMessages = clamp(desiredMin, lowerBound, upperBound);
+        final int newMaxPrefetchedMessages = clamp(max, newDesiredMinPrefetchedMessages, upperBound);
+        if (newDesiredMinPrefetchedMessages != desiredMinPrefetchedMessages || newMaxPrefetchedMessages != maxPrefetchedMessages) {
+            log.debug("Resizing prefetch window to desiredMinPrefetchedMessages: {} and maxPrefetchedMessages: {}",
+                    newDesiredMinPrefetchedMessages, newMaxPrefetchedMessages);
+            desiredMinPrefetchedMessages = newDesiredMinPrefetchedMessages;
+            maxPrefetchedMessages = newMaxPrefetchedMessages;
+        }
+    }
+
+    /**
+     * The current minimum number of messages that should be prefetched before more messages are requested.
+     *
+     * @return the desired minimum number of prefetched messages
+     */
+    int getDesiredMinPrefetchedMessages() {
+        return desiredMinPrefetchedMessages;
+    }
+
+    /**
+     * The current maximum number of messages that can be prefetched and requested at the same time.
+     *
+     * @return the maximum number of prefetched messages
+     */
+    int getMaxPrefetchedMessages() {
+        return maxPrefetchedMessages;
+    }
+
+    private static int clamp(final int value, final int min, final int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
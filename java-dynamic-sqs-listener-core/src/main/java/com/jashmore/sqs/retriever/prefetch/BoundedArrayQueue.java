@@ -0,0 +1,141 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjLongConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Bounded, array backed, multiple producer and multiple consumer queue that does not use any locks.
+ *
+ * <p>This is an implementation of Dmitry Vyukov's bounded MPMC queue where each slot in the array contains a sequence number that indicates whether the
+ * slot is ready to be written to or read from. As the array is allocated up front there is no allocation when adding or removing elements, unlike a
+ * {@link java.util.LinkedList} or {@link java.util.concurrent.ConcurrentLinkedQueue} which allocate a node for every element.
+ *
+ * <p>Each element is stored with a timestamp in a parallel array, which is provided to the consumer when the element is removed. This allows for values
+ * like the time that a message was received to be kept without allocating an object to hold the element and the timestamp together.
+ *
+ * <p>The capacity of this queue is rounded up to the next power of two, with a minimum of two, so that the index of the slot can be calculated with a
+ * mask.
+ *
+ * @param <E> the type of the elements in the queue
+ */
+@ThreadSafe
+class BoundedArrayQueue<E> {
+    private static final TimestampedPredicate<Object> ANY_ELEMENT = (element, timestamp) -> true;
+
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray timestamps;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param minimumCapacity the minimum number of elements that this queue should be able to hold
+     */
+    BoundedArrayQueue(final int minimumCapacity) {
+        Preconditions.checkArgument(minimumCapacity > 0, "minimumCapacity must be greater than zero");
+
+        // The algorithm requires at least two slots so that a written slot's sequence never matches the next enqueue position
+        final int capacity = Math.max(2, Integer.highestOneBit(minimumCapacity - 1) << 1);
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.timestamps = new AtomicLongArray(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; ++i) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add the element to the end of the queue if there is space.
+     *
+     * @param element   the element to add
+     * @param timestamp the timestamp to store with the element
+     * @return true if the element was added or false if the queue is full
+     */
+    boolean offer(@Nonnull final E element, final long timestamp) {
+        long position = enqueuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+
+        timestamps.set(index, timestamp);
+        buffer.set(index, element);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Remove the element at the head of the queue.
+     *
+     * @param consumer the consumer that is given the element that was removed along with its timestamp
+     * @return true if an element was removed or false if the queue is empty
+     */
+    boolean poll(@Nonnull final ObjLongConsumer<? super E> consumer) {
+        return pollIf(ANY_ELEMENT, consumer);
+    }
+
+    /**
+     * Remove the element at the head of the queue only if it matches the predicate.
+     *
+     * <p>As the slot for a position can only be reused after the element at that position has been removed, the element that is tested is guaranteed to be
+     * the element that is removed.
+     *
+     * @param predicate the predicate that the element at the head, and its timestamp, must match to be removed
+     * @param consumer  the consumer that is given the element that was removed along with its timestamp
+     * @return true if an element was removed or false if the queue is empty or the element did not match
+     */
+    boolean pollIf(@Nonnull final TimestampedPredicate<? super E> predicate, @Nonnull final ObjLongConsumer<? super E> consumer) {
+        long position = dequeuePosition.get();
+        int index;
+        E element;
+        long timestamp;
+        while (true) {
+            index = (int) (position & mask);
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                element = buffer.get(index);
+                timestamp = timestamps.get(index);
+                // If the element is null another thread has already removed it and the position will have moved on
+                if (element != null) {
+                    if (!predicate.test(element, timestamp)) {
+                        return false;
+                    }
+                    if (dequeuePosition.compareAndSet(position, position + 1)) {
+                        break;
+                    }
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+
+        buffer.set(index, null);
+        sequences.set(index, position + mask + 1);
+        consumer.accept(element, timestamp);
+        return true;
+    }
+}
@@ -0,0 +1,626 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import static com.jashmore.sqs.aws.AwsConstants.MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS;
+import static com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverConstants.DEFAULT_ERROR_BACKOFF_TIMEOUT_IN_MILLISECONDS;
+import static com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverConstants.DEFAULT_MAX_CONCURRENT_RECEIVES;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.aws.AwsConstants;
+import com.jashmore.sqs.retriever.NonBlockingMessageRetriever;
+import com.jashmore.sqs.retriever.ReceiveRequestAttemptTracker;
+import com.jashmore.sqs.util.properties.PropertyUtils;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Prefetching {@link NonBlockingMessageRetriever} that is driven entirely by the completion callbacks of the {@link SqsAsyncClient} and therefore does not
+ * require a dedicated thread to be blocked waiting for the long poll to SQS to complete.
+ *
+ * <p>This retriever has the same prefetching semantics as the {@link PrefetchingMessageRetriever}. When the number of prefetched messages goes below
+ * {@link PrefetchingMessageRetrieverProperties#getDesiredMinPrefetchedMessages()} a request is made for more messages, making sure that the total number
+ * of prefetched and requested messages never goes over {@link PrefetchingMessageRetrieverProperties#getMaxPrefetchedMessages()}. Up to
+ * {@link PrefetchingMessageRetrieverProperties#getMaxConcurrentReceives()} of these requests can be in flight at the same time.
+ *
+ * <p>Instead of a thread blocking until there is space in the prefetched queue, new requests are made when a message is taken from the queue or when a
+ * previous request has completed. The messages are therefore handed over to the {@link CompletableFuture}s on the thread that the SQS client uses to
+ * complete its requests, or the thread that requested the message. As these are the threads of the SQS client, many retrievers can share the same
+ * client without needing any extra threads. Only a single thread hands over the messages at a time so that the futures are completed in the same order
+ * that the messages were received, which is needed to keep the order of the messages in a FIFO queue.
+ *
+ * <p>If {@link PrefetchingMessageRetrieverProperties#shouldAdaptPrefetchWindow()} is true, the desired minimum and maximum number of prefetched messages
+ * are sized at runtime by an {@link AdaptivePrefetchWindow} instead of being fixed to the configured values.
+ *
+ * <p>If {@link PrefetchingMessageRetrieverProperties#getVisibilityTimeoutExpiryThresholdInSeconds()} is set, the prefetched messages that are close to
+ * their visibility timeout expiring are periodically released back to SQS and expired messages are not processed. See
+ * {@link PrefetchedMessageVisibilityManager} for more details.
+ *
+ * <p>When an error is returned from SQS the retriever will wait for the error backoff time before requesting messages again. This is scheduled on the
+ * provided {@link ScheduledExecutorService}, which by default is a single daemon thread shared between all instances of this retriever.
+ */
+@Slf4j
+@ThreadSafe
+public class NonBlockingPrefetchingMessageRetriever implements NonBlockingMessageRetriever {
+    private static final ScheduledExecutorService SHARED_BACKOFF_SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("non-blocking-message-retriever-backoff")
+            .setDaemon(true)
+            .build());
+
+    private final SqsAsyncClient sqsAsyncClient;
+    private final QueueProperties queueProperties;
+    private final PrefetchingMessageRetrieverProperties properties;
+    private final ScheduledExecutorService backoffScheduler;
+    private final ReceiveRequestAttemptTracker receiveRequestAttemptTracker;
+    private final int desiredMinPrefetchedMessages;
+    private final int maxPrefetchedMessages;
+    @Nullable
+    private final AdaptivePrefetchWindow adaptivePrefetchWindow;
+    @Nullable
+    private final PrefetchedMessageVisibilityManager visibilityManager;
+
+    /**
+     * Used to make sure that only one thread is determining whether more messages should be requested at a time. As the completion of a request can
+     * occur on the same thread that made the request, this prevents the retriever from recursively making requests.
+     */
+    private final AtomicInteger requestMessagesWorkInProgress = new AtomicInteger();
+
+    @GuardedBy("this")
+    private final ReceivedMessageQueue prefetchedMessages = new ReceivedMessageQueue();
+    @GuardedBy("this")
+    private final Deque<CompletableFuture<Message>> futuresWaitingForMessages = new LinkedList<>();
+    @GuardedBy("this")
+    private final Set<CompletableFuture<ReceiveMessageResponse>> requestsInFlight = new HashSet<>();
+    /**
+     * The thread that is currently handing over the prefetched messages to the futures waiting for them, or null if none are being handed over.
+     */
+    @GuardedBy("this")
+    private Thread threadDeliveringMessages;
+    @GuardedBy("this")
+    private int numberOfMessagesRequested;
+    @GuardedBy("this")
+    private boolean backingOff;
+    @GuardedBy("this")
+    private CompletableFuture<List<Message>> retrieverStoppedFuture;
+    @GuardedBy("this")
+    private boolean stopped;
+    @GuardedBy("this")
+    private ScheduledFuture<?> releaseMessagesFuture;
+
+    public NonBlockingPrefetchingMessageRetriever(final SqsAsyncClient sqsAsyncClient,
+                                                  final QueueProperties queueProperties,
+                                                  final PrefetchingMessageRetrieverProperties properties) {
+        this(sqsAsyncClient, queueProperties, properties, SHARED_BACKOFF_SCHEDULER);
+    }
+
+    public NonBlockingPrefetchingMessageRetriever(final SqsAsyncClient sqsAsyncClient,
+                                                  final QueueProperties queueProperties,
+                                                  final PrefetchingMessageRetrieverProperties properties,
+                                                  final ScheduledExecutorService backoffScheduler) {
+        this(sqsAsyncClient, queueProperties, properties, backoffScheduler,
+                PrefetchedMessageVisibilityManager.build(sqsAsyncClient, queueProperties, properties));
+    }
+
+    @VisibleForTesting
+    NonBlockingPrefetchingMessageRetriever(final SqsAsyncClient sqsAsyncClient,
+                                           final QueueProperties queueProperties,
+                                           final PrefetchingMessageRetrieverProperties properties,
+                                           final ScheduledExecutorService backoffScheduler,
+                                           @Nullable final PrefetchedMessageVisibilityManager visibilityManager) {
+        Preconditions.checkNotNull(sqsAsyncClient, "sqsAsyncClient");
+        Preconditions.checkNotNull(queueProperties, "queueProperties");
+        Preconditions.checkNotNull(properties, "properties");
+        Preconditions.checkNotNull(backoffScheduler, "backoffScheduler");
+
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.queueProperties = queueProperties;
+        this.properties = properties;
+        this.backoffScheduler = backoffScheduler;
+        this.receiveRequestAttemptTracker = new ReceiveRequestAttemptTracker(queueProperties);
+
+        this.maxPrefetchedMessages = properties.getMaxPrefetchedMessages();
+        this.desiredMinPrefetchedMessages = properties.getDesiredMinPrefetchedMessages();
+
+        Preconditions.checkArgument(maxPrefetchedMessages >= desiredMinPrefetchedMessages,
+                "maxPrefetchedMessages should be greater than or equal to desiredMinPrefetchedMessages");
+        Preconditions.checkArgument(desiredMinPrefetchedMessages > 0, "desiredMinPrefetchedMessages must be greater than zero");
+
+        if (Boolean.TRUE.equals(properties.shouldAdaptPrefetchWindow())) {
+            adaptivePrefetchWindow = new AdaptivePrefetchWindow(properties);
+        } else {
+            adaptivePrefetchWindow = null;
+        }
+        this.visibilityManager = visibilityManager;
+    }
+
+    @Override
+    public CompletableFuture<Message> retrieveMessage() {
+        if (adaptivePrefetchWindow != null) {
+            adaptivePrefetchWindow.recordMessageConsumed();
+        }
+        final CompletableFuture<Message> completableFuture = new CompletableFuture<>();
+        completeWithNextMessage(completableFuture);
+        return completableFuture;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Any messages that are already prefetched are taken straight away, otherwise the future will be resolved with the next message that is received
+     * along with any other messages that are available at that time.
+     */
+    @Override
+    public CompletableFuture<List<Message>> retrieveMessages(final int maxNumberOfMessages) {
+        Preconditions.checkArgument(maxNumberOfMessages > 0, "maxNumberOfMessages must be greater than zero");
+
+        final List<Message> availableMessages = takeAvailableMessages(maxNumberOfMessages);
+        if (!availableMessages.isEmpty()) {
+            recordMessagesConsumed(availableMessages.size());
+            return CompletableFuture.completedFuture(availableMessages);
+        }
+
+        final CompletableFuture<Message> firstMessageFuture = new CompletableFuture<>();
+        completeWithNextMessage(firstMessageFuture);
+        return firstMessageFuture.thenApply(firstMessage -> {
+            final List<Message> messages = new ArrayList<>(maxNumberOfMessages);
+            messages.add(firstMessage);
+            if (maxNumberOfMessages > 1) {
+                messages.addAll(takeAvailableMessages(maxNumberOfMessages - 1));
+            }
+            recordMessagesConsumed(messages.size());
+            return messages;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Message>> start() {
+        final CompletableFuture<List<Message>> stoppedFuture = new CompletableFuture<>();
+        synchronized (this) {
+            Preconditions.checkState(retrieverStoppedFuture == null, "The retriever has already been started");
+            log.info("Started MessageRetriever");
+            retrieverStoppedFuture = stoppedFuture;
+            if (visibilityManager != null) {
+                final long releaseCheckIntervalInNanoseconds = visibilityManager.getReleaseCheckIntervalInNanoseconds();
+                releaseMessagesFuture = backoffScheduler.scheduleAtFixedRate(this::releaseMessagesCloseToExpiring,
+                        releaseCheckIntervalInNanoseconds, releaseCheckIntervalInNanoseconds, TimeUnit.NANOSECONDS);
+            }
+        }
+        requestMessagesIfNecessary();
+        return stoppedFuture;
+    }
+
+    @Override
+    public void stop() {
+        final List<CompletableFuture<ReceiveMessageResponse>> requestsToCancel;
+        synchronized (this) {
+            if (retrieverStoppedFuture == null || stopped) {
+                return;
+            }
+            log.info("Stopping MessageRetriever");
+            stopped = true;
+            requestsToCancel = new ArrayList<>(requestsInFlight);
+            if (releaseMessagesFuture != null) {
+                releaseMessagesFuture.cancel(false);
+            }
+        }
+
+        // Cancelling the requests will complete them which will trigger the retriever to be completely stopped when there are none left
+        requestsToCancel.forEach(request -> request.cancel(true));
+        completeStopIfNoRequestsInFlight();
+    }
+
+    /**
+     * Complete the future with the next prefetched message that should be processed, or wait for more messages if there are none.
+     *
+     * @param completableFuture the future to complete
+     */
+    private void completeWithNextMessage(final CompletableFuture<Message> completableFuture) {
+        synchronized (this) {
+            futuresWaitingForMessages.add(completableFuture);
+        }
+        deliverPrefetchedMessages();
+    }
+
+    /**
+     * Hand over the prefetched messages to the futures that are waiting for them, in the order that the futures and messages were added.
+     *
+     * <p>Only a single thread will be delivering messages at a time so that a message is never handed over before the messages received earlier. If
+     * another thread calls this while messages are being delivered, the thread already delivering them will deliver to any new futures or messages
+     * before it exits. As taking the messages makes space for more messages to be prefetched, more messages will then be requested if necessary.
+     */
+    private void deliverPrefetchedMessages() {
+        synchronized (this) {
+            if (threadDeliveringMessages != null) {
+                return;
+            }
+            threadDeliveringMessages = Thread.currentThread();
+        }
+
+        while (true) {
+            final CompletableFuture<Message> completableFuture;
+            final long receivedTimeInNanoseconds;
+            final Message message;
+            synchronized (this) {
+                if (futuresWaitingForMessages.isEmpty() || prefetchedMessages.isEmpty()) {
+                    threadDeliveringMessages = null;
+                    break;
+                }
+                completableFuture = futuresWaitingForMessages.poll();
+                receivedTimeInNanoseconds = prefetchedMessages.peekReceivedTimeInNanoseconds();
+                message = prefetchedMessages.poll();
+            }
+
+            if (shouldProcess(message, receivedTimeInNanoseconds)) {
+                completableFuture.complete(message);
+            } else {
+                synchronized (this) {
+                    // the message was discarded so the future should be the next to receive a message
+                    futuresWaitingForMessages.addFirst(completableFuture);
+                }
+            }
+        }
+
+        requestMessagesIfNecessary();
+    }
+
+    /**
+     * Take up to the maximum number of prefetched messages that should be processed, without waiting for any more messages to be received.
+     *
+     * <p>As taking the messages makes space for more messages to be prefetched, more messages will be requested if necessary. This includes when all
+     * of the messages taken were discarded and therefore none are returned.
+     *
+     * <p>To keep the order of the messages, none are taken while there are futures waiting for messages or while another thread is delivering
+     * messages, as those futures must receive the earlier messages first. The thread delivering the messages can take them, which is the case when
+     * the messages are being taken when a future it completed is resolved.
+     *
+     * @param maxNumberOfMessages the maximum number of messages to take
+     * @return the messages taken, which will be empty if there are none prefetched or they have all been discarded
+     */
+    private List<Message> takeAvailableMessages(final int maxNumberOfMessages) {
+        final Message[] polledMessages;
+        final long[] receivedTimesInNanoseconds;
+        synchronized (this) {
+            final boolean isDeliveringMessages = threadDeliveringMessages == Thread.currentThread();
+            final boolean canTakeMessages = isDeliveringMessages || (threadDeliveringMessages == null && futuresWaitingForMessages.isEmpty());
+            final int numberOfMessagesToPoll = canTakeMessages ? Math.min(maxNumberOfMessages, prefetchedMessages.size()) : 0;
+            polledMessages = new Message[numberOfMessagesToPoll];
+            receivedTimesInNanoseconds = new long[numberOfMessagesToPoll];
+            for (int i = 0; i < numberOfMessagesToPoll; ++i) {
+                receivedTimesInNanoseconds[i] = prefetchedMessages.peekReceivedTimeInNanoseconds();
+                polledMessages[i] = prefetchedMessages.poll();
+            }
+        }
+
+        final List<Message> messages = new ArrayList<>(polledMessages.length);
+        for (int i = 0; i < polledMessages.length; ++i) {
+            if (shouldProcess(polledMessages[i], receivedTimesInNanoseconds[i])) {
+                messages.add(polledMessages[i]);
+            }
+        }
+
+        if (polledMessages.length > 0) {
+            requestMessagesIfNecessary();
+        }
+        return messages;
+    }
+
+    /**
+     * Record the messages that were taken in a batch with the {@link AdaptivePrefetchWindow}, if it is being used.
+     *
+     * @param numberOfMessages the number of messages taken
+     */
+    private void recordMessagesConsumed(final int numberOfMessages) {
+        if (adaptivePrefetchWindow != null) {
+            adaptivePrefetchWindow.recordMessagesConsumed(numberOfMessages);
+        }
+    }
+
+    /**
+     * Determine whether the prefetched message should be handed over for processing.
+     *
+     * @param message                   the message to check
+     * @param receivedTimeInNanoseconds the time that the message was received
+     * @return true if it should be processed or false if it should be discarded
+     */
+    private boolean shouldProcess(final Message message, final long receivedTimeInNanoseconds) {
+        return visibilityManager == null || visibilityManager.prepareForProcessing(message, receivedTimeInNanoseconds);
+    }
+
+    /**
+     * Remove the prefetched messages that are close to their visibility timeout expiring and release them back to SQS.
+     */
+    private void releaseMessagesCloseToExpiring() {
+        final List<Message> messagesToRelease = new ArrayList<>();
+        boolean removedMessages = false;
+        synchronized (this) {
+            while (!prefetchedMessages.isEmpty() && visibilityManager.shouldRelease(prefetchedMessages.peekReceivedTimeInNanoseconds())) {
+                final boolean hasExpired = visibilityManager.hasExpired(prefetchedMessages.peekReceivedTimeInNanoseconds());
+                final Message message = prefetchedMessages.poll();
+                if (!hasExpired) {
+                    messagesToRelease.add(message);
+                }
+                removedMessages = true;
+            }
+        }
+
+        if (removedMessages) {
+            visibilityManager.release(messagesToRelease);
+            requestMessagesIfNecessary();
+        }
+    }
+
+    /**
+     * Determine whether more messages should be requested from SQS and send those requests.
+     *
+     * <p>Only a single thread will be requesting messages at a time. If another thread calls this while it is already being run, the thread already
+     * running will recheck whether more messages are needed before it exits.
+     */
+    private void requestMessagesIfNecessary() {
+        if (requestMessagesWorkInProgress.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missedRequests = 1;
+        while (missedRequests != 0) {
+            int numberOfMessagesToObtain;
+            while ((numberOfMessagesToObtain = reserveMessagesToObtain()) > 0) {
+                sendReceiveMessageRequest(numberOfMessagesToObtain);
+            }
+            missedRequests = requestMessagesWorkInProgress.addAndGet(-missedRequests);
+        }
+    }
+
+    /**
+     * Reserve the number of messages that should be requested in the next request to SQS.
+     *
+     * @return the number of messages to request or zero if no request should be made
+     */
+    private synchronized int reserveMessagesToObtain() {
+        if (retrieverStoppedFuture == null || stopped || backingOff) {
+            return 0;
+        }
+
+        if (adaptivePrefetchWindow != null) {
+            adaptivePrefetchWindow.recalculateIfNecessary();
+        }
+
+        if (prefetchedMessages.size() >= getDesiredMinPrefetchedMessages() || requestsInFlight.size() >= getMaxConcurrentReceives()) {
+            return 0;
+        }
+
+        final int numberOfPrefetchSlotsLeft = getMaxPrefetchedMessages() - prefetchedMessages.size() - numberOfMessagesRequested;
+        final int numberOfMessagesToObtain = Math.min(AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS, numberOfPrefetchSlotsLeft);
+        if (numberOfMessagesToObtain <= 0) {
+            return 0;
+        }
+        numberOfMessagesRequested += numberOfMessagesToObtain;
+        return numberOfMessagesToObtain;
+    }
+
+    /**
+     * Send the request to SQS for the provided number of messages, which is expected to have already been reserved.
+     *
+     * @param numberOfMessagesToObtain the number of messages to request
+     */
+    private void sendReceiveMessageRequest(final int numberOfMessagesToObtain) {
+        final CompletableFuture<ReceiveMessageResponse> receiveMessageFuture;
+        final long requestStartTimeInNanoseconds = System.nanoTime();
+        final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt = receiveRequestAttemptTracker.startAttempt();
+        try {
+            receiveMessageFuture = sqsAsyncClient.receiveMessage(buildReceiveMessageRequest(numberOfMessagesToObtain, receiveRequestAttempt));
+        } catch (final RuntimeException runtimeException) {
+            receiveRequestAttemptTracker.attemptFailed(receiveRequestAttempt);
+            handleReceiveMessageCompleted(null, numberOfMessagesToObtain, requestStartTimeInNanoseconds, null, runtimeException);
+            return;
+        }
+
+        final boolean isStopped;
+        synchronized (this) {
+            isStopped = stopped;
+            if (!receiveMessageFuture.isDone()) {
+                requestsInFlight.add(receiveMessageFuture);
+            }
+        }
+        if (isStopped) {
+            // The retriever was stopped while this request was being sent so it would not have been cancelled
+            receiveMessageFuture.cancel(true);
+        }
+        receiveMessageFuture.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                receiveRequestAttemptTracker.attemptFailed(receiveRequestAttempt);
+            }
+            if (adaptivePrefetchWindow != null && response != null) {
+                adaptivePrefetchWindow.recordReceive(System.nanoTime() - requestStartTimeInNanoseconds, response.messages().size());
+            }
+            handleReceiveMessageCompleted(receiveMessageFuture, numberOfMessagesToObtain, requestStartTimeInNanoseconds, response, throwable);
+        });
+    }
+
+    /**
+     * Handle the completion of a request to SQS, handing the messages to any futures that are waiting for them.
+     *
+     * @param receiveMessageFuture          the future for the request that completed, or null if the request could not be sent
+     * @param numberOfMessagesRequested     the number of messages that were reserved for this request
+     * @param requestStartTimeInNanoseconds the time that the request was sent
+     * @param response                      the response from SQS if it was successful
+     * @param throwable                     the exception if the request failed
+     */
+    private void handleReceiveMessageCompleted(final CompletableFuture<ReceiveMessageResponse> receiveMessageFuture,
+                                               final int numberOfMessagesRequested,
+                                               final long requestStartTimeInNanoseconds,
+                                               final ReceiveMessageResponse response,
+                                               final Throwable throwable) {
+        final boolean isStopped;
+        synchronized (this) {
+            this.numberOfMessagesRequested -= numberOfMessagesRequested;
+            if (receiveMessageFuture != null) {
+                requestsInFlight.remove(receiveMessageFuture);
+            }
+            isStopped = stopped;
+
+            if (throwable == null) {
+                log.debug("Received {} messages", response.messages().size());
+                prefetchedMessages.addAll(response.messages(), requestStartTimeInNanoseconds);
+            } else if (!isStopped) {
+                log.error("Exception thrown when retrieving messages", throwable);
+                startBackoff();
+            }
+        }
+
+        deliverPrefetchedMessages();
+
+        if (isStopped) {
+            completeStopIfNoRequestsInFlight();
+        } else {
+            requestMessagesIfNecessary();
+        }
+    }
+
+    /**
+     * Stop any requests for messages until the error backoff time has passed.
+     */
+    @GuardedBy("this")
+    private void startBackoff() {
+        final long errorBackoffTimeInMilliseconds = getBackoffTimeInMs();
+        log.debug("Backing off for {}ms", errorBackoffTimeInMilliseconds);
+        backingOff = true;
+        backoffScheduler.schedule(() -> {
+            synchronized (this) {
+                backingOff = false;
+            }
+            requestMessagesIfNecessary();
+        }, errorBackoffTimeInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * If the retriever has been stopped and all of the requests to SQS have completed, cancel any futures that will never be resolved and complete the
+     * future returned from {@link #start()} with the messages that were not taken.
+     */
+    private void completeStopIfNoRequestsInFlight() {
+        final List<CompletableFuture<Message>> futuresToCancel;
+        final List<Message> leftoverMessages;
+        final CompletableFuture<List<Message>> stoppedFuture;
+        synchronized (this) {
+            if (!stopped || numberOfMessagesRequested > 0 || retrieverStoppedFuture.isDone()) {
+                return;
+            }
+            futuresToCancel = new ArrayList<>(futuresWaitingForMessages);
+            futuresWaitingForMessages.clear();
+            leftoverMessages = ImmutableList.copyOf(prefetchedMessages.removeAll());
+            stoppedFuture = retrieverStoppedFuture;
+        }
+
+        futuresToCancel.forEach(future -> future.cancel(true));
+        log.info("MessageRetriever has been successfully stopped");
+        stoppedFuture.complete(leftoverMessages);
+    }
+
+    /**
+     * Build the request that will download the messages from SQS.
+     *
+     * @param numberOfMessagesToObtain the maximum number of messages to obtain
+     * @param receiveRequestAttempt    the attempt for this request if the queue is a FIFO queue
+     * @return the request that will be sent to SQS
+     */
+    private ReceiveMessageRequest buildReceiveMessageRequest(final int numberOfMessagesToObtain,
+                                                             @Nullable final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt) {
+        log.debug("Retrieving {} messages asynchronously", numberOfMessagesToObtain);
+        final RequiredMessageAttributes requiredMessageAttributes = receiveRequestAttemptTracker.includeQueueRequiredMessageAttributes(
+                Optional.ofNullable(properties.getRequiredMessageAttributes()).orElseGet(RequiredMessageAttributes::all)
+        );
+        final ReceiveMessageRequest.Builder requestBuilder = ReceiveMessageRequest.builder()
+                .queueUrl(queueProperties.getQueueUrl())
+                .attributeNamesWithStrings(requiredMessageAttributes.getMessageSystemAttributeNames())
+                .messageAttributeNames(requiredMessageAttributes.getMessageAttributeNames())
+                .waitTimeSeconds(MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS)
+                .maxNumberOfMessages(numberOfMessagesToObtain);
+        if (receiveRequestAttempt != null) {
+            requestBuilder.receiveRequestAttemptId(receiveRequestAttempt.getId());
+        }
+        final Integer visibilityTimeoutInSeconds = properties.getMessageVisibilityTimeoutInSeconds();
+        if (visibilityTimeoutInSeconds != null) {
+            if (visibilityTimeoutInSeconds <= 0) {
+                log.warn("Non-positive visibilityTimeoutInSeconds provided: {}", visibilityTimeoutInSeconds);
+            } else {
+                requestBuilder.visibilityTimeout(visibilityTimeoutInSeconds);
+            }
+        }
+
+        return requestBuilder.build();
+    }
+
+    /**
+     * Get the minimum number of messages that should be prefetched before no more messages are requested.
+     *
+     * @return the desired minimum number of prefetched messages
+     */
+    private int getDesiredMinPrefetchedMessages() {
+        if (adaptivePrefetchWindow == null) {
+            return desiredMinPrefetchedMessages;
+        }
+        return adaptivePrefetchWindow.getDesiredMinPrefetchedMessages();
+    }
+
+    /**
+     * Get the maximum number of messages that can be prefetched and requested at the current time.
+     *
+     * @return the maximum number of prefetched messages
+     */
+    private int getMaxPrefetchedMessages() {
+        if (adaptivePrefetchWindow == null) {
+            return maxPrefetchedMessages;
+        }
+        return adaptivePrefetchWindow.getMaxPrefetchedMessages();
+    }
+
+    /**
+     * Get the number of requests for messages that can be in flight to SQS at the same time.
+     *
+     * @return the number of concurrent requests
+     */
+    private int getMaxConcurrentReceives() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "maxConcurrentReceives",
+                properties::getMaxConcurrentReceives,
+                DEFAULT_MAX_CONCURRENT_RECEIVES
+        );
+    }
+
+    /**
+     * Get the amount of time in milliseconds that the retriever should wait after a failure to get messages.
+     *
+     * @return the amount of time to backoff on errors in milliseconds
+     */
+    @SuppressWarnings("Duplicates")
+    private int getBackoffTimeInMs() {
+        return PropertyUtils.safelyGetPositiveOrZeroIntegerValue(
+                "errorBackoffTimeInMilliseconds",
+                properties::getErrorBackoffTimeInMilliseconds,
+                DEFAULT_ERROR_BACKOFF_TIMEOUT_IN_MILLISECONDS
+        );
+    }
+}
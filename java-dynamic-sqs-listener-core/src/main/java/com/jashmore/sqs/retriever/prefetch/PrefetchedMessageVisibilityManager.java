@@ -0,0 +1,183 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import com.google.common.collect.Lists;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.aws.AwsConstants;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Tracks the visibility timeout of prefetched messages so that they are not processed after SQS may have already redelivered them to another consumer.
+ *
+ * <p>When a message is about to be handed over for processing there are three possibilities:
+ * <ul>
+ *     <li>the visibility timeout has expired and the message is discarded as it may already be processed elsewhere and the deletion of it would fail</li>
+ *     <li>the visibility timeout is within the expiry threshold and it is extended back to the full visibility timeout before it is processed</li>
+ *     <li>otherwise the message is processed as normal</li>
+ * </ul>
+ *
+ * <p>Messages that are still prefetched when they come within the expiry threshold are released back to the queue early by setting their visibility timeout
+ * to zero, which is sent in batches so that another consumer can process them straight away instead of waiting for them to expire.
+ */
+@Slf4j
+@ThreadSafe
+class PrefetchedMessageVisibilityManager {
+    private final SqsAsyncClient sqsAsyncClient;
+    private final QueueProperties queueProperties;
+    private final int visibilityTimeoutInSeconds;
+    private final long visibilityTimeoutInNanoseconds;
+    private final long expiryThresholdInNanoseconds;
+    private final LongSupplier nanoTimeSupplier;
+
+    PrefetchedMessageVisibilityManager(final SqsAsyncClient sqsAsyncClient,
+                                       final QueueProperties queueProperties,
+                                       final int visibilityTimeoutInSeconds,
+                                       final int expiryThresholdInSeconds,
+                                       final LongSupplier nanoTimeSupplier) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.queueProperties = queueProperties;
+        this.visibilityTimeoutInSeconds = visibilityTimeoutInSeconds;
+        this.visibilityTimeoutInNanoseconds = TimeUnit.SECONDS.toNanos(visibilityTimeoutInSeconds);
+        this.expiryThresholdInNanoseconds = TimeUnit.SECONDS.toNanos(expiryThresholdInSeconds);
+        this.nanoTimeSupplier = nanoTimeSupplier;
+    }
+
+    /**
+     * Build the manager for the provided properties, if the visibility of the messages should be tracked.
+     *
+     * @param sqsAsyncClient  the client to change the visibility of the messages with
+     * @param queueProperties the properties of the queue the messages are from
+     * @param properties      the properties of the retriever
+     * @return the manager or null if both the visibility timeout and expiry threshold have not been configured
+     */
+    @Nullable
+    static PrefetchedMessageVisibilityManager build(final SqsAsyncClient sqsAsyncClient,
+                                                    final QueueProperties queueProperties,
+                                                    final PrefetchingMessageRetrieverProperties properties) {
+        final Integer visibilityTimeoutInSeconds = properties.getMessageVisibilityTimeoutInSeconds();
+        final Integer expiryThresholdInSeconds = properties.getVisibilityTimeoutExpiryThresholdInSeconds();
+        if (visibilityTimeoutInSeconds == null || expiryThresholdInSeconds == null || expiryThresholdInSeconds <= 0) {
+            return null;
+        }
+
+        if (expiryThresholdInSeconds >= visibilityTimeoutInSeconds) {
+            log.warn("visibilityTimeoutExpiryThresholdInSeconds: {} is not less than the messageVisibilityTimeoutInSeconds: {}, prefetched messages will "
+                    + "not be tracked", expiryThresholdInSeconds, visibilityTimeoutInSeconds);
+            return null;
+        }
+
+        return new PrefetchedMessageVisibilityManager(sqsAsyncClient, queueProperties, visibilityTimeoutInSeconds, expiryThresholdInSeconds,
+                System::nanoTime);
+    }
+
+    /**
+     * Determine whether the message should be processed, extending the visibility of the message if it is close to expiring.
+     *
+     * @param message                   the message that is about to be processed
+     * @param receivedTimeInNanoseconds the value of {@link System#nanoTime()} when the request that received the message was sent
+     * @return true if the message should be processed or false if it should be discarded as the visibility timeout has expired
+     */
+    boolean prepareForProcessing(final Message message, final long receivedTimeInNanoseconds) {
+        final long remainingVisibilityInNanoseconds = getRemainingVisibilityInNanoseconds(receivedTimeInNanoseconds);
+        if (remainingVisibilityInNanoseconds <= 0) {
+            log.debug("Discarding message {} as its visibility timeout has expired", message.messageId());
+            return false;
+        }
+
+        if (remainingVisibilityInNanoseconds < expiryThresholdInNanoseconds) {
+            log.debug("Extending visibility of message {} as it is close to expiring", message.messageId());
+            sqsAsyncClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                    .queueUrl(queueProperties.getQueueUrl())
+                    .receiptHandle(message.receiptHandle())
+                    .visibilityTimeout(visibilityTimeoutInSeconds)
+                    .build())
+                    .whenComplete((response, throwable) -> {
+                        if (throwable != null) {
+                            log.error("Error extending visibility of message {}", message.messageId(), throwable);
+                        }
+                    });
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether a prefetched message is within the expiry threshold of its visibility timeout and should be released.
+     *
+     * @param receivedTimeInNanoseconds the value of {@link System#nanoTime()} when the request that received the message was sent
+     * @return whether the message should be released
+     */
+    boolean shouldRelease(final long receivedTimeInNanoseconds) {
+        return getRemainingVisibilityInNanoseconds(receivedTimeInNanoseconds) < expiryThresholdInNanoseconds;
+    }
+
+    /**
+     * Determine whether the visibility timeout of a prefetched message has expired, in which case it will have already been made visible by SQS and does
+     * not need to be released.
+     *
+     * @param receivedTimeInNanoseconds the value of {@link System#nanoTime()} when the request that received the message was sent
+     * @return whether the visibility timeout has expired
+     */
+    boolean hasExpired(final long receivedTimeInNanoseconds) {
+        return getRemainingVisibilityInNanoseconds(receivedTimeInNanoseconds) <= 0;
+    }
+
+    /**
+     * Release the messages back to SQS so that they can be processed by another consumer, sending the requests in batches.
+     *
+     * <p>Messages that have already expired, see {@link #hasExpired(long)}, should not be included as they will have already been made visible by SQS.
+     *
+     * @param messagesToRelease the messages to release
+     */
+    void release(final List<Message> messagesToRelease) {
+        if (messagesToRelease.isEmpty()) {
+            return;
+        }
+
+        log.debug("Releasing {} messages that are close to their visibility timeout expiring", messagesToRelease.size());
+        for (final List<Message> batch : Lists.partition(messagesToRelease, AwsConstants.MAX_NUMBER_OF_MESSAGES_IN_BATCH)) {
+            sqsAsyncClient.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                    .queueUrl(queueProperties.getQueueUrl())
+                    .entries(IntStream.range(0, batch.size())
+                            .mapToObj(index -> ChangeMessageVisibilityBatchRequestEntry.builder()
+                                    .id(String.valueOf(index))
+                                    .receiptHandle(batch.get(index).receiptHandle())
+                                    .visibilityTimeout(0)
+                                    .build())
+                            .collect(Collectors.toList()))
+                    .build())
+                    .whenComplete((response, throwable) -> {
+                        if (throwable != null) {
+                            log.error("Error releasing prefetched messages", throwable);
+                        } else if (!response.failed().isEmpty()) {
+                            log.warn("Unable to release {} prefetched messages", response.failed().size());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * The amount of time between each check for prefetched messages that should be released.
+     *
+     * @return the interval in nanoseconds
+     */
+    long getReleaseCheckIntervalInNanoseconds() {
+        return expiryThresholdInNanoseconds / 2;
+    }
+
+    private long getRemainingVisibilityInNanoseconds(final long receivedTimeInNanoseconds) {
+        return receivedTimeInNanoseconds + visibilityTimeoutInNanoseconds - nanoTimeSupplier.getAsLong();
+    }
+}
@@ -1,13 +1,19 @@
 package com.jashmore.sqs.retriever.prefetch;
 
+import com.google.common.base.Preconditions;
+
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjLongConsumer;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -23,20 +29,44 @@ import javax.annotation.concurrent.ThreadSafe;
  * state where both types are batched as that implies that they should have had that message resolve that corresponding future. The order of each object
  * should also be maintained in that the first future should be resolved with the first message received.
  *
- * <p>For performance reasons, the {@link CompletableFuture} is resolved outside of obtaining the {@link #lock}.
+ * <p>This invariant is maintained without any locks by using a single {@link #balance} counter, where a positive value is the number of batched messages and
+ * a negative value is the number of batched futures. Each push atomically updates this counter first and the previous value tells the thread whether it
+ * should take the opposite type from its queue or add itself to its own queue. As the counter is updated before the element is added, a thread that is told
+ * to take an element may briefly spin until the thread that reserved it has finished adding it.
+ *
+ * <p>The messages are stored in a {@link BoundedArrayQueue} as the number of them is bounded by the capacity, meaning that there is no allocation for each
+ * message that is batched. The number of futures is not bounded and therefore they are stored in a {@link ConcurrentLinkedQueue}.
  *
- * <p>This implementation must be thread safe as there can be multiple threads submitting {@link CompletableFuture}s concurrently, though it is assumed that
- * there is only a single thread submitting {@link Message}s.
+ * <p>Each message is stored with the time that it was received as the timestamp of the {@link BoundedArrayQueue}, so no object is allocated to hold
+ * them together, and before a message is handed to a future it is checked against the provided {@link TimestampedPredicate}. This allows for messages
+ * whose visibility timeout has expired to be discarded instead of processed, and for messages at the head of the queue to be removed via
+ * {@link #removeMessagesAtHeadMatching(TimestampedPredicate, ObjLongConsumer)} when they should be released back to SQS.
+ *
+ * <p>This implementation must be thread safe as there can be multiple threads submitting {@link CompletableFuture}s concurrently as well as multiple
+ * threads submitting {@link Message}s when the retriever has multiple concurrent receive requests.
  */
 @Slf4j
 @ThreadSafe
 class PrefetchingMessageFutureConsumerQueue {
     private final Queue<CompletableFuture<Message>> futureQueue;
-    private final Queue<Message> messageQueue;
-    private final Integer messageCapacity;
+    private final BoundedArrayQueue<Message> messageQueue;
+    private final int messageCapacity;
+    private final TimestampedPredicate<Message> messageHandOffPredicate;
+
+    /**
+     * The number of messages that can be batched before {@link #pushMessage(Message)} blocks, which can be lowered from the capacity at runtime.
+     */
+    private volatile int messageLimit;
+
+    /**
+     * The number of messages batched if positive, otherwise the negation of the number of futures that are batched.
+     */
+    private final AtomicInteger balance = new AtomicInteger();
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition messageQueueNotFull = lock.newCondition();
+    /**
+     * The threads that are currently blocked waiting for a free slot in the message queue.
+     */
+    private final Queue<Thread> threadsWaitingForFreeSlot = new ConcurrentLinkedQueue<>();
 
     /**
      * Constructor.
@@ -44,10 +74,42 @@ class PrefetchingMessageFutureConsumerQueue {
      * @param messageCapacity the maximum number of messages to batch before {@link #pushMessage(Message)} blocks until
      *     {@link #pushCompletableFuture(CompletableFuture)} is called
      */
-    PrefetchingMessageFutureConsumerQueue(final Integer messageCapacity) {
-        this.futureQueue = new LinkedList<>();
-        this.messageQueue = new LinkedList<>();
+    PrefetchingMessageFutureConsumerQueue(final int messageCapacity) {
+        this(messageCapacity, (message, receivedTimeInNanoseconds) -> true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param messageCapacity         the maximum number of messages to batch before {@link #pushMessage(Message)} blocks until
+     *                                {@link #pushCompletableFuture(CompletableFuture)} is called
+     * @param messageHandOffPredicate called with the message and the time it was received before it is handed to a future, where the message is
+     *                                discarded if this returns false
+     */
+    PrefetchingMessageFutureConsumerQueue(final int messageCapacity, final TimestampedPredicate<Message> messageHandOffPredicate) {
+        this.futureQueue = new ConcurrentLinkedQueue<>();
+        this.messageQueue = new BoundedArrayQueue<>(messageCapacity);
         this.messageCapacity = messageCapacity;
+        this.messageLimit = messageCapacity;
+        this.messageHandOffPredicate = messageHandOffPredicate;
+    }
+
+    /**
+     * Change the number of messages that can be batched before {@link #pushMessage(Message)} blocks.
+     *
+     * <p>If the limit is lowered below the number of messages currently batched those messages will remain in the queue, but no more messages can be
+     * pushed until enough of them have been consumed.
+     *
+     * @param messageLimit the new limit, which must be positive and not greater than the capacity this queue was built with
+     */
+    void setMessageLimit(final int messageLimit) {
+        Preconditions.checkArgument(messageLimit > 0 && messageLimit <= messageCapacity, "messageLimit must be between 1 and %s", messageCapacity);
+
+        final int previousMessageLimit = this.messageLimit;
+        this.messageLimit = messageLimit;
+        if (messageLimit > previousMessageLimit) {
+            signalFreeSlot();
+        }
     }
 
     /**
@@ -57,25 +119,55 @@ class PrefetchingMessageFutureConsumerQueue {
      * @param completableFuture the future to include in the queue
      */
     void pushCompletableFuture(@Nonnull CompletableFuture<Message> completableFuture) {
-        final Message message;
-        lock.lock();
-        try {
-            message = messageQueue.poll();
-            // We took a message of the queue resulting in it not being full anymore so we should signal this
-            if (message != null && (messageQueue.size() + 1 == messageCapacity)) {
-                messageQueueNotFull.signal();
+        while (true) {
+            final int previousBalance = balance.getAndDecrement();
+            if (previousBalance <= 0) {
+                futureQueue.add(completableFuture);
+                return;
             }
 
-            if (message == null) {
-                futureQueue.add(completableFuture);
+            takeReservedMessage((message, receivedTimeInNanoseconds) -> handOffMessage(completableFuture, message, receivedTimeInNanoseconds));
+            // We took a message of the queue resulting in it not being full anymore so we should signal this
+            signalFreeSlot();
+            if (completableFuture.isDone()) {
+                return;
             }
-        } finally {
-            lock.unlock();
         }
+    }
+
+    /**
+     * Take up to the maximum number of messages that are currently in the queue, without waiting for any more messages to be added.
+     *
+     * <p>The messages are reserved with a single update of the {@link #balance} where possible, so taking a batch of messages has a similar cost to taking a
+     * single message.
+     *
+     * @param maxNumberOfMessages the maximum number of messages to take
+     * @return the messages taken, which will be empty if there are none in the queue
+     */
+    List<Message> takeAvailableMessages(final int maxNumberOfMessages) {
+        final List<Message> messages = new ArrayList<>(Math.min(maxNumberOfMessages, messageCapacity));
+        final ObjLongConsumer<Message> messageTaker = (message, receivedTimeInNanoseconds) -> {
+            if (messageHandOffPredicate.test(message, receivedTimeInNanoseconds)) {
+                messages.add(message);
+            }
+        };
+        while (messages.size() < maxNumberOfMessages) {
+            final int currentBalance = balance.get();
+            if (currentBalance <= 0) {
+                break;
+            }
 
-        if (message != null) {
-            completableFuture.complete(message);
+            final int numberOfMessagesToTake = Math.min(currentBalance, maxNumberOfMessages - messages.size());
+            if (!balance.compareAndSet(currentBalance, currentBalance - numberOfMessagesToTake)) {
+                continue;
+            }
+
+            for (int i = 0; i < numberOfMessagesToTake; ++i) {
+                takeReservedMessage(messageTaker);
+            }
+            signalFreeSlot();
         }
+        return messages;
     }
 
     /**
@@ -86,28 +178,48 @@ class PrefetchingMessageFutureConsumerQueue {
      * {@link CompletableFuture} is pushed by the {@link #pushCompletableFuture(CompletableFuture)} method.
      *
      * @param message the message to add
-     * @throws InterruptedException if the thread was interrupted while waiting for the lock or adding a message onto the internal message queue
+     * @throws InterruptedException if the thread was interrupted while waiting for a free slot in the internal message queue
      */
     void pushMessage(@Nonnull final Message message) throws InterruptedException {
-        CompletableFuture<Message> completableFuture;
-        lock.lockInterruptibly();
-        try {
-            // Keep waiting for an empty slot in the message queue. Note that each iteration rechecks if a future was added in the case that multiple futures
-            // were added since an empty slot opened
-            while ((completableFuture = futureQueue.poll()) == null && messageQueue.size() == messageCapacity) {
-                messageQueueNotFull.await();
+        pushMessage(message, System.nanoTime(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Add a new {@link Message}, waiting up to the timeout for a free slot in the message queue if there is no {@link CompletableFuture} waiting for it.
+     *
+     * @param message                   the message to add
+     * @param receivedTimeInNanoseconds the value of {@link System#nanoTime()} when the request that received the message was sent
+     * @param timeoutInNanoseconds      the maximum amount of time to wait for a free slot, where {@link Long#MAX_VALUE} will wait indefinitely
+     * @return true if the message was added or false if the timeout elapsed before there was a free slot
+     * @throws InterruptedException if the thread was interrupted while waiting for a free slot in the internal message queue
+     */
+    boolean pushMessage(@Nonnull final Message message, final long receivedTimeInNanoseconds, final long timeoutInNanoseconds) throws InterruptedException {
+        int previousBalance;
+        while (true) {
+            previousBalance = balance.get();
+            if (previousBalance >= messageLimit) {
+                if (!blockUntilFreeSlotForMessage(timeoutInNanoseconds)) {
+                    return false;
+                }
+            } else if (balance.compareAndSet(previousBalance, previousBalance + 1)) {
+                break;
             }
+        }
 
-            if (completableFuture == null) {
-                messageQueue.add(message);
+        if (previousBalance < 0) {
+            final CompletableFuture<Message> completableFuture = takeReservedFuture();
+            if (!handOffMessage(completableFuture, message, receivedTimeInNanoseconds)) {
+                // The message was discarded so the future needs to wait for the next one
+                pushCompletableFuture(completableFuture);
             }
-        } finally {
-            lock.unlock();
+            return true;
         }
 
-        if (completableFuture != null) {
-            completableFuture.complete(message);
+        // The balance guarantees a slot but a consumer that has reserved a previous message may not have removed it from the array yet
+        while (!messageQueue.offer(message, receivedTimeInNanoseconds)) {
+            Thread.yield();
         }
+        return true;
     }
 
     /**
@@ -116,13 +228,76 @@ class PrefetchingMessageFutureConsumerQueue {
      * @throws InterruptedException if the thread was interrupted while waiting for a slot
      */
     void blockUntilFreeSlotForMessage() throws InterruptedException {
-        lock.lockInterruptibly();
+        blockUntilFreeSlotForMessage(Long.MAX_VALUE);
+    }
+
+    /**
+     * This will block the current thread until there is an available slot in the message queue or the timeout has elapsed.
+     *
+     * @param timeoutInNanoseconds the maximum amount of time to wait, where {@link Long#MAX_VALUE} will wait indefinitely
+     * @return true if there is a free slot or false if the timeout elapsed
+     * @throws InterruptedException if the thread was interrupted while waiting for a slot
+     */
+    boolean blockUntilFreeSlotForMessage(final long timeoutInNanoseconds) throws InterruptedException {
+        if (balance.get() < messageLimit) {
+            return true;
+        }
+
+        final boolean timed = timeoutInNanoseconds != Long.MAX_VALUE;
+        final long deadline = timed ? System.nanoTime() + timeoutInNanoseconds : 0;
+        final Thread currentThread = Thread.currentThread();
+        threadsWaitingForFreeSlot.add(currentThread);
         try {
-            while (messageQueue.size() == messageCapacity) {
-                messageQueueNotFull.await();
+            // The balance must be rechecked after registering this thread, otherwise a slot freed in between would never wake it up
+            while (balance.get() >= messageLimit) {
+                if (timed) {
+                    final long remainingTimeInNanoseconds = deadline - System.nanoTime();
+                    if (remainingTimeInNanoseconds <= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, remainingTimeInNanoseconds);
+                } else {
+                    LockSupport.park(this);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
             }
+            return true;
         } finally {
-            lock.unlock();
+            threadsWaitingForFreeSlot.remove(currentThread);
+        }
+    }
+
+    /**
+     * Remove the messages at the head of the queue while they match the predicate.
+     *
+     * <p>As messages are added in the order that they are received, this can be used to remove all of the messages that were received before a certain
+     * time without needing to check every message in the queue.
+     *
+     * @param predicate              the predicate that the messages, along with the time they were received, must match to be removed
+     * @param removedMessageConsumer the consumer that is given each message that was removed along with the time it was received
+     */
+    void removeMessagesAtHeadMatching(final TimestampedPredicate<Message> predicate, final ObjLongConsumer<Message> removedMessageConsumer) {
+        boolean removedMessage = false;
+        while (true) {
+            final int currentBalance = balance.get();
+            if (currentBalance <= 0) {
+                break;
+            }
+            if (!balance.compareAndSet(currentBalance, currentBalance - 1)) {
+                continue;
+            }
+
+            if (!messageQueue.pollIf(predicate, removedMessageConsumer)) {
+                returnReservedMessage();
+                break;
+            }
+            removedMessage = true;
+        }
+
+        if (removedMessage) {
+            signalFreeSlot();
         }
     }
 
@@ -132,7 +307,7 @@ class PrefetchingMessageFutureConsumerQueue {
      * @return the total messages batched
      */
     int getNumberOfBatchedMessages() {
-        return messageQueue.size();
+        return Math.max(0, balance.get());
     }
 
     /**
@@ -141,18 +316,99 @@ class PrefetchingMessageFutureConsumerQueue {
      * @return the queues of futures and messages that were in this queue
      */
     QueueDrain drain() {
-        lock.lock();
-        try {
-            final LinkedList<CompletableFuture<Message>> futuresWaitingForMessages = new LinkedList<>(futureQueue);
-            final LinkedList<Message> messagesAvailableForProcessing = new LinkedList<>(messageQueue);
-            futureQueue.clear();
-            messageQueue.clear();
-            return QueueDrain.builder()
-                    .futuresWaitingForMessages(futuresWaitingForMessages)
-                    .messagesAvailableForProcessing(messagesAvailableForProcessing)
-                    .build();
-        } finally {
-            lock.unlock();
+        final LinkedList<CompletableFuture<Message>> futuresWaitingForMessages = new LinkedList<>();
+        final LinkedList<Message> messagesAvailableForProcessing = new LinkedList<>();
+        while (true) {
+            final int currentBalance = balance.get();
+            if (currentBalance > 0) {
+                if (balance.compareAndSet(currentBalance, currentBalance - 1)) {
+                    takeReservedMessage((message, receivedTimeInNanoseconds) -> messagesAvailableForProcessing.add(message));
+                }
+            } else if (currentBalance < 0) {
+                if (balance.compareAndSet(currentBalance, currentBalance + 1)) {
+                    futuresWaitingForMessages.add(takeReservedFuture());
+                }
+            } else {
+                break;
+            }
+        }
+        signalFreeSlot();
+
+        return QueueDrain.builder()
+                .futuresWaitingForMessages(futuresWaitingForMessages)
+                .messagesAvailableForProcessing(messagesAvailableForProcessing)
+                .build();
+    }
+
+    /**
+     * Return a message that was reserved via the {@link #balance} but was not removed from the queue.
+     *
+     * <p>While the message was reserved a future may have been added to the future queue instead of being given the message, and in this case the message
+     * needs to be given to that future to maintain the invariant.
+     */
+    private void returnReservedMessage() {
+        final int previousBalance = balance.getAndIncrement();
+        if (previousBalance >= 0) {
+            return;
         }
+
+        // This thread still owns the reservation for the message so it can be removed from the queue and given to the future
+        final CompletableFuture<Message> completableFuture = takeReservedFuture();
+        takeReservedMessage((message, receivedTimeInNanoseconds) -> handOffMessage(completableFuture, message, receivedTimeInNanoseconds));
+        signalFreeSlot();
+        if (!completableFuture.isDone()) {
+            pushCompletableFuture(completableFuture);
+        }
+    }
+
+    /**
+     * Complete the future with the message if it matches the {@link #messageHandOffPredicate}.
+     *
+     * @param completableFuture         the future waiting for a message
+     * @param message                   the message to hand to the future
+     * @param receivedTimeInNanoseconds the time that the message was received
+     * @return whether the message was handed to the future, otherwise it was discarded
+     */
+    private boolean handOffMessage(final CompletableFuture<Message> completableFuture, final Message message, final long receivedTimeInNanoseconds) {
+        if (!messageHandOffPredicate.test(message, receivedTimeInNanoseconds)) {
+            return false;
+        }
+        completableFuture.complete(message);
+        return true;
+    }
+
+    /**
+     * Take a message that has been reserved via the {@link #balance}, spinning if the thread that is adding it has not finished yet.
+     *
+     * @param messageConsumer the consumer that is given the message along with the time that it was received
+     */
+    private void takeReservedMessage(final ObjLongConsumer<Message> messageConsumer) {
+        while (!messageQueue.poll(messageConsumer)) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Take a future that has been reserved via the {@link #balance}, spinning if the thread that is adding it has not finished yet.
+     *
+     * @return the reserved future
+     */
+    private CompletableFuture<Message> takeReservedFuture() {
+        CompletableFuture<Message> completableFuture;
+        while ((completableFuture = futureQueue.poll()) == null) {
+            Thread.yield();
+        }
+        return completableFuture;
+    }
+
+    /**
+     * Wake up any threads that are waiting for a free slot in the message queue so that they can recheck whether one is available.
+     */
+    private void signalFreeSlot() {
+        if (threadsWaitingForFreeSlot.isEmpty()) {
+            return;
+        }
+
+        threadsWaitingForFreeSlot.forEach(LockSupport::unpark);
     }
 }
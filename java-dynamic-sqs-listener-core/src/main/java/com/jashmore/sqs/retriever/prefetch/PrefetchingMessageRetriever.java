@@ -2,28 +2,41 @@ package com.jashmore.sqs.retriever.prefetch;
 
 import static com.jashmore.sqs.aws.AwsConstants.MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS;
 import static com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverConstants.DEFAULT_ERROR_BACKOFF_TIMEOUT_IN_MILLISECONDS;
+import static com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverConstants.DEFAULT_MAX_CONCURRENT_RECEIVES;
+import static com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverConstants.RESERVATION_RECHECK_INTERVAL_IN_MILLISECONDS;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
 import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.aws.AwsConstants;
 import com.jashmore.sqs.retriever.MessageRetriever;
+import com.jashmore.sqs.retriever.ReceiveRequestAttemptTracker;
 import com.jashmore.sqs.util.properties.PropertyUtils;
+import com.jashmore.sqs.util.thread.ThreadUtils;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.exception.SdkInterruptedException;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.Message;
-import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * Message retriever that allows for the prefetching of messages for faster throughput by making sure that there are always messages in a queue locally to be
@@ -53,18 +66,40 @@ import java.util.concurrent.ExecutionException;
  *     <li>This process repeats as more messages are consumed and placed onto the queues.</li>
  * </ol>
  *
+ * <p>To increase the throughput of a single queue, {@link PrefetchingMessageRetrieverProperties#getMaxConcurrentReceives()} can be used to have multiple
+ * requests for messages in flight at the same time. Each of these requests are run on their own thread and they share the
+ * {@link PrefetchingMessageRetriever#maxPrefetchedMessages} limit so that the total number of messages requested never goes above it.
+ *
+ * <p>If {@link PrefetchingMessageRetrieverProperties#shouldAdaptPrefetchWindow()} is true, the desired minimum and maximum number of prefetched messages
+ * are instead sized at runtime by an {@link AdaptivePrefetchWindow} from the rate that messages are being consumed and the time taken to receive them from
+ * SQS, staying within the bounds of the configured values. The internal queue is therefore built with a capacity of the maximum and has its limit
+ * adjusted as the window changes.
+ *
  * <p>Note that because these messages are being prefetched they could be in the internal queue for a long period and could even remain in the prefetched queue
  * after the visibility timeout for the message has expired. This could cause it to be placed in the dead letter queue or attempted again at a future time.
+ * To prevent this, {@link PrefetchingMessageRetrieverProperties#getVisibilityTimeoutExpiryThresholdInSeconds()} can be set so that messages close to
+ * expiring are released back to SQS and expired messages are not processed. See {@link PrefetchedMessageVisibilityManager} for more details.
  */
 @Slf4j
 public class PrefetchingMessageRetriever implements MessageRetriever {
     private final SqsAsyncClient sqsAsyncClient;
     private final QueueProperties queueProperties;
     private final PrefetchingMessageRetrieverProperties properties;
+    private final ReceiveRequestAttemptTracker receiveRequestAttemptTracker;
 
     private final PrefetchingMessageFutureConsumerQueue pairConsumerQueue;
     private final int maxPrefetchedMessages;
+    @Nullable
+    private final AdaptivePrefetchWindow adaptivePrefetchWindow;
+    @Nullable
+    private final PrefetchedMessageVisibilityManager visibilityManager;
 
+    private final Object reservationLock = new Object();
+    /**
+     * The total number of messages that have been requested by the receivers but have not been placed onto the internal queue yet.
+     */
+    @GuardedBy("reservationLock")
+    private int totalMessagesReserved;
 
     public PrefetchingMessageRetriever(final SqsAsyncClient sqsAsyncClient,
                                        final QueueProperties queueProperties,
@@ -76,6 +111,7 @@ public class PrefetchingMessageRetriever implements MessageRetriever {
         this.sqsAsyncClient = sqsAsyncClient;
         this.queueProperties = queueProperties;
         this.properties = properties;
+        this.receiveRequestAttemptTracker = new ReceiveRequestAttemptTracker(queueProperties);
 
         this.maxPrefetchedMessages = properties.getMaxPrefetchedMessages();
         final int desiredMinPrefetchedMessages = properties.getDesiredMinPrefetchedMessages();
@@ -84,40 +120,167 @@ public class PrefetchingMessageRetriever implements MessageRetriever {
                 "maxPrefetchedMessages should be greater than or equal to desiredMinPrefetchedMessages");
         Preconditions.checkArgument(desiredMinPrefetchedMessages > 0, "desiredMinPrefetchedMessages must be greater than zero");
 
-        pairConsumerQueue = new PrefetchingMessageFutureConsumerQueue(desiredMinPrefetchedMessages);
+        visibilityManager = PrefetchedMessageVisibilityManager.build(sqsAsyncClient, queueProperties, properties);
+        final TimestampedPredicate<Message> messageHandOffPredicate = (visibilityManager != null)
+                ? visibilityManager::prepareForProcessing : (message, receivedTimeInNanoseconds) -> true;
+        if (Boolean.TRUE.equals(properties.shouldAdaptPrefetchWindow())) {
+            adaptivePrefetchWindow = new AdaptivePrefetchWindow(properties);
+            pairConsumerQueue = new PrefetchingMessageFutureConsumerQueue(maxPrefetchedMessages, messageHandOffPredicate);
+            pairConsumerQueue.setMessageLimit(desiredMinPrefetchedMessages);
+        } else {
+            adaptivePrefetchWindow = null;
+            pairConsumerQueue = new PrefetchingMessageFutureConsumerQueue(desiredMinPrefetchedMessages, messageHandOffPredicate);
+        }
     }
 
     @Override
     public CompletableFuture<Message> retrieveMessage() {
+        if (adaptivePrefetchWindow != null) {
+            adaptivePrefetchWindow.recordMessageConsumed();
+        }
         final CompletableFuture<Message> completableFuture = new CompletableFuture<>();
         pairConsumerQueue.pushCompletableFuture(completableFuture);
         return completableFuture;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Any messages that are already prefetched are taken straight away, otherwise the future will be resolved with the first message that is placed into
+     * the internal queue along with any other messages that are available at that time.
+     */
+    @Override
+    public CompletableFuture<List<Message>> retrieveMessages(final int maxNumberOfMessages) {
+        Preconditions.checkArgument(maxNumberOfMessages > 0, "maxNumberOfMessages must be greater than zero");
+
+        final List<Message> availableMessages = pairConsumerQueue.takeAvailableMessages(maxNumberOfMessages);
+        if (!availableMessages.isEmpty()) {
+            recordMessagesConsumed(availableMessages.size());
+            return CompletableFuture.completedFuture(availableMessages);
+        }
+
+        final CompletableFuture<Message> firstMessageFuture = new CompletableFuture<>();
+        pairConsumerQueue.pushCompletableFuture(firstMessageFuture);
+        return firstMessageFuture.thenApply(firstMessage -> {
+            final List<Message> messages = new ArrayList<>(maxNumberOfMessages);
+            messages.add(firstMessage);
+            if (maxNumberOfMessages > 1) {
+                messages.addAll(pairConsumerQueue.takeAvailableMessages(maxNumberOfMessages - 1));
+            }
+            recordMessagesConsumed(messages.size());
+            return messages;
+        });
+    }
+
     @Override
     public List<Message> run() {
         log.info("Started MessageRetriever");
 
-        final List<Message> listsNotPublished = new LinkedList<>();
+        final Queue<Message> messagesNotPublished = new ConcurrentLinkedQueue<>();
+        final int maxConcurrentReceives = getMaxConcurrentReceives();
+        if (maxConcurrentReceives == 1) {
+            receiveMessagesUntilInterrupted(messagesNotPublished);
+        } else {
+            runConcurrentReceivers(maxConcurrentReceives, messagesNotPublished);
+        }
+
+        final QueueDrain pairQueue = pairConsumerQueue.drain();
+        pairQueue.getFuturesWaitingForMessages().forEach(future -> future.cancel(true));
+        return ImmutableList.<Message>builder()
+                .addAll(pairQueue.getMessagesAvailableForProcessing())
+                .addAll(messagesNotPublished)
+                .build();
+    }
+
+    /**
+     * Start the provided number of receivers on their own threads, all placing messages onto the same internal queue, and wait until this thread has
+     * been interrupted before stopping them.
+     *
+     * @param numberOfReceivers    the number of receivers that should be requesting messages concurrently
+     * @param messagesNotPublished the collection to place any messages that were received but could not be placed onto the internal queue
+     */
+    private void runConcurrentReceivers(final int numberOfReceivers, final Queue<Message> messagesNotPublished) {
+        log.debug("Starting {} concurrent message receivers", numberOfReceivers);
+        final ExecutorService executorService = Executors.newFixedThreadPool(numberOfReceivers,
+                ThreadUtils.threadFactory(Thread.currentThread().getName() + "-receiver-%d"));
+        final List<Future<?>> receiverFutures = new ArrayList<>(numberOfReceivers);
+        for (int i = 0; i < numberOfReceivers; ++i) {
+            receiverFutures.add(executorService.submit(() -> receiveMessagesUntilInterrupted(messagesNotPublished)));
+        }
+
+        boolean interrupted = false;
+        try {
+            for (final Future<?> receiverFuture : receiverFutures) {
+                receiverFuture.get();
+            }
+        } catch (final InterruptedException interruptedException) {
+            log.debug("Thread interrupted while waiting for receivers. Exiting...");
+            interrupted = true;
+        } catch (final ExecutionException executionException) {
+            log.error("Message receiver unexpectedly stopped", executionException.getCause());
+        }
+
+        executorService.shutdownNow();
+        try {
+            // The receivers must have finished placing their unpublished messages before we can return them
+            while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.debug("Waiting for message receivers to stop");
+            }
+        } catch (final InterruptedException interruptedException) {
+            log.warn("Thread interrupted waiting for the message receivers to stop, some messages may not be returned");
+            interrupted = true;
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Keep requesting messages from SQS and placing them onto the internal queue until the thread has been interrupted.
+     *
+     * <p>This can be run concurrently on multiple threads and the total number of messages requested across all of the threads will not exceed
+     * {@link #maxPrefetchedMessages}.
+     *
+     * @param messagesNotPublished the collection to place any messages that were received but could not be placed onto the internal queue
+     */
+    private void receiveMessagesUntilInterrupted(final Queue<Message> messagesNotPublished) {
         while (!Thread.currentThread().isInterrupted()) {
+            int numberOfMessagesReserved = 0;
+            ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt = null;
             try {
-                pairConsumerQueue.blockUntilFreeSlotForMessage();
-                final List<Message> messages = CompletableFuture.supplyAsync(this::buildReceiveMessageRequest)
-                        .thenCompose(sqsAsyncClient::receiveMessage)
+                blockUntilFreeSlotForMessage();
+                resizeAdaptivePrefetchWindow();
+                numberOfMessagesReserved = reserveMessagesToObtain();
+                if (numberOfMessagesReserved == 0) {
+                    // the internal queue was filled by the other receivers, wait for messages to be consumed before trying again
+                    continue;
+                }
+                final long requestStartTimeInNanoseconds = System.nanoTime();
+                receiveRequestAttempt = receiveRequestAttemptTracker.startAttempt();
+                final List<Message> messages = sqsAsyncClient.receiveMessage(buildReceiveMessageRequest(numberOfMessagesReserved, receiveRequestAttempt))
                         .thenApply(ReceiveMessageResponse::messages)
                         .get();
+                // the messages for this attempt have been obtained and therefore it must not be retried
+                receiveRequestAttempt = null;
 
                 log.debug("Received {} messages", messages.size());
+                if (adaptivePrefetchWindow != null) {
+                    adaptivePrefetchWindow.recordReceive(System.nanoTime() - requestStartTimeInNanoseconds, messages.size());
+                }
+                // Release any of the slots that SQS did not fill so that other receivers can use them
+                numberOfMessagesReserved = releaseReservedMessages(numberOfMessagesReserved, numberOfMessagesReserved - messages.size());
 
                 final ListIterator<Message> messageListIterator = messages.listIterator();
                 while (messageListIterator.hasNext()) {
                     final Message message = messageListIterator.next();
                     try {
-                        pairConsumerQueue.pushMessage(message);
+                        pushMessage(message, requestStartTimeInNanoseconds);
+                        numberOfMessagesReserved = releaseReservedMessages(numberOfMessagesReserved, 1);
                     } catch (final InterruptedException interruptedException) {
                         log.debug("Thread interrupted while adding messages into internal queue. Exiting...");
-                        listsNotPublished.add(message);
-                        messageListIterator.forEachRemaining(listsNotPublished::add);
+                        messagesNotPublished.add(message);
+                        messageListIterator.forEachRemaining(messagesNotPublished::add);
                         Thread.currentThread().interrupt();
                         break;
                     }
@@ -137,34 +300,176 @@ public class PrefetchingMessageRetriever implements MessageRetriever {
                     }
                 }
                 log.error("Exception thrown when retrieving messages", exception);
+                receiveRequestAttemptTracker.attemptFailed(receiveRequestAttempt);
+                numberOfMessagesReserved = releaseReservedMessages(numberOfMessagesReserved, numberOfMessagesReserved);
                 performBackoff();
+            } finally {
+                releaseReservedMessages(numberOfMessagesReserved, numberOfMessagesReserved);
             }
         }
+    }
 
-        final QueueDrain pairQueue = pairConsumerQueue.drain();
-        pairQueue.getFuturesWaitingForMessages().forEach(future -> future.cancel(true));
-        return ImmutableList.<Message>builder()
-                .addAll(pairQueue.getMessagesAvailableForProcessing())
-                .addAll(listsNotPublished)
-                .build();
+    /**
+     * Reserve the number of messages that the current receiver should request from SQS without going over the {@link #maxPrefetchedMessages} limit.
+     *
+     * <p>The number of messages that can be requested takes into account the messages already in the internal queue as well as the messages that
+     * other receivers have requested but have not yet placed onto the queue. While other receivers are holding the remaining slots this will block
+     * until they have been released, periodically checking whether slots were freed by messages being consumed as consumers do not notify the
+     * receivers. If there are no slots left and no other receivers are holding any, for example because the queue was filled or the
+     * {@link AdaptivePrefetchWindow} shrunk, zero is returned so that the receiver can instead wait for messages to be consumed from the internal queue.
+     *
+     * @return the number of messages that were reserved, which will be zero if there are no slots left that other receivers are holding
+     * @throws InterruptedException if the thread was interrupted while waiting for messages to be reserved
+     */
+    private int reserveMessagesToObtain() throws InterruptedException {
+        synchronized (reservationLock) {
+            while (true) {
+                final int numberOfPrefetchSlotsLeft = getMaxPrefetchedMessages() - pairConsumerQueue.getNumberOfBatchedMessages() - totalMessagesReserved;
+                final int numberOfMessagesToObtain = Math.min(AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS, numberOfPrefetchSlotsLeft);
+                if (numberOfMessagesToObtain > 0) {
+                    totalMessagesReserved += numberOfMessagesToObtain;
+                    return numberOfMessagesToObtain;
+                }
+                if (totalMessagesReserved == 0) {
+                    return 0;
+                }
+                // Another receiver is currently holding the remaining slots and will notify when they have been placed onto the queue
+                reservationLock.wait(RESERVATION_RECHECK_INTERVAL_IN_MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Block until there is a free slot in the internal queue, periodically releasing any prefetched messages that are close to their visibility timeout
+     * expiring while waiting.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    private void blockUntilFreeSlotForMessage() throws InterruptedException {
+        if (visibilityManager == null) {
+            pairConsumerQueue.blockUntilFreeSlotForMessage();
+            return;
+        }
+
+        while (!pairConsumerQueue.blockUntilFreeSlotForMessage(visibilityManager.getReleaseCheckIntervalInNanoseconds())) {
+            releaseMessagesCloseToExpiring();
+        }
+    }
+
+    /**
+     * Push the message onto the internal queue, periodically releasing any prefetched messages that are close to their visibility timeout expiring
+     * while waiting for a free slot.
+     *
+     * @param message                   the message to push
+     * @param receivedTimeInNanoseconds the value of {@link System#nanoTime()} when the request that received the message was sent
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    private void pushMessage(final Message message, final long receivedTimeInNanoseconds) throws InterruptedException {
+        if (visibilityManager == null) {
+            pairConsumerQueue.pushMessage(message, receivedTimeInNanoseconds, Long.MAX_VALUE);
+            return;
+        }
+
+        while (!pairConsumerQueue.pushMessage(message, receivedTimeInNanoseconds, visibilityManager.getReleaseCheckIntervalInNanoseconds())) {
+            releaseMessagesCloseToExpiring();
+        }
+    }
+
+    /**
+     * Remove the messages that are close to their visibility timeout expiring from the internal queue and release them back to SQS.
+     */
+    private void releaseMessagesCloseToExpiring() {
+        final List<Message> messagesToRelease = new ArrayList<>();
+        pairConsumerQueue.removeMessagesAtHeadMatching(
+                (message, receivedTimeInNanoseconds) -> visibilityManager.shouldRelease(receivedTimeInNanoseconds),
+                (message, receivedTimeInNanoseconds) -> {
+                    if (!visibilityManager.hasExpired(receivedTimeInNanoseconds)) {
+                        messagesToRelease.add(message);
+                    }
+                }
+        );
+        if (!messagesToRelease.isEmpty()) {
+            visibilityManager.release(messagesToRelease);
+        }
+    }
+
+    /**
+     * Record the messages that were taken in a batch with the {@link AdaptivePrefetchWindow}, if it is being used.
+     *
+     * @param numberOfMessages the number of messages taken
+     */
+    private void recordMessagesConsumed(final int numberOfMessages) {
+        if (adaptivePrefetchWindow != null) {
+            adaptivePrefetchWindow.recordMessagesConsumed(numberOfMessages);
+        }
+    }
+
+    /**
+     * Recalculate the size of the {@link AdaptivePrefetchWindow}, if it is being used, and apply the desired minimum number of prefetched messages
+     * to the internal queue.
+     */
+    private void resizeAdaptivePrefetchWindow() {
+        if (adaptivePrefetchWindow == null) {
+            return;
+        }
+
+        adaptivePrefetchWindow.recalculateIfNecessary();
+        pairConsumerQueue.setMessageLimit(adaptivePrefetchWindow.getDesiredMinPrefetchedMessages());
+    }
+
+    /**
+     * Get the maximum number of messages that can be prefetched and requested at the current time.
+     *
+     * @return the maximum number of prefetched messages
+     */
+    private int getMaxPrefetchedMessages() {
+        if (adaptivePrefetchWindow == null) {
+            return maxPrefetchedMessages;
+        }
+        return adaptivePrefetchWindow.getMaxPrefetchedMessages();
+    }
+
+    /**
+     * Release messages that were reserved by a receiver via {@link #reserveMessagesToObtain()}.
+     *
+     * @param numberOfMessagesCurrentlyReserved the number of messages that the receiver currently has reserved
+     * @param numberOfMessagesToRelease         the number of messages to release
+     * @return the number of messages that the receiver still has reserved
+     */
+    private int releaseReservedMessages(final int numberOfMessagesCurrentlyReserved, final int numberOfMessagesToRelease) {
+        if (numberOfMessagesToRelease <= 0) {
+            return numberOfMessagesCurrentlyReserved;
+        }
+
+        synchronized (reservationLock) {
+            totalMessagesReserved -= numberOfMessagesToRelease;
+            reservationLock.notifyAll();
+        }
+        return numberOfMessagesCurrentlyReserved - numberOfMessagesToRelease;
     }
 
     /**
      * Build the request that will download the messages from SQS.
      *
+     * @param numberOfMessagesToObtain the maximum number of messages to obtain
+     * @param receiveRequestAttempt    the attempt for this request if the queue is a FIFO queue
      * @return the request that will be sent to SQS
      */
-    private ReceiveMessageRequest buildReceiveMessageRequest() {
-        final int numberOfPrefetchSlotsLeft = maxPrefetchedMessages - pairConsumerQueue.getNumberOfBatchedMessages();
-        final int numberOfMessagesToObtain = Math.min(AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS, numberOfPrefetchSlotsLeft);
-
+    private ReceiveMessageRequest buildReceiveMessageRequest(final int numberOfMessagesToObtain,
+                                                             @Nullable final ReceiveRequestAttemptTracker.Attempt receiveRequestAttempt) {
         log.debug("Retrieving {} messages asynchronously", numberOfMessagesToObtain);
+        final RequiredMessageAttributes requiredMessageAttributes = receiveRequestAttemptTracker.includeQueueRequiredMessageAttributes(
+                Optional.ofNullable(properties.getRequiredMessageAttributes()).orElseGet(RequiredMessageAttributes::all)
+        );
         final ReceiveMessageRequest.Builder requestBuilder = ReceiveMessageRequest.builder()
                 .queueUrl(queueProperties.getQueueUrl())
-                .attributeNames(QueueAttributeName.ALL)
-                .messageAttributeNames(QueueAttributeName.ALL.toString())
+                .attributeNamesWithStrings(requiredMessageAttributes.getMessageSystemAttributeNames())
+                .messageAttributeNames(requiredMessageAttributes.getMessageAttributeNames())
                 .waitTimeSeconds(MAX_SQS_RECEIVE_WAIT_TIME_IN_SECONDS)
                 .maxNumberOfMessages(numberOfMessagesToObtain);
+        if (receiveRequestAttempt != null) {
+            requestBuilder.receiveRequestAttemptId(receiveRequestAttempt.getId());
+        }
         final Integer visibilityTimeoutInSeconds = properties.getMessageVisibilityTimeoutInSeconds();
         if (visibilityTimeoutInSeconds != null) {
             if (visibilityTimeoutInSeconds <= 0) {
@@ -188,6 +493,19 @@ public class PrefetchingMessageRetriever implements MessageRetriever {
         }
     }
 
+    /**
+     * Get the number of receivers that should be requesting messages from SQS concurrently.
+     *
+     * @return the number of concurrent receivers
+     */
+    private int getMaxConcurrentReceives() {
+        return PropertyUtils.safelyGetPositiveIntegerValue(
+                "maxConcurrentReceives",
+                properties::getMaxConcurrentReceives,
+                DEFAULT_MAX_CONCURRENT_RECEIVES
+        );
+    }
+
     /**
      * Get the amount of time in milliseconds that the thread should wait after a failure to get messages.
      *
@@ -8,4 +8,14 @@ class PrefetchingMessageRetrieverConstants {
      * The default backoff timeout for when there is an error retrieving messages.
      */
     static final int DEFAULT_ERROR_BACKOFF_TIMEOUT_IN_MILLISECONDS = 10_000;
+
+    /**
+     * The default number of receive message requests that can be in flight at the same time.
+     */
+    static final int DEFAULT_MAX_CONCURRENT_RECEIVES = 1;
+
+    /**
+     * The maximum amount of time a receiver waits for the slots reserved by the other receivers before checking whether messages have been consumed.
+     */
+    static final long RESERVATION_RECHECK_INTERVAL_IN_MILLISECONDS = 100L;
 }
@@ -1,5 +1,6 @@
 package com.jashmore.sqs.retriever.prefetch;
 
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
 import javax.annotation.Nullable;
@@ -17,6 +18,8 @@ public interface PrefetchingMessageRetrieverProperties {
      * this value allowed to be to continually change during execution would significantly complicate the implementation.  If you need to apply this dynamic
      * nature a different implementation should be written.
      *
+     * <p>If {@link #shouldAdaptPrefetchWindow()} is true, this is instead used as a bound for the prefetch window that is sized at runtime.
+     *
      * <p>Constraints on this field include:
      * <ul>
      *     <li>this value must be greater than 0</li>
@@ -35,6 +38,8 @@ public interface PrefetchingMessageRetrieverProperties {
      * this value allowed to be to continually change during execution would significantly complicate the implementation.  If you need to apply this dynamic
      * nature a different implementation should be written.
      *
+     * <p>If {@link #shouldAdaptPrefetchWindow()} is true, this is instead used as a bound for the prefetch window that is sized at runtime.
+     *
      * <p>Constraints on this field include:
      * <ul>
      *     <li>this value must be greater than 0</li>
@@ -72,4 +77,68 @@ public interface PrefetchingMessageRetrieverProperties {
     @Nullable
     @PositiveOrZero
     Integer getErrorBackoffTimeInMilliseconds();
+
+    /**
+     * The maximum number of receive message requests that can be in flight to SQS at the same time.
+     *
+     * <p>As each request to SQS can only return {@link com.jashmore.sqs.aws.AwsConstants#MAX_NUMBER_OF_MESSAGES_FROM_SQS} messages, a single request
+     * at a time caps the throughput of the retriever to that many messages per round trip. Increasing this value allows for multiple long polls to be
+     * running concurrently, all feeding the same internal queue of prefetched messages. The total number of messages requested across all of these
+     * requests will never exceed {@link #getMaxPrefetchedMessages()}.
+     *
+     * <p>This value is not able to be dynamic during the execution as the worker threads performing the requests are started when the retriever
+     * is started.
+     *
+     * <p>If this value is null or less than one, {@link PrefetchingMessageRetrieverConstants#DEFAULT_MAX_CONCURRENT_RECEIVES} will be used.
+     *
+     * @return the maximum number of concurrent receive message requests
+     */
+    @Nullable
+    @Positive
+    Integer getMaxConcurrentReceives();
+
+    /**
+     * The attributes of the messages that should be retrieved from SQS.
+     *
+     * <p>Requesting only the attributes that are needed to process the message reduces the size of the responses from SQS, which is significant for
+     * messages with small bodies. These can be determined from the method processing the messages via
+     * {@link com.jashmore.sqs.argument.ArgumentResolverService#getRequiredMessageAttributes(java.lang.reflect.Method)}.
+     *
+     * <p>If this value is null, all message system attributes and message attributes will be retrieved.
+     *
+     * @return the attributes to retrieve for each message
+     */
+    @Nullable
+    RequiredMessageAttributes getRequiredMessageAttributes();
+
+    /**
+     * Whether the desired minimum and maximum number of prefetched messages should be sized at runtime from the observed rate that messages are being
+     * consumed, the time taken to receive messages from SQS and the {@link #getMessageVisibilityTimeoutInSeconds()}.
+     *
+     * <p>When enabled, the window will never have fewer than {@link #getDesiredMinPrefetchedMessages()} desired prefetched messages and never more than
+     * {@link #getMaxPrefetchedMessages()} messages prefetched. This is useful for bursty traffic where any static setting would either starve the
+     * consumers during a burst or hold messages for too long when the traffic is low.
+     *
+     * <p>If this value is null, the window will not be adapted.
+     *
+     * @return whether the prefetch window should be adapted at runtime
+     */
+    @Nullable
+    Boolean shouldAdaptPrefetchWindow();
+
+    /**
+     * The number of seconds before the visibility timeout of a prefetched message expires that it is considered to be close to expiring.
+     *
+     * <p>When this and {@link #getMessageVisibilityTimeoutInSeconds()} are set, the time that each message was received is tracked. Messages that are
+     * still prefetched when they are this close to expiring are released back to SQS early, in batches, by changing their visibility timeout to zero. If a
+     * message is this close to expiring when it is about to be processed its visibility is extended back to the full visibility timeout instead, and if it
+     * has already expired it is discarded as it may have already been redelivered to another consumer.
+     *
+     * <p>This must be less than {@link #getMessageVisibilityTimeoutInSeconds()} and if this value is null the prefetched messages will not be tracked.
+     *
+     * @return the threshold in seconds for a message to be considered close to expiring
+     */
+    @Nullable
+    @Positive
+    Integer getVisibilityTimeoutExpiryThresholdInSeconds();
 }
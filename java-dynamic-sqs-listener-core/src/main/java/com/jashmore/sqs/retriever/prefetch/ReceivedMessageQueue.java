@@ -0,0 +1,102 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Queue of the {@link Message}s that have been received from SQS along with the time that they were received.
+ *
+ * <p>As all of the messages received in a single request share the same received time, the time is kept once for each batch of messages instead of
+ * being stored with every message. This means that only a single object is allocated for each request to SQS instead of one for each message.
+ *
+ * <p>This is not thread safe and the owner must guard access to it.
+ */
+@NotThreadSafe
+class ReceivedMessageQueue {
+    private final Deque<Message> messages = new ArrayDeque<>();
+    /**
+     * The batches of messages in the order that they were added, where the first batch is the batch that contains the message at the head of the queue.
+     */
+    private final Deque<ReceivedBatch> batches = new ArrayDeque<>();
+
+    /**
+     * Add the messages that were received in a single request to the end of the queue.
+     *
+     * @param receivedMessages          the messages that were received
+     * @param receivedTimeInNanoseconds the value of {@link System#nanoTime()} when the request that received the messages was sent
+     */
+    void addAll(final List<Message> receivedMessages, final long receivedTimeInNanoseconds) {
+        if (receivedMessages.isEmpty()) {
+            return;
+        }
+
+        messages.addAll(receivedMessages);
+        batches.add(new ReceivedBatch(receivedTimeInNanoseconds, receivedMessages.size()));
+    }
+
+    /**
+     * Get the time that the message at the head of the queue was received, which must only be called when the queue is not empty.
+     *
+     * @return the value of {@link System#nanoTime()} when the request that received the message at the head of the queue was sent
+     */
+    long peekReceivedTimeInNanoseconds() {
+        return batches.getFirst().receivedTimeInNanoseconds;
+    }
+
+    /**
+     * Remove the message at the head of the queue.
+     *
+     * @return the message at the head of the queue or null if the queue is empty
+     */
+    @Nullable
+    Message poll() {
+        final Message message = messages.poll();
+        if (message != null) {
+            final ReceivedBatch batch = batches.getFirst();
+            batch.remainingMessages -= 1;
+            if (batch.remainingMessages == 0) {
+                batches.removeFirst();
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Remove all of the messages from the queue.
+     *
+     * @return the messages that were in the queue in the order that they were received
+     */
+    List<Message> removeAll() {
+        final List<Message> removedMessages = new ArrayList<>(messages);
+        messages.clear();
+        batches.clear();
+        return removedMessages;
+    }
+
+    boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    int size() {
+        return messages.size();
+    }
+
+    /**
+     * The messages received in a single request that are still in the queue.
+     */
+    private static final class ReceivedBatch {
+        private final long receivedTimeInNanoseconds;
+        private int remainingMessages;
+
+        private ReceivedBatch(final long receivedTimeInNanoseconds, final int remainingMessages) {
+            this.receivedTimeInNanoseconds = receivedTimeInNanoseconds;
+            this.remainingMessages = remainingMessages;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.jashmore.sqs.retriever.prefetch;
 
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
@@ -19,6 +20,10 @@ public class StaticPrefetchingMessageRetrieverProperties implements PrefetchingM
     private final Integer maxPrefetchedMessages;
     private final Integer messageVisibilityTimeoutInSeconds;
     private final Integer errorBackoffTimeInMilliseconds;
+    private final Integer maxConcurrentReceives;
+    private final RequiredMessageAttributes requiredMessageAttributes;
+    private final Boolean shouldAdaptPrefetchWindow;
+    private final Integer visibilityTimeoutExpiryThresholdInSeconds;
 
     @Override
     public @Positive @NotNull int getDesiredMinPrefetchedMessages() {
@@ -39,4 +44,24 @@ public class StaticPrefetchingMessageRetrieverProperties implements PrefetchingM
     public Integer getErrorBackoffTimeInMilliseconds() {
         return errorBackoffTimeInMilliseconds;
     }
+
+    @Override
+    public Integer getMaxConcurrentReceives() {
+        return maxConcurrentReceives;
+    }
+
+    @Override
+    public RequiredMessageAttributes getRequiredMessageAttributes() {
+        return requiredMessageAttributes;
+    }
+
+    @Override
+    public Boolean shouldAdaptPrefetchWindow() {
+        return shouldAdaptPrefetchWindow;
+    }
+
+    @Override
+    public Integer getVisibilityTimeoutExpiryThresholdInSeconds() {
+        return visibilityTimeoutExpiryThresholdInSeconds;
+    }
 }
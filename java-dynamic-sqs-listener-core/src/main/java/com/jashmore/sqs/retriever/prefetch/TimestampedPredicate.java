@@ -0,0 +1,19 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+/**
+ * Predicate that is tested against an element along with the timestamp that it was stored with, so that the timestamp does not need to be wrapped with
+ * the element in another object.
+ *
+ * @param <E> the type of the element
+ */
+@FunctionalInterface
+interface TimestampedPredicate<E> {
+    /**
+     * Evaluate the predicate on the element and its timestamp.
+     *
+     * @param element   the element to test
+     * @param timestamp the timestamp of the element
+     * @return whether the element matches the predicate
+     */
+    boolean test(E element, long timestamp);
+}
@@ -14,6 +14,7 @@ import com.jashmore.sqs.argument.payload.Payload;
 import com.jashmore.sqs.argument.payload.PayloadArgumentResolver;
 import com.jashmore.sqs.argument.payload.mapper.JacksonPayloadMapper;
 import com.jashmore.sqs.argument.payload.mapper.PayloadMapper;
+import com.jashmore.sqs.processor.argument.Acknowledge;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -123,6 +124,57 @@ public class CoreArgumentResolverServiceTest {
         assertThat(payloadArgument).isInstanceOf(MessageArgumentResolver.class);
     }
 
+    @Test
+    void requiredMessageAttributesForMethodWithMessageParameterWillRequireAllAttributes() throws Exception {
+        // arrange
+        final Method method = CoreArgumentResolverServiceTest.class.getMethod("method", Map.class, String.class, String.class, String.class, Message.class);
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = service.getRequiredMessageAttributes(method);
+
+        // assert
+        assertThat(requiredMessageAttributes).isEqualTo(RequiredMessageAttributes.all());
+    }
+
+    @Test
+    void requiredMessageAttributesOnlyIncludesTheAttributesUsedByTheMethodParameters() throws Exception {
+        // arrange
+        final Method method = CoreArgumentResolverServiceTest.class.getMethod("methodWithoutMessage", Map.class, String.class, String.class,
+                Acknowledge.class);
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = service.getRequiredMessageAttributes(method);
+
+        // assert
+        assertThat(requiredMessageAttributes.getMessageAttributeNames()).containsExactly("key");
+        assertThat(requiredMessageAttributes.getMessageSystemAttributeNames()).containsExactly(MessageSystemAttributeName.SEQUENCE_NUMBER.toString());
+    }
+
+    @Test
+    void requiredMessageAttributesForMethodOnlyConsumingPayloadWillRequireNoAttributes() throws Exception {
+        // arrange
+        final Method method = CoreArgumentResolverServiceTest.class.getMethod("payloadOnlyMethod", Map.class);
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = service.getRequiredMessageAttributes(method);
+
+        // assert
+        assertThat(requiredMessageAttributes).isEqualTo(RequiredMessageAttributes.none());
+    }
+
+    @SuppressWarnings( {"unused"})
+    public void methodWithoutMessage(@Payload final Map<String, String> payload,
+                                     @MessageAttribute("key") final String attribute,
+                                     @MessageSystemAttribute(MessageSystemAttributeName.SEQUENCE_NUMBER) final String sequenceNumber,
+                                     final Acknowledge acknowledge) {
+
+    }
+
+    @SuppressWarnings( {"unused"})
+    public void payloadOnlyMethod(@Payload final Map<String, String> payload) {
+
+    }
+
     @SuppressWarnings( {"unused"})
     public void method(@Payload final Map<String, String> payload,
                        @MessageId final String messageId,
@@ -6,6 +6,7 @@ import com.google.common.collect.ImmutableMap;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jashmore.sqs.argument.ArgumentResolutionException;
+import com.jashmore.sqs.argument.BoundArgumentResolver;
 import com.jashmore.sqs.argument.DefaultMethodParameter;
 import com.jashmore.sqs.argument.MethodParameter;
 import lombok.Builder;
@@ -515,6 +516,43 @@ class MessageAttributeArgumentResolverTest {
         assertThat(exception).hasMessage("Failure to parse binary bytes to '" + MyPojo.class.getName() + "'");
     }
 
+    @Test
+    void boundResolverCanResolveArgumentsForMultipleMessagesWithDifferentDataTypes() throws Exception {
+        // arrange
+        final Method method = MessageAttributeArgumentResolverTest.class.getMethod("consume", MyPojo.class);
+        final MethodParameter methodParameter = DefaultMethodParameter.builder()
+                .method(method)
+                .parameter(method.getParameters()[0])
+                .parameterIndex(0)
+                .build();
+        final BoundArgumentResolver<Object> boundArgumentResolver = messageAttributeArgumentResolver.bind(null, methodParameter);
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final Message stringMessage = Message.builder()
+                .messageAttributes(ImmutableMap.of(
+                        "pojo", MessageAttributeValue.builder()
+                                .dataType(MessageAttributeDataTypes.STRING.getValue())
+                                .stringValue(objectMapper.writeValueAsString(MyPojo.builder().name("first").build()))
+                                .build()
+                ))
+                .build();
+        final Message binaryMessage = Message.builder()
+                .messageAttributes(ImmutableMap.of(
+                        "pojo", MessageAttributeValue.builder()
+                                .dataType(MessageAttributeDataTypes.BINARY.getValue())
+                                .binaryValue(SdkBytes.fromByteArray(objectMapper.writeValueAsBytes(MyPojo.builder().name("second").build())))
+                                .build()
+                ))
+                .build();
+
+        // act
+        final Object firstValue = boundArgumentResolver.resolveArgument(stringMessage);
+        final Object secondValue = boundArgumentResolver.resolveArgument(binaryMessage);
+
+        // assert
+        assertThat(firstValue).isEqualTo(MyPojo.builder().name("first").build());
+        assertThat(secondValue).isEqualTo(MyPojo.builder().name("second").build());
+    }
+
     @SuppressWarnings( {"unused", "WeakerAccess"})
     public void consume(@MessageAttribute("string") final String messageAttribute) {
     }
@@ -10,8 +10,10 @@ import static software.amazon.awssdk.services.sqs.model.MessageSystemAttributeNa
 import com.google.common.collect.ImmutableMap;
 
 import com.jashmore.sqs.argument.ArgumentResolutionException;
+import com.jashmore.sqs.argument.BoundArgumentResolver;
 import com.jashmore.sqs.argument.DefaultMethodParameter;
 import com.jashmore.sqs.argument.MethodParameter;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.sqs.model.Message;
 
@@ -332,6 +334,57 @@ public class MessageSystemAttributeArgumentResolverTest {
         assertThat(canResolve).isFalse();
     }
 
+    @Test
+    public void requiredMessageAttributesIsTheSystemAttributeInTheAnnotation() throws Exception {
+        // arrange
+        final Method method = MessageSystemAttributeArgumentResolverTest.class.getMethod("consume", String.class);
+        final MethodParameter methodParameter = DefaultMethodParameter.builder()
+                .method(method)
+                .parameter(method.getParameters()[0])
+                .parameterIndex(0)
+                .build();
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = messageSystemAttributeArgumentResolver.getRequiredMessageAttributes(methodParameter);
+
+        // assert
+        assertThat(requiredMessageAttributes).isEqualTo(RequiredMessageAttributes.messageSystemAttributes(SENDER_ID));
+    }
+
+    @Test
+    public void boundResolverCanResolveArgumentsForMultipleMessages() throws Exception {
+        // arrange
+        final Method method = MessageSystemAttributeArgumentResolverTest.class.getMethod("consume", Integer.class);
+        final MethodParameter methodParameter = DefaultMethodParameter.builder()
+                .method(method)
+                .parameter(method.getParameters()[0])
+                .parameterIndex(0)
+                .build();
+        final BoundArgumentResolver<Object> boundArgumentResolver = messageSystemAttributeArgumentResolver.bind(null, methodParameter);
+
+        // act
+        final Object firstValue = boundArgumentResolver.resolveArgument(Message.builder().attributes(ImmutableMap.of(SEQUENCE_NUMBER, "1")).build());
+        final Object secondValue = boundArgumentResolver.resolveArgument(Message.builder().attributes(ImmutableMap.of(SEQUENCE_NUMBER, "2")).build());
+
+        // assert
+        assertThat(firstValue).isEqualTo(1);
+        assertThat(secondValue).isEqualTo(2);
+    }
+
+    @Test
+    public void bindingParameterWithoutAnnotationWillThrowArgumentResolutionException() throws Exception {
+        // arrange
+        final Method method = MessageSystemAttributeArgumentResolverTest.class.getMethod("consume", String.class, String.class);
+        final MethodParameter methodParameter = DefaultMethodParameter.builder()
+                .method(method)
+                .parameter(method.getParameters()[0])
+                .parameterIndex(0)
+                .build();
+
+        // act
+        assertThrows(ArgumentResolutionException.class, () -> messageSystemAttributeArgumentResolver.bind(null, methodParameter));
+    }
+
     public void consume(@MessageSystemAttribute(SENDER_ID) final String senderId) {
     }
 
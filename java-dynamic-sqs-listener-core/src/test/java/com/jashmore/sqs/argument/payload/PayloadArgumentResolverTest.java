@@ -2,6 +2,8 @@ package com.jashmore.sqs.argument.payload;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 import com.jashmore.sqs.QueueProperties;
@@ -18,6 +20,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.sqs.model.Message;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
 
 @ExtendWith(MockitoExtension.class)
 class PayloadArgumentResolverTest {
@@ -63,7 +69,7 @@ class PayloadArgumentResolverTest {
         // arrange
         final MethodParameter stringParameter = getParameter(1);
         final Message message = Message.builder().build();
-        when(payloadMapper.map(message, Pojo.class)).thenThrow(new PayloadMappingException("Error"));
+        when(payloadMapper.map(message, (Type) Pojo.class)).thenThrow(new PayloadMappingException("Error"));
 
         // act
         final ArgumentResolutionException exception = assertThrows(ArgumentResolutionException.class,
@@ -78,7 +84,27 @@ class PayloadArgumentResolverTest {
         final MethodParameter parameter = getParameter(1);
         final Message message = Message.builder().build();
         final Pojo parsedObject = new Pojo("test");
-        when(payloadMapper.map(message, Pojo.class)).thenReturn(parsedObject);
+        when(payloadMapper.map(message, (Type) Pojo.class)).thenReturn(parsedObject);
+
+        // act
+        final Object argument = payloadArgumentResolver.resolveArgumentForParameter(queueProperties, parameter, message);
+
+        // assert
+        assertThat(argument).isEqualTo(parsedObject);
+    }
+
+    @Test
+    void genericPayloadParameterIsMappedWithTheGenericType() {
+        // arrange
+        final MethodParameter parameter = getParameter(3);
+        final Message message = Message.builder().build();
+        final List<Pojo> parsedObject = Collections.singletonList(new Pojo("test"));
+        when(payloadMapper.map(eq(message), any(ParameterizedType.class))).thenAnswer(invocation -> {
+            final ParameterizedType type = invocation.getArgument(1);
+            assertThat(type.getRawType()).isEqualTo(List.class);
+            assertThat(type.getActualTypeArguments()).containsExactly(Pojo.class);
+            return parsedObject;
+        });
 
         // act
         final Object argument = payloadArgumentResolver.resolveArgumentForParameter(queueProperties, parameter, message);
@@ -88,13 +114,14 @@ class PayloadArgumentResolverTest {
     }
 
     @SuppressWarnings( {"unused"})
-    public void method(@Payload final String payloadString, @Payload final Pojo payloadPojo, final String parameterWithNoPayloadAnnotation) {
+    public void method(@Payload final String payloadString, @Payload final Pojo payloadPojo, final String parameterWithNoPayloadAnnotation,
+                       @Payload final List<Pojo> payloadPojos) {
 
     }
 
     private MethodParameter getParameter(final int index) {
         try {
-            final Method method = PayloadArgumentResolverTest.class.getMethod("method", String.class, Pojo.class, String.class);
+            final Method method = PayloadArgumentResolverTest.class.getMethod("method", String.class, Pojo.class, String.class, List.class);
             return DefaultMethodParameter.builder()
                     .method(method)
                     .parameter(method.getParameters()[index])
@@ -2,29 +2,29 @@ package com.jashmore.sqs.argument.payload.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.sqs.model.Message;
 
 import java.io.IOException;
+import java.util.List;
 
-@ExtendWith(MockitoExtension.class)
 class JacksonPayloadMapperTest {
-    @Mock
     private ObjectMapper objectMapper;
 
     private PayloadMapper payloadMapper;
 
     @BeforeEach
     void setUp() {
+        objectMapper = spy(new ObjectMapper());
         payloadMapper = new JacksonPayloadMapper(objectMapper);
     }
 
@@ -41,44 +41,73 @@ class JacksonPayloadMapperTest {
     }
 
     @Test
-    void payloadContainerPojoCanBeMappedToObject() throws IOException {
+    void payloadContainerPojoCanBeMappedToObject() {
         // arrange
-        final Message message = Message.builder().body("body").build();
-        final Pojo parsedObject = new Pojo("test");
-        when(objectMapper.readValue(anyString(), eq(Pojo.class))).thenReturn(parsedObject);
+        final Message message = Message.builder().body("{\"field\": \"test\"}").build();
 
         // act
         final Object argument = payloadMapper.map(message, Pojo.class);
 
         // assert
-        assertThat(argument).isEqualTo(parsedObject);
+        assertThat(argument).isInstanceOf(Pojo.class);
+        assertThat(((Pojo) argument).getField()).isEqualTo("test");
     }
 
     @Test
-    void errorBuildingPayloadThrowsArgumentResolutionException() throws IOException {
+    void genericPayloadCanBeMappedUsingTheGenericType() throws NoSuchMethodException {
         // arrange
-        final Message message = Message.builder().body("test").build();
-        when(objectMapper.readValue(anyString(), eq(Pojo.class))).thenThrow(new IOException());
+        final Message message = Message.builder().body("[{\"field\": \"first\"}, {\"field\": \"second\"}]").build();
+
+        // act
+        final Object argument = payloadMapper.map(message, JacksonPayloadMapperTest.class.getMethod("method", List.class).getGenericParameterTypes()[0]);
+
+        // assert
+        assertThat(argument).asList()
+                .extracting(pojo -> ((Pojo) pojo).getField())
+                .containsExactly("first", "second");
+    }
+
+    @Test
+    void objectReaderIsOnlyBuiltOnceForEachType() {
+        // arrange
+        final Message message = Message.builder().body("{\"field\": \"test\"}").build();
+
+        // act
+        payloadMapper.map(message, Pojo.class);
+        payloadMapper.map(message, Pojo.class);
+
+        // assert
+        verify(objectMapper, times(1)).readerFor(any(JavaType.class));
+    }
+
+    @Test
+    void errorBuildingPayloadThrowsArgumentResolutionException() {
+        // arrange
+        final Message message = Message.builder().body("{invalid").build();
 
         // act
         final PayloadMappingException exception = assertThrows(PayloadMappingException.class, () -> payloadMapper.map(message, Pojo.class));
 
         // assert
-        assertThat(exception.getCause()).isInstanceOf(IOException.class);
+        assertThat(exception.getCause()).isInstanceOf(JsonProcessingException.class).isInstanceOf(IOException.class);
+    }
+
+    @SuppressWarnings("unused")
+    public void method(final List<Pojo> pojos) {
+
     }
 
     @SuppressWarnings("WeakerAccess")
     public static class Pojo {
-        private final String field;
+        private String field;
 
-        public Pojo(final String field) {
-            this.field = field;
+        public String getField() {
+            return field;
         }
 
         @SuppressWarnings("unused")
-        String getField() {
-            return field;
+        public void setField(final String field) {
+            this.field = field;
         }
     }
-
 }
@@ -0,0 +1,49 @@
+package com.jashmore.sqs.argument.payload.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+class PayloadMapperTest {
+    private final PayloadMapper payloadMapper = (message, clazz) -> clazz;
+
+    @Test
+    void classTypeWillBeMappedUsingTheClass() {
+        // act
+        final Object argument = payloadMapper.map(Message.builder().build(), (Type) String.class);
+
+        // assert
+        assertThat(argument).isEqualTo(String.class);
+    }
+
+    @Test
+    void parameterizedTypeWillBeMappedUsingTheRawClass() throws NoSuchMethodException {
+        // arrange
+        final Type type = PayloadMapperTest.class.getMethod("method", List.class, Object.class).getGenericParameterTypes()[0];
+
+        // act
+        final Object argument = payloadMapper.map(Message.builder().build(), type);
+
+        // assert
+        assertThat(argument).isEqualTo(List.class);
+    }
+
+    @Test
+    void otherTypesCannotBeMapped() throws NoSuchMethodException {
+        // arrange
+        final Type type = PayloadMapperTest.class.getMethod("method", List.class, Object.class).getGenericParameterTypes()[1];
+
+        // act
+        assertThrows(PayloadMappingException.class, () -> payloadMapper.map(Message.builder().build(), type));
+    }
+
+    @SuppressWarnings("unused")
+    public <T> void method(final List<String> strings, final T value) {
+
+    }
+}
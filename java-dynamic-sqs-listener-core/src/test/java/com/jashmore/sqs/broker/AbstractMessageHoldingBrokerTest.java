@@ -0,0 +1,71 @@
+package com.jashmore.sqs.broker;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+class AbstractMessageHoldingBrokerTest {
+    private ExecutorService brokerExecutorService;
+    private ExecutorService messageProcessingExecutorService;
+    private BlockingQueue<CompletableFuture<Message>> messageRequests;
+
+    @BeforeEach
+    void setUp() {
+        brokerExecutorService = Executors.newSingleThreadExecutor();
+        messageProcessingExecutorService = Executors.newCachedThreadPool();
+        messageRequests = new LinkedBlockingQueue<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerExecutorService.shutdownNow();
+        messageProcessingExecutorService.shutdownNow();
+    }
+
+    @Test
+    void messageThatFailedToBeAddedWillNoLongerBeHeld() throws Exception {
+        // arrange
+        final AbstractMessageHoldingBroker broker = new AbstractMessageHoldingBroker(() -> 100L, () -> 0L) {
+            @Override
+            protected void updatePropertiesIfChanged(final ExecutorService messageProcessingExecutorService,
+                                                     final Function<Message, CompletableFuture<?>> messageProcessor) {
+                changeMaximumNumberOfMessagesHeld(1);
+            }
+
+            @Override
+            protected void addMessage(final Message message,
+                                      final ExecutorService messageProcessingExecutorService,
+                                      final Function<Message, CompletableFuture<?>> messageProcessor) {
+                throw new ExpectedTestException();
+            }
+        };
+        brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> {
+                final CompletableFuture<Message> messageFuture = new CompletableFuture<>();
+                messageRequests.add(messageFuture);
+                return messageFuture;
+            }, message -> CompletableFuture.completedFuture(null));
+            return null;
+        });
+        final CompletableFuture<Message> firstMessageRequest = messageRequests.poll(5, SECONDS);
+        assertThat(firstMessageRequest).isNotNull();
+
+        // act
+        firstMessageRequest.complete(Message.builder().messageId("first").build());
+
+        // assert
+        assertThat(messageRequests.poll(5, SECONDS)).isNotNull();
+    }
+}
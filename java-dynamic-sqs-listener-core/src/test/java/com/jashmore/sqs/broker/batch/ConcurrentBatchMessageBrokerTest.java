@@ -0,0 +1,269 @@
+package com.jashmore.sqs.broker.batch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jashmore.sqs.util.ExpectedTestException;
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ConcurrentBatchMessageBrokerTest {
+    private static final StaticConcurrentBatchMessageBrokerProperties DEFAULT_PROPERTIES = StaticConcurrentBatchMessageBrokerProperties.builder()
+            .maxBatchSize(3)
+            .maxBatchingPeriodInMs(60_000L)
+            .concurrencyLevel(1)
+            .concurrencyPollingRateInMilliseconds(100L)
+            .errorBackoffTimeInMilliseconds(0L)
+            .build();
+
+    private final AtomicInteger messageCount = new AtomicInteger();
+    private ExecutorService brokerExecutorService;
+    private ExecutorService messageProcessingExecutorService;
+    private BlockingQueue<List<Message>> processedBatches;
+    private List<Integer> requestedNumberOfMessages;
+
+    @BeforeEach
+    void setUp() {
+        brokerExecutorService = Executors.newSingleThreadExecutor();
+        messageProcessingExecutorService = Executors.newCachedThreadPool();
+        processedBatches = new LinkedBlockingQueue<>();
+        requestedNumberOfMessages = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerExecutorService.shutdownNow();
+        messageProcessingExecutorService.shutdownNow();
+    }
+
+    @Test
+    void fullBatchOfMessagesWillBeRequestedAndProcessedWithASingleInvocation() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+
+        // act
+        runBroker(broker, this::completedMessagesRequest, this::recordBatch);
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).hasSize(3);
+        assertThat(requestedNumberOfMessages.get(0)).isEqualTo(3);
+    }
+
+    @Test
+    void remainingMessagesOfTheBatchWillBeRequestedUntilTheBatchIsFull() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+
+        // act
+        runBroker(broker, numberOfMessages -> completedMessagesRequest(1), this::recordBatch);
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).hasSize(3);
+        assertThat(new ArrayList<>(requestedNumberOfMessages).subList(0, 3)).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void partialBatchWillBeProcessedWhenTheMaxBatchingPeriodElapses() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES.toBuilder()
+                .maxBatchingPeriodInMs(100L)
+                .build());
+        final AtomicInteger numberOfRequests = new AtomicInteger();
+
+        // act
+        runBroker(broker, numberOfMessages -> {
+            if (numberOfRequests.incrementAndGet() == 1) {
+                return completedMessagesRequest(1);
+            }
+            return new CompletableFuture<>();
+        }, this::recordBatch);
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).hasSize(1);
+        assertThat(numberOfRequests).hasValue(2);
+    }
+
+    @Test
+    void requestForMessagesThatWasNotResolvedInTimeWillBeUsedForTheNextBatch() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES.toBuilder()
+                .maxBatchingPeriodInMs(100L)
+                .build());
+        final BlockingQueue<CompletableFuture<List<Message>>> messageRequests = new LinkedBlockingQueue<>();
+        runBroker(broker, numberOfMessages -> {
+            final CompletableFuture<List<Message>> messagesRequest = new CompletableFuture<>();
+            messageRequests.add(messagesRequest);
+            return messagesRequest;
+        }, this::recordBatch);
+        final Message firstMessage = Message.builder().messageId("first").build();
+        final Message secondMessage = Message.builder().messageId("second").build();
+        messageRequests.poll(5, SECONDS).complete(Collections.singletonList(firstMessage));
+        assertThat(processedBatches.poll(5, SECONDS)).containsExactly(firstMessage);
+        final CompletableFuture<List<Message>> unresolvedRequest = messageRequests.poll(5, SECONDS);
+
+        // act
+        unresolvedRequest.complete(Collections.singletonList(secondMessage));
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).containsExactly(secondMessage);
+    }
+
+    @Test
+    void numberOfBatchesBeingProcessedConcurrentlyIsLimitedByTheConcurrencyLevel() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES.toBuilder()
+                .concurrencyLevel(2)
+                .build());
+
+        // act
+        runBroker(broker, this::completedMessagesRequest, batch -> {
+            processedBatches.add(batch);
+            return new CompletableFuture<>();
+        });
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).isNotNull();
+        assertThat(processedBatches.poll(5, SECONDS)).isNotNull();
+        assertThat(processedBatches.poll(500, MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void nextBatchWillBeRequestedWhenABatchHasFinishedProcessing() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+        final CompletableFuture<?> firstBatchProcessed = new CompletableFuture<>();
+        final AtomicInteger numberOfBatches = new AtomicInteger();
+        runBroker(broker, this::completedMessagesRequest, batch -> {
+            processedBatches.add(batch);
+            return numberOfBatches.incrementAndGet() == 1 ? firstBatchProcessed : CompletableFuture.completedFuture(null);
+        });
+        assertThat(processedBatches.poll(5, SECONDS)).isNotNull();
+
+        // act
+        firstBatchProcessed.complete(null);
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).isNotNull();
+    }
+
+    @Test
+    void failedRequestForMessagesWillNotStopTheNextBatchFromBeingRequested() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+        final AtomicInteger numberOfRequests = new AtomicInteger();
+
+        // act
+        runBroker(broker, numberOfMessages -> {
+            if (numberOfRequests.incrementAndGet() == 1) {
+                return CompletableFutureUtils.completedExceptionally(new ExpectedTestException());
+            }
+            return completedMessagesRequest(numberOfMessages);
+        }, this::recordBatch);
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).hasSize(3);
+    }
+
+    @Test
+    void exceptionThrownRequestingMessagesWillBackOffAndTryAgain() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+        final AtomicInteger numberOfRequests = new AtomicInteger();
+
+        // act
+        runBroker(broker, numberOfMessages -> {
+            if (numberOfRequests.incrementAndGet() == 1) {
+                throw new ExpectedTestException();
+            }
+            return completedMessagesRequest(numberOfMessages);
+        }, this::recordBatch);
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).hasSize(3);
+    }
+
+    @Test
+    void batchThatFailsToBeProcessedWillStillAllowTheNextBatchToBeProcessed() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+
+        // act
+        runBroker(broker, this::completedMessagesRequest, batch -> {
+            processedBatches.add(batch);
+            return CompletableFutureUtils.completedExceptionally(new ExpectedTestException());
+        });
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).isNotNull();
+        assertThat(processedBatches.poll(5, SECONDS)).isNotNull();
+    }
+
+    @Test
+    void requestForMessagesThatIsResolvedAfterTheBrokerStopsWillStillBeProcessed() throws Exception {
+        // arrange
+        final ConcurrentBatchMessageBroker broker = new ConcurrentBatchMessageBroker(DEFAULT_PROPERTIES);
+        final CompletableFuture<List<Message>> messagesRequest = new CompletableFuture<>();
+        final CountDownLatch messagesRequested = new CountDownLatch(1);
+        final Future<?> brokerFuture = runBroker(broker, numberOfMessages -> {
+            if (messagesRequested.getCount() == 0) {
+                return new CompletableFuture<>();
+            }
+            messagesRequested.countDown();
+            return messagesRequest;
+        }, this::recordBatch);
+        final Message message = Message.builder().messageId("id").build();
+        assertThat(messagesRequested.await(5, SECONDS)).isTrue();
+        brokerFuture.cancel(true);
+
+        // act
+        messagesRequest.complete(Collections.singletonList(message));
+
+        // assert
+        assertThat(processedBatches.poll(5, SECONDS)).containsExactly(message);
+    }
+
+    private Future<?> runBroker(final ConcurrentBatchMessageBroker broker,
+                                final IntFunction<CompletableFuture<List<Message>>> messagesSupplier,
+                                final Function<List<Message>, CompletableFuture<?>> batchProcessor) {
+        return brokerExecutorService.submit(() -> {
+            broker.processMessageBatches(messageProcessingExecutorService, () -> true, numberOfMessages -> {
+                requestedNumberOfMessages.add(numberOfMessages);
+                return messagesSupplier.apply(numberOfMessages);
+            }, batchProcessor);
+            return null;
+        });
+    }
+
+    private CompletableFuture<List<Message>> completedMessagesRequest(final int numberOfMessages) {
+        final List<Message> messages = IntStream.range(0, numberOfMessages)
+                .mapToObj(index -> Message.builder().messageId(String.valueOf(messageCount.incrementAndGet())).build())
+                .collect(Collectors.toCollection(ArrayList::new));
+        return CompletableFuture.completedFuture(messages);
+    }
+
+    private CompletableFuture<?> recordBatch(final List<Message> batch) {
+        processedBatches.add(batch);
+        return CompletableFuture.completedFuture(null);
+    }
+}
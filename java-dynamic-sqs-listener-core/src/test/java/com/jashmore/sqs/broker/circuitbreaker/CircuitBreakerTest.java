@@ -0,0 +1,194 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CircuitBreakerTest {
+    private static final StaticCircuitBreakerProperties DEFAULT_PROPERTIES = StaticCircuitBreakerProperties.builder()
+            .failureRateThreshold(0.5)
+            .windowSize(4)
+            .openDurationInMs(10_000L)
+            .numberOfProbeMessages(2)
+            .build();
+
+    private AtomicLong currentTimeInNanoseconds;
+
+    @BeforeEach
+    void setUp() {
+        currentTimeInNanoseconds = new AtomicLong();
+    }
+
+    @Test
+    void circuitWillNotOpenUntilTheWindowIsFull() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+
+        // act
+        recordOutcomes(circuitBreaker, false, false, false);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    void circuitWillOpenOnceTheFailureRateReachesTheThreshold() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+
+        // act
+        recordOutcomes(circuitBreaker, true, false, true, false);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+        assertThat(circuitBreaker.getTimeUntilNextPermitInNanoseconds()).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void onlyTheMostRecentMessagesAreUsedToCalculateTheFailureRate() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+
+        // act
+        recordOutcomes(circuitBreaker, true, true, true, true, true, true, true, true, false, false);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void onlyTheProbeMessagesAreAllowedOnceTheOpenDurationHasElapsed() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+        recordOutcomes(circuitBreaker, false, false, false, false);
+
+        // act
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // assert
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void successfulProbeMessagesWillCloseTheCircuit() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+        recordOutcomes(circuitBreaker, false, false, false, false);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit firstProbePermit = circuitBreaker.tryAcquire();
+        final CircuitBreaker.Permit secondProbePermit = circuitBreaker.tryAcquire();
+
+        // act
+        circuitBreaker.onMessageProcessed(firstProbePermit, true);
+        circuitBreaker.onMessageProcessed(secondProbePermit, true);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    void failedProbeMessageWillOpenTheCircuitAgain() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+        recordOutcomes(circuitBreaker, false, false, false, false);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit probePermit = circuitBreaker.tryAcquire();
+
+        // act
+        circuitBreaker.onMessageProcessed(probePermit, false);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+        assertThat(circuitBreaker.getTimeUntilNextPermitInNanoseconds()).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void messagesRequestedBeforeTheCircuitOpenedAreNotCountedAsProbeMessages() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+        final CircuitBreaker.Permit firstPermitBeforeOpening = circuitBreaker.tryAcquire();
+        final CircuitBreaker.Permit secondPermitBeforeOpening = circuitBreaker.tryAcquire();
+        recordOutcomes(circuitBreaker, false, false, false, false);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+
+        // act
+        circuitBreaker.onMessageProcessed(firstPermitBeforeOpening, true);
+        circuitBreaker.onMessageProcessed(secondPermitBeforeOpening, false);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void probeMessagesFinishingAfterTheCircuitOpenedAgainAreIgnored() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker();
+        recordOutcomes(circuitBreaker, false, false, false, false);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit firstProbePermit = circuitBreaker.tryAcquire();
+        final CircuitBreaker.Permit secondProbePermit = circuitBreaker.tryAcquire();
+        circuitBreaker.onMessageProcessed(firstProbePermit, false);
+
+        // act
+        circuitBreaker.onMessageProcessed(secondProbePermit, true);
+        circuitBreaker.releaseUnusedPermit(secondProbePermit);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void releasingAnUnusedPermitWhileHalfOpenWillAllowAnotherProbeMessage() {
+        // arrange
+        final CircuitBreaker circuitBreaker = buildCircuitBreaker(DEFAULT_PROPERTIES.toBuilder().numberOfProbeMessages(1).build());
+        recordOutcomes(circuitBreaker, false, false, false, false);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        final CircuitBreaker.Permit probePermit = circuitBreaker.tryAcquire();
+        assertThat(probePermit).isNotNull();
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+
+        // act
+        circuitBreaker.releaseUnusedPermit(probePermit);
+
+        // assert
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+    }
+
+    private CircuitBreaker buildCircuitBreaker() {
+        return buildCircuitBreaker(DEFAULT_PROPERTIES);
+    }
+
+    private CircuitBreaker buildCircuitBreaker(final CircuitBreakerProperties properties) {
+        return new CircuitBreaker(properties, currentTimeInNanoseconds::get);
+    }
+
+    /**
+     * Process a message for each of the outcomes while the circuit is closed, where all of the permits are obtained before any of the messages finish.
+     */
+    private static void recordOutcomes(final CircuitBreaker circuitBreaker, final boolean... outcomes) {
+        final List<CircuitBreaker.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < outcomes.length; ++i) {
+            permits.add(circuitBreaker.tryAcquire());
+        }
+        for (int i = 0; i < outcomes.length; ++i) {
+            circuitBreaker.onMessageProcessed(permits.get(i), outcomes[i]);
+        }
+    }
+}
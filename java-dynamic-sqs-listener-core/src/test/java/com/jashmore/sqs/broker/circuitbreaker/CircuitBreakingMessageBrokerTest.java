@@ -0,0 +1,120 @@
+package com.jashmore.sqs.broker.circuitbreaker;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jashmore.sqs.broker.concurrent.ConcurrentMessageBroker;
+import com.jashmore.sqs.broker.concurrent.StaticConcurrentMessageBrokerProperties;
+import com.jashmore.sqs.util.ExpectedTestException;
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CircuitBreakingMessageBrokerTest {
+    private static final StaticConcurrentMessageBrokerProperties CONCURRENT_PROPERTIES = StaticConcurrentMessageBrokerProperties.builder()
+            .concurrencyLevel(1)
+            .preferredConcurrencyPollingRateInMilliseconds(100L)
+            .errorBackoffTimeInMilliseconds(0L)
+            .build();
+    private static final StaticCircuitBreakerProperties CIRCUIT_BREAKER_PROPERTIES = StaticCircuitBreakerProperties.builder()
+            .failureRateThreshold(0.5)
+            .windowSize(2)
+            .openDurationInMs(60_000L)
+            .build();
+
+    private ExecutorService brokerExecutorService;
+    private ExecutorService messageProcessingExecutorService;
+
+    @BeforeEach
+    void setUp() {
+        brokerExecutorService = Executors.newCachedThreadPool();
+        messageProcessingExecutorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerExecutorService.shutdownNow();
+        messageProcessingExecutorService.shutdownNow();
+    }
+
+    @Test
+    void messagesWillNotBeRequestedOnceTheCircuitIsOpen() throws Exception {
+        // arrange
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(CIRCUIT_BREAKER_PROPERTIES);
+        final CircuitBreakingMessageBroker broker = new CircuitBreakingMessageBroker(new ConcurrentMessageBroker(CONCURRENT_PROPERTIES), circuitBreaker);
+        final AtomicInteger numberOfMessagesRequested = new AtomicInteger();
+        final CountDownLatch messagesProcessedLatch = new CountDownLatch(2);
+
+        // act
+        brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> {
+                numberOfMessagesRequested.incrementAndGet();
+                return CompletableFuture.completedFuture(Message.builder().build());
+            }, message -> {
+                messagesProcessedLatch.countDown();
+                return CompletableFutureUtils.completedExceptionally(new ExpectedTestException());
+            });
+            return null;
+        });
+        assertThat(messagesProcessedLatch.await(5, SECONDS)).isTrue();
+        Thread.sleep(300);
+
+        // assert
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(numberOfMessagesRequested.get()).isEqualTo(2);
+    }
+
+    @Test
+    void successfulMessagesWillKeepTheCircuitClosed() throws Exception {
+        // arrange
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(CIRCUIT_BREAKER_PROPERTIES);
+        final CircuitBreakingMessageBroker broker = new CircuitBreakingMessageBroker(new ConcurrentMessageBroker(CONCURRENT_PROPERTIES), circuitBreaker);
+        final CountDownLatch messagesProcessedLatch = new CountDownLatch(10);
+
+        // act
+        brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> CompletableFuture.completedFuture(Message.builder().build()), message -> {
+                messagesProcessedLatch.countDown();
+                return CompletableFuture.completedFuture(null);
+            });
+            return null;
+        });
+
+        // assert
+        assertThat(messagesProcessedLatch.await(5, SECONDS)).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void interruptingBrokerWhileTheCircuitIsOpenWillStopProcessingMessages() throws Exception {
+        // arrange
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(CIRCUIT_BREAKER_PROPERTIES);
+        final CircuitBreaker.Permit firstPermit = circuitBreaker.acquire();
+        final CircuitBreaker.Permit secondPermit = circuitBreaker.acquire();
+        circuitBreaker.onMessageProcessed(firstPermit, false);
+        circuitBreaker.onMessageProcessed(secondPermit, false);
+        final CircuitBreakingMessageBroker broker = new CircuitBreakingMessageBroker(new ConcurrentMessageBroker(CONCURRENT_PROPERTIES), circuitBreaker);
+        final Future<?> brokerFuture = brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> CompletableFuture.completedFuture(Message.builder().build()),
+                    message -> CompletableFuture.completedFuture(null));
+            return null;
+        });
+        Thread.sleep(100);
+
+        // act
+        brokerExecutorService.shutdownNow();
+
+        // assert
+        assertThat(brokerExecutorService.awaitTermination(5, SECONDS)).isTrue();
+        assertThat(brokerFuture).isDone();
+    }
+}
@@ -0,0 +1,158 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long FAST_PROCESSING_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW_PROCESSING_TIME = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final StaticAdaptiveConcurrencyLimitProperties DEFAULT_PROPERTIES = StaticAdaptiveConcurrencyLimitProperties.builder()
+            .minimumConcurrencyLevel(1)
+            .maximumConcurrencyLevel(20)
+            .initialConcurrencyLevel(10)
+            .latencyToleranceRatio(2.0)
+            .backoffRatio(0.5)
+            .errorRateThreshold(0.1)
+            .build();
+
+    @Test
+    void initialConcurrencyLevelIsUsedBeforeAnyMessagesAreProcessed() {
+        // act
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(10);
+    }
+
+    @Test
+    void missingInitialConcurrencyLevelWillStartAtTheMinimum() {
+        // act
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES.toBuilder()
+                .minimumConcurrencyLevel(3)
+                .initialConcurrencyLevel(null)
+                .build());
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(3);
+    }
+
+    @Test
+    void windowOfSuccessfulMessagesWillIncreaseTheLimitByOne() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES);
+
+        // act
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, true);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(11);
+    }
+
+    @Test
+    void limitWillNotChangeUntilTheWindowIsFull() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES);
+
+        // act
+        processMessages(concurrencyLimit, 9, FAST_PROCESSING_TIME, true);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(10);
+    }
+
+    @Test
+    void limitWillNotIncreaseAboveTheMaximum() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES.toBuilder()
+                .maximumConcurrencyLevel(10)
+                .build());
+
+        // act
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, true);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(10);
+    }
+
+    @Test
+    void increaseInProcessingTimeWillBackOffTheLimit() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES);
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, true);
+
+        // act
+        processMessages(concurrencyLimit, 11, SLOW_PROCESSING_TIME, true);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(5);
+    }
+
+    @Test
+    void errorRateAboveThresholdWillBackOffTheLimit() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES);
+
+        // act
+        processMessages(concurrencyLimit, 8, FAST_PROCESSING_TIME, true);
+        processMessages(concurrencyLimit, 2, FAST_PROCESSING_TIME, false);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(5);
+    }
+
+    @Test
+    void limitWillNotBackOffBelowTheMinimum() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES.toBuilder()
+                .minimumConcurrencyLevel(8)
+                .build());
+
+        // act
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, false);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(8);
+    }
+
+    @Test
+    void limitWillRampBackUpWhenProcessingTimeRecovers() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES);
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, true);
+        processMessages(concurrencyLimit, 11, SLOW_PROCESSING_TIME, true);
+
+        // act
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, true);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(6);
+    }
+
+    @Test
+    void invalidRatiosWillUseTheDefaultValues() {
+        // arrange
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(DEFAULT_PROPERTIES.toBuilder()
+                .backoffRatio(2.0)
+                .errorRateThreshold(-1.0)
+                .latencyToleranceRatio(null)
+                .build());
+
+        // act
+        processMessages(concurrencyLimit, 10, FAST_PROCESSING_TIME, false);
+
+        // assert
+        assertThat(concurrencyLimit.getConcurrencyLevel()).isEqualTo(9);
+    }
+
+    private static void processMessages(final AdaptiveConcurrencyLimit concurrencyLimit,
+                                        final int numberOfMessages,
+                                        final long processingTimeInNanoseconds,
+                                        final boolean wasSuccessful) {
+        for (int i = 0; i < numberOfMessages; ++i) {
+            concurrencyLimit.onMessageProcessed(processingTimeInNanoseconds, wasSuccessful);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -12,6 +14,7 @@ import com.jashmore.sqs.broker.MessageBroker;
 import com.jashmore.sqs.processor.MessageProcessingException;
 import com.jashmore.sqs.util.ExpectedTestException;
 import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import com.jashmore.sqs.util.properties.ObservableProperty;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -124,6 +127,124 @@ class ConcurrentMessageBrokerTest {
         assertThat(countDownLatch.await(concurrencyPollingRateInMs * 3, MILLISECONDS)).isTrue();
     }
 
+    @Test
+    void increaseInObservableConcurrencyLevelIsAppliedWithoutWaitingForThePollingRate() throws Exception {
+        // arrange
+        final ObservableProperty<Integer> concurrencyLevel = new ObservableProperty<>(1);
+        final ConcurrentMessageBroker broker = new ConcurrentMessageBroker(new ObservableConcurrentMessageBrokerProperties(
+                concurrencyLevel,
+                new ObservableProperty<>(60_000L),
+                new ObservableProperty<>(0L)
+        ));
+        final CountDownLatch firstMessageProcessingLatch = new CountDownLatch(1);
+        final CountDownLatch allMessagesProcessingLatch = new CountDownLatch(3);
+        runBrokerProcessMessageOnThread(broker, () -> CompletableFuture.completedFuture(Message.builder().build()),
+                processingMessageWillBlockUntilInterrupted(allMessagesProcessingLatch, firstMessageProcessingLatch::countDown));
+        assertThat(firstMessageProcessingLatch.await(5, SECONDS)).isTrue();
+
+        // act
+        concurrencyLevel.set(3);
+
+        // assert
+        assertThat(allMessagesProcessingLatch.await(5, SECONDS)).isTrue();
+    }
+
+    @Test
+    void observablePollingRateIsOnlyObtainedWhenItChanges() throws Exception {
+        // arrange
+        final ObservableProperty<Long> concurrencyPollingRate = spy(new ObservableProperty<>(60_000L));
+        final ConcurrentMessageBroker broker = new ConcurrentMessageBroker(new ObservableConcurrentMessageBrokerProperties(
+                new ObservableProperty<>(1),
+                concurrencyPollingRate,
+                new ObservableProperty<>(0L)
+        ));
+        final CountDownLatch messagesProcessedLatch = new CountDownLatch(10);
+        runBrokerProcessMessageOnThread(broker, () -> CompletableFuture.completedFuture(Message.builder().build()), message -> {
+            messagesProcessedLatch.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+        assertThat(messagesProcessedLatch.await(5, SECONDS)).isTrue();
+
+        // act
+        concurrencyPollingRate.set(30_000L);
+
+        // assert
+        verify(concurrencyPollingRate, times(2)).get();
+    }
+
+    @Test
+    void brokersSharingConcurrencyBudgetWillNotProcessMoreMessagesThanTheTotalConcurrency() throws Exception {
+        // arrange
+        final ConcurrentMessageBrokerProperties properties = DEFAULT_PROPERTIES.toBuilder()
+                .concurrencyLevel(5)
+                .build();
+        final SharedConcurrencyBudget budget = new SharedConcurrencyBudget(StaticSharedConcurrencyBudgetProperties.builder()
+                .totalConcurrency(3)
+                .build());
+        final ConcurrentMessageBroker firstBroker = new ConcurrentMessageBroker(properties, budget.register("first", 0, 1));
+        final ConcurrentMessageBroker secondBroker = new ConcurrentMessageBroker(properties, budget.register("second", 0, 1));
+        final CountDownLatch messagesProcessingLatch = new CountDownLatch(3);
+        final AtomicInteger numberOfMessagesProcessed = new AtomicInteger();
+
+        // act
+        runBrokerProcessMessageOnThread(firstBroker, () -> CompletableFuture.completedFuture(Message.builder().build()),
+                processingMessageWillBlockUntilInterrupted(messagesProcessingLatch, numberOfMessagesProcessed::incrementAndGet));
+        runBrokerProcessMessageOnThread(secondBroker, () -> CompletableFuture.completedFuture(Message.builder().build()),
+                processingMessageWillBlockUntilInterrupted(messagesProcessingLatch, numberOfMessagesProcessed::incrementAndGet));
+        assertThat(messagesProcessingLatch.await(30, SECONDS)).isTrue();
+        Thread.sleep(300);
+
+        // assert
+        assertThat(numberOfMessagesProcessed.get()).isEqualTo(3);
+        assertThat(budget.getNumberOfPermitsInUse()).isEqualTo(3);
+    }
+
+    @Test
+    void brokerWillNotRequestMessagesWhileTheSharedConcurrencyBudgetIsExhausted() throws Exception {
+        // arrange
+        final ConcurrentMessageBrokerProperties properties = DEFAULT_PROPERTIES.toBuilder()
+                .concurrencyLevel(3)
+                .build();
+        final SharedConcurrencyBudget budget = new SharedConcurrencyBudget(StaticSharedConcurrencyBudgetProperties.builder()
+                .totalConcurrency(1)
+                .build());
+        assertThat(budget.register("other", 0, 1).tryAcquire(0, MILLISECONDS)).isTrue();
+        final ConcurrentMessageBroker broker = new ConcurrentMessageBroker(properties, budget.register("broker", 0, 1));
+
+        // act
+        runBrokerProcessMessageOnThread(broker, messageSupplier, MESSAGE_NO_OP);
+        Thread.sleep(300);
+
+        // assert
+        verify(messageSupplier, never()).get();
+    }
+
+    @Test
+    void sharedConcurrencyBudgetPermitIsReleasedWhenTheMessageCouldNotBeObtained() throws Exception {
+        // arrange
+        final ConcurrentMessageBrokerProperties properties = DEFAULT_PROPERTIES.toBuilder()
+                .concurrencyLevel(2)
+                .build();
+        final SharedConcurrencyBudget budget = new SharedConcurrencyBudget(StaticSharedConcurrencyBudgetProperties.builder()
+                .totalConcurrency(1)
+                .build());
+        final CompletableFuture<Message> cancelledMessage = new CompletableFuture<>();
+        cancelledMessage.cancel(true);
+        when(messageSupplier.get())
+                .thenReturn(CompletableFutureUtils.completedExceptionally(new ExpectedTestException()))
+                .thenReturn(cancelledMessage)
+                .thenReturn(CompletableFuture.completedFuture(Message.builder().build()));
+        final CountDownLatch messageProcessingLatch = new CountDownLatch(1);
+        final ConcurrentMessageBroker broker = new ConcurrentMessageBroker(properties, budget.register("broker", 0, 1));
+
+        // act
+        runBrokerProcessMessageOnThread(broker, messageSupplier, processingMessageWillBlockUntilInterrupted(messageProcessingLatch));
+
+        // assert
+        assertThat(messageProcessingLatch.await(30, SECONDS)).isTrue();
+        assertThat(budget.getNumberOfPermitsInUse()).isEqualTo(1);
+    }
+
     @Test
     void willStopProcessingMessagesIfKeepProcessingMessagesReturnsFalse() throws Exception {
         // arrange
@@ -236,6 +357,36 @@ class ConcurrentMessageBrokerTest {
         brokerFuture.get(backoffTimeInMs / 2, MILLISECONDS);
     }
 
+    @Test
+    void messageProcessingOutcomeListenerIsNotifiedWhenMessagesFinishProcessing() throws InterruptedException {
+        // arrange
+        when(messageSupplier.get())
+                .thenReturn(CompletableFuture.completedFuture(Message.builder().build()));
+        final AtomicBoolean isFirst = new AtomicBoolean(true);
+        final Function<Message, CompletableFuture<?>> messageConsumer = message -> {
+            if (isFirst.getAndSet(false)) {
+                return CompletableFutureUtils.completedExceptionally(new ExpectedTestException());
+            }
+            return CompletableFuture.completedFuture(null);
+        };
+        final CountDownLatch failedMessageLatch = new CountDownLatch(1);
+        final CountDownLatch successfulMessageLatch = new CountDownLatch(1);
+        final ConcurrentMessageBroker broker = new ConcurrentMessageBroker(DEFAULT_PROPERTIES, (processingTimeInNanoseconds, wasSuccessful) -> {
+            if (wasSuccessful) {
+                successfulMessageLatch.countDown();
+            } else {
+                failedMessageLatch.countDown();
+            }
+        });
+
+        // act
+        runBrokerProcessMessageOnThread(broker, messageSupplier, messageConsumer);
+
+        // assert
+        assertThat(failedMessageLatch.await(30, SECONDS)).isTrue();
+        assertThat(successfulMessageLatch.await(30, SECONDS)).isTrue();
+    }
+
     private Future<?> runBrokerProcessMessageOnThread(final MessageBroker broker,
                                                       final Supplier<CompletableFuture<Message>> messageRetriever,
                                                       final Function<Message, CompletableFuture<?>> messageConsumer) {
@@ -0,0 +1,136 @@
+package com.jashmore.sqs.broker.concurrent;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class SharedConcurrencyBudgetTest {
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void permitsCannotBeObtainedOnceTheTotalConcurrencyIsReached() throws Exception {
+        // arrange
+        final SharedConcurrencyBudget budget = buildBudget(2);
+        final SharedConcurrencyBudget.Participant first = budget.register("first", 0, 1);
+        final SharedConcurrencyBudget.Participant second = budget.register("second", 0, 1);
+        assertThat(first.tryAcquire(0, MILLISECONDS)).isTrue();
+        assertThat(second.tryAcquire(0, MILLISECONDS)).isTrue();
+
+        // act
+        final boolean obtainedPermit = first.tryAcquire(0, MILLISECONDS);
+
+        // assert
+        assertThat(obtainedPermit).isFalse();
+        assertThat(budget.getNumberOfPermitsInUse()).isEqualTo(2);
+    }
+
+    @Test
+    void idleParticipantsWillLendTheirCapacityToBusyParticipants() throws Exception {
+        // arrange
+        final SharedConcurrencyBudget budget = buildBudget(4);
+        final SharedConcurrencyBudget.Participant busy = budget.register("busy", 0, 1);
+        budget.register("idle", 2, 3);
+
+        // act
+        for (int i = 0; i < 4; ++i) {
+            assertThat(busy.tryAcquire(0, MILLISECONDS)).isTrue();
+        }
+
+        // assert
+        assertThat(busy.getNumberOfPermitsInUse()).isEqualTo(4);
+    }
+
+    @Test
+    void releasedPermitsWillBeGivenToWaitingParticipantsBelowTheirFairShare() throws Exception {
+        // arrange
+        final SharedConcurrencyBudget budget = buildBudget(4);
+        final SharedConcurrencyBudget.Participant busy = budget.register("busy", 0, 1);
+        final SharedConcurrencyBudget.Participant waiting = budget.register("waiting", 0, 1);
+        for (int i = 0; i < 4; ++i) {
+            assertThat(busy.tryAcquire(0, MILLISECONDS)).isTrue();
+        }
+        final Future<Boolean> waitingPermitFuture = executorService.submit(() -> waiting.tryAcquire(5, SECONDS));
+        waitUntilWaitingForPermit(waiting);
+
+        // act
+        busy.release();
+        final boolean busyObtainedPermit = busy.tryAcquire(0, MILLISECONDS);
+
+        // assert
+        assertThat(waitingPermitFuture.get(5, SECONDS)).isTrue();
+        assertThat(busyObtainedPermit).isFalse();
+        assertThat(waiting.getNumberOfPermitsInUse()).isEqualTo(1);
+    }
+
+    @Test
+    void waitingParticipantsBelowTheirMinimumConcurrencyHavePriorityOverTheirFairShare() throws Exception {
+        // arrange
+        final SharedConcurrencyBudget budget = buildBudget(2);
+        final SharedConcurrencyBudget.Participant heavy = budget.register("heavy", 0, 100);
+        final SharedConcurrencyBudget.Participant guaranteed = budget.register("guaranteed", 1, 1);
+        assertThat(heavy.tryAcquire(0, MILLISECONDS)).isTrue();
+        assertThat(heavy.tryAcquire(0, MILLISECONDS)).isTrue();
+        final Future<Boolean> guaranteedPermitFuture = executorService.submit(() -> guaranteed.tryAcquire(5, SECONDS));
+        waitUntilWaitingForPermit(guaranteed);
+
+        // act
+        heavy.release();
+        final boolean heavyObtainedPermit = heavy.tryAcquire(0, MILLISECONDS);
+
+        // assert
+        assertThat(guaranteedPermitFuture.get(5, SECONDS)).isTrue();
+        assertThat(heavyObtainedPermit).isFalse();
+    }
+
+    @Test
+    void releasingMorePermitsThanObtainedWillThrowException() {
+        // arrange
+        final SharedConcurrencyBudget budget = buildBudget(1);
+        final SharedConcurrencyBudget.Participant participant = budget.register("participant", 0, 1);
+
+        // act
+        assertThatThrownBy(participant::release).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void registeringParticipantWithoutPositiveWeightWillThrowException() {
+        // arrange
+        final SharedConcurrencyBudget budget = buildBudget(1);
+
+        // act
+        assertThatThrownBy(() -> budget.register("participant", 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SharedConcurrencyBudget buildBudget(final int totalConcurrency) {
+        return new SharedConcurrencyBudget(StaticSharedConcurrencyBudgetProperties.builder()
+                .totalConcurrency(totalConcurrency)
+                .build());
+    }
+
+    private static void waitUntilWaitingForPermit(final SharedConcurrencyBudget.Participant participant) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (!participant.isWaitingForPermit()) {
+            assertThat(System.currentTimeMillis()).isLessThan(endTime);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.jashmore.sqs.broker.fifo;
+
+import static com.jashmore.sqs.util.concurrent.BlockingQueueTestUtils.pollElements;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class FifoMessageBrokerTest {
+    private static final StaticFifoMessageBrokerProperties DEFAULT_PROPERTIES = StaticFifoMessageBrokerProperties.builder()
+            .concurrencyLevel(2)
+            .maxBufferedMessages(10)
+            .concurrencyPollingRateInMilliseconds(100L)
+            .errorBackoffTimeInMilliseconds(0L)
+            .failedMessageGroupBlockingPeriodInMilliseconds(30_000L)
+            .build();
+
+    private ExecutorService brokerExecutorService;
+    private ExecutorService messageProcessingExecutorService;
+    private BlockingQueue<CompletableFuture<Message>> messageRequests;
+    private BlockingQueue<String> startedMessageIds;
+    private Map<String, CompletableFuture<Object>> processingFutures;
+    private AtomicLong currentTimeInNanoseconds;
+
+    @BeforeEach
+    void setUp() {
+        brokerExecutorService = Executors.newSingleThreadExecutor();
+        messageProcessingExecutorService = Executors.newCachedThreadPool();
+        messageRequests = new LinkedBlockingQueue<>();
+        startedMessageIds = new LinkedBlockingQueue<>();
+        processingFutures = new ConcurrentHashMap<>();
+        currentTimeInNanoseconds = new AtomicLong();
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerExecutorService.shutdownNow();
+        messageProcessingExecutorService.shutdownNow();
+    }
+
+    @Test
+    void messagesInTheSameGroupAreProcessedOneAtATimeInOrder() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES);
+
+        // act
+        supplyMessage("first", "group");
+        supplyMessage("second", "group");
+        supplyMessage("third", "group");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+        processingFutures.get("first").complete(null);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+        processingFutures.get("second").complete(null);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("third");
+    }
+
+    @Test
+    void messagesInDifferentGroupsAreProcessedConcurrently() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES);
+
+        // act
+        supplyMessage("first", "group-one");
+        supplyMessage("second", "group-one");
+        supplyMessage("third", "group-two");
+
+        // assert
+        assertThat(pollElements(startedMessageIds, 2)).containsExactlyInAnyOrder("first", "third");
+    }
+
+    @Test
+    void messageGroupsAreNotProcessedConcurrentlyBeyondTheConcurrencyLevel() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES.toBuilder().concurrencyLevel(1).build());
+
+        // act
+        supplyMessage("first", "group-one");
+        supplyMessage("second", "group-two");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+        processingFutures.get("first").complete(null);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void messagesWillNotBeRequestedOnceTheMaximumNumberOfMessagesAreHeld() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES.toBuilder().concurrencyLevel(1).maxBufferedMessages(1).build());
+        supplyMessage("first", "group");
+        supplyMessage("second", "group");
+
+        // act
+        final CompletableFuture<Message> requestBeforeProcessing = messageRequests.poll(200, MILLISECONDS);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        processingFutures.get("first").complete(null);
+        final CompletableFuture<Message> requestAfterProcessing = messageRequests.poll(5, SECONDS);
+
+        // assert
+        assertThat(requestBeforeProcessing).isNull();
+        assertThat(requestAfterProcessing).isNotNull();
+    }
+
+    @Test
+    void failedMessageWillSkipTheOtherMessagesInItsGroup() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES);
+        supplyMessage("first", "group-one");
+        supplyMessage("second", "group-one");
+        supplyMessage("third", "group-two");
+        assertThat(pollElements(startedMessageIds, 2)).containsExactlyInAnyOrder("first", "third");
+
+        // act
+        processingFutures.get("first").completeExceptionally(new ExpectedTestException());
+        supplyMessage("fourth", "group-one");
+        supplyMessage("fifth", "group-two");
+
+        // assert
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+        processingFutures.get("third").complete(null);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("fifth");
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void failedMessageGroupWillBeProcessedAgainOnceTheFailedMessageIsReceivedAgain() throws Exception {
+        // arrange
+        // only a single message is held so that the next message is not requested until the failure has been handled
+        startBroker(DEFAULT_PROPERTIES.toBuilder().concurrencyLevel(1).maxBufferedMessages(0).build());
+        supplyMessage("first", "group");
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        processingFutures.remove("first").completeExceptionally(new ExpectedTestException());
+
+        // act
+        supplyMessage("first", "group");
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        processingFutures.get("first").complete(null);
+        supplyMessage("second", "group");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void failedMessageGroupWillBeProcessedAgainOnceTheBlockingPeriodHasElapsed() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES);
+        supplyMessage("first", "group");
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        processingFutures.get("first").completeExceptionally(new ExpectedTestException());
+        supplyMessage("second", "group");
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+
+        // act
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        supplyMessage("second", "group");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void messagesWithoutAGroupAreProcessedConcurrently() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES);
+
+        // act
+        messageRequests.poll(5, SECONDS).complete(Message.builder().messageId("first").build());
+        messageRequests.poll(5, SECONDS).complete(Message.builder().messageId("second").build());
+
+        // assert
+        assertThat(pollElements(startedMessageIds, 2)).containsExactlyInAnyOrder("first", "second");
+    }
+
+    @Test
+    void failureToObtainMessageWillAllowAnotherMessageToBeRequested() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES.toBuilder().concurrencyLevel(1).maxBufferedMessages(0).build());
+
+        // act
+        messageRequests.poll(5, SECONDS).completeExceptionally(new ExpectedTestException());
+        supplyMessage("first", "group");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+    }
+
+    private void startBroker(final FifoMessageBrokerProperties properties) {
+        final FifoMessageBroker broker = new FifoMessageBroker(properties, currentTimeInNanoseconds::get);
+        brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> {
+                final CompletableFuture<Message> messageFuture = new CompletableFuture<>();
+                messageRequests.add(messageFuture);
+                return messageFuture;
+            }, message -> {
+                final CompletableFuture<Object> processingFuture = new CompletableFuture<>();
+                processingFutures.put(message.messageId(), processingFuture);
+                startedMessageIds.add(message.messageId());
+                return processingFuture;
+            });
+            return null;
+        });
+    }
+
+    private void supplyMessage(final String messageId, final String messageGroupId) throws InterruptedException {
+        final CompletableFuture<Message> messageRequest = messageRequests.poll(5, SECONDS);
+        assertThat(messageRequest).isNotNull();
+        messageRequest.complete(Message.builder()
+                .messageId(messageId)
+                .attributes(ImmutableMap.of(MessageSystemAttributeName.MESSAGE_GROUP_ID, messageGroupId))
+                .build());
+    }
+}
@@ -0,0 +1,96 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jashmore.sqs.broker.concurrent.ConcurrentMessageBroker;
+import com.jashmore.sqs.broker.concurrent.StaticConcurrentMessageBrokerProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RateLimitingMessageBrokerTest {
+    private static final StaticConcurrentMessageBrokerProperties CONCURRENT_PROPERTIES = StaticConcurrentMessageBrokerProperties.builder()
+            .concurrencyLevel(5)
+            .preferredConcurrencyPollingRateInMilliseconds(100L)
+            .errorBackoffTimeInMilliseconds(0L)
+            .build();
+
+    private ExecutorService brokerExecutorService;
+    private ExecutorService messageProcessingExecutorService;
+
+    @BeforeEach
+    void setUp() {
+        brokerExecutorService = Executors.newCachedThreadPool();
+        messageProcessingExecutorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerExecutorService.shutdownNow();
+        messageProcessingExecutorService.shutdownNow();
+    }
+
+    @Test
+    void messagesWillNotBeRequestedOnceThePermitsHaveBeenUsed() throws Exception {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(StaticTokenBucketRateLimiterProperties.builder()
+                .permitsPerSecond(0.001)
+                .burstCapacity(2)
+                .build());
+        final RateLimitingMessageBroker broker = new RateLimitingMessageBroker(new ConcurrentMessageBroker(CONCURRENT_PROPERTIES), rateLimiter);
+        final AtomicInteger numberOfMessagesRequested = new AtomicInteger();
+        final CountDownLatch messagesProcessedLatch = new CountDownLatch(2);
+
+        // act
+        brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> {
+                numberOfMessagesRequested.incrementAndGet();
+                return CompletableFuture.completedFuture(Message.builder().build());
+            }, message -> {
+                messagesProcessedLatch.countDown();
+                return CompletableFuture.completedFuture(null);
+            });
+            return null;
+        });
+        assertThat(messagesProcessedLatch.await(5, SECONDS)).isTrue();
+        Thread.sleep(300);
+
+        // assert
+        assertThat(numberOfMessagesRequested.get()).isEqualTo(2);
+    }
+
+    @Test
+    void interruptingBrokerWhileWaitingForPermitWillStopProcessingMessages() throws Exception {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(StaticTokenBucketRateLimiterProperties.builder()
+                .permitsPerSecond(0.001)
+                .burstCapacity(1)
+                .build());
+        final RateLimitingMessageBroker broker = new RateLimitingMessageBroker(new ConcurrentMessageBroker(CONCURRENT_PROPERTIES), rateLimiter);
+        final CountDownLatch messageProcessedLatch = new CountDownLatch(1);
+        final Future<?> brokerFuture = brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> CompletableFuture.completedFuture(Message.builder().build()), message -> {
+                messageProcessedLatch.countDown();
+                return CompletableFuture.completedFuture(null);
+            });
+            return null;
+        });
+        assertThat(messageProcessedLatch.await(5, SECONDS)).isTrue();
+
+        // act
+        brokerExecutorService.shutdownNow();
+
+        // assert
+        assertThat(brokerExecutorService.awaitTermination(5, SECONDS)).isTrue();
+        assertThat(brokerFuture).isDone();
+    }
+}
@@ -0,0 +1,135 @@
+package com.jashmore.sqs.broker.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TokenBucketRateLimiterTest {
+    private AtomicLong currentTimeInNanoseconds;
+
+    @BeforeEach
+    void setUp() {
+        currentTimeInNanoseconds = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    }
+
+    @Test
+    void burstOfPermitsCanBeObtainedStraightAway() {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = buildRateLimiter(1, 3);
+
+        // act
+        final long[] timesUntilNextPermit = {rateLimiter.tryAcquire(), rateLimiter.tryAcquire(), rateLimiter.tryAcquire(), rateLimiter.tryAcquire()};
+
+        // assert
+        assertThat(timesUntilNextPermit).containsExactly(0, 0, 0, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void permitsWillBeAddedAtThePermitsPerSecondRate() {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = buildRateLimiter(2, 1);
+        assertThat(rateLimiter.tryAcquire()).isZero();
+
+        // act
+        advanceTimeInMs(250);
+        final long timeUntilNextPermitBeforeRefill = rateLimiter.tryAcquire();
+        advanceTimeInMs(250);
+        final long timeUntilNextPermitAfterRefill = rateLimiter.tryAcquire();
+
+        // assert
+        assertThat(timeUntilNextPermitBeforeRefill).isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(timeUntilNextPermitAfterRefill).isZero();
+    }
+
+    @Test
+    void permitsWillNotAccumulateAboveTheBurstCapacity() {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = buildRateLimiter(10, 2);
+
+        // act
+        advanceTimeInMs(100_000);
+
+        // assert
+        assertThat(rateLimiter.tryAcquire()).isZero();
+        assertThat(rateLimiter.tryAcquire()).isZero();
+        assertThat(rateLimiter.tryAcquire()).isPositive();
+    }
+
+    @Test
+    void noBurstCapacityWillDefaultToThePermitsPerSecond() {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = buildRateLimiter(2, null);
+
+        // act
+        final long[] timesUntilNextPermit = {rateLimiter.tryAcquire(), rateLimiter.tryAcquire(), rateLimiter.tryAcquire()};
+
+        // assert
+        assertThat(timesUntilNextPermit[0]).isZero();
+        assertThat(timesUntilNextPermit[1]).isZero();
+        assertThat(timesUntilNextPermit[2]).isPositive();
+    }
+
+    @Test
+    void zeroPermitsPerSecondWillNotGiveOutPermitsOnceTheBucketIsEmpty() {
+        // arrange
+        final TokenBucketRateLimiter rateLimiter = buildRateLimiter(0, 1);
+        assertThat(rateLimiter.tryAcquire()).isZero();
+
+        // act
+        advanceTimeInMs(100_000);
+        final long timeUntilNextPermit = rateLimiter.tryAcquire();
+
+        // assert
+        assertThat(timeUntilNextPermit).isEqualTo(TimeUnit.MILLISECONDS.toNanos(TokenBucketRateLimiterConstants.DISABLED_POLLING_TIME_IN_MS));
+    }
+
+    @Test
+    void changesToThePermitsPerSecondWillBeUsedStraightAway() {
+        // arrange
+        final TokenBucketRateLimiterProperties properties = mock(TokenBucketRateLimiterProperties.class);
+        when(properties.getBurstCapacity()).thenReturn(1);
+        when(properties.getPermitsPerSecond()).thenReturn(1.0);
+        final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(properties, currentTimeInNanoseconds::get);
+        assertThat(rateLimiter.tryAcquire()).isZero();
+
+        // act
+        when(properties.getPermitsPerSecond()).thenReturn(10.0);
+        advanceTimeInMs(100);
+
+        // assert
+        assertThat(rateLimiter.tryAcquire()).isZero();
+    }
+
+    @Test
+    void exceptionThrownGettingPermitsPerSecondWillNotGiveOutPermitsOnceTheBucketIsEmpty() {
+        // arrange
+        final TokenBucketRateLimiterProperties properties = mock(TokenBucketRateLimiterProperties.class);
+        when(properties.getBurstCapacity()).thenReturn(1);
+        when(properties.getPermitsPerSecond()).thenThrow(new RuntimeException("Expected Test Exception"));
+        final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(properties, currentTimeInNanoseconds::get);
+        assertThat(rateLimiter.tryAcquire()).isZero();
+
+        // act
+        advanceTimeInMs(100_000);
+
+        // assert
+        assertThat(rateLimiter.tryAcquire()).isPositive();
+    }
+
+    private TokenBucketRateLimiter buildRateLimiter(final double permitsPerSecond, final Integer burstCapacity) {
+        return new TokenBucketRateLimiter(StaticTokenBucketRateLimiterProperties.builder()
+                .permitsPerSecond(permitsPerSecond)
+                .burstCapacity(burstCapacity)
+                .build(), currentTimeInNanoseconds::get);
+    }
+
+    private void advanceTimeInMs(final long milliseconds) {
+        currentTimeInNanoseconds.addAndGet(TimeUnit.MILLISECONDS.toNanos(milliseconds));
+    }
+}
@@ -0,0 +1,100 @@
+package com.jashmore.sqs.broker.sharded;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+class MessageKeyExtractorTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void messageAttributeExtractorWillUseTheStringValueOfTheAttribute() {
+        // arrange
+        final Message message = Message.builder()
+                .messageAttributes(ImmutableMap.of("accountId", MessageAttributeValue.builder().dataType("String").stringValue("account").build()))
+                .build();
+
+        // act
+        final String key = MessageKeyExtractor.messageAttribute("accountId").extractKey(message);
+
+        // assert
+        assertThat(key).isEqualTo("account");
+    }
+
+    @Test
+    void messageAttributeExtractorWillReturnNullWhenTheAttributeIsMissing() {
+        // act
+        final String key = MessageKeyExtractor.messageAttribute("accountId").extractKey(Message.builder().build());
+
+        // assert
+        assertThat(key).isNull();
+    }
+
+    @Test
+    void systemAttributeExtractorWillUseTheValueOfTheSystemAttribute() {
+        // arrange
+        final Message message = Message.builder()
+                .attributes(ImmutableMap.of(MessageSystemAttributeName.SENDER_ID, "sender"))
+                .build();
+
+        // act
+        final String key = MessageKeyExtractor.systemAttribute(MessageSystemAttributeName.SENDER_ID).extractKey(message);
+
+        // assert
+        assertThat(key).isEqualTo("sender");
+    }
+
+    @Test
+    void payloadFieldExtractorWillUseTheTextOfTheNestedField() {
+        // arrange
+        final Message message = Message.builder().body("{\"account\": {\"id\": 123}}").build();
+
+        // act
+        final String key = MessageKeyExtractor.payloadField(objectMapper, "/account/id").extractKey(message);
+
+        // assert
+        assertThat(key).isEqualTo("123");
+    }
+
+    @Test
+    void payloadFieldExtractorWillReturnNullWhenTheFieldIsNotAValue() {
+        // arrange
+        final Message message = Message.builder().body("{\"account\": {\"id\": 123}}").build();
+
+        // act
+        final String key = MessageKeyExtractor.payloadField(objectMapper, "/account").extractKey(message);
+
+        // assert
+        assertThat(key).isNull();
+    }
+
+    @Test
+    void payloadFieldExtractorWillReturnNullWhenTheFieldIsMissing() {
+        // arrange
+        final Message message = Message.builder().body("{\"account\": {\"id\": 123}}").build();
+
+        // act
+        final String key = MessageKeyExtractor.payloadField(objectMapper, "/accountId").extractKey(message);
+
+        // assert
+        assertThat(key).isNull();
+    }
+
+    @Test
+    void payloadFieldExtractorWillReturnNullWhenThePayloadIsNotJson() {
+        // arrange
+        final Message message = Message.builder().body("not json").build();
+
+        // act
+        final String key = MessageKeyExtractor.payloadField(objectMapper, "/accountId").extractKey(message);
+
+        // assert
+        assertThat(key).isNull();
+    }
+}
@@ -0,0 +1,249 @@
+package com.jashmore.sqs.broker.sharded;
+
+import static com.jashmore.sqs.util.concurrent.BlockingQueueTestUtils.pollElements;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.IntStream;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedMessageBrokerTest {
+    private static final QueueProperties QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("queueUrl")
+            .build();
+    private static final StaticShardedMessageBrokerProperties DEFAULT_PROPERTIES = StaticShardedMessageBrokerProperties.builder()
+            .numberOfLanes(2)
+            .maxBufferedMessages(10)
+            .maxBufferedMessagesPerLane(5)
+            .concurrencyPollingRateInMilliseconds(100L)
+            .errorBackoffTimeInMilliseconds(0L)
+            .build();
+    private static final MessageKeyExtractor BODY_KEY_EXTRACTOR = Message::body;
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    private ExecutorService brokerExecutorService;
+    private ExecutorService messageProcessingExecutorService;
+    private BlockingQueue<CompletableFuture<Message>> messageRequests;
+    private BlockingQueue<String> startedMessageIds;
+    private Map<String, CompletableFuture<Object>> processingFutures;
+
+    @BeforeEach
+    void setUp() {
+        brokerExecutorService = Executors.newSingleThreadExecutor();
+        messageProcessingExecutorService = Executors.newCachedThreadPool();
+        messageRequests = new LinkedBlockingQueue<>();
+        startedMessageIds = new LinkedBlockingQueue<>();
+        processingFutures = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerExecutorService.shutdownNow();
+        messageProcessingExecutorService.shutdownNow();
+    }
+
+    @Test
+    void messagesWithTheSameKeyAreProcessedOneAtATime() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES, BODY_KEY_EXTRACTOR);
+
+        // act
+        supplyMessage("first", "key");
+        supplyMessage("second", "key");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+        processingFutures.get("first").complete(null);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void messagesInDifferentLanesAreProcessedConcurrently() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES, BODY_KEY_EXTRACTOR);
+
+        // act
+        supplyMessage("first", keyForLane(0));
+        supplyMessage("second", keyForLane(1));
+
+        // assert
+        assertThat(pollElements(startedMessageIds, 2)).containsExactlyInAnyOrder("first", "second");
+    }
+
+    @Test
+    void failedMessageWillNotStopTheNextMessageInTheLaneBeingProcessed() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES, BODY_KEY_EXTRACTOR);
+        supplyMessage("first", "key");
+        supplyMessage("second", "key");
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+
+        // act
+        processingFutures.get("first").completeExceptionally(new ExpectedTestException());
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void messagesObtainedForALaneThatHasReachedItsBufferLimitAreReturnedToTheQueue() throws Exception {
+        // arrange
+        when(sqsAsyncClient.changeMessageVisibility(any(ChangeMessageVisibilityRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityResponse.builder().build()));
+        startBroker(DEFAULT_PROPERTIES.toBuilder().maxBufferedMessagesPerLane(1).build(), BODY_KEY_EXTRACTOR);
+        supplyMessage("first", keyForLane(0));
+        supplyMessage("second", keyForLane(0));
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+
+        // act
+        supplyMessage("third", keyForLane(0));
+
+        // assert
+        verify(sqsAsyncClient, timeout(5000)).changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                .queueUrl("queueUrl")
+                .receiptHandle("third-receipt")
+                .visibilityTimeout(0)
+                .build());
+        processingFutures.get("first").complete(null);
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+        assertThat(startedMessageIds.poll(100, MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void laneThatHasReachedItsBufferLimitWillNotStopMessagesForOtherLanesBeingProcessed() throws Exception {
+        // arrange
+        when(sqsAsyncClient.changeMessageVisibility(any(ChangeMessageVisibilityRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityResponse.builder().build()));
+        startBroker(DEFAULT_PROPERTIES.toBuilder().maxBufferedMessages(1).maxBufferedMessagesPerLane(1).build(), BODY_KEY_EXTRACTOR);
+        supplyMessage("first", keyForLane(0));
+        supplyMessage("second", keyForLane(0));
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("first");
+
+        // act
+        supplyMessage("third", keyForLane(0));
+        supplyMessage("fourth", keyForLane(1));
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("fourth");
+    }
+
+    @Test
+    void messagesWillNotBeRequestedOnceTheMaximumNumberOfMessagesAreHeld() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES.toBuilder().maxBufferedMessages(1).build(), BODY_KEY_EXTRACTOR);
+        supplyMessage("first", keyForLane(0));
+        supplyMessage("second", keyForLane(0));
+        supplyMessage("third", keyForLane(1));
+
+        // act
+        final CompletableFuture<Message> requestBeforeProcessing = messageRequests.poll(200, MILLISECONDS);
+        assertThat(pollElements(startedMessageIds, 2)).containsExactlyInAnyOrder("first", "third");
+        processingFutures.get("first").complete(null);
+        final CompletableFuture<Message> requestAfterProcessing = messageRequests.poll(5, SECONDS);
+
+        // assert
+        assertThat(requestBeforeProcessing).isNull();
+        assertThat(requestAfterProcessing).isNotNull();
+    }
+
+    @Test
+    void errorExtractingTheKeyWillNotProcessTheMessage() throws Exception {
+        // arrange
+        startBroker(DEFAULT_PROPERTIES.toBuilder().numberOfLanes(1).maxBufferedMessages(0).build(), message -> {
+            if (message.messageId().equals("first")) {
+                throw new ExpectedTestException();
+            }
+            return message.body();
+        });
+
+        // act
+        supplyMessage("first", "key");
+        supplyMessage("second", "key");
+
+        // assert
+        assertThat(startedMessageIds.poll(5, SECONDS)).isEqualTo("second");
+        assertThat(processingFutures).doesNotContainKey("first");
+    }
+
+    @Test
+    void sameKeyWillAlwaysBeInTheSameLane() {
+        // act
+        final int laneIndex = ShardedMessageBroker.getLaneIndex("key", 10);
+
+        // assert
+        assertThat(laneIndex).isBetween(0, 9);
+        assertThat(ShardedMessageBroker.getLaneIndex("key", 10)).isEqualTo(laneIndex);
+    }
+
+    @Test
+    void nonPositiveNumberOfLanesWillThrowException() {
+        // act
+        assertThatThrownBy(() -> new ShardedMessageBroker(DEFAULT_PROPERTIES.toBuilder().numberOfLanes(0).build(), BODY_KEY_EXTRACTOR,
+                sqsAsyncClient, QUEUE_PROPERTIES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void startBroker(final ShardedMessageBrokerProperties properties, final MessageKeyExtractor messageKeyExtractor) {
+        final ShardedMessageBroker broker = new ShardedMessageBroker(properties, messageKeyExtractor, sqsAsyncClient, QUEUE_PROPERTIES);
+        brokerExecutorService.submit(() -> {
+            broker.processMessages(messageProcessingExecutorService, () -> {
+                final CompletableFuture<Message> messageFuture = new CompletableFuture<>();
+                messageRequests.add(messageFuture);
+                return messageFuture;
+            }, message -> {
+                final CompletableFuture<Object> processingFuture = new CompletableFuture<>();
+                processingFutures.put(message.messageId(), processingFuture);
+                startedMessageIds.add(message.messageId());
+                return processingFuture;
+            });
+            return null;
+        });
+    }
+
+    private void supplyMessage(final String messageId, final String key) throws InterruptedException {
+        final CompletableFuture<Message> messageRequest = messageRequests.poll(5, SECONDS);
+        assertThat(messageRequest).isNotNull();
+        messageRequest.complete(Message.builder()
+                .messageId(messageId)
+                .receiptHandle(messageId + "-receipt")
+                .body(key)
+                .build());
+    }
+
+    private static String keyForLane(final int laneIndex) {
+        return IntStream.iterate(0, index -> index + 1)
+                .mapToObj(index -> "key" + index)
+                .filter(key -> ShardedMessageBroker.getLaneIndex(key, DEFAULT_PROPERTIES.getNumberOfLanes()) == laneIndex)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+}
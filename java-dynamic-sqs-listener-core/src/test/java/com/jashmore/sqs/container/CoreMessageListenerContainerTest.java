@@ -2,18 +2,30 @@ package com.jashmore.sqs.container;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 
+import com.jashmore.sqs.broker.BatchMessageBroker;
 import com.jashmore.sqs.broker.MessageBroker;
+import com.jashmore.sqs.container.executor.CachedThreadPoolMessageProcessingExecutorFactory;
+import com.jashmore.sqs.container.visibility.VisibilityHeartbeat;
+import com.jashmore.sqs.processor.BatchMessageProcessor;
 import com.jashmore.sqs.processor.MessageProcessor;
 import com.jashmore.sqs.resolver.MessageResolver;
+import com.jashmore.sqs.resolver.NegativeAcknowledgingMessageResolver;
 import com.jashmore.sqs.retriever.MessageRetriever;
+import com.jashmore.sqs.retriever.NonBlockingMessageRetriever;
+import com.jashmore.sqs.util.ExpectedTestException;
+import com.jashmore.sqs.util.concurrent.CompletableFutureUtils;
+import com.jashmore.sqs.util.thread.ThreadUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,14 +34,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 @Slf4j
@@ -42,6 +57,9 @@ class CoreMessageListenerContainerTest {
         STUB_MESSAGE_BROKER_DONE.completeExceptionally(new RuntimeException("Expected Messages Done"));
     }
 
+    private static final CompletableFuture<List<Message>> STUB_BATCH_MESSAGE_BROKER_DONE
+            = CompletableFutureUtils.completedExceptionally(new RuntimeException("Expected Messages Done"));
+
     private static final StaticCoreMessageListenerContainerProperties DEFAULT_PROPERTIES = StaticCoreMessageListenerContainerProperties.builder()
             .shouldInterruptThreadsProcessingMessagesOnShutdown(true)
             .shouldProcessAnyExtraRetrievedMessagesOnShutdown(false)
@@ -217,6 +235,57 @@ class CoreMessageListenerContainerTest {
         assertThat(retrieverThreadName.get()).matches("container-id-message-processing-\\d+");
     }
 
+    @Test
+    void messageProcessingExecutorFactoryIsUsedToProcessMessages() {
+        // arrange
+        final AtomicReference<String> processingThreadName = new AtomicReference<>();
+        doAnswer(invocation -> {
+            processingThreadName.set(Thread.currentThread().getName());
+            return null;
+        }).when(messageProcessor).processMessage(any(Message.class), any(Runnable.class));
+        when(messageRetriever.retrieveMessage())
+                .thenReturn(CompletableFuture.completedFuture(Message.builder().build()))
+                .thenReturn(STUB_MESSAGE_BROKER_DONE);
+        final CoreMessageListenerContainer container = new CoreMessageListenerContainer("container-id", StubMessageBroker::new,
+                () -> messageRetriever, () -> messageProcessor, () -> messageResolver, DEFAULT_PROPERTIES,
+                containerIdentifier -> Executors.newSingleThreadExecutor(ThreadUtils.threadFactory(containerIdentifier + "-custom-executor")));
+
+        // act
+        container.runContainer();
+
+        // assert
+        assertThat(processingThreadName).hasValue("container-id-custom-executor");
+    }
+
+    @Test
+    void visibilityHeartbeatTracksMessagesWhileTheyAreBeingProcessed() {
+        // arrange
+        final Message message = Message.builder().messageId("id").build();
+        final VisibilityHeartbeat visibilityHeartbeat = mock(VisibilityHeartbeat.class);
+        final CompletableFuture<Object> processingFuture = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            verify(visibilityHeartbeat).track(message);
+            verify(visibilityHeartbeat, never()).untrack(message);
+            return processingFuture;
+        }).when(messageProcessor).processMessage(eq(message), any(Runnable.class));
+        when(messageRetriever.retrieveMessage())
+                .thenReturn(CompletableFuture.completedFuture(message))
+                .thenReturn(STUB_MESSAGE_BROKER_DONE);
+        final CoreMessageListenerContainer container = new CoreMessageListenerContainer("container-id", StubMessageBroker::new,
+                () -> messageRetriever, () -> messageProcessor, () -> messageResolver, DEFAULT_PROPERTIES,
+                new CachedThreadPoolMessageProcessingExecutorFactory(), () -> visibilityHeartbeat);
+        doAnswer(invocation -> {
+            processingFuture.complete(null);
+            return null;
+        }).when(visibilityHeartbeat).run();
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(visibilityHeartbeat).untrack(message);
+    }
+
     @Test
     void anyExtraMessagesLeftoverByAsyncMessageRetrieverWillNotBeProcessedOnShutdownWhenPropertyIsFalse() {
         // arrange
@@ -255,6 +324,47 @@ class CoreMessageListenerContainerTest {
         verify(messageProcessor).processMessage(eq(secondExtraMessage), any(Runnable.class));
     }
 
+    @Test
+    void nonBlockingMessageRetrieverWillBeStartedAndStoppedWithoutRunningOnBackgroundThread() {
+        // arrange
+        final NonBlockingMessageRetriever nonBlockingMessageRetriever = mock(NonBlockingMessageRetriever.class);
+        when(nonBlockingMessageRetriever.retrieveMessage()).thenReturn(STUB_MESSAGE_BROKER_DONE);
+        final CompletableFuture<List<Message>> retrieverStoppedFuture = new CompletableFuture<>();
+        when(nonBlockingMessageRetriever.start()).thenReturn(retrieverStoppedFuture);
+        doAnswer(invocation -> retrieverStoppedFuture.complete(ImmutableList.of())).when(nonBlockingMessageRetriever).stop();
+        final CoreMessageListenerContainer container = buildContainer(
+                "id", new StubMessageBroker(), messageResolver, messageProcessor, nonBlockingMessageRetriever, DEFAULT_PROPERTIES);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(nonBlockingMessageRetriever).stop();
+        verify(nonBlockingMessageRetriever, never()).run();
+    }
+
+    @Test
+    void anyExtraMessagesLeftoverByNonBlockingMessageRetrieverWillBeProcessedOnShutdownWhenPropertyIsTrue() {
+        // arrange
+        final NonBlockingMessageRetriever nonBlockingMessageRetriever = mock(NonBlockingMessageRetriever.class);
+        when(nonBlockingMessageRetriever.retrieveMessage()).thenReturn(STUB_MESSAGE_BROKER_DONE);
+        final Message extraMessage = Message.builder().body("extra").build();
+        final CompletableFuture<List<Message>> retrieverStoppedFuture = new CompletableFuture<>();
+        when(nonBlockingMessageRetriever.start()).thenReturn(retrieverStoppedFuture);
+        doAnswer(invocation -> retrieverStoppedFuture.complete(ImmutableList.of(extraMessage))).when(nonBlockingMessageRetriever).stop();
+        final StaticCoreMessageListenerContainerProperties properties = DEFAULT_PROPERTIES.toBuilder()
+                .shouldProcessAnyExtraRetrievedMessagesOnShutdown(true)
+                .build();
+        final CoreMessageListenerContainer container = buildContainer(
+                "id", new StubMessageBroker(), messageResolver, messageProcessor, nonBlockingMessageRetriever, properties);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(messageProcessor).processMessage(eq(extraMessage), any(Runnable.class));
+    }
+
     @Test
     void willInterruptMessagesProcessingDuringShutdownWhenPropertySetToTrue() {
         // arrange
@@ -474,6 +584,188 @@ class CoreMessageListenerContainerTest {
         containerFinished.get();
     }
 
+    @Test
+    void messagesThatFailToBeProcessedWillBeRejectedWhenTheResolverSupportsNegativeAcknowledgements() {
+        // arrange
+        final NegativeAcknowledgingMessageResolver negativeAcknowledgingMessageResolver = mock(NegativeAcknowledgingMessageResolver.class);
+        final Message message = Message.builder().body("first").build();
+        when(messageRetriever.retrieveMessage())
+                .thenReturn(CompletableFuture.completedFuture(message))
+                .thenReturn(STUB_MESSAGE_BROKER_DONE);
+        when(messageProcessor.processMessage(eq(message), any(Runnable.class)))
+                .thenReturn(CompletableFutureUtils.completedExceptionally(new ExpectedTestException()));
+        final CoreMessageListenerContainer container = buildContainer("id", new StubMessageBroker(), negativeAcknowledgingMessageResolver,
+                messageProcessor, messageRetriever, DEFAULT_PROPERTIES);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(negativeAcknowledgingMessageResolver, timeout(5000)).rejectMessage(message);
+    }
+
+    @Test
+    void messagesThatAreSuccessfullyProcessedWillNotBeRejected() {
+        // arrange
+        final NegativeAcknowledgingMessageResolver negativeAcknowledgingMessageResolver = mock(NegativeAcknowledgingMessageResolver.class);
+        final Message message = Message.builder().body("first").build();
+        when(messageRetriever.retrieveMessage())
+                .thenReturn(CompletableFuture.completedFuture(message))
+                .thenReturn(STUB_MESSAGE_BROKER_DONE);
+        when(messageProcessor.processMessage(eq(message), any(Runnable.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        final CoreMessageListenerContainer container = buildContainer("id", new StubMessageBroker(), negativeAcknowledgingMessageResolver,
+                messageProcessor, messageRetriever, DEFAULT_PROPERTIES);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(messageProcessor, timeout(5000)).processMessage(eq(message), any(Runnable.class));
+        verify(negativeAcknowledgingMessageResolver, never()).rejectMessage(any(Message.class));
+    }
+
+    @Test
+    void batchMessageBrokerWillProcessEachBatchWithASingleInvocationOfTheBatchMessageProcessor() {
+        // arrange
+        final BatchMessageProcessor batchMessageProcessor = mock(BatchMessageProcessor.class);
+        final List<Message> messages = ImmutableList.of(Message.builder().body("first").build(), Message.builder().body("second").build());
+        when(messageRetriever.retrieveMessages(2))
+                .thenReturn(CompletableFuture.completedFuture(messages))
+                .thenReturn(STUB_BATCH_MESSAGE_BROKER_DONE);
+        final CoreMessageListenerContainer container = buildContainer("id", new StubBatchMessageBroker(2), messageResolver,
+                batchMessageProcessor, messageRetriever, DEFAULT_PROPERTIES);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(batchMessageProcessor).processMessages(eq(messages), any());
+        verify(batchMessageProcessor, never()).processMessage(any(Message.class), any(Runnable.class));
+        verify(messageRetriever, never()).retrieveMessage();
+    }
+
+    @Test
+    void messagesInBatchWillBeResolvedByTheMessageResolver() {
+        // arrange
+        final BatchMessageProcessor batchMessageProcessor = mock(BatchMessageProcessor.class);
+        final Message message = Message.builder().body("first").build();
+        when(messageRetriever.retrieveMessages(anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of(message)))
+                .thenReturn(STUB_BATCH_MESSAGE_BROKER_DONE);
+        final CoreMessageListenerContainer container = buildContainer("id", new StubBatchMessageBroker(1), messageResolver,
+                batchMessageProcessor, messageRetriever, DEFAULT_PROPERTIES);
+        container.runContainer();
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Function<Message, Runnable>> resolveMessageCallbacksCaptor = ArgumentCaptor.forClass(Function.class);
+        verify(batchMessageProcessor).processMessages(eq(ImmutableList.of(message)), resolveMessageCallbacksCaptor.capture());
+
+        // act
+        resolveMessageCallbacksCaptor.getValue().apply(message).run();
+
+        // assert
+        verify(messageResolver).resolveMessage(message);
+    }
+
+    @Test
+    void batchMessageBrokerWillProcessEachMessageInBatchWhenTheProcessorCannotProcessBatches() {
+        // arrange
+        final Message message = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        when(messageRetriever.retrieveMessages(2))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of(message, secondMessage)))
+                .thenReturn(STUB_BATCH_MESSAGE_BROKER_DONE);
+        when(messageProcessor.processMessage(any(Message.class), any(Runnable.class))).thenReturn(CompletableFuture.completedFuture(null));
+        final CoreMessageListenerContainer container = buildContainer("id", new StubBatchMessageBroker(2), messageResolver,
+                messageProcessor, messageRetriever, DEFAULT_PROPERTIES);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(messageProcessor).processMessage(eq(message), any(Runnable.class));
+        verify(messageProcessor).processMessage(eq(secondMessage), any(Runnable.class));
+    }
+
+    @Test
+    void allMessagesInBatchThatFailsToBeProcessedWillBeRejectedWhenTheResolverSupportsNegativeAcknowledgements() {
+        // arrange
+        final NegativeAcknowledgingMessageResolver negativeAcknowledgingMessageResolver = mock(NegativeAcknowledgingMessageResolver.class);
+        final BatchMessageProcessor batchMessageProcessor = mock(BatchMessageProcessor.class);
+        final Message message = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        when(messageRetriever.retrieveMessages(2))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of(message, secondMessage)))
+                .thenReturn(STUB_BATCH_MESSAGE_BROKER_DONE);
+        doAnswer(invocation -> CompletableFutureUtils.completedExceptionally(new ExpectedTestException()))
+                .when(batchMessageProcessor).processMessages(any(), any());
+        final CoreMessageListenerContainer container = buildContainer("id", new StubBatchMessageBroker(2), negativeAcknowledgingMessageResolver,
+                batchMessageProcessor, messageRetriever, DEFAULT_PROPERTIES);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(negativeAcknowledgingMessageResolver, timeout(5000)).rejectMessage(message);
+        verify(negativeAcknowledgingMessageResolver, timeout(5000)).rejectMessage(secondMessage);
+    }
+
+    @Test
+    void anyExtraMessagesLeftoverWillBeProcessedInBatchesOnShutdownWhenPropertyIsTrue() {
+        // arrange
+        final BatchMessageProcessor batchMessageProcessor = mock(BatchMessageProcessor.class);
+        when(messageRetriever.retrieveMessages(2)).thenReturn(STUB_BATCH_MESSAGE_BROKER_DONE);
+        final Message firstExtraMessage = Message.builder().body("first").build();
+        final Message secondExtraMessage = Message.builder().body("second").build();
+        final Message thirdExtraMessage = Message.builder().body("third").build();
+        when(messageRetriever.run()).thenReturn(ImmutableList.of(firstExtraMessage, secondExtraMessage, thirdExtraMessage));
+        final StaticCoreMessageListenerContainerProperties properties = DEFAULT_PROPERTIES.toBuilder()
+                .shouldProcessAnyExtraRetrievedMessagesOnShutdown(true)
+                .build();
+        final CoreMessageListenerContainer container = buildContainer(
+                "id", new StubBatchMessageBroker(2), messageResolver, batchMessageProcessor, messageRetriever, properties);
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(batchMessageProcessor).processMessages(eq(ImmutableList.of(firstExtraMessage, secondExtraMessage)), any());
+        verify(batchMessageProcessor).processMessages(eq(ImmutableList.of(thirdExtraMessage)), any());
+    }
+
+    @Test
+    void visibilityHeartbeatTracksAllMessagesInBatchWhileTheBatchIsBeingProcessed() {
+        // arrange
+        final BatchMessageProcessor batchMessageProcessor = mock(BatchMessageProcessor.class);
+        final Message message = Message.builder().messageId("first").build();
+        final Message secondMessage = Message.builder().messageId("second").build();
+        final VisibilityHeartbeat visibilityHeartbeat = mock(VisibilityHeartbeat.class);
+        final CompletableFuture<Object> processingFuture = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            verify(visibilityHeartbeat).track(message);
+            verify(visibilityHeartbeat).track(secondMessage);
+            verify(visibilityHeartbeat, never()).untrack(any(Message.class));
+            return processingFuture;
+        }).when(batchMessageProcessor).processMessages(eq(ImmutableList.of(message, secondMessage)), any());
+        when(messageRetriever.retrieveMessages(2))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of(message, secondMessage)))
+                .thenReturn(STUB_BATCH_MESSAGE_BROKER_DONE);
+        final CoreMessageListenerContainer container = new CoreMessageListenerContainer("container-id", () -> new StubBatchMessageBroker(2),
+                () -> messageRetriever, () -> batchMessageProcessor, () -> messageResolver, DEFAULT_PROPERTIES,
+                new CachedThreadPoolMessageProcessingExecutorFactory(), () -> visibilityHeartbeat);
+        doAnswer(invocation -> {
+            processingFuture.complete(null);
+            return null;
+        }).when(visibilityHeartbeat).run();
+
+        // act
+        container.runContainer();
+
+        // assert
+        verify(visibilityHeartbeat).untrack(message);
+        verify(visibilityHeartbeat).untrack(secondMessage);
+    }
+
     private static CoreMessageListenerContainer buildContainer(final String identifier,
                                                                final MessageBroker messageBroker,
                                                                final MessageResolver messageResolver,
@@ -509,4 +801,35 @@ class CoreMessageListenerContainerTest {
             }
         }
     }
+
+    /**
+     * Very simple implementation of the {@link BatchMessageBroker}, similar to the {@link StubMessageBroker}, that requests batches of the provided size.
+     * Use the {@link #STUB_BATCH_MESSAGE_BROKER_DONE} to trigger the end of processing messages.
+     */
+    private static class StubBatchMessageBroker implements BatchMessageBroker {
+        private final int batchSize;
+
+        StubBatchMessageBroker(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void processMessageBatches(final ExecutorService messageProcessingExecutorService,
+                                          final BooleanSupplier keepProcessingMessages,
+                                          final IntFunction<CompletableFuture<List<Message>>> messagesSupplier,
+                                          final Function<List<Message>, CompletableFuture<?>> batchProcessor) throws InterruptedException {
+            while (keepProcessingMessages.getAsBoolean()) {
+                final CompletableFuture<List<Message>> messagesFuture = messagesSupplier.apply(batchSize);
+                if (messagesFuture.isCompletedExceptionally()) {
+                    throw new InterruptedException();
+                }
+                try {
+                    final List<Message> messages = messagesFuture.get();
+                    messageProcessingExecutorService.submit(() -> batchProcessor.apply(messages));
+                } catch (ExecutionException executionException) {
+                    throw new RuntimeException(executionException);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.jashmore.sqs.container.backlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.retriever.batching.StaticBatchingMessageRetrieverProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BacklogScalingBatchingMessageRetrieverPropertiesTest {
+    private static final StaticBatchingMessageRetrieverProperties DELEGATE_PROPERTIES = StaticBatchingMessageRetrieverProperties.builder()
+            .batchSize(10)
+            .batchingPeriodInMs(100L)
+            .build();
+
+    @Mock
+    private QueueBacklogMonitor queueBacklogMonitor;
+
+    @Test
+    void batchSizeOfTheDelegateIsUsedBeforeTheBacklogIsKnown() {
+        // arrange
+        final BacklogScalingBatchingMessageRetrieverProperties properties = new BacklogScalingBatchingMessageRetrieverProperties(queueBacklogMonitor,
+                DELEGATE_PROPERTIES);
+
+        // act
+        final int batchSize = properties.getBatchSize();
+
+        // assert
+        assertThat(batchSize).isEqualTo(10);
+    }
+
+    @Test
+    void batchSizeIsReducedToTheNumberOfMessagesInTheQueue() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(3, 20));
+        final BacklogScalingBatchingMessageRetrieverProperties properties = new BacklogScalingBatchingMessageRetrieverProperties(queueBacklogMonitor,
+                DELEGATE_PROPERTIES);
+
+        // act
+        final int batchSize = properties.getBatchSize();
+
+        // assert
+        assertThat(batchSize).isEqualTo(3);
+    }
+
+    @Test
+    void batchSizeIsAtLeastOneWhenTheQueueIsEmpty() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(0, 0));
+        final BacklogScalingBatchingMessageRetrieverProperties properties = new BacklogScalingBatchingMessageRetrieverProperties(queueBacklogMonitor,
+                DELEGATE_PROPERTIES);
+
+        // act
+        final int batchSize = properties.getBatchSize();
+
+        // assert
+        assertThat(batchSize).isEqualTo(1);
+    }
+
+    @Test
+    void batchSizeOfTheDelegateIsUsedWhenTheBacklogIsLarge() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(1000, 0));
+        final BacklogScalingBatchingMessageRetrieverProperties properties = new BacklogScalingBatchingMessageRetrieverProperties(queueBacklogMonitor,
+                DELEGATE_PROPERTIES);
+
+        // act
+        final int batchSize = properties.getBatchSize();
+
+        // assert
+        assertThat(batchSize).isEqualTo(10);
+        assertThat(properties.getBatchingPeriodInMs()).isEqualTo(100L);
+    }
+}
@@ -0,0 +1,87 @@
+package com.jashmore.sqs.container.backlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BacklogScalingConcurrencyLimitTest {
+    private static final StaticBacklogScalingConcurrencyLimitProperties DEFAULT_PROPERTIES = StaticBacklogScalingConcurrencyLimitProperties.builder()
+            .minimumConcurrencyLevel(1)
+            .maximumConcurrencyLevel(20)
+            .backlogPerConcurrencyLevel(10)
+            .build();
+
+    @Mock
+    private QueueBacklogMonitor queueBacklogMonitor;
+
+    @Test
+    void minimumConcurrencyLevelIsUsedBeforeTheBacklogIsKnown() {
+        // arrange
+        final BacklogScalingConcurrencyLimit concurrencyLimit = new BacklogScalingConcurrencyLimit(queueBacklogMonitor, DEFAULT_PROPERTIES);
+
+        // act
+        final int concurrencyLevel = concurrencyLimit.getConcurrencyLevel();
+
+        // assert
+        assertThat(concurrencyLevel).isEqualTo(1);
+    }
+
+    @Test
+    void concurrencyLevelScalesWithTheMessagesInTheQueueAndBeingProcessed() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(40, 15));
+        final BacklogScalingConcurrencyLimit concurrencyLimit = new BacklogScalingConcurrencyLimit(queueBacklogMonitor, DEFAULT_PROPERTIES);
+
+        // act
+        final int concurrencyLevel = concurrencyLimit.getConcurrencyLevel();
+
+        // assert
+        assertThat(concurrencyLevel).isEqualTo(6);
+    }
+
+    @Test
+    void concurrencyLevelWillNotExceedTheMaximumConcurrencyLevel() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        final BacklogScalingConcurrencyLimit concurrencyLimit = new BacklogScalingConcurrencyLimit(queueBacklogMonitor, DEFAULT_PROPERTIES);
+
+        // act
+        final int concurrencyLevel = concurrencyLimit.getConcurrencyLevel();
+
+        // assert
+        assertThat(concurrencyLevel).isEqualTo(20);
+    }
+
+    @Test
+    void concurrencyLevelCanScaleToZeroWhenTheQueueIsEmpty() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(0, 0));
+        final BacklogScalingConcurrencyLimit concurrencyLimit = new BacklogScalingConcurrencyLimit(queueBacklogMonitor,
+                DEFAULT_PROPERTIES.toBuilder().minimumConcurrencyLevel(0).build());
+
+        // act
+        final int concurrencyLevel = concurrencyLimit.getConcurrencyLevel();
+
+        // assert
+        assertThat(concurrencyLevel).isZero();
+    }
+
+    @Test
+    void maximumConcurrencyLevelLessThanTheMinimumWillUseTheMinimum() {
+        // arrange
+        when(queueBacklogMonitor.getQueueBacklog()).thenReturn(new QueueBacklog(100, 0));
+        final BacklogScalingConcurrencyLimit concurrencyLimit = new BacklogScalingConcurrencyLimit(queueBacklogMonitor,
+                DEFAULT_PROPERTIES.toBuilder().minimumConcurrencyLevel(5).maximumConcurrencyLevel(2).build());
+
+        // act
+        final int concurrencyLevel = concurrencyLimit.getConcurrencyLevel();
+
+        // assert
+        assertThat(concurrencyLevel).isEqualTo(5);
+    }
+}
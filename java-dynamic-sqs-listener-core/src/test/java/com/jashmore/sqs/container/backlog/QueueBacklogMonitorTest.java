@@ -0,0 +1,117 @@
+package com.jashmore.sqs.container.backlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class QueueBacklogMonitorTest {
+    private static final QueueProperties QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("queueUrl")
+            .build();
+    private static final StaticQueueBacklogMonitorProperties DEFAULT_PROPERTIES = StaticQueueBacklogMonitorProperties.builder()
+            .pollingPeriodInMs(1L)
+            .build();
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    @Test
+    void backlogIsNullBeforeTheQueueAttributesHaveBeenObtained() {
+        // arrange
+        final QueueBacklogMonitor queueBacklogMonitor = new QueueBacklogMonitor(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_PROPERTIES);
+
+        // act
+        final QueueBacklog queueBacklog = queueBacklogMonitor.getQueueBacklog();
+
+        // assert
+        assertThat(queueBacklog).isNull();
+    }
+
+    @Test
+    void refreshingTheBacklogWillRequestTheApproximateNumberOfMessagesInTheQueue() throws Exception {
+        // arrange
+        final QueueBacklogMonitor queueBacklogMonitor = new QueueBacklogMonitor(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_PROPERTIES);
+        mockQueueAttributes("10", "5");
+
+        // act
+        queueBacklogMonitor.refreshQueueBacklog();
+
+        // assert
+        final ArgumentCaptor<GetQueueAttributesRequest> requestCaptor = ArgumentCaptor.forClass(GetQueueAttributesRequest.class);
+        verify(sqsAsyncClient).getQueueAttributes(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().queueUrl()).isEqualTo("queueUrl");
+        assertThat(requestCaptor.getValue().attributeNames())
+                .containsExactlyInAnyOrder(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE);
+        assertThat(queueBacklogMonitor.getQueueBacklog()).isEqualTo(new QueueBacklog(10, 5));
+    }
+
+    @Test
+    void failureToObtainTheQueueAttributesWillKeepThePreviousBacklog() throws Exception {
+        // arrange
+        final QueueBacklogMonitor queueBacklogMonitor = new QueueBacklogMonitor(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_PROPERTIES);
+        mockQueueAttributes("10", "5");
+        queueBacklogMonitor.refreshQueueBacklog();
+        final CompletableFuture<GetQueueAttributesResponse> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new ExpectedTestException());
+        when(sqsAsyncClient.getQueueAttributes(any(GetQueueAttributesRequest.class))).thenReturn(failedFuture);
+
+        // act
+        queueBacklogMonitor.refreshQueueBacklog();
+
+        // assert
+        assertThat(queueBacklogMonitor.getQueueBacklog()).isEqualTo(new QueueBacklog(10, 5));
+    }
+
+    @Test
+    void monitorWillPeriodicallyRefreshTheBacklogUntilInterrupted() throws Exception {
+        // arrange
+        final QueueBacklogMonitor queueBacklogMonitor = new QueueBacklogMonitor(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_PROPERTIES);
+        mockQueueAttributes("10", "5");
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        // act
+        final Future<Boolean> monitorFuture = executorService.submit(() -> {
+            queueBacklogMonitor.run();
+            return Thread.currentThread().isInterrupted();
+        });
+
+        // assert
+        verify(sqsAsyncClient, timeout(5000).atLeast(2)).getQueueAttributes(any(GetQueueAttributesRequest.class));
+        executorService.shutdownNow();
+        assertThat(monitorFuture.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queueBacklogMonitor.getQueueBacklog()).isEqualTo(new QueueBacklog(10, 5));
+    }
+
+    private void mockQueueAttributes(final String approximateNumberOfMessages, final String approximateNumberOfMessagesNotVisible) {
+        when(sqsAsyncClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(GetQueueAttributesResponse.builder()
+                        .attributes(ImmutableMap.of(
+                                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, approximateNumberOfMessages,
+                                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, approximateNumberOfMessagesNotVisible
+                        ))
+                        .build()));
+    }
+}
@@ -0,0 +1,164 @@
+package com.jashmore.sqs.container.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class SharedThreadPoolMessageProcessingExecutorFactoryTest {
+    private ExecutorService sharedExecutorService;
+
+    private SharedThreadPoolMessageProcessingExecutorFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        sharedExecutorService = Executors.newFixedThreadPool(1);
+        factory = new SharedThreadPoolMessageProcessingExecutorFactory(sharedExecutorService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharedExecutorService.shutdownNow();
+    }
+
+    @Test
+    void tasksWillBeRunOnTheSharedExecutor() throws Exception {
+        // arrange
+        final ExecutorService executorService = factory.createExecutorService("id");
+        final Thread sharedThread = sharedExecutorService.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+        // act
+        final Thread thread = executorService.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(thread).isSameAs(sharedThread);
+    }
+
+    @Test
+    void shuttingDownWillNotShutdownTheSharedExecutor() throws Exception {
+        // arrange
+        final ExecutorService executorService = factory.createExecutorService("id");
+
+        // act
+        executorService.shutdown();
+
+        // assert
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sharedExecutorService.isShutdown()).isFalse();
+        assertThat(sharedExecutorService.submit(() -> "value").get(5, TimeUnit.SECONDS)).isEqualTo("value");
+    }
+
+    @Test
+    void tasksCannotBeSubmittedAfterShutdown() {
+        // arrange
+        final ExecutorService executorService = factory.createExecutorService("id");
+
+        // act
+        executorService.shutdown();
+
+        // assert
+        assertThat(executorService.isShutdown()).isTrue();
+        assertThrows(RejectedExecutionException.class, () -> executorService.execute(() -> {
+        }));
+    }
+
+    @Test
+    void awaitTerminationWillWaitForRunningTasksToFinish() throws Exception {
+        // arrange
+        final ExecutorService executorService = factory.createExecutorService("id");
+        final CountDownLatch taskStartedLatch = new CountDownLatch(1);
+        final CountDownLatch taskCanFinishLatch = new CountDownLatch(1);
+        executorService.execute(() -> {
+            taskStartedLatch.countDown();
+            try {
+                taskCanFinishLatch.await();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(taskStartedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // act
+        executorService.shutdown();
+
+        // assert
+        assertThat(executorService.awaitTermination(100, TimeUnit.MILLISECONDS)).isFalse();
+        taskCanFinishLatch.countDown();
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executorService.isTerminated()).isTrue();
+    }
+
+    @Test
+    void shutdownNowWillInterruptRunningTasksAndSkipTasksNotStarted() throws Exception {
+        // arrange
+        final ExecutorService executorService = factory.createExecutorService("id");
+        final CountDownLatch taskStartedLatch = new CountDownLatch(1);
+        final CountDownLatch taskInterruptedLatch = new CountDownLatch(1);
+        executorService.execute(() -> {
+            taskStartedLatch.countDown();
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (final InterruptedException interruptedException) {
+                taskInterruptedLatch.countDown();
+            }
+        });
+        final Runnable taskNotStarted = () -> {
+        };
+        executorService.execute(taskNotStarted);
+        assertThat(taskStartedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // act
+        final List<Runnable> tasksNotRun = executorService.shutdownNow();
+
+        // assert
+        assertThat(tasksNotRun).containsExactly(taskNotStarted);
+        assertThat(taskInterruptedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        final Future<Boolean> sharedThreadInterrupted = sharedExecutorService.submit(() -> Thread.currentThread().isInterrupted());
+        assertThat(sharedThreadInterrupted.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void rejectedTasksFromSharedExecutorAreNotTracked() {
+        // arrange
+        sharedExecutorService.shutdown();
+        final ExecutorService executorService = factory.createExecutorService("id");
+
+        // act
+        assertThrows(RejectedExecutionException.class, () -> executorService.execute(() -> {
+        }));
+
+        // assert
+        executorService.shutdown();
+        assertThat(executorService.isTerminated()).isTrue();
+    }
+
+    @Test
+    void factoryCanBeBuiltWithNumberOfThreads() throws Exception {
+        // arrange
+        final ExecutorService executorService = SharedThreadPoolMessageProcessingExecutorFactory.withNumberOfThreads(1)
+                .createExecutorService("id");
+
+        // act
+        final String threadName = executorService.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(threadName).isEqualTo("shared-message-processing-0");
+    }
+
+    @Test
+    void numberOfThreadsMustBePositive() {
+        // act
+        assertThrows(IllegalArgumentException.class, () -> SharedThreadPoolMessageProcessingExecutorFactory.withNumberOfThreads(0));
+    }
+}
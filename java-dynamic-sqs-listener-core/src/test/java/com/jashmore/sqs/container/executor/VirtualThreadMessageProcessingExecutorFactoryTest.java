@@ -0,0 +1,47 @@
+package com.jashmore.sqs.container.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+class VirtualThreadMessageProcessingExecutorFactoryTest {
+    @Test
+    void fallbackFactoryIsOnlyUsedWhenVirtualThreadsAreNotSupported() {
+        // arrange
+        final MessageProcessingExecutorFactory fallbackExecutorFactory = mock(MessageProcessingExecutorFactory.class);
+        final ExecutorService fallbackExecutorService = mock(ExecutorService.class);
+        when(fallbackExecutorFactory.createExecutorService("id")).thenReturn(fallbackExecutorService);
+        final VirtualThreadMessageProcessingExecutorFactory factory = new VirtualThreadMessageProcessingExecutorFactory(fallbackExecutorFactory);
+
+        // act
+        final ExecutorService executorService = factory.createExecutorService("id");
+
+        // assert
+        if (VirtualThreadMessageProcessingExecutorFactory.isSupported()) {
+            assertThat(executorService).isNotSameAs(fallbackExecutorService);
+            verify(fallbackExecutorFactory, never()).createExecutorService("id");
+        } else {
+            assertThat(executorService).isSameAs(fallbackExecutorService);
+        }
+    }
+
+    @Test
+    void threadNamesAreBuiltFromContainerIdentifier() throws Exception {
+        // arrange
+        final ExecutorService executorService = new VirtualThreadMessageProcessingExecutorFactory().createExecutorService("container-id");
+
+        // act
+        final String threadName = executorService.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(threadName).matches("container-id-message-processing-\\d+");
+        executorService.shutdownNow();
+    }
+}
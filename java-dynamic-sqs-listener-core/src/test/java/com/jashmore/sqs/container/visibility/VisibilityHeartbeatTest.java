@@ -0,0 +1,256 @@
+package com.jashmore.sqs.container.visibility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@ExtendWith(MockitoExtension.class)
+class VisibilityHeartbeatTest {
+    private static final QueueProperties QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("queueUrl")
+            .build();
+    private static final StaticVisibilityHeartbeatProperties DEFAULT_PROPERTIES = StaticVisibilityHeartbeatProperties.builder()
+            .visibilityTimeoutInSeconds(30)
+            .extensionThresholdInSeconds(10)
+            .heartbeatIntervalInMs(1L)
+            .build();
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    private AtomicLong currentTimeInNanoseconds;
+
+    @BeforeEach
+    void setUp() {
+        currentTimeInNanoseconds = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    }
+
+    @Test
+    void messagesThatAreNotCloseToExpiringWillNotBeExtended() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        advanceTime(19);
+
+        // act
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    @Test
+    void messagesThatAreCloseToExpiringWillBeExtendedToTheFullVisibilityTimeout() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        mockChangeMessageVisibilityBatch();
+        advanceTime(21);
+
+        // act
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        final ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqsAsyncClient).changeMessageVisibilityBatch(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().queueUrl()).isEqualTo("queueUrl");
+        assertThat(requestCaptor.getValue().entries())
+                .extracting(ChangeMessageVisibilityBatchRequestEntry::receiptHandle, ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+                .containsExactly(tuple("handle", 30));
+    }
+
+    @Test
+    void extendedMessagesWillNotBeExtendedAgainUntilTheyAreCloseToExpiringAgain() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        mockChangeMessageVisibilityBatch();
+        advanceTime(21);
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // act
+        advanceTime(19);
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+        advanceTime(2);
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        verify(sqsAsyncClient, times(2)).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    }
+
+    @Test
+    void untrackedMessagesWillNotBeExtended() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        final Message message = Message.builder().messageId("id").receiptHandle("handle").build();
+        visibilityHeartbeat.track(message);
+        visibilityHeartbeat.untrack(message);
+        advanceTime(25);
+
+        // act
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    @Test
+    void extensionsForManyMessagesWillBeSentInBatchesOfTen() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        IntStream.range(0, 15)
+                .mapToObj(index -> Message.builder().messageId("id" + index).receiptHandle("handle" + index).build())
+                .forEach(visibilityHeartbeat::track);
+        mockChangeMessageVisibilityBatch();
+        advanceTime(25);
+
+        // act
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        final ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqsAsyncClient, times(2)).changeMessageVisibilityBatch(requestCaptor.capture());
+        final List<Integer> batchSizes = requestCaptor.getAllValues().stream()
+                .map(request -> request.entries().size())
+                .collect(Collectors.toList());
+        assertThat(batchSizes).containsExactlyInAnyOrder(10, 5);
+    }
+
+    @Test
+    void heartbeatWillNotExtendNewlyTrackedMessagesThatAreNotCloseToExpiring() throws Exception {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final Future<?> heartbeatFuture = executorService.submit(visibilityHeartbeat::run);
+
+        // act
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        Thread.sleep(200);
+
+        // assert
+        verifyNoInteractions(sqsAsyncClient);
+        executorService.shutdownNow();
+        heartbeatFuture.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void extensionThresholdNotLessThanTheVisibilityTimeoutWillUseHalfOfTheVisibilityTimeout() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES.toBuilder()
+                .extensionThresholdInSeconds(30)
+                .build());
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        advanceTime(14);
+
+        // act
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    @Test
+    void failureToExtendMessagesWillNotStopFutureExtensions() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        final CompletableFuture<ChangeMessageVisibilityBatchResponse> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new ExpectedTestException());
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class))).thenReturn(failedFuture);
+        advanceTime(21);
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // act
+        advanceTime(21);
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        verify(sqsAsyncClient, times(2)).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    }
+
+    @Test
+    void messagesAreTrackedByTheirReceiptHandle() {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        final Message firstReceive = Message.builder().messageId("id").receiptHandle("firstHandle").build();
+        final Message secondReceive = Message.builder().messageId("id").receiptHandle("secondHandle").build();
+        visibilityHeartbeat.track(firstReceive);
+        visibilityHeartbeat.track(secondReceive);
+        visibilityHeartbeat.untrack(firstReceive);
+        mockChangeMessageVisibilityBatch();
+        advanceTime(21);
+
+        // act
+        visibilityHeartbeat.extendMessagesCloseToExpiry();
+
+        // assert
+        final ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqsAsyncClient).changeMessageVisibilityBatch(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().entries())
+                .extracting(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+                .containsExactly("secondHandle");
+    }
+
+    @Test
+    void heartbeatWillPeriodicallyExtendMessagesUntilInterrupted() throws Exception {
+        // arrange
+        final VisibilityHeartbeat visibilityHeartbeat = buildHeartbeat(DEFAULT_PROPERTIES);
+        visibilityHeartbeat.track(Message.builder().messageId("id").receiptHandle("handle").build());
+        mockChangeMessageVisibilityBatch();
+        advanceTime(21);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        // act
+        final Future<Boolean> heartbeatFuture = executorService.submit(() -> {
+            visibilityHeartbeat.run();
+            return Thread.currentThread().isInterrupted();
+        });
+
+        // assert
+        verify(sqsAsyncClient, timeout(5000)).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+        executorService.shutdownNow();
+        assertThat(heartbeatFuture.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private VisibilityHeartbeat buildHeartbeat(final VisibilityHeartbeatProperties properties) {
+        return new VisibilityHeartbeat(QUEUE_PROPERTIES, sqsAsyncClient, properties, currentTimeInNanoseconds::get);
+    }
+
+    private void mockChangeMessageVisibilityBatch() {
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder().build()));
+    }
+
+    private void advanceTime(final int seconds) {
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
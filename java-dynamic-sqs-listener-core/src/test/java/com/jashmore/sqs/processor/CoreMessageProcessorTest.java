@@ -20,17 +20,25 @@ import com.jashmore.sqs.argument.UnsupportedArgumentResolutionException;
 import com.jashmore.sqs.argument.payload.Payload;
 import com.jashmore.sqs.processor.argument.Acknowledge;
 import com.jashmore.sqs.processor.argument.VisibilityExtender;
+import com.jashmore.sqs.util.ExpectedTestException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.Message;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @ExtendWith(MockitoExtension.class)
 class CoreMessageProcessorTest {
@@ -48,12 +56,15 @@ class CoreMessageProcessorTest {
     @Mock
     private SqsAsyncClient sqsAsyncClient;
 
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private ArgumentResolver<String> mockArgumentResolver;
 
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private ArgumentResolver<CompletableFuture<Object>> completableFutureArgumentResolver;
 
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private ArgumentResolver<Object> objectArgumentResolver;
+
     @Test
     void forEachParameterInMethodTheArgumentIsResolved() {
         // arrange
@@ -238,6 +249,143 @@ class CoreMessageProcessorTest {
         assertThat(exception.getCause()).isInstanceOf(MessageProcessingException.class);
     }
 
+    @Test
+    void methodReturningCompletionStageWillResolveMessageWhenStageCompletes() throws Exception {
+        // arrange
+        final Method method = CoreMessageProcessorTest.class.getMethod("methodReturningCompletionStage", CompletionStage.class);
+        final Message message = Message.builder().receiptHandle("handle").build();
+        doReturn(objectArgumentResolver).when(argumentResolverService).getArgumentResolver(any());
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        when(objectArgumentResolver.resolveArgumentForParameter(eq(QUEUE_PROPERTIES), any(MethodParameter.class), eq(message)))
+                .thenReturn(future.thenApply(value -> value));
+        final MessageProcessor processor = new CoreMessageProcessor(argumentResolverService, QUEUE_PROPERTIES,
+                sqsAsyncClient, method, BEAN);
+        final Runnable messageResolvedRunnable = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> result = processor.processMessage(message, messageResolvedRunnable);
+
+        // assert
+        assertThat(result).isNotDone();
+        verify(messageResolvedRunnable, never()).run();
+        future.complete("value");
+        result.get(5, TimeUnit.SECONDS);
+        verify(messageResolvedRunnable).run();
+    }
+
+    @Test
+    void methodReturningCompletionStageThatReturnsNullWillThrowMessageProcessingException() throws Exception {
+        // arrange
+        final Method method = CoreMessageProcessorTest.class.getMethod("methodReturningCompletionStage", CompletionStage.class);
+        final Message message = Message.builder().receiptHandle("handle").build();
+        doReturn(objectArgumentResolver).when(argumentResolverService).getArgumentResolver(any());
+        when(objectArgumentResolver.resolveArgumentForParameter(eq(QUEUE_PROPERTIES), any(MethodParameter.class), eq(message)))
+                .thenReturn(null);
+        final MessageProcessor processor = new CoreMessageProcessor(argumentResolverService, QUEUE_PROPERTIES,
+                sqsAsyncClient, method, BEAN);
+
+        // act
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> processor.processMessage(message, NO_OP).get());
+
+        // assert
+        assertThat(exception.getCause()).isInstanceOf(MessageProcessingException.class);
+    }
+
+    @Test
+    void failureToResolveMessageWhenCompletionStageCompletesWillCompleteResultExceptionally() throws Exception {
+        // arrange
+        final Method method = CoreMessageProcessorTest.class.getMethod("methodReturningCompletionStage", CompletionStage.class);
+        final Message message = Message.builder().receiptHandle("handle").build();
+        doReturn(objectArgumentResolver).when(argumentResolverService).getArgumentResolver(any());
+        when(objectArgumentResolver.resolveArgumentForParameter(eq(QUEUE_PROPERTIES), any(MethodParameter.class), eq(message)))
+                .thenReturn(CompletableFuture.completedFuture("value"));
+        final MessageProcessor processor = new CoreMessageProcessor(argumentResolverService, QUEUE_PROPERTIES,
+                sqsAsyncClient, method, BEAN);
+
+        // act
+        final CompletableFuture<?> result = processor.processMessage(message, () -> {
+            throw new ExpectedTestException();
+        });
+
+        // assert
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertThat(exception).hasCauseInstanceOf(ExpectedTestException.class);
+    }
+
+    @Test
+    void methodReturningPublisherWillResolveMessageWhenPublisherCompletes() throws Exception {
+        // arrange
+        final Method method = CoreMessageProcessorTest.class.getMethod("methodReturningPublisher", Publisher.class);
+        final Message message = Message.builder().receiptHandle("handle").build();
+        doReturn(objectArgumentResolver).when(argumentResolverService).getArgumentResolver(any());
+        final Subscription subscription = mock(Subscription.class);
+        final AtomicReference<Subscriber<? super Object>> subscriberReference = new AtomicReference<>();
+        final Publisher<Object> publisher = subscriber -> {
+            subscriberReference.set(subscriber);
+            subscriber.onSubscribe(subscription);
+        };
+        when(objectArgumentResolver.resolveArgumentForParameter(eq(QUEUE_PROPERTIES), any(MethodParameter.class), eq(message)))
+                .thenReturn(publisher);
+        final MessageProcessor processor = new CoreMessageProcessor(argumentResolverService, QUEUE_PROPERTIES,
+                sqsAsyncClient, method, BEAN);
+        final Runnable messageResolvedRunnable = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> result = processor.processMessage(message, messageResolvedRunnable);
+
+        // assert
+        verify(subscription).request(Long.MAX_VALUE);
+        subscriberReference.get().onNext("element");
+        assertThat(result).isNotDone();
+        verify(messageResolvedRunnable, never()).run();
+        subscriberReference.get().onComplete();
+        result.get(5, TimeUnit.SECONDS);
+        verify(messageResolvedRunnable).run();
+    }
+
+    @Test
+    void methodReturningPublisherWillNotResolveMessageWhenPublisherErrors() throws Exception {
+        // arrange
+        final Method method = CoreMessageProcessorTest.class.getMethod("methodReturningPublisher", Publisher.class);
+        final Message message = Message.builder().receiptHandle("handle").build();
+        doReturn(objectArgumentResolver).when(argumentResolverService).getArgumentResolver(any());
+        final Publisher<Object> publisher = subscriber -> {
+            subscriber.onSubscribe(mock(Subscription.class));
+            subscriber.onError(new ExpectedTestException());
+        };
+        when(objectArgumentResolver.resolveArgumentForParameter(eq(QUEUE_PROPERTIES), any(MethodParameter.class), eq(message)))
+                .thenReturn(publisher);
+        final MessageProcessor processor = new CoreMessageProcessor(argumentResolverService, QUEUE_PROPERTIES,
+                sqsAsyncClient, method, BEAN);
+        final Runnable messageResolvedRunnable = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> result = processor.processMessage(message, messageResolvedRunnable);
+
+        // assert
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertThat(exception).hasCauseInstanceOf(ExpectedTestException.class);
+        verify(messageResolvedRunnable, never()).run();
+    }
+
+    @Test
+    void methodReturningPublisherThatReturnsNullWillThrowMessageProcessingException() throws Exception {
+        // arrange
+        final Method method = CoreMessageProcessorTest.class.getMethod("methodReturningPublisher", Publisher.class);
+        final Message message = Message.builder().receiptHandle("handle").build();
+        doReturn(objectArgumentResolver).when(argumentResolverService).getArgumentResolver(any());
+        when(objectArgumentResolver.resolveArgumentForParameter(eq(QUEUE_PROPERTIES), any(MethodParameter.class), eq(message)))
+                .thenReturn(null);
+        final MessageProcessor processor = new CoreMessageProcessor(argumentResolverService, QUEUE_PROPERTIES,
+                sqsAsyncClient, method, BEAN);
+
+        // act
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> processor.processMessage(message, NO_OP).get());
+
+        // assert
+        assertThat(exception.getCause()).isInstanceOf(MessageProcessingException.class);
+    }
+
     @SuppressWarnings("unused")
     public void methodWithNoAcknowledge(@Payload String payload, @Payload String payloadTwo) {
 
@@ -258,6 +406,16 @@ class CoreMessageProcessorTest {
         return futureToReturn;
     }
 
+    @SuppressWarnings("WeakerAccess")
+    public CompletionStage<?> methodReturningCompletionStage(CompletionStage<?> completionStageToReturn) {
+        return completionStageToReturn;
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public Publisher<?> methodReturningPublisher(Publisher<?> publisherToReturn) {
+        return publisherToReturn;
+    }
+
     @SuppressWarnings("unused")
     public void methodThatThrowsException(@Payload String payload) {
         throw new RuntimeException("error");
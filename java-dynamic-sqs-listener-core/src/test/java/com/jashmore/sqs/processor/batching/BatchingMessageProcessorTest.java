@@ -0,0 +1,301 @@
+package com.jashmore.sqs.processor.batching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.argument.UnsupportedArgumentResolutionException;
+import com.jashmore.sqs.argument.payload.Payload;
+import com.jashmore.sqs.argument.payload.mapper.PayloadMapper;
+import com.jashmore.sqs.processor.MessageProcessingException;
+import com.jashmore.sqs.processor.argument.BatchAcknowledge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingMessageProcessorTest {
+    private static final Runnable NO_OP = () -> {
+    };
+
+    @Mock
+    private PayloadMapper payloadMapper;
+
+    private Bean bean;
+
+    @BeforeEach
+    void setUp() {
+        bean = new Bean();
+    }
+
+    @Test
+    void batchOfMessagesWillBeProcessedInOneInvocationOnTheCallingThread() {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("messages");
+        final Message firstMessage = Message.builder().messageId("1").build();
+        final Message secondMessage = Message.builder().messageId("2").build();
+
+        // act
+        final CompletableFuture<?> future = processor.processMessages(Arrays.asList(firstMessage, secondMessage), message -> NO_OP);
+
+        // assert
+        assertThat(future).isCompleted();
+        assertThat(bean.batches).containsExactly(Arrays.asList(firstMessage, secondMessage));
+    }
+
+    @Test
+    void singleMessageWillBeProcessedAsABatchOfOneMessage() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("messages");
+        final Message message = Message.builder().messageId("1").build();
+
+        // act
+        processor.processMessage(message, NO_OP).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(bean.batches).containsExactly(Collections.singletonList(message));
+    }
+
+    @Test
+    void messagesAreResolvedWhenBatchIsSuccessfullyProcessed() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("messages");
+        final Message firstMessage = Message.builder().messageId("1").build();
+        final Message secondMessage = Message.builder().messageId("2").build();
+        final Runnable firstResolveCallback = mock(Runnable.class);
+        final Runnable secondResolveCallback = mock(Runnable.class);
+
+        // act
+        processor.processMessages(Arrays.asList(firstMessage, secondMessage), message -> message == firstMessage ? firstResolveCallback : secondResolveCallback)
+                .get(5, TimeUnit.SECONDS);
+
+        // assert
+        verify(firstResolveCallback).run();
+        verify(secondResolveCallback).run();
+    }
+
+    @Test
+    void payloadListParameterWillBeMappedFromEachMessage() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("payloads");
+        final Message message = Message.builder().body("body").build();
+        when(payloadMapper.map(message, (Type) String.class)).thenReturn("mapped");
+
+        // act
+        processor.processMessage(message, NO_OP).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(bean.payloads).containsExactly("mapped");
+    }
+
+    @Test
+    void batchAcknowledgeParameterWillOnlyResolveAcknowledgedMessages() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("acknowledgeFirstMessage");
+        final Message firstMessage = Message.builder().messageId("1").build();
+        final Message secondMessage = Message.builder().messageId("2").build();
+        final Runnable firstResolveCallback = mock(Runnable.class);
+        final Runnable secondResolveCallback = mock(Runnable.class);
+
+        // act
+        processor.processMessages(Arrays.asList(firstMessage, secondMessage), message -> message == firstMessage ? firstResolveCallback : secondResolveCallback)
+                .get(5, TimeUnit.SECONDS);
+
+        // assert
+        verify(firstResolveCallback).run();
+        verify(secondResolveCallback, never()).run();
+    }
+
+    @Test
+    void exceptionThrownProcessingBatchWillCompleteMessagesExceptionally() {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("throwsException");
+        final Runnable resolveMessageCallback = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> future = processor.processMessage(Message.builder().build(), resolveMessageCallback);
+
+        // assert
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertThat(exception).hasCauseInstanceOf(MessageProcessingException.class);
+        verify(resolveMessageCallback, never()).run();
+    }
+
+    @Test
+    void messagesAreNotResolvedUntilReturnedCompletableFutureIsCompleted() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("returnsCompletableFuture");
+        final Runnable resolveMessageCallback = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> future = processor.processMessage(Message.builder().build(), resolveMessageCallback);
+
+        // assert
+        assertThrows(TimeoutException.class, () -> future.get(100, TimeUnit.MILLISECONDS));
+        verify(resolveMessageCallback, never()).run();
+        bean.completableFuture.complete(null);
+        future.get(5, TimeUnit.SECONDS);
+        verify(resolveMessageCallback).run();
+    }
+
+    @Test
+    void messagesAreNotResolvedUntilReturnedCompletionStageIsCompleted() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("returnsCompletionStage");
+        final Runnable resolveMessageCallback = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> future = processor.processMessage(Message.builder().build(), resolveMessageCallback);
+
+        // assert
+        verify(resolveMessageCallback, never()).run();
+        bean.completableFuture.complete(null);
+        future.get(5, TimeUnit.SECONDS);
+        verify(resolveMessageCallback).run();
+    }
+
+    @Test
+    void messagesAreNotResolvedUntilReturnedPublisherCompletes() throws Exception {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("returnsPublisher");
+        final Runnable resolveMessageCallback = mock(Runnable.class);
+
+        // act
+        final CompletableFuture<?> future = processor.processMessage(Message.builder().build(), resolveMessageCallback);
+
+        // assert
+        verify(resolveMessageCallback, never()).run();
+        bean.subscriber.get().onComplete();
+        future.get(5, TimeUnit.SECONDS);
+        verify(resolveMessageCallback).run();
+    }
+
+    @Test
+    void messagesAreNotResolvedWhenReturnedPublisherFails() {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("returnsPublisher");
+        final Runnable resolveMessageCallback = mock(Runnable.class);
+        final CompletableFuture<?> future = processor.processMessage(Message.builder().build(), resolveMessageCallback);
+
+        // act
+        bean.subscriber.get().onError(new RuntimeException("Expected test exception"));
+
+        // assert
+        assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        verify(resolveMessageCallback, never()).run();
+    }
+
+    @Test
+    void methodReturningNullCompletionStageWillCompleteExceptionally() {
+        // arrange
+        final BatchingMessageProcessor processor = buildProcessor("returnsNullCompletionStage");
+
+        // act
+        final CompletableFuture<?> future = processor.processMessage(Message.builder().build(), NO_OP);
+
+        // assert
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertThat(exception).hasCauseInstanceOf(MessageProcessingException.class);
+    }
+
+    @Test
+    void methodWithUnsupportedParameterCannotBeUsed() {
+        // act
+        assertThrows(UnsupportedArgumentResolutionException.class, () -> buildProcessor("unsupportedParameter"));
+    }
+
+    @Test
+    void messageAttributesAreOnlyRequiredWhenTheMessagesAreParameters() {
+        // assert
+        assertThat(BatchingMessageProcessor.getRequiredMessageAttributes(getMethod("messages")))
+                .isEqualTo(RequiredMessageAttributes.all());
+        assertThat(BatchingMessageProcessor.getRequiredMessageAttributes(getMethod("payloads")))
+                .isEqualTo(RequiredMessageAttributes.none());
+    }
+
+    private BatchingMessageProcessor buildProcessor(final String methodName) {
+        return new BatchingMessageProcessor(payloadMapper, getMethod(methodName), bean);
+    }
+
+    private static Method getMethod(final String methodName) {
+        for (final Method method : Bean.class.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No method with name: " + methodName);
+    }
+
+    @SuppressWarnings( {"WeakerAccess", "unused"})
+    public static class Bean {
+        private final List<List<Message>> batches = new CopyOnWriteArrayList<>();
+        private final List<String> payloads = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<?> completableFuture = new CompletableFuture<>();
+        private final AtomicReference<Subscriber<? super Object>> subscriber = new AtomicReference<>();
+
+        public void messages(final List<Message> messages) {
+            batches.add(new ArrayList<>(messages));
+        }
+
+        public void payloads(@Payload final List<String> payloads) {
+            this.payloads.addAll(payloads);
+        }
+
+        public void acknowledgeFirstMessage(final List<Message> messages, final BatchAcknowledge batchAcknowledge) {
+            messages.stream()
+                    .filter(message -> message.messageId().equals("1"))
+                    .forEach(batchAcknowledge::acknowledgeSuccessful);
+        }
+
+        public void throwsException(final List<Message> messages) {
+            throw new RuntimeException("Expected test exception");
+        }
+
+        public CompletableFuture<?> returnsCompletableFuture(final List<Message> messages) {
+            return completableFuture;
+        }
+
+        public CompletionStage<?> returnsCompletionStage(final List<Message> messages) {
+            return completableFuture;
+        }
+
+        public Publisher<?> returnsPublisher(final List<Message> messages) {
+            return (Publisher<Object>) publishedSubscriber -> {
+                subscriber.set(publishedSubscriber);
+                publishedSubscriber.onSubscribe(mock(Subscription.class));
+            };
+        }
+
+        public CompletionStage<?> returnsNullCompletionStage(final List<Message> messages) {
+            return null;
+        }
+
+        public void unsupportedParameter(final String message) {
+
+        }
+    }
+}
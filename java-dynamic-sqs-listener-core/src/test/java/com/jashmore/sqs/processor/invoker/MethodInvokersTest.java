@@ -0,0 +1,199 @@
+package com.jashmore.sqs.processor.invoker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+class MethodInvokersTest {
+    private final Bean bean = new Bean();
+
+    @Test
+    void methodWithNoParametersCanBeInvoked() throws Exception {
+        // arrange
+        final MethodInvoker invoker = MethodInvokers.create(Bean.class.getMethod("noParameters"), bean);
+
+        // act
+        final Object result = invoker.invoke(new Object[0]);
+
+        // assert
+        assertThat(result).isEqualTo("none");
+    }
+
+    @Test
+    void methodsWithSpecialisedNumberOfParametersCanBeInvoked() throws Exception {
+        // arrange
+        final MethodInvoker oneParameterInvoker = MethodInvokers.create(Bean.class.getMethod("oneParameter", String.class), bean);
+        final MethodInvoker twoParameterInvoker = MethodInvokers.create(Bean.class.getMethod("twoParameters", String.class, int.class), bean);
+        final MethodInvoker threeParameterInvoker = MethodInvokers.create(Bean.class.getMethod("threeParameters", String.class, String.class,
+                String.class), bean);
+        final MethodInvoker fourParameterInvoker = MethodInvokers.create(Bean.class.getMethod("fourParameters", String.class, String.class,
+                String.class, String.class), bean);
+
+        // act
+        final Object oneParameterResult = oneParameterInvoker.invoke(new Object[]{"a"});
+        final Object twoParameterResult = twoParameterInvoker.invoke(new Object[]{"a", 2});
+        final Object threeParameterResult = threeParameterInvoker.invoke(new Object[]{"a", "b", "c"});
+        final Object fourParameterResult = fourParameterInvoker.invoke(new Object[]{"a", "b", "c", "d"});
+
+        // assert
+        assertThat(oneParameterResult).isEqualTo("a");
+        assertThat(twoParameterResult).isEqualTo("a2");
+        assertThat(threeParameterResult).isEqualTo("abc");
+        assertThat(fourParameterResult).isEqualTo("abcd");
+    }
+
+    @Test
+    void methodWithManyParametersCanBeInvoked() throws Exception {
+        // arrange
+        final MethodInvoker invoker = MethodInvokers.create(Bean.class.getMethod("fiveParameters", String.class, String.class, String.class,
+                String.class, String.class), bean);
+
+        // act
+        final Object result = invoker.invoke(new Object[]{"a", "b", "c", "d", "e"});
+
+        // assert
+        assertThat(result).isEqualTo("abcde");
+    }
+
+    @Test
+    void voidMethodWillReturnNull() throws Exception {
+        // arrange
+        final MethodInvoker invoker = MethodInvokers.create(Bean.class.getMethod("voidMethod", String.class), bean);
+
+        // act
+        final Object result = invoker.invoke(new Object[]{"value"});
+
+        // assert
+        assertThat(result).isNull();
+        assertThat(bean.lastValue).isEqualTo("value");
+    }
+
+    @Test
+    void staticMethodCanBeInvoked() throws Exception {
+        // arrange
+        final MethodInvoker invoker = MethodInvokers.create(Bean.class.getMethod("staticMethod", String.class), null);
+
+        // act
+        final Object result = invoker.invoke(new Object[]{"value"});
+
+        // assert
+        assertThat(result).isEqualTo("static-value");
+    }
+
+    @Test
+    void exceptionThrownByMethodIsWrappedInInvocationTargetException() throws Exception {
+        // arrange
+        final MethodInvoker invoker = MethodInvokers.create(Bean.class.getMethod("throwsException"), bean);
+
+        // act
+        final InvocationTargetException exception = assertThrows(InvocationTargetException.class, () -> invoker.invoke(new Object[0]));
+
+        // assert
+        assertThat(exception).hasCauseInstanceOf(ExpectedTestException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5})
+    void exceptionThrownByMethodWithParametersIsWrappedInInvocationTargetException(final int parameterCount) throws Exception {
+        // arrange
+        final Class<?>[] parameterTypes = new Class<?>[parameterCount];
+        Arrays.fill(parameterTypes, String.class);
+        final MethodInvoker invoker = MethodInvokers.create(Bean.class.getMethod("throwsException", parameterTypes), bean);
+        final Object[] arguments = new Object[parameterCount];
+        Arrays.fill(arguments, "value");
+
+        // act
+        final InvocationTargetException exception = assertThrows(InvocationTargetException.class, () -> invoker.invoke(arguments));
+
+        // assert
+        assertThat(exception).hasCauseInstanceOf(ExpectedTestException.class);
+    }
+
+    @Test
+    void methodOnNonPublicClassCanBeInvoked() throws Exception {
+        // arrange
+        final MethodInvoker invoker = MethodInvokers.create(NonPublicBean.class.getMethod("method", String.class), new NonPublicBean());
+
+        // act
+        final Object result = invoker.invoke(new Object[]{"value"});
+
+        // assert
+        assertThat(result).isEqualTo("non-public-value");
+    }
+
+    @SuppressWarnings("unused")
+    public static class Bean {
+        private String lastValue;
+
+        public String noParameters() {
+            return "none";
+        }
+
+        public String oneParameter(final String a) {
+            return a;
+        }
+
+        public String twoParameters(final String a, final int b) {
+            return a + b;
+        }
+
+        public String threeParameters(final String a, final String b, final String c) {
+            return a + b + c;
+        }
+
+        public String fourParameters(final String a, final String b, final String c, final String d) {
+            return a + b + c + d;
+        }
+
+        public String fiveParameters(final String a, final String b, final String c, final String d, final String e) {
+            return a + b + c + d + e;
+        }
+
+        public void voidMethod(final String value) {
+            this.lastValue = value;
+        }
+
+        public static String staticMethod(final String value) {
+            return "static-" + value;
+        }
+
+        public void throwsException() {
+            throw new ExpectedTestException();
+        }
+
+        public void throwsException(final String a) {
+            throw new ExpectedTestException();
+        }
+
+        public void throwsException(final String a, final String b) {
+            throw new ExpectedTestException();
+        }
+
+        public void throwsException(final String a, final String b, final String c) {
+            throw new ExpectedTestException();
+        }
+
+        public void throwsException(final String a, final String b, final String c, final String d) {
+            throw new ExpectedTestException();
+        }
+
+        public void throwsException(final String a, final String b, final String c, final String d, final String e) {
+            throw new ExpectedTestException();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class NonPublicBean {
+        public String method(final String value) {
+            return "non-public-" + value;
+        }
+    }
+}
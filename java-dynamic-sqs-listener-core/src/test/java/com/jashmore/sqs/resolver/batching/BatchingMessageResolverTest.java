@@ -2,12 +2,18 @@ package com.jashmore.sqs.resolver.batching;
 
 import static com.jashmore.sqs.util.thread.ThreadTestUtils.waitUntilThreadInState;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableMap;
+
 import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
 import com.jashmore.sqs.util.ExpectedTestException;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
@@ -16,15 +22,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -415,4 +428,410 @@ class BatchingMessageResolverTest {
         blockDeleteMessage.countDown();
         waitUntilThreadInState(resolverThread, Thread.State.TERMINATED);
     }
-}
\ No newline at end of file
+
+    @Test
+    void numberOfBatchesBeingDeletedAtOnceIsLimitedByMaxInFlightBatches() throws Exception {
+        // arrange
+        final StaticBatchingMessageResolverProperties properties = DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                .bufferingSizeLimit(1)
+                .maxInFlightBatches(1)
+                .build();
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient, properties);
+        final CompletableFuture<DeleteMessageBatchResponse> firstBatchResponse = new CompletableFuture<>();
+        final CountDownLatch secondBatchSent = new CountDownLatch(1);
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(firstBatchResponse)
+                .thenAnswer(invocation -> {
+                    secondBatchSent.countDown();
+                    return CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder().build());
+                });
+        batchingMessageResolver.resolveMessage(Message.builder().messageId("first").receiptHandle("handle").build());
+        batchingMessageResolver.resolveMessage(Message.builder().messageId("second").receiptHandle("handle").build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        assertThat(secondBatchSent.await(500, TimeUnit.MILLISECONDS)).isFalse();
+        firstBatchResponse.complete(DeleteMessageBatchResponse.builder().build());
+        assertThat(secondBatchSent.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void adaptiveBufferingTimeWillSendMessagesImmediatelyWhenTheResolutionRateIsLow() throws Exception {
+        // arrange
+        final StaticBatchingMessageResolverProperties properties = DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                .bufferingSizeLimit(10)
+                .bufferingTimeInMs(60_000)
+                .shouldAdaptBufferingTime(true)
+                .build();
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient, properties);
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .successful(DeleteMessageBatchResultEntry.builder().id("id").build())
+                        .build()));
+        executorService.submit(batchingMessageResolver::run);
+
+        // act
+        final CompletableFuture<?> messageResolvedFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // assert
+        messageResolvedFuture.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void adaptiveBufferingTimeWillNotWaitWhenThereAreNoOtherMessagesBeingResolved() {
+        // act
+        final long bufferingTimeInMs = BatchingMessageResolver.calculateAdaptiveBufferingTimeInMs(0, 10, 1000);
+
+        // assert
+        assertThat(bufferingTimeInMs).isEqualTo(0);
+    }
+
+    @Test
+    void adaptiveBufferingTimeWillNotWaitWhenBatchIsNotExpectedToFillWithinTheBufferingTime() {
+        // act
+        final long bufferingTimeInMs = BatchingMessageResolver.calculateAdaptiveBufferingTimeInMs(0.001, 10, 1000);
+
+        // assert
+        assertThat(bufferingTimeInMs).isEqualTo(0);
+    }
+
+    @Test
+    void adaptiveBufferingTimeWillWaitForTheBatchToFillWhenItIsExpectedToFillWithinTheBufferingTime() {
+        // act
+        final long bufferingTimeInMs = BatchingMessageResolver.calculateAdaptiveBufferingTimeInMs(0.5, 10, 1000);
+
+        // assert
+        assertThat(bufferingTimeInMs).isEqualTo(18);
+    }
+
+    @Test
+    void messagesFailingWithRetriableErrorWillBeRetriedInSubsequentBatch() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .maxRetryAttempts(3)
+                        .retryBackoffInMs(1L)
+                        .build());
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("id").code("InternalError").senderFault(false).message("Expected Test Error").build())
+                        .build()))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .successful(DeleteMessageBatchResultEntry.builder().id("id").build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        messageResolvedCompletableFuture.get(5, TimeUnit.SECONDS);
+        verify(sqsAsyncClient, times(2)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        assertThat(batchingMessageResolver.getNumberOfRetries()).isEqualTo(1);
+    }
+
+    @Test
+    void messagesFailingDueToSenderFaultWillNotBeRetried() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .maxRetryAttempts(3)
+                        .retryBackoffInMs(1L)
+                        .build());
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("id").code("ReceiptHandleIsInvalid").senderFault(true).message("Expected Test Error")
+                                .build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        assertThatThrownBy(() -> messageResolvedCompletableFuture.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("Expected Test Error");
+        verify(sqsAsyncClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        assertThat(batchingMessageResolver.getNumberOfRetries()).isZero();
+    }
+
+    @Test
+    void messagesThatContinueToFailWillBeRejectedOnceMaxRetryAttemptsIsReached() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .maxRetryAttempts(2)
+                        .retryBackoffInMs(1L)
+                        .build());
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("id").code("RequestThrottled").senderFault(true).message("Expected Test Error").build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        assertThatThrownBy(() -> messageResolvedCompletableFuture.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("Expected Test Error");
+        verify(sqsAsyncClient, times(3)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        assertThat(batchingMessageResolver.getNumberOfRetries()).isEqualTo(2);
+        assertThat(batchingMessageResolver.getNumberOfRetriesExhausted()).isEqualTo(1);
+    }
+
+    @Test
+    void messagesWillNotBeRetriedIfTheRetryWouldExceedTheMaxRetryPeriod() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .maxRetryAttempts(3)
+                        .retryBackoffInMs(1_000_000L)
+                        .maxRetryPeriodInMs(1L)
+                        .build());
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("id").code("InternalError").senderFault(false).message("Expected Test Error").build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        assertThatThrownBy(() -> messageResolvedCompletableFuture.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("Expected Test Error");
+        assertThat(batchingMessageResolver.getNumberOfRetriesExhausted()).isEqualTo(1);
+    }
+
+    @Test
+    void retriableExceptionSendingBatchWillRetryAllMessages() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .maxRetryAttempts(3)
+                        .retryBackoffInMs(1L)
+                        .build());
+        final CompletableFuture<DeleteMessageBatchResponse> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(SdkServiceException.builder().statusCode(500).message("Expected Test Error").build());
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(failedFuture)
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .successful(DeleteMessageBatchResultEntry.builder().id("id").build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        messageResolvedCompletableFuture.get(5, TimeUnit.SECONDS);
+        verify(sqsAsyncClient, times(2)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    void retriableFailuresWillNotBeRetriedByDefault() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_BATCHING_PROPERTIES);
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("id").code("InternalError").senderFault(false).message("Expected Test Error").build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        assertThatThrownBy(() -> messageResolvedCompletableFuture.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class);
+        verify(sqsAsyncClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        assertThat(batchingMessageResolver.getNumberOfRetries()).isZero();
+    }
+
+    @Test
+    void onlyServerOrThrottlingExceptionsAreRetriable() {
+        assertThat(BatchingMessageResolver.isRetriable(new CompletionException(SdkServiceException.builder().statusCode(503).build()))).isTrue();
+        assertThat(BatchingMessageResolver.isRetriable(SdkServiceException.builder().statusCode(429).build())).isTrue();
+        assertThat(BatchingMessageResolver.isRetriable(SdkServiceException.builder().statusCode(400).build())).isFalse();
+        assertThat(BatchingMessageResolver.isRetriable(new ExpectedTestException())).isFalse();
+    }
+
+    @Test
+    void retryBackoffIsWithinTheExponentialBound() {
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            assertThat(BatchingMessageResolver.calculateRetryBackoffInMs(attempt, 100)).isBetween(1L, 100L << (attempt - 1));
+        }
+    }
+
+    @Test
+    void rejectedMessagesWillHaveTheirVisibilityChangedToTheNegativeAcknowledgementDelay() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .negativeAcknowledgementDelayInSeconds(5)
+                        .build());
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder()
+                        .successful(ChangeMessageVisibilityBatchResultEntry.builder().id("id").build())
+                        .build()));
+        final CompletableFuture<?> messageRejectedCompletableFuture = batchingMessageResolver.rejectMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        messageRejectedCompletableFuture.get(5, TimeUnit.SECONDS);
+        verify(sqsAsyncClient).changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl("queueUrl")
+                .entries(ChangeMessageVisibilityBatchRequestEntry.builder().id("id").receiptHandle("handle").visibilityTimeout(5).build())
+                .build());
+    }
+
+    @Test
+    void rejectingMessagesWillDoNothingWhenNegativeAcknowledgementDelayIsNotSet() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_BATCHING_PROPERTIES);
+
+        // act
+        final CompletableFuture<?> messageRejectedCompletableFuture = batchingMessageResolver.rejectMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+
+        // assert
+        assertThat(messageRejectedCompletableFuture).isCompleted();
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    @Test
+    void approximateReceiveCountIsRequiredWhenNegativeAcknowledgementsAreEnabled() {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .negativeAcknowledgementDelayInSeconds(0)
+                        .build());
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = batchingMessageResolver.getRequiredMessageAttributes();
+
+        // assert
+        assertThat(requiredMessageAttributes)
+                .isEqualTo(RequiredMessageAttributes.messageSystemAttributes(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT));
+    }
+
+    @Test
+    void noAttributesAreRequiredWhenNegativeAcknowledgementsAreDisabled() {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .negativeAcknowledgementDelayInSeconds(-1)
+                        .build());
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = batchingMessageResolver.getRequiredMessageAttributes();
+
+        // assert
+        assertThat(requiredMessageAttributes).isEqualTo(RequiredMessageAttributes.none());
+    }
+
+    @Test
+    void rejectedAndResolvedMessagesBufferedTogetherWillBeSentInSeparateBatches() throws Exception {
+        // arrange
+        final BatchingMessageResolver batchingMessageResolver = new BatchingMessageResolver(QUEUE_PROPERTIES, sqsAsyncClient,
+                DEFAULT_BATCHING_PROPERTIES.toBuilder()
+                        .bufferingSizeLimit(2)
+                        .negativeAcknowledgementDelayInSeconds(0)
+                        .build());
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder()
+                        .successful(DeleteMessageBatchResultEntry.builder().id("id").build())
+                        .build()));
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder()
+                        .successful(ChangeMessageVisibilityBatchResultEntry.builder().id("id2").build())
+                        .build()));
+        final CompletableFuture<?> messageResolvedCompletableFuture = batchingMessageResolver.resolveMessage(Message.builder()
+                .messageId("id")
+                .receiptHandle("handle")
+                .build());
+        final CompletableFuture<?> messageRejectedCompletableFuture = batchingMessageResolver.rejectMessage(Message.builder()
+                .messageId("id2")
+                .receiptHandle("handle2")
+                .build());
+
+        // act
+        executorService.submit(batchingMessageResolver::run);
+
+        // assert
+        CompletableFuture.allOf(messageResolvedCompletableFuture, messageRejectedCompletableFuture).get(5, TimeUnit.SECONDS);
+        verify(sqsAsyncClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        verify(sqsAsyncClient).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    }
+
+    @Test
+    void negativeAcknowledgementDelayWillDoubleForEachPreviousReceiveOfTheMessage() {
+        // arrange
+        final Message message = Message.builder()
+                .attributes(ImmutableMap.of(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "3"))
+                .build();
+
+        // act
+        final int delayInSeconds = BatchingMessageResolver.calculateNegativeAcknowledgementDelayInSeconds(message, 5, true);
+
+        // assert
+        assertThat(delayInSeconds).isEqualTo(20);
+    }
+
+    @Test
+    void negativeAcknowledgementDelayWillNotExceedTheMaximumVisibilityTimeout() {
+        // arrange
+        final Message message = Message.builder()
+                .attributes(ImmutableMap.of(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "100"))
+                .build();
+
+        // act
+        final int delayInSeconds = BatchingMessageResolver.calculateNegativeAcknowledgementDelayInSeconds(message, 5, true);
+
+        // assert
+        assertThat(delayInSeconds).isEqualTo(43_200);
+    }
+
+    @Test
+    void negativeAcknowledgementDelayWithoutReceiveCountWillUseTheBaseDelay() {
+        // act
+        final int delayInSeconds = BatchingMessageResolver.calculateNegativeAcknowledgementDelayInSeconds(Message.builder().build(), 5, true);
+
+        // assert
+        assertThat(delayInSeconds).isEqualTo(5);
+    }
+}
@@ -0,0 +1,118 @@
+package com.jashmore.sqs.retriever;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ReceiveRequestAttemptTrackerTest {
+    private static final QueueProperties FIFO_QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("http://localhost:9324/queue/name.fifo")
+            .build();
+
+    private AtomicLong currentTimeInNanoseconds;
+
+    @BeforeEach
+    void setUp() {
+        currentTimeInNanoseconds = new AtomicLong(TimeUnit.MINUTES.toNanos(10));
+    }
+
+    @Test
+    void attemptsAreNotMadeForStandardQueues() {
+        // arrange
+        final ReceiveRequestAttemptTracker tracker = new ReceiveRequestAttemptTracker(QueueProperties.builder()
+                .queueUrl("http://localhost:9324/queue/name")
+                .build());
+
+        // act
+        final ReceiveRequestAttemptTracker.Attempt attempt = tracker.startAttempt();
+
+        // assert
+        assertThat(attempt).isNull();
+    }
+
+    @Test
+    void eachSuccessfulAttemptWillHaveADifferentId() {
+        // arrange
+        final ReceiveRequestAttemptTracker tracker = buildTracker();
+        final ReceiveRequestAttemptTracker.Attempt firstAttempt = tracker.startAttempt();
+
+        // act
+        final ReceiveRequestAttemptTracker.Attempt secondAttempt = tracker.startAttempt();
+
+        // assert
+        assertThat(firstAttempt).isNotNull();
+        assertThat(secondAttempt).isNotNull();
+        assertThat(secondAttempt.getId()).isNotEqualTo(firstAttempt.getId());
+    }
+
+    @Test
+    void failedAttemptWillBeRetriedByTheNextAttempt() {
+        // arrange
+        final ReceiveRequestAttemptTracker tracker = buildTracker();
+        final ReceiveRequestAttemptTracker.Attempt failedAttempt = tracker.startAttempt();
+        tracker.attemptFailed(failedAttempt);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.MINUTES.toNanos(4));
+
+        // act
+        final ReceiveRequestAttemptTracker.Attempt retriedAttempt = tracker.startAttempt();
+
+        // assert
+        assertThat(retriedAttempt).isEqualTo(failedAttempt);
+    }
+
+    @Test
+    void failedAttemptWillNotBeRetriedOnceTheDeduplicationPeriodHasElapsed() {
+        // arrange
+        final ReceiveRequestAttemptTracker tracker = buildTracker();
+        final ReceiveRequestAttemptTracker.Attempt failedAttempt = tracker.startAttempt();
+        tracker.attemptFailed(failedAttempt);
+        currentTimeInNanoseconds.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        // act
+        final ReceiveRequestAttemptTracker.Attempt nextAttempt = tracker.startAttempt();
+
+        // assert
+        assertThat(nextAttempt).isNotNull();
+        assertThat(nextAttempt.getId()).isNotEqualTo(failedAttempt.getId());
+    }
+
+    @Test
+    void messageGroupIdIsAlwaysRequiredForFifoQueues() {
+        // arrange
+        final ReceiveRequestAttemptTracker tracker = buildTracker();
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = tracker.includeQueueRequiredMessageAttributes(
+                RequiredMessageAttributes.messageAttributes("key")
+        );
+
+        // assert
+        assertThat(requiredMessageAttributes.getMessageSystemAttributeNames()).containsExactly(MessageSystemAttributeName.MESSAGE_GROUP_ID.toString());
+        assertThat(requiredMessageAttributes.getMessageAttributeNames()).containsExactly("key");
+    }
+
+    @Test
+    void noAttributesAreAddedForStandardQueues() {
+        // arrange
+        final ReceiveRequestAttemptTracker tracker = new ReceiveRequestAttemptTracker(QueueProperties.builder()
+                .queueUrl("http://localhost:9324/queue/name")
+                .build());
+
+        // act
+        final RequiredMessageAttributes requiredMessageAttributes = tracker.includeQueueRequiredMessageAttributes(RequiredMessageAttributes.none());
+
+        // assert
+        assertThat(requiredMessageAttributes).isEqualTo(RequiredMessageAttributes.none());
+    }
+
+    private ReceiveRequestAttemptTracker buildTracker() {
+        return new ReceiveRequestAttemptTracker(FIFO_QUEUE_PROPERTIES, currentTimeInNanoseconds::get);
+    }
+}
@@ -27,6 +27,7 @@ import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -290,6 +291,54 @@ class BatchingMessageRetrieverTest {
         });
     }
 
+    @Test
+    void failedRequestForMessagesFromFifoQueueWillBeRetriedWithTheSameReceiveRequestAttemptId() {
+        // arrange
+        final StaticBatchingMessageRetrieverProperties retrieverProperties = DEFAULT_PROPERTIES.toBuilder()
+                .errorBackoffTimeInMilliseconds(0L)
+                .batchSize(1)
+                .build();
+        final BatchingMessageRetriever retriever = new BatchingMessageRetriever(QueueProperties.builder().queueUrl("queueUrl.fifo").build(),
+                sqsAsyncClient, retrieverProperties);
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFutureUtils.completedExceptionally(new ExpectedTestException()))
+                .thenAnswer(invocation -> mockReceiveMessageResponse(Message.builder().build()));
+
+        startRunnableInThread(retriever::run, thread -> {
+            // act
+            retriever.retrieveMessage().get(1, TimeUnit.SECONDS);
+            retriever.retrieveMessage().get(1, TimeUnit.SECONDS);
+
+            // assert
+            final ArgumentCaptor<ReceiveMessageRequest> requestCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+            verify(sqsAsyncClient, times(3)).receiveMessage(requestCaptor.capture());
+            final List<ReceiveMessageRequest> requests = requestCaptor.getAllValues();
+            assertThat(requests.get(0).receiveRequestAttemptId()).isNotNull();
+            assertThat(requests.get(1).receiveRequestAttemptId()).isEqualTo(requests.get(0).receiveRequestAttemptId());
+            assertThat(requests.get(2).receiveRequestAttemptId()).isNotNull().isNotEqualTo(requests.get(0).receiveRequestAttemptId());
+        });
+    }
+
+    @Test
+    void requestsForMessagesFromStandardQueueWillNotIncludeReceiveRequestAttemptId() {
+        // arrange
+        final BatchingMessageRetriever retriever = new BatchingMessageRetriever(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(1)
+                .build());
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenAnswer(invocation -> mockReceiveMessageResponse(Message.builder().build()));
+
+        startRunnableInThread(retriever::run, thread -> {
+            // act
+            retriever.retrieveMessage().get(1, TimeUnit.SECONDS);
+
+            // assert
+            final ArgumentCaptor<ReceiveMessageRequest> requestCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+            verify(sqsAsyncClient).receiveMessage(requestCaptor.capture());
+            assertThat(requestCaptor.getValue().receiveRequestAttemptId()).isNull();
+        });
+    }
+
     @Test
     void interruptedExceptionThrownWhenBackingOffWillEndBackgroundThread() {
         // arrange
@@ -475,6 +524,78 @@ class BatchingMessageRetrieverTest {
         assertThat(receiveMessageRequestArgumentCaptor.getValue().visibilityTimeout()).isNull();
     }
 
+    @Test
+    void requestForBatchOfMessagesCountsTowardsTheBatchSizeForEachMessageRequested() {
+        // arrange
+        final StaticBatchingMessageRetrieverProperties retrieverProperties = DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(3)
+                .batchingPeriodInMs(10_000L)
+                .build();
+        final BatchingMessageRetriever retriever = new BatchingMessageRetriever(QUEUE_PROPERTIES, sqsAsyncClient, retrieverProperties);
+        final Message firstMessage = Message.builder().messageId("1").build();
+        final Message secondMessage = Message.builder().messageId("2").build();
+        final Message thirdMessage = Message.builder().messageId("3").build();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(mockReceiveMessageResponse(firstMessage, secondMessage, thirdMessage))
+                .thenReturn(new CompletableFuture<>());
+
+        startRunnableInThread(retriever::run, thread -> {
+            // act
+            final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(3);
+
+            // assert
+            assertThat(messagesFuture.get(1, TimeUnit.SECONDS)).containsExactly(firstMessage, secondMessage, thirdMessage);
+        });
+        final ArgumentCaptor<ReceiveMessageRequest> receiveMessageRequestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(receiveMessageRequestArgumentCaptor.capture());
+        assertThat(receiveMessageRequestArgumentCaptor.getValue().maxNumberOfMessages()).isEqualTo(3);
+    }
+
+    @Test
+    void messagesAreDistributedBetweenRequestsInTheOrderTheyWereMade() {
+        // arrange
+        final StaticBatchingMessageRetrieverProperties retrieverProperties = DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(3)
+                .batchingPeriodInMs(10_000L)
+                .build();
+        final BatchingMessageRetriever retriever = new BatchingMessageRetriever(QUEUE_PROPERTIES, sqsAsyncClient, retrieverProperties);
+        final Message firstMessage = Message.builder().messageId("1").build();
+        final Message secondMessage = Message.builder().messageId("2").build();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(mockReceiveMessageResponse(firstMessage, secondMessage))
+                .thenReturn(new CompletableFuture<>());
+
+        startRunnableInThread(retriever::run, thread -> {
+            // act
+            final CompletableFuture<Message> messageFuture = retriever.retrieveMessage();
+            final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+            // assert
+            assertThat(messageFuture.get(1, TimeUnit.SECONDS)).isEqualTo(firstMessage);
+            assertThat(messagesFuture.get(1, TimeUnit.SECONDS)).containsExactly(secondMessage);
+        });
+    }
+
+    @Test
+    void requestsForBatchesOfMessagesThatHaveNotBeenCompletedAreCancelledWhenTheRetrieverIsStopped() {
+        // arrange
+        final BatchingMessageRetriever retriever = new BatchingMessageRetriever(QUEUE_PROPERTIES, sqsAsyncClient, DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(5)
+                .batchingPeriodInMs(10_000L)
+                .build());
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+        startRunnableInThread(retriever::run, thread -> {
+            // act
+            waitUntilThreadInState(thread, Thread.State.TIMED_WAITING);
+            thread.interrupt();
+            waitUntilThreadInState(thread, Thread.State.TERMINATED);
+        });
+
+        // assert
+        assertThat(messagesFuture).isCancelled();
+    }
+
     private CompletableFuture<ReceiveMessageResponse> mockReceiveMessageResponse(final Message... messages) {
         return CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
                 .messages(messages)
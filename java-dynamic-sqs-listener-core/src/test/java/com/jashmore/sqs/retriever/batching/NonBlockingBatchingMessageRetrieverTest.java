@@ -0,0 +1,296 @@
+package com.jashmore.sqs.retriever.batching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class NonBlockingBatchingMessageRetrieverTest {
+    private static final QueueProperties QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("queueUrl")
+            .build();
+
+    private static final StaticBatchingMessageRetrieverProperties DEFAULT_PROPERTIES = StaticBatchingMessageRetrieverProperties.builder()
+            .batchSize(2)
+            .batchingPeriodInMs(Long.MAX_VALUE)
+            .errorBackoffTimeInMilliseconds(10L)
+            .build();
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void messagesWillNotBeRequestedUntilTheBatchSizeIsReached() {
+        // arrange
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES);
+        retriever.start();
+
+        // act
+        retriever.retrieveMessage();
+
+        // assert
+        verify(sqsAsyncClient, times(0)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void messagesWillNotBeRequestedUntilTheRetrieverIsStarted() {
+        // arrange
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES);
+
+        // act
+        retriever.retrieveMessage();
+        retriever.retrieveMessage();
+
+        // assert
+        verify(sqsAsyncClient, times(0)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void reachingTheBatchSizeWillRequestMessagesForTheBatch() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES);
+        retriever.start();
+
+        // act
+        retriever.retrieveMessage();
+        retriever.retrieveMessage();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().maxNumberOfMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void batchingPeriodElapsingWillRequestMessagesForThePartialBatch() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES.toBuilder()
+                .batchingPeriodInMs(50L)
+                .build());
+        retriever.start();
+
+        // act
+        retriever.retrieveMessage();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient, timeout(1000)).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().maxNumberOfMessages()).isEqualTo(1);
+    }
+
+    @Test
+    void requestForMultipleMessagesCountsTowardsTheBatchSize() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(5)
+                .build());
+        retriever.start();
+
+        // act
+        retriever.retrieveMessages(5);
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().maxNumberOfMessages()).isEqualTo(5);
+    }
+
+    @Test
+    void messagesReceivedAreDistributedToTheRequestsInTheBatch() throws Exception {
+        // arrange
+        final Message firstMessage = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        final Message thirdMessage = Message.builder().body("third").build();
+        final CompletableFuture<ReceiveMessageResponse> receiveMessageFuture = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(receiveMessageFuture);
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(3)
+                .build());
+        retriever.start();
+        final CompletableFuture<Message> messageFuture = retriever.retrieveMessage();
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+        // act
+        receiveMessageFuture.complete(ReceiveMessageResponse.builder().messages(firstMessage, secondMessage, thirdMessage).build());
+
+        // assert
+        assertThat(messageFuture.get(1, TimeUnit.SECONDS)).isEqualTo(firstMessage);
+        assertThat(messagesFuture.get(1, TimeUnit.SECONDS)).containsExactly(secondMessage, thirdMessage);
+    }
+
+    @Test
+    void onlyOneRequestForMessagesIsInFlightAtATime() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES);
+        retriever.start();
+
+        // act
+        for (int i = 0; i < 4; ++i) {
+            retriever.retrieveMessage();
+        }
+
+        // assert
+        verify(sqsAsyncClient, times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void requestsThatWereNotCompletedWillBeIncludedInTheNextBatch() throws Exception {
+        // arrange
+        final Message message = Message.builder().body("body").build();
+        final CompletableFuture<ReceiveMessageResponse> firstReceiveMessageFuture = new CompletableFuture<>();
+        final CompletableFuture<ReceiveMessageResponse> secondReceiveMessageFuture = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(firstReceiveMessageFuture)
+                .thenReturn(secondReceiveMessageFuture);
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(1)
+                .build());
+        retriever.start();
+        final CompletableFuture<Message> messageFuture = retriever.retrieveMessage();
+
+        // act
+        firstReceiveMessageFuture.complete(ReceiveMessageResponse.builder().build());
+        secondReceiveMessageFuture.complete(ReceiveMessageResponse.builder().messages(message).build());
+
+        // assert
+        verify(sqsAsyncClient, times(2)).receiveMessage(any(ReceiveMessageRequest.class));
+        assertThat(messageFuture.get(1, TimeUnit.SECONDS)).isEqualTo(message);
+    }
+
+    @Test
+    void errorReceivingMessagesWillBackoffBeforeRequestingAgain() {
+        // arrange
+        final CompletableFuture<ReceiveMessageResponse> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new ExpectedTestException());
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(failedFuture)
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(1)
+                .build());
+        retriever.start();
+
+        // act
+        retriever.retrieveMessage();
+
+        // assert
+        verify(sqsAsyncClient, timeout(1000).times(2)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void stoppingRetrieverWillCancelTheRequestInFlightAndFuturesWaitingForMessages() throws Exception {
+        // arrange
+        final CompletableFuture<ReceiveMessageResponse> inFlightRequest = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(inFlightRequest);
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES.toBuilder()
+                .batchSize(1)
+                .build());
+        final CompletableFuture<List<Message>> retrieverStoppedFuture = retriever.start();
+        final CompletableFuture<Message> messageInFlightFuture = retriever.retrieveMessage();
+        final CompletableFuture<Message> messageWaitingFuture = retriever.retrieveMessage();
+
+        // act
+        retriever.stop();
+
+        // assert
+        assertThat(inFlightRequest).isCancelled();
+        assertThat(messageInFlightFuture).isCancelled();
+        assertThat(messageWaitingFuture).isCancelled();
+        assertThat(retrieverStoppedFuture.get(1, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @Test
+    void requestsForMessagesFromFifoQueueWillAlwaysIncludeTheMessageGroupId() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingBatchingMessageRetriever retriever = new NonBlockingBatchingMessageRetriever(
+                QueueProperties.builder().queueUrl("queueUrl.fifo").build(),
+                sqsAsyncClient,
+                DEFAULT_PROPERTIES.toBuilder()
+                        .batchSize(1)
+                        .requiredMessageAttributes(RequiredMessageAttributes.none())
+                        .build(),
+                scheduler
+        );
+        retriever.start();
+
+        // act
+        retriever.retrieveMessage();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().attributeNamesAsStrings()).containsExactly(MessageSystemAttributeName.MESSAGE_GROUP_ID.toString());
+    }
+
+    @Test
+    void startingRetrieverThatHasAlreadyBeenStartedThrowsException() {
+        // arrange
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES);
+        retriever.start();
+
+        // act
+        final IllegalStateException exception = assertThrows(IllegalStateException.class, retriever::start);
+
+        // assert
+        assertThat(exception).hasMessage("The retriever has already been started");
+    }
+
+    @Test
+    void retrievingNonPositiveNumberOfMessagesThrowsException() {
+        // arrange
+        final NonBlockingBatchingMessageRetriever retriever = buildRetriever(DEFAULT_PROPERTIES);
+
+        // act
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> retriever.retrieveMessages(0));
+
+        // assert
+        assertThat(exception).hasMessage("maxNumberOfMessages must be greater than zero");
+    }
+
+    private NonBlockingBatchingMessageRetriever buildRetriever(final BatchingMessageRetrieverProperties properties) {
+        return new NonBlockingBatchingMessageRetriever(QUEUE_PROPERTIES, sqsAsyncClient, properties, scheduler);
+    }
+}
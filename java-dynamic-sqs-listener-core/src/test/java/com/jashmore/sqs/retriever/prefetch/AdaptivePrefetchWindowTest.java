@@ -0,0 +1,158 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+class AdaptivePrefetchWindowTest {
+    private static final StaticPrefetchingMessageRetrieverProperties DEFAULT_PROPERTIES = StaticPrefetchingMessageRetrieverProperties.builder()
+            .desiredMinPrefetchedMessages(1)
+            .maxPrefetchedMessages(100)
+            .shouldAdaptPrefetchWindow(true)
+            .build();
+
+    private AtomicLong currentTimeInNanoseconds;
+
+    @BeforeEach
+    void setUp() {
+        currentTimeInNanoseconds = new AtomicLong();
+    }
+
+    @Test
+    void windowWillBeTheConfiguredValuesBeforeAnyMeasurementsHaveBeenTaken() {
+        // act
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES.toBuilder().desiredMinPrefetchedMessages(5).build());
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(5);
+        assertThat(window.getMaxPrefetchedMessages()).isEqualTo(100);
+    }
+
+    @Test
+    void desiredMinPrefetchedMessagesIsTheConsumptionRateMultipliedByTheReceiveRoundTripTime() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES);
+        window.recordReceive(TimeUnit.SECONDS.toNanos(2), 10);
+        consumeMessagesOverOneSecond(window, 10);
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(20);
+        assertThat(window.getMaxPrefetchedMessages()).isEqualTo(30);
+    }
+
+    @Test
+    void windowWillNotBeRecalculatedIfNotEnoughTimeHasPassed() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES);
+        window.recordReceive(TimeUnit.SECONDS.toNanos(2), 10);
+        IntStream.range(0, 10).forEach(i -> window.recordMessageConsumed());
+        currentTimeInNanoseconds.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(1);
+        assertThat(window.getMaxPrefetchedMessages()).isEqualTo(100);
+    }
+
+    @Test
+    void windowIsKeptWithinTheConfiguredBounds() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(5)
+                .maxPrefetchedMessages(15)
+                .build());
+        window.recordReceive(TimeUnit.SECONDS.toNanos(2), 10);
+        consumeMessagesOverOneSecond(window, 10);
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(15);
+        assertThat(window.getMaxPrefetchedMessages()).isEqualTo(15);
+    }
+
+    @Test
+    void windowIsCappedSoMessagesAreConsumedWithinHalfOfTheVisibilityTimeout() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES.toBuilder()
+                .messageVisibilityTimeoutInSeconds(2)
+                .build());
+        window.recordReceive(TimeUnit.SECONDS.toNanos(2), 10);
+        consumeMessagesOverOneSecond(window, 10);
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(10);
+        assertThat(window.getMaxPrefetchedMessages()).isEqualTo(10);
+    }
+
+    @Test
+    void receivesThatReturnNoMessagesAreNotIncludedInTheRoundTripTime() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES);
+        window.recordReceive(TimeUnit.SECONDS.toNanos(2), 10);
+        window.recordReceive(TimeUnit.SECONDS.toNanos(20), 0);
+        consumeMessagesOverOneSecond(window, 10);
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(20);
+    }
+
+    @Test
+    void consumptionRateWillOnlySlowlyDecreaseWhenConsumptionStops() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES);
+        window.recordReceive(TimeUnit.SECONDS.toNanos(2), 10);
+        consumeMessagesOverOneSecond(window, 10);
+        window.recalculateIfNecessary();
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(16);
+    }
+
+    @Test
+    void consumptionRateWillImmediatelyIncreaseDuringABurst() {
+        // arrange
+        final AdaptivePrefetchWindow window = buildWindow(DEFAULT_PROPERTIES);
+        window.recordReceive(TimeUnit.SECONDS.toNanos(1), 10);
+        consumeMessagesOverOneSecond(window, 1);
+        window.recalculateIfNecessary();
+        consumeMessagesOverOneSecond(window, 40);
+
+        // act
+        window.recalculateIfNecessary();
+
+        // assert
+        assertThat(window.getDesiredMinPrefetchedMessages()).isEqualTo(40);
+        assertThat(window.getMaxPrefetchedMessages()).isEqualTo(50);
+    }
+
+    private AdaptivePrefetchWindow buildWindow(final PrefetchingMessageRetrieverProperties properties) {
+        return new AdaptivePrefetchWindow(properties, currentTimeInNanoseconds::get);
+    }
+
+    private void consumeMessagesOverOneSecond(final AdaptivePrefetchWindow window, final int numberOfMessages) {
+        IntStream.range(0, numberOfMessages).forEach(i -> window.recordMessageConsumed());
+        currentTimeInNanoseconds.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,178 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class BoundedArrayQueueTest {
+    private final List<String> polledElements = new ArrayList<>();
+    private final List<Long> polledTimestamps = new ArrayList<>();
+    private final ObjLongConsumer<String> recordPolledElement = (element, timestamp) -> {
+        polledElements.add(element);
+        polledTimestamps.add(timestamp);
+    };
+
+    @Test
+    void capacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedArrayQueue<String>(0));
+    }
+
+    @Test
+    void pollingEmptyQueueReturnsFalse() {
+        // arrange
+        final BoundedArrayQueue<String> queue = new BoundedArrayQueue<>(2);
+
+        // act
+        final boolean polled = queue.poll(recordPolledElement);
+
+        // assert
+        assertThat(polled).isFalse();
+        assertThat(polledElements).isEmpty();
+    }
+
+    @Test
+    void pollIfWillRemoveTheHeadWhenItMatchesThePredicate() {
+        // arrange
+        final BoundedArrayQueue<String> queue = new BoundedArrayQueue<>(4);
+        queue.offer("first", 1);
+        queue.offer("second", 2);
+
+        // act
+        final boolean polled = queue.pollIf((element, timestamp) -> element.equals("first"), recordPolledElement);
+
+        // assert
+        assertThat(polled).isTrue();
+        assertThat(queue.poll(recordPolledElement)).isTrue();
+        assertThat(polledElements).containsExactly("first", "second");
+    }
+
+    @Test
+    void pollIfWillNotRemoveTheHeadWhenItDoesNotMatchThePredicate() {
+        // arrange
+        final BoundedArrayQueue<String> queue = new BoundedArrayQueue<>(4);
+        queue.offer("first", 1);
+        queue.offer("second", 2);
+
+        // act
+        final boolean polled = queue.pollIf((element, timestamp) -> element.equals("second"), recordPolledElement);
+
+        // assert
+        assertThat(polled).isFalse();
+        assertThat(queue.poll(recordPolledElement)).isTrue();
+        assertThat(polledElements).containsExactly("first");
+    }
+
+    @Test
+    void pollIfPredicateIsTestedWithTheTimestampOfTheHead() {
+        // arrange
+        final BoundedArrayQueue<String> queue = new BoundedArrayQueue<>(4);
+        queue.offer("first", 1);
+        queue.offer("second", 2);
+
+        // act
+        final boolean polled = queue.pollIf((element, timestamp) -> timestamp == 2, recordPolledElement);
+
+        // assert
+        assertThat(polled).isFalse();
+    }
+
+    @Test
+    void elementsArePolledInTheOrderTheyWereOfferedWithTheirTimestamps() {
+        // arrange
+        final BoundedArrayQueue<String> queue = new BoundedArrayQueue<>(4);
+        queue.offer("first", 1);
+        queue.offer("second", 2);
+
+        // act
+        queue.poll(recordPolledElement);
+        queue.poll(recordPolledElement);
+
+        // assert
+        assertThat(polledElements).containsExactly("first", "second");
+        assertThat(polledTimestamps).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void offeringToFullQueueReturnsFalse() {
+        // arrange
+        final BoundedArrayQueue<String> queue = new BoundedArrayQueue<>(2);
+        queue.offer("first", 1);
+        queue.offer("second", 2);
+
+        // act
+        final boolean added = queue.offer("third", 3);
+
+        // assert
+        assertThat(added).isFalse();
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        // arrange
+        final BoundedArrayQueue<Integer> queue = new BoundedArrayQueue<>(3);
+
+        // act
+        final List<Boolean> results = IntStream.range(0, 5).mapToObj(index -> queue.offer(index, index)).collect(Collectors.toList());
+
+        // assert
+        assertThat(results).containsExactly(true, true, true, true, false);
+    }
+
+    @Test
+    void allElementsOfferedConcurrentlyArePolledExactlyOnceWithTheirTimestamps() throws Exception {
+        // arrange
+        final int elementsPerProducer = 1_000;
+        final int numberOfProducers = 2;
+        final BoundedArrayQueue<Integer> queue = new BoundedArrayQueue<>(16);
+        final Set<Integer> elementsPolled = ConcurrentHashMap.newKeySet();
+        final Set<Integer> elementsWithIncorrectTimestamp = ConcurrentHashMap.newKeySet();
+        final CountDownLatch allElementsPolled = new CountDownLatch(elementsPerProducer * numberOfProducers);
+        final ExecutorService executorService = Executors.newFixedThreadPool(numberOfProducers * 2);
+        final ObjLongConsumer<Integer> recordElement = (element, timestamp) -> {
+            if (timestamp != element) {
+                elementsWithIncorrectTimestamp.add(element);
+            }
+            elementsPolled.add(element);
+            allElementsPolled.countDown();
+        };
+
+        // act
+        for (int producer = 0; producer < numberOfProducers; ++producer) {
+            final int offset = producer * elementsPerProducer;
+            executorService.submit(() -> {
+                for (int i = 0; i < elementsPerProducer; ++i) {
+                    while (!queue.offer(offset + i, offset + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            executorService.submit(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (!queue.poll(recordElement)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        final boolean completed = allElementsPolled.await(10, TimeUnit.SECONDS);
+        executorService.shutdownNow();
+
+        // assert
+        assertThat(completed).isTrue();
+        assertThat(elementsPolled).hasSize(elementsPerProducer * numberOfProducers);
+        assertThat(elementsWithIncorrectTimestamp).isEmpty();
+    }
+}
@@ -0,0 +1,448 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ExtendWith(MockitoExtension.class)
+class NonBlockingPrefetchingMessageRetrieverTest {
+    private static final QueueProperties QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("queueUrl")
+            .build();
+
+    private static final StaticPrefetchingMessageRetrieverProperties DEFAULT_PREFETCHING_PROPERTIES = StaticPrefetchingMessageRetrieverProperties.builder()
+            .desiredMinPrefetchedMessages(1)
+            .maxPrefetchedMessages(2)
+            .errorBackoffTimeInMilliseconds(10)
+            .build();
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    private ScheduledExecutorService backoffScheduler;
+
+    @BeforeEach
+    void setUp() {
+        backoffScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        backoffScheduler.shutdownNow();
+    }
+
+    @Test
+    void desiredPrefetchedMessagesGreaterThanMaxPrefetchedMessagesThrowsException() {
+        // arrange
+        final PrefetchingMessageRetrieverProperties properties = DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(10)
+                .maxPrefetchedMessages(5)
+                .build();
+
+        // act
+        final IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> new NonBlockingPrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties, backoffScheduler)
+        );
+
+        // assert
+        assertThat(exception).hasMessage("maxPrefetchedMessages should be greater than or equal to desiredMinPrefetchedMessages");
+    }
+
+    @Test
+    void startingRetrieverWillRequestTheMaximumNumberOfPrefetchedMessages() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .maxPrefetchedMessages(5)
+                .build());
+
+        // act
+        retriever.start();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().maxNumberOfMessages()).isEqualTo(5);
+    }
+
+    @Test
+    void onlyTheRequiredMessageAttributesWillBeRequested() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .requiredMessageAttributes(RequiredMessageAttributes.messageAttributes("key")
+                        .and(RequiredMessageAttributes.messageSystemAttributes(MessageSystemAttributeName.SENDER_ID)))
+                .build());
+
+        // act
+        retriever.start();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().messageAttributeNames()).containsExactly("key");
+        assertThat(requestArgumentCaptor.getValue().attributeNamesAsStrings()).containsExactly(MessageSystemAttributeName.SENDER_ID.toString());
+    }
+
+    @Test
+    void allMessageAttributesWillBeRequestedWhenNoRequiredMessageAttributesAreProvided() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+
+        // act
+        retriever.start();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().messageAttributeNames()).containsExactly(QueueAttributeName.ALL.toString());
+        assertThat(requestArgumentCaptor.getValue().attributeNames()).containsExactly(QueueAttributeName.ALL);
+    }
+
+    @Test
+    void messagesWillNotBeRequestedUntilTheRetrieverIsStarted() {
+        // arrange
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+
+        // act
+        retriever.retrieveMessage();
+
+        // assert
+        verify(sqsAsyncClient, times(0)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void futuresWaitingForMessagesAreCompletedWhenTheMessagesAreReceived() throws Exception {
+        // arrange
+        final CompletableFuture<ReceiveMessageResponse> receiveMessageFuture = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(receiveMessageFuture)
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+        retriever.start();
+        final CompletableFuture<Message> messageFuture = retriever.retrieveMessage();
+        final Message message = Message.builder().body("body").build();
+
+        // act
+        receiveMessageFuture.complete(ReceiveMessageResponse.builder().messages(message).build());
+
+        // assert
+        assertThat(messageFuture.get(1, TimeUnit.SECONDS)).isEqualTo(message);
+    }
+
+    @Test
+    void messagesAreHandedOverInTheOrderThatTheyWereReceived() {
+        // arrange
+        final CompletableFuture<ReceiveMessageResponse> receiveMessageFuture = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(receiveMessageFuture)
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(3)
+                .maxPrefetchedMessages(3)
+                .build());
+        retriever.start();
+        final List<Message> messagesHandedOver = new ArrayList<>();
+        retriever.retrieveMessage().thenAccept(message -> {
+            messagesHandedOver.add(message);
+            // a broker will request another message as soon as the previous message has been obtained
+            retriever.retrieveMessage().thenAccept(messagesHandedOver::add);
+        });
+        retriever.retrieveMessage().thenAccept(messagesHandedOver::add);
+        final Message first = Message.builder().body("first").build();
+        final Message second = Message.builder().body("second").build();
+        final Message third = Message.builder().body("third").build();
+
+        // act
+        receiveMessageFuture.complete(ReceiveMessageResponse.builder().messages(first, second, third).build());
+
+        // assert
+        assertThat(messagesHandedOver).containsExactly(first, second, third);
+    }
+
+    @Test
+    void whenDesiredMinPrefetchedMessagesHaveBeenReceivedNoMoreMessagesAreRequested() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
+                        .messages(Message.builder().body("first").build(), Message.builder().body("second").build())
+                        .build()));
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+
+        // act
+        retriever.start();
+
+        // assert
+        verify(sqsAsyncClient, times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void takingPrefetchedMessageWillRequestMoreMessages() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
+                        .messages(Message.builder().body("first").build(), Message.builder().body("second").build())
+                        .build()))
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+        retriever.start();
+
+        // act
+        retriever.retrieveMessage();
+        retriever.retrieveMessage();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient, times(2)).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getAllValues().get(1).maxNumberOfMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void multipleConcurrentReceivesWillHaveMultipleRequestsInFlight() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .maxPrefetchedMessages(30)
+                .maxConcurrentReceives(2)
+                .build());
+
+        // act
+        retriever.start();
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient, times(2)).receiveMessage(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getAllValues()).allSatisfy(request -> assertThat(request.maxNumberOfMessages()).isEqualTo(10));
+    }
+
+    @Test
+    void errorReceivingMessagesWillBackoffBeforeRequestingAgain() {
+        // arrange
+        final CompletableFuture<ReceiveMessageResponse> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new ExpectedTestException());
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(failedFuture)
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+
+        // act
+        retriever.start();
+
+        // assert
+        verify(sqsAsyncClient, timeout(1000).times(2)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void takingMessageWhenAllPrefetchedMessagesHaveExpiredWillRequestMoreMessages() {
+        // arrange
+        final AtomicLong elapsedTimeInNanoseconds = new AtomicLong();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
+                        .messages(Message.builder().body("first").build(), Message.builder().body("second").build())
+                        .build()))
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetrieverWithVisibilityManager(elapsedTimeInNanoseconds);
+        retriever.start();
+        elapsedTimeInNanoseconds.set(TimeUnit.SECONDS.toNanos(60));
+
+        // act
+        final CompletableFuture<Message> messageFuture = retriever.retrieveMessage();
+
+        // assert
+        assertThat(messageFuture).isNotDone();
+        verify(sqsAsyncClient, times(2)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void stoppingRetrieverWillCancelRequestsInFlightAndReturnPrefetchedMessages() throws Exception {
+        // arrange
+        final Message message = Message.builder().body("body").build();
+        final CompletableFuture<ReceiveMessageResponse> inFlightRequest = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(message).build()))
+                .thenReturn(inFlightRequest);
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(2)
+                .build());
+        final CompletableFuture<List<Message>> retrieverStoppedFuture = retriever.start();
+
+        // act
+        retriever.stop();
+
+        // assert
+        assertThat(inFlightRequest).isCancelled();
+        assertThat(retrieverStoppedFuture.get(1, TimeUnit.SECONDS)).containsExactly(message);
+    }
+
+    @Test
+    void stoppingRetrieverWillCancelFuturesWaitingForMessages() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+        retriever.start();
+        final CompletableFuture<Message> messageFuture = retriever.retrieveMessage();
+
+        // act
+        retriever.stop();
+
+        // assert
+        assertThat(messageFuture).isCancelled();
+    }
+
+    @Test
+    void runningRetrieverWillBlockUntilInterruptedAndReturnPrefetchedMessages() throws Exception {
+        // arrange
+        final Message message = Message.builder().body("body").build();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(message).build()));
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+        final CompletableFuture<List<Message>> leftoverMessagesFuture = new CompletableFuture<>();
+        final Thread thread = new Thread(() -> leftoverMessagesFuture.complete(retriever.run()));
+        thread.start();
+        verify(sqsAsyncClient, timeout(1000)).receiveMessage(any(ReceiveMessageRequest.class));
+
+        // act
+        thread.interrupt();
+
+        // assert
+        assertThat(leftoverMessagesFuture.get(1, TimeUnit.SECONDS)).containsExactly(message);
+    }
+
+    @Test
+    void startingRetrieverThatHasAlreadyBeenStartedThrowsException() {
+        // arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+        retriever.start();
+
+        // act
+        final IllegalStateException exception = assertThrows(IllegalStateException.class, retriever::start);
+
+        // assert
+        assertThat(exception).hasMessage("The retriever has already been started");
+    }
+
+    @Test
+    void retrievingMessagesWillTakeAllPrefetchedMessagesUpToTheMaximumRequested() throws Exception {
+        // arrange
+        final Message firstMessage = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        final Message thirdMessage = Message.builder().body("third").build();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
+                        .messages(firstMessage, secondMessage, thirdMessage)
+                        .build()))
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .maxPrefetchedMessages(3)
+                .build());
+        retriever.start();
+
+        // act
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+        // assert
+        assertThat(messagesFuture.get(1, TimeUnit.SECONDS)).containsExactly(firstMessage, secondMessage);
+    }
+
+    @Test
+    void retrievingMessagesWhenNoneArePrefetchedWillCompleteWithTheMessagesFromTheNextResponse() throws Exception {
+        // arrange
+        final Message firstMessage = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        final CompletableFuture<ReceiveMessageResponse> inFlightRequest = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(inFlightRequest)
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+        retriever.start();
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(5);
+
+        // act
+        inFlightRequest.complete(ReceiveMessageResponse.builder().messages(firstMessage, secondMessage).build());
+
+        // assert
+        assertThat(messagesFuture.get(1, TimeUnit.SECONDS)).containsExactly(firstMessage, secondMessage);
+    }
+
+    @Test
+    void retrievingMessagesWhenAllPrefetchedMessagesHaveExpiredWillRequestMoreMessages() {
+        // arrange
+        final AtomicLong elapsedTimeInNanoseconds = new AtomicLong();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
+                        .messages(Message.builder().body("first").build(), Message.builder().body("second").build())
+                        .build()))
+                .thenReturn(new CompletableFuture<>());
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetrieverWithVisibilityManager(elapsedTimeInNanoseconds);
+        retriever.start();
+        elapsedTimeInNanoseconds.set(TimeUnit.SECONDS.toNanos(60));
+
+        // act
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+        // assert
+        assertThat(messagesFuture).isNotDone();
+        verify(sqsAsyncClient, times(2)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void retrievingNonPositiveNumberOfMessagesThrowsException() {
+        // arrange
+        final NonBlockingPrefetchingMessageRetriever retriever = buildRetriever(DEFAULT_PREFETCHING_PROPERTIES);
+
+        // act
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> retriever.retrieveMessages(0));
+
+        // assert
+        assertThat(exception).hasMessage("maxNumberOfMessages must be greater than zero");
+    }
+
+    private NonBlockingPrefetchingMessageRetriever buildRetriever(final PrefetchingMessageRetrieverProperties properties) {
+        return new NonBlockingPrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties, backoffScheduler);
+    }
+
+    /**
+     * Build a retriever that discards messages once their visibility timeout has expired, where the time is moved forward by the elapsed time.
+     *
+     * <p>The prefetched messages are not periodically released so that only the consumption of the messages can trigger more messages to be requested.
+     */
+    private NonBlockingPrefetchingMessageRetriever buildRetrieverWithVisibilityManager(final AtomicLong elapsedTimeInNanoseconds) {
+        final PrefetchedMessageVisibilityManager visibilityManager = new PrefetchedMessageVisibilityManager(sqsAsyncClient, QUEUE_PROPERTIES, 30, 5,
+                () -> System.nanoTime() + elapsedTimeInNanoseconds.get());
+        return new NonBlockingPrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, DEFAULT_PREFETCHING_PROPERTIES,
+                mock(ScheduledExecutorService.class), visibilityManager);
+    }
+}
@@ -0,0 +1,179 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.QueueProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@ExtendWith(MockitoExtension.class)
+class PrefetchedMessageVisibilityManagerTest {
+    private static final QueueProperties QUEUE_PROPERTIES = QueueProperties.builder()
+            .queueUrl("queueUrl")
+            .build();
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    private AtomicLong currentTimeInNanoseconds;
+
+    private PrefetchedMessageVisibilityManager visibilityManager;
+
+    @BeforeEach
+    void setUp() {
+        currentTimeInNanoseconds = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        visibilityManager = new PrefetchedMessageVisibilityManager(sqsAsyncClient, QUEUE_PROPERTIES, 30, 5, currentTimeInNanoseconds::get);
+    }
+
+    @Test
+    void managerIsNotBuiltWhenNoExpiryThresholdIsSet() {
+        // arrange
+        final PrefetchingMessageRetrieverProperties properties = StaticPrefetchingMessageRetrieverProperties.builder()
+                .desiredMinPrefetchedMessages(1)
+                .maxPrefetchedMessages(2)
+                .messageVisibilityTimeoutInSeconds(30)
+                .build();
+
+        // act
+        final PrefetchedMessageVisibilityManager manager = PrefetchedMessageVisibilityManager.build(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+
+        // assert
+        assertThat(manager).isNull();
+    }
+
+    @Test
+    void managerIsNotBuiltWhenExpiryThresholdIsNotLessThanVisibilityTimeout() {
+        // arrange
+        final PrefetchingMessageRetrieverProperties properties = StaticPrefetchingMessageRetrieverProperties.builder()
+                .desiredMinPrefetchedMessages(1)
+                .maxPrefetchedMessages(2)
+                .messageVisibilityTimeoutInSeconds(30)
+                .visibilityTimeoutExpiryThresholdInSeconds(30)
+                .build();
+
+        // act
+        final PrefetchedMessageVisibilityManager manager = PrefetchedMessageVisibilityManager.build(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+
+        // assert
+        assertThat(manager).isNull();
+    }
+
+    @Test
+    void messageWithPlentyOfVisibilityLeftWillBeProcessedWithoutBeingExtended() {
+        // arrange
+        final Message message = Message.builder().receiptHandle("handle").build();
+
+        // act
+        final boolean shouldProcess = visibilityManager.prepareForProcessing(message, receivedSecondsAgo(10));
+
+        // assert
+        assertThat(shouldProcess).isTrue();
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    @Test
+    void messageCloseToExpiringWillBeExtendedBeforeBeingProcessed() {
+        // arrange
+        when(sqsAsyncClient.changeMessageVisibility(any(ChangeMessageVisibilityRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityResponse.builder().build()));
+        final Message message = Message.builder().receiptHandle("handle").build();
+
+        // act
+        final boolean shouldProcess = visibilityManager.prepareForProcessing(message, receivedSecondsAgo(27));
+
+        // assert
+        assertThat(shouldProcess).isTrue();
+        verify(sqsAsyncClient).changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                .queueUrl("queueUrl")
+                .receiptHandle("handle")
+                .visibilityTimeout(30)
+                .build());
+    }
+
+    @Test
+    void messageThatHasExpiredWillNotBeProcessed() {
+        // arrange
+        final Message message = Message.builder().receiptHandle("handle").build();
+
+        // act
+        final boolean shouldProcess = visibilityManager.prepareForProcessing(message, receivedSecondsAgo(31));
+
+        // assert
+        assertThat(shouldProcess).isFalse();
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    @Test
+    void messagesAreOnlyReleasedWhenTheyAreWithinTheExpiryThreshold() {
+        // assert
+        assertThat(visibilityManager.shouldRelease(receivedSecondsAgo(24))).isFalse();
+        assertThat(visibilityManager.shouldRelease(receivedSecondsAgo(26))).isTrue();
+    }
+
+    @Test
+    void messagesHaveOnlyExpiredWhenTheVisibilityTimeoutHasPassed() {
+        // assert
+        assertThat(visibilityManager.hasExpired(receivedSecondsAgo(29))).isFalse();
+        assertThat(visibilityManager.hasExpired(receivedSecondsAgo(31))).isTrue();
+    }
+
+    @Test
+    void releasingMessagesWillChangeTheirVisibilityToZeroInBatches() {
+        // arrange
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder().build()));
+        final List<Message> messages = IntStream.range(0, 12)
+                .mapToObj(index -> Message.builder().receiptHandle("handle-" + index).build())
+                .collect(Collectors.toList());
+
+        // act
+        visibilityManager.release(messages);
+
+        // assert
+        final ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestArgumentCaptor = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqsAsyncClient, times(2)).changeMessageVisibilityBatch(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getAllValues().get(0).entries()).hasSize(10);
+        assertThat(requestArgumentCaptor.getAllValues().get(1).entries()).hasSize(2);
+        assertThat(requestArgumentCaptor.getAllValues())
+                .flatExtracting(ChangeMessageVisibilityBatchRequest::entries)
+                .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+                .containsOnly(0);
+    }
+
+    @Test
+    void releasingNoMessagesWillNotSendAnyRequests() {
+        // act
+        visibilityManager.release(Collections.emptyList());
+
+        // assert
+        verifyNoInteractions(sqsAsyncClient);
+    }
+
+    private long receivedSecondsAgo(final int seconds) {
+        return currentTimeInNanoseconds.get() - TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
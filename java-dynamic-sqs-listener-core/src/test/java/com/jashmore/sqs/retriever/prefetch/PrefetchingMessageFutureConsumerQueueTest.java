@@ -17,6 +17,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -83,6 +84,140 @@ class PrefetchingMessageFutureConsumerQueueTest {
         waitUntilThreadInState(thread, TERMINATED);
     }
 
+    @Test
+    void whenMessageLimitIsLowerThanCapacityPushingMessagesAreBlockedAtTheLimit() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(5);
+        prefetchingMessageRetriever.setMessageLimit(1);
+        prefetchingMessageRetriever.pushMessage(Message.builder().build());
+
+        // act
+        thread = new Thread(() -> {
+            try {
+                prefetchingMessageRetriever.pushMessage(Message.builder().build());
+            } catch (InterruptedException e) {
+                // do nothing
+            }
+        });
+        thread.start();
+
+        // assert
+        waitUntilThreadInState(thread, WAITING);
+    }
+
+    @Test
+    void increasingTheMessageLimitWillUnblockThreadsWaitingForAFreeSlot() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(5);
+        prefetchingMessageRetriever.setMessageLimit(1);
+        prefetchingMessageRetriever.pushMessage(Message.builder().build());
+        thread = new Thread(() -> {
+            try {
+                prefetchingMessageRetriever.pushMessage(Message.builder().build());
+            } catch (InterruptedException e) {
+                // do nothing
+            }
+        });
+        thread.start();
+        waitUntilThreadInState(thread, WAITING);
+
+        // act
+        prefetchingMessageRetriever.setMessageLimit(2);
+
+        // assert
+        waitUntilThreadInState(thread, TERMINATED);
+        assertThat(prefetchingMessageRetriever.getNumberOfBatchedMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void timedBlockForFreeSlotWillReturnFalseWhenThereIsNoFreeSlot() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(1);
+        prefetchingMessageRetriever.pushMessage(Message.builder().build());
+
+        // act
+        final boolean freeSlot = prefetchingMessageRetriever.blockUntilFreeSlotForMessage(TimeUnit.MILLISECONDS.toNanos(10));
+
+        // assert
+        assertThat(freeSlot).isFalse();
+    }
+
+    @Test
+    void timedPushOfMessageWillReturnFalseWhenThereIsNoFreeSlot() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(1);
+        prefetchingMessageRetriever.pushMessage(Message.builder().build());
+
+        // act
+        final boolean pushed = prefetchingMessageRetriever.pushMessage(Message.builder().build(), 0, TimeUnit.MILLISECONDS.toNanos(10));
+
+        // assert
+        assertThat(pushed).isFalse();
+        assertThat(prefetchingMessageRetriever.getNumberOfBatchedMessages()).isEqualTo(1);
+    }
+
+    @Test
+    void messagesThatDoNotMatchTheHandOffPredicateAreDiscardedWhenFutureIsPushed() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(2,
+                (message, receivedTimeInNanoseconds) -> !message.body().equals("expired"));
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("expired").build());
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("valid").build());
+        final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        // act
+        prefetchingMessageRetriever.pushCompletableFuture(future);
+
+        // assert
+        assertThat(future).isCompletedWithValueMatching(message -> message.body().equals("valid"));
+        assertThat(prefetchingMessageRetriever.getNumberOfBatchedMessages()).isZero();
+    }
+
+    @Test
+    void messagesThatDoNotMatchTheHandOffPredicateAreDiscardedWhenMessageIsPushed() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(2,
+                (message, receivedTimeInNanoseconds) -> !message.body().equals("expired"));
+        final CompletableFuture<Message> future = new CompletableFuture<>();
+        prefetchingMessageRetriever.pushCompletableFuture(future);
+
+        // act
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("expired").build());
+
+        // assert
+        assertThat(future).isNotDone();
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("valid").build());
+        assertThat(future).isCompletedWithValueMatching(message -> message.body().equals("valid"));
+    }
+
+    @Test
+    void messagesAtHeadMatchingPredicateCanBeRemoved() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue prefetchingMessageRetriever = new PrefetchingMessageFutureConsumerQueue(3);
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("first").build(), 1, Long.MAX_VALUE);
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("second").build(), 2, Long.MAX_VALUE);
+        prefetchingMessageRetriever.pushMessage(Message.builder().body("third").build(), 3, Long.MAX_VALUE);
+        final List<Message> removedMessages = new ArrayList<>();
+        final List<Long> removedReceivedTimes = new ArrayList<>();
+
+        // act
+        prefetchingMessageRetriever.removeMessagesAtHeadMatching(
+                (message, receivedTimeInNanoseconds) -> receivedTimeInNanoseconds < 3,
+                (message, receivedTimeInNanoseconds) -> {
+                    removedMessages.add(message);
+                    removedReceivedTimes.add(receivedTimeInNanoseconds);
+                }
+        );
+
+        // assert
+        assertThat(removedMessages).extracting(Message::body).containsExactly("first", "second");
+        assertThat(removedReceivedTimes).containsExactly(1L, 2L);
+        assertThat(prefetchingMessageRetriever.getNumberOfBatchedMessages()).isEqualTo(1);
+        assertThat(prefetchingMessageRetriever.drain().getMessagesAvailableForProcessing())
+                .extracting(Message::body)
+                .containsExactly("third");
+    }
+
     @Test
     void addingCompletableFutureAndThenMessageWillCompleteFutureWithThatMessage() throws InterruptedException {
         // arrange
@@ -211,4 +346,58 @@ class PrefetchingMessageFutureConsumerQueueTest {
         // assert
         assertThat(numberOfBatchedMessages).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void takingAvailableMessagesWillReturnUpToTheMaximumNumberOfMessagesInOrder() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue queue = new PrefetchingMessageFutureConsumerQueue(3);
+        final Message firstMessage = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        final Message thirdMessage = Message.builder().body("third").build();
+        queue.pushMessage(firstMessage);
+        queue.pushMessage(secondMessage);
+        queue.pushMessage(thirdMessage);
+
+        // act
+        final List<Message> messages = queue.takeAvailableMessages(2);
+
+        // assert
+        assertThat(messages).containsExactly(firstMessage, secondMessage);
+        assertThat(queue.getNumberOfBatchedMessages()).isEqualTo(1);
+    }
+
+    @Test
+    void takingAvailableMessagesWhenThereAreNoneWillNotAffectFuturesWaitingForMessages() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue queue = new PrefetchingMessageFutureConsumerQueue(1);
+        final CompletableFuture<Message> messageFuture = new CompletableFuture<>();
+        queue.pushCompletableFuture(messageFuture);
+        final Message message = Message.builder().body("body").build();
+
+        // act
+        final List<Message> messages = queue.takeAvailableMessages(2);
+        queue.pushMessage(message);
+
+        // assert
+        assertThat(messages).isEmpty();
+        assertThat(messageFuture).isCompletedWithValue(message);
+    }
+
+    @Test
+    void takingAvailableMessagesWillNotIncludeMessagesThatDoNotMatchTheHandOffPredicate() throws InterruptedException {
+        // arrange
+        final PrefetchingMessageFutureConsumerQueue queue = new PrefetchingMessageFutureConsumerQueue(2,
+                (message, receivedTimeInNanoseconds) -> !message.body().equals("expired"));
+        final Message expiredMessage = Message.builder().body("expired").build();
+        final Message message = Message.builder().body("body").build();
+        queue.pushMessage(expiredMessage);
+        queue.pushMessage(message);
+
+        // act
+        final List<Message> messages = queue.takeAvailableMessages(2);
+
+        // assert
+        assertThat(messages).containsExactly(message);
+        assertThat(queue.getNumberOfBatchedMessages()).isZero();
+    }
+}
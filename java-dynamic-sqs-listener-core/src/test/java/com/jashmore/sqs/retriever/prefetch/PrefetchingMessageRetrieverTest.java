@@ -9,6 +9,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
+
 import com.jashmore.sqs.QueueProperties;
 import com.jashmore.sqs.aws.AwsConstants;
 import com.jashmore.sqs.util.ExpectedTestException;
@@ -36,6 +38,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @ExtendWith(MockitoExtension.class)
@@ -522,6 +525,179 @@ class PrefetchingMessageRetrieverTest {
         });
     }
 
+    @Test
+    void multipleConcurrentReceivesWillHaveMultipleRequestsInFlightAtTheSameTime() throws Exception {
+        // arrange
+        final CountDownLatch receiveMessageRequested = new CountDownLatch(2);
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenAnswer(invocation -> {
+                    receiveMessageRequested.countDown();
+                    return new CompletableFuture<>();
+                });
+        final StaticPrefetchingMessageRetrieverProperties properties = DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(20)
+                .maxPrefetchedMessages(20)
+                .maxConcurrentReceives(2)
+                .build();
+        final PrefetchingMessageRetriever retriever = new PrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+
+        // act
+        final CompletableFuture<List<Message>> future = CompletableFuture.supplyAsync(retriever::run, executorService);
+        assertThat(receiveMessageRequested.await(30, TimeUnit.SECONDS)).isTrue();
+        executorService.shutdownNow();
+
+        // assert
+        assertThat(future.get(30, TimeUnit.SECONDS)).isEmpty();
+        final ArgumentCaptor<ReceiveMessageRequest> receiveMessageRequestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient, times(2)).receiveMessage(receiveMessageRequestArgumentCaptor.capture());
+        assertThat(receiveMessageRequestArgumentCaptor.getAllValues())
+                .extracting(ReceiveMessageRequest::maxNumberOfMessages)
+                .containsExactly(10, 10);
+    }
+
+    @Test
+    void multipleConcurrentReceivesWillNotRequestMoreThanTheMaxPrefetchedMessagesInTotal() throws Exception {
+        // arrange
+        final CountDownLatch receiveMessageRequested = new CountDownLatch(2);
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenAnswer(invocation -> {
+                    receiveMessageRequested.countDown();
+                    return new CompletableFuture<>();
+                });
+        final StaticPrefetchingMessageRetrieverProperties properties = DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(12)
+                .maxPrefetchedMessages(12)
+                .maxConcurrentReceives(3)
+                .build();
+        final PrefetchingMessageRetriever retriever = new PrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+
+        // act
+        final CompletableFuture<List<Message>> future = CompletableFuture.supplyAsync(retriever::run, executorService);
+        assertThat(receiveMessageRequested.await(30, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(500); // Give the third receiver time to try and request messages
+
+        // assert
+        final ArgumentCaptor<ReceiveMessageRequest> receiveMessageRequestArgumentCaptor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient, times(2)).receiveMessage(receiveMessageRequestArgumentCaptor.capture());
+        assertThat(receiveMessageRequestArgumentCaptor.getAllValues())
+                .extracting(ReceiveMessageRequest::maxNumberOfMessages)
+                .containsExactlyInAnyOrder(10, 2);
+        executorService.shutdownNow();
+        future.get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentReceiverThatFoundTheQueueFilledByAnotherReceiverWillRequestMessagesOnceTheyAreConsumed() throws Exception {
+        // arrange
+        final CompletableFuture<ReceiveMessageResponse> refillResponse = new CompletableFuture<>();
+        final CountDownLatch refillRequested = new CountDownLatch(1);
+        final CountDownLatch receiveMessageRequestedAfterConsumption = new CountDownLatch(2);
+        final AtomicInteger numberOfFullRequests = new AtomicInteger();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenAnswer(invocation -> {
+                    final ReceiveMessageRequest request = invocation.getArgument(0);
+                    if (request.maxNumberOfMessages() < AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS) {
+                        refillRequested.countDown();
+                        return refillResponse;
+                    }
+                    if (numberOfFullRequests.incrementAndGet() <= 2) {
+                        return mockReceiveMessageResponse(buildMessages(AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS));
+                    }
+                    receiveMessageRequestedAfterConsumption.countDown();
+                    return new CompletableFuture<>();
+                });
+        final StaticPrefetchingMessageRetrieverProperties properties = DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(20)
+                .maxPrefetchedMessages(20)
+                .maxConcurrentReceives(2)
+                .build();
+        final PrefetchingMessageRetriever retriever = new PrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+        CompletableFuture.runAsync(retriever::run, executorService);
+        Thread.sleep(500); // Give the receivers time to fill the queue
+        // both receivers now race for the single free slot, one of them obtains it and the other waits for it to be released
+        retriever.retrieveMessage().get(5, TimeUnit.SECONDS);
+        assertThat(refillRequested.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(500);
+        refillResponse.complete(ReceiveMessageResponse.builder().messages(Message.builder().build()).build());
+        Thread.sleep(500);
+
+        // act
+        assertThat(retriever.retrieveMessages(10).get(5, TimeUnit.SECONDS)).hasSize(10);
+        assertThat(retriever.retrieveMessages(10).get(5, TimeUnit.SECONDS)).hasSize(10);
+
+        // assert
+        assertThat(receiveMessageRequestedAfterConsumption.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void messagesReceivedByConcurrentReceiversAreAllPlacedOntoTheSameQueue() {
+        // arrange
+        final Message firstMessage = Message.builder().build();
+        final Message secondMessage = Message.builder().build();
+        final CountDownLatch receiveMessageRequested = new CountDownLatch(2);
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenAnswer(triggerLatchAndReturnMessages(receiveMessageRequested, firstMessage))
+                .thenAnswer(triggerLatchAndReturnMessages(receiveMessageRequested, secondMessage))
+                .thenAnswer(invocation -> new CompletableFuture<>());
+        final StaticPrefetchingMessageRetrieverProperties properties = DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(5)
+                .maxPrefetchedMessages(5)
+                .maxConcurrentReceives(2)
+                .build();
+        final PrefetchingMessageRetriever retriever = new PrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+
+        // act
+        final List<Message> leftOverMessages = runRetrieverUntilLatch(retriever, receiveMessageRequested);
+
+        // assert
+        assertThat(leftOverMessages).containsExactlyInAnyOrder(firstMessage, secondMessage);
+    }
+
+    @Test
+    void retrievingMessagesWillTakeTheMessagesThatHaveBeenPrefetched() throws Exception {
+        // arrange
+        final Message firstMessage = Message.builder().body("first").build();
+        final Message secondMessage = Message.builder().body("second").build();
+        final Message thirdMessage = Message.builder().body("third").build();
+        final CountDownLatch receiveMessageRequested = new CountDownLatch(1);
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenAnswer(triggerLatchAndReturnMessages(receiveMessageRequested, firstMessage, secondMessage, thirdMessage))
+                .thenReturn(new CompletableFuture<>());
+        final StaticPrefetchingMessageRetrieverProperties properties = DEFAULT_PREFETCHING_PROPERTIES.toBuilder()
+                .desiredMinPrefetchedMessages(3)
+                .maxPrefetchedMessages(3)
+                .build();
+        final PrefetchingMessageRetriever retriever = new PrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, properties);
+        CompletableFuture.runAsync(retriever::run, executorService);
+        assertThat(receiveMessageRequested.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(500); // Give the background thread time to place the messages into the internal queue
+
+        // act
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+        // assert
+        assertThat(messagesFuture).isCompletedWithValue(ImmutableList.of(firstMessage, secondMessage));
+    }
+
+    @Test
+    void retrievingMessagesWhenNoneArePrefetchedWillWaitForTheNextMessage() throws Exception {
+        // arrange
+        final Message message = Message.builder().body("body").build();
+        final CompletableFuture<ReceiveMessageResponse> receiveMessageResponseFuture = new CompletableFuture<>();
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(receiveMessageResponseFuture)
+                .thenReturn(new CompletableFuture<>());
+        final PrefetchingMessageRetriever retriever = new PrefetchingMessageRetriever(sqsAsyncClient, QUEUE_PROPERTIES, DEFAULT_PREFETCHING_PROPERTIES);
+        CompletableFuture.runAsync(retriever::run, executorService);
+        final CompletableFuture<List<Message>> messagesFuture = retriever.retrieveMessages(2);
+
+        // act
+        receiveMessageResponseFuture.complete(ReceiveMessageResponse.builder().messages(message).build());
+
+        // assert
+        assertThat(messagesFuture.get(5, TimeUnit.SECONDS)).containsExactly(message);
+    }
+
     private List<Message> runRetrieverUntilLatch(final PrefetchingMessageRetriever retriever, final CountDownLatch latch) {
         try {
             final CompletableFuture<List<Message>> future = CompletableFuture.supplyAsync(retriever::run, executorService);
@@ -542,6 +718,14 @@ class PrefetchingMessageRetrieverTest {
         };
     }
 
+    private static Message[] buildMessages(final int numberOfMessages) {
+        final Message[] messages = new Message[numberOfMessages];
+        for (int i = 0; i < numberOfMessages; ++i) {
+            messages[i] = Message.builder().body("message" + i).build();
+        }
+        return messages;
+    }
+
     private CompletableFuture<ReceiveMessageResponse> mockReceiveMessageResponse(final Message... messages) {
         return CompletableFuture.completedFuture(ReceiveMessageResponse.builder()
                 .messages(messages)
@@ -0,0 +1,87 @@
+package com.jashmore.sqs.retriever.prefetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class ReceivedMessageQueueTest {
+    private static final Message FIRST_MESSAGE = Message.builder().messageId("first").build();
+    private static final Message SECOND_MESSAGE = Message.builder().messageId("second").build();
+    private static final Message THIRD_MESSAGE = Message.builder().messageId("third").build();
+
+    @Test
+    void messagesArePolledInTheOrderTheyWereAdded() {
+        // arrange
+        final ReceivedMessageQueue queue = new ReceivedMessageQueue();
+        queue.addAll(Arrays.asList(FIRST_MESSAGE, SECOND_MESSAGE), 1);
+        queue.addAll(Collections.singletonList(THIRD_MESSAGE), 2);
+
+        // act
+        final Message first = queue.poll();
+        final Message second = queue.poll();
+        final Message third = queue.poll();
+
+        // assert
+        assertThat(first).isSameAs(FIRST_MESSAGE);
+        assertThat(second).isSameAs(SECOND_MESSAGE);
+        assertThat(third).isSameAs(THIRD_MESSAGE);
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void receivedTimeIsThatOfTheBatchContainingTheHeadOfTheQueue() {
+        // arrange
+        final ReceivedMessageQueue queue = new ReceivedMessageQueue();
+        queue.addAll(Arrays.asList(FIRST_MESSAGE, SECOND_MESSAGE), 1);
+        queue.addAll(Collections.singletonList(THIRD_MESSAGE), 2);
+
+        // act
+        final long firstReceivedTime = queue.peekReceivedTimeInNanoseconds();
+        queue.poll();
+        final long secondReceivedTime = queue.peekReceivedTimeInNanoseconds();
+        queue.poll();
+        final long thirdReceivedTime = queue.peekReceivedTimeInNanoseconds();
+
+        // assert
+        assertThat(firstReceivedTime).isEqualTo(1);
+        assertThat(secondReceivedTime).isEqualTo(1);
+        assertThat(thirdReceivedTime).isEqualTo(2);
+    }
+
+    @Test
+    void addingNoMessagesWillNotAddABatch() {
+        // arrange
+        final ReceivedMessageQueue queue = new ReceivedMessageQueue();
+        queue.addAll(Collections.emptyList(), 1);
+        queue.addAll(Collections.singletonList(FIRST_MESSAGE), 2);
+
+        // act
+        final long receivedTime = queue.peekReceivedTimeInNanoseconds();
+
+        // assert
+        assertThat(receivedTime).isEqualTo(2);
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removingAllMessagesWillEmptyTheQueue() {
+        // arrange
+        final ReceivedMessageQueue queue = new ReceivedMessageQueue();
+        queue.addAll(Arrays.asList(FIRST_MESSAGE, SECOND_MESSAGE), 1);
+        queue.addAll(Collections.singletonList(THIRD_MESSAGE), 2);
+
+        // act
+        final List<Message> removedMessages = queue.removeAll();
+
+        // assert
+        assertThat(removedMessages).containsExactly(FIRST_MESSAGE, SECOND_MESSAGE, THIRD_MESSAGE);
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.size()).isZero();
+    }
+}
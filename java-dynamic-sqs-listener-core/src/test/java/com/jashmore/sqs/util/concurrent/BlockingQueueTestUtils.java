@@ -0,0 +1,32 @@
+package com.jashmore.sqs.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+@UtilityClass
+public class BlockingQueueTestUtils {
+    /**
+     * Poll a number of elements from the queue, waiting up to five seconds for each of them.
+     *
+     * <p>This is useful when the elements are added by separate threads and therefore may be added in any order, e.g. messages that are processed
+     * concurrently. An element that was not added in time will be null.
+     *
+     * @param queue            the queue to poll the elements from
+     * @param numberOfElements the number of elements to poll
+     * @param <T>              the type of the elements in the queue
+     * @return the polled elements in the order that they were added
+     * @throws InterruptedException if the thread was interrupted while waiting for an element
+     */
+    public static <T> List<T> pollElements(final BlockingQueue<T> queue, final int numberOfElements) throws InterruptedException {
+        final List<T> elements = new ArrayList<>();
+        for (int i = 0; i < numberOfElements; i++) {
+            elements.add(queue.poll(5, SECONDS));
+        }
+        return elements;
+    }
+}
@@ -19,9 +19,11 @@ import com.jashmore.sqs.spring.container.DefaultMessageListenerContainerCoordina
 import com.jashmore.sqs.spring.container.MessageListenerContainerCoordinator;
 import com.jashmore.sqs.spring.container.MessageListenerContainerFactory;
 import com.jashmore.sqs.spring.container.basic.BasicMessageListenerContainerFactory;
+import com.jashmore.sqs.spring.container.batch.BatchMessageListenerContainerFactory;
 import com.jashmore.sqs.spring.container.prefetch.PrefetchingMessageListenerContainerFactory;
 import com.jashmore.sqs.spring.queue.DefaultQueueResolver;
 import com.jashmore.sqs.spring.queue.QueueResolver;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -209,6 +211,27 @@ public class QueueListenerConfiguration {
                                                                                               final Environment environment) {
                 return new PrefetchingMessageListenerContainerFactory(argumentResolverService, sqsAsyncClientProvider, queueResolver, environment);
             }
+
+            /**
+             * The factory for methods that process batches of messages.
+             *
+             * <p>As the payloads of the messages in a batch are not resolved via the {@link ArgumentResolverService}, this will use the
+             * {@link ObjectMapper} in the context if there is one, otherwise a default {@link ObjectMapper} is used.
+             *
+             * @param objectMapperProvider   provides the {@link ObjectMapper} used to map the payloads of the messages
+             * @param sqsAsyncClientProvider the provider of the clients for the queues
+             * @param queueResolver          the resolver of the URLs of the queues
+             * @param environment            the environment used to resolve placeholders in the annotation
+             * @return the factory for methods annotated with {@link com.jashmore.sqs.spring.container.batch.BatchQueueListener}
+             */
+            @Bean
+            public MessageListenerContainerFactory batchMessageListenerContainerFactory(final ObjectProvider<ObjectMapper> objectMapperProvider,
+                                                                                        final SqsAsyncClientProvider sqsAsyncClientProvider,
+                                                                                        final QueueResolver queueResolver,
+                                                                                        final Environment environment) {
+                final JacksonPayloadMapper payloadMapper = new JacksonPayloadMapper(objectMapperProvider.getIfAvailable(ObjectMapper::new));
+                return new BatchMessageListenerContainerFactory(payloadMapper, sqsAsyncClientProvider, queueResolver, environment);
+            }
         }
     }
 }
@@ -19,6 +19,7 @@ import com.jashmore.sqs.resolver.batching.StaticBatchingMessageResolverPropertie
 import com.jashmore.sqs.retriever.MessageRetriever;
 import com.jashmore.sqs.retriever.batching.BatchingMessageRetriever;
 import com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverProperties;
+import com.jashmore.sqs.retriever.batching.NonBlockingBatchingMessageRetriever;
 import com.jashmore.sqs.retriever.batching.StaticBatchingMessageRetrieverProperties;
 import com.jashmore.sqs.spring.client.SqsAsyncClientProvider;
 import com.jashmore.sqs.spring.container.AbstractAnnotationMessageListenerContainerFactory;
@@ -64,7 +65,7 @@ public class BasicMessageListenerContainerFactory extends AbstractAnnotationMess
         return new CoreMessageListenerContainer(
                 IdentifierUtils.buildIdentifierForMethod(annotation.identifier(), bean.getClass(), method),
                 buildMessageBrokerSupplier(annotation),
-                buildMessageRetrieverSupplier(annotation, queueProperties, sqsAsyncClient),
+                buildMessageRetrieverSupplier(annotation, method, queueProperties, sqsAsyncClient),
                 buildProcessorSupplier(queueProperties, sqsAsyncClient, bean, method),
                 buildMessageResolver(annotation, queueProperties, sqsAsyncClient),
                 StaticCoreMessageListenerContainerProperties.builder()
@@ -89,18 +90,23 @@ public class BasicMessageListenerContainerFactory extends AbstractAnnotationMess
     }
 
     private Supplier<MessageRetriever> buildMessageRetrieverSupplier(final QueueListener annotation,
+                                                                     final Method method,
                                                                      final QueueProperties queueProperties,
                                                                      final SqsAsyncClient sqsAsyncClient) {
-        final BatchingMessageRetrieverProperties properties = batchingMessageRetrieverProperties(annotation);
+        final BatchingMessageRetrieverProperties properties = batchingMessageRetrieverProperties(annotation, method);
+        if (annotation.nonBlockingRetrieval()) {
+            return () -> new NonBlockingBatchingMessageRetriever(queueProperties, sqsAsyncClient, properties);
+        }
         return () -> new BatchingMessageRetriever(queueProperties, sqsAsyncClient, properties);
     }
 
     @VisibleForTesting
-    BatchingMessageRetrieverProperties batchingMessageRetrieverProperties(final QueueListener annotation) {
+    BatchingMessageRetrieverProperties batchingMessageRetrieverProperties(final QueueListener annotation, final Method method) {
         return StaticBatchingMessageRetrieverProperties.builder()
                 .messageVisibilityTimeoutInSeconds(getMessageVisibilityTimeoutInSeconds(annotation))
                 .batchingPeriodInMs(getMaxPeriodBetweenBatchesInMs(annotation))
                 .batchSize(getBatchSize(annotation))
+                .requiredMessageAttributes(argumentResolverService.getRequiredMessageAttributes(method))
                 .build();
     }
 
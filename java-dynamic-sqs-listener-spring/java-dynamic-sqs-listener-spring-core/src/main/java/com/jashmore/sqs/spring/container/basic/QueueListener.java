@@ -12,6 +12,7 @@ import com.jashmore.sqs.container.MessageListenerContainer;
 import com.jashmore.sqs.processor.CoreMessageProcessor;
 import com.jashmore.sqs.retriever.batching.BatchingMessageRetriever;
 import com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverProperties;
+import com.jashmore.sqs.retriever.batching.NonBlockingBatchingMessageRetriever;
 import com.jashmore.sqs.spring.client.SqsAsyncClientProvider;
 import org.springframework.core.env.Environment;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
@@ -168,6 +169,17 @@ public @interface QueueListener {
      */
     String messageVisibilityTimeoutInSecondsString() default "";
 
+    /**
+     * Determines whether the messages should be retrieved by the {@link NonBlockingBatchingMessageRetriever} instead of the
+     * {@link BatchingMessageRetriever}.
+     *
+     * <p>The non-blocking retriever does not need a dedicated thread for each listener as it is driven by the completion of the requests to SQS, which is
+     * useful when there are a large number of listeners in the application.
+     *
+     * @return whether the non-blocking retriever should be used
+     */
+    boolean nonBlockingRetrieval() default false;
+
     /**
      * Determines whether any extra messages that may have been downloaded but not yet processed should be processed before shutting down the container.
      *
@@ -0,0 +1,172 @@
+package com.jashmore.sqs.spring.container.batch;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.argument.payload.mapper.PayloadMapper;
+import com.jashmore.sqs.aws.AwsConstants;
+import com.jashmore.sqs.broker.MessageBroker;
+import com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBroker;
+import com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerProperties;
+import com.jashmore.sqs.broker.batch.StaticConcurrentBatchMessageBrokerProperties;
+import com.jashmore.sqs.container.CoreMessageListenerContainer;
+import com.jashmore.sqs.container.MessageListenerContainer;
+import com.jashmore.sqs.container.StaticCoreMessageListenerContainerProperties;
+import com.jashmore.sqs.processor.MessageProcessor;
+import com.jashmore.sqs.processor.batching.BatchingMessageProcessor;
+import com.jashmore.sqs.resolver.MessageResolver;
+import com.jashmore.sqs.resolver.batching.BatchingMessageResolver;
+import com.jashmore.sqs.retriever.MessageRetriever;
+import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetriever;
+import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverProperties;
+import com.jashmore.sqs.retriever.prefetch.StaticPrefetchingMessageRetrieverProperties;
+import com.jashmore.sqs.spring.client.SqsAsyncClientProvider;
+import com.jashmore.sqs.spring.container.AbstractAnnotationMessageListenerContainerFactory;
+import com.jashmore.sqs.spring.container.MessageListenerContainerFactory;
+import com.jashmore.sqs.spring.container.MessageListenerContainerInitialisationException;
+import com.jashmore.sqs.spring.queue.QueueResolver;
+import com.jashmore.sqs.spring.util.IdentifierUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+/**
+ * {@link MessageListenerContainerFactory} that will wrap methods annotated with {@link BatchQueueListener @BatchQueueListener} with some predefined
+ * implementations of the framework.
+ *
+ * <p>The batches are requested by the {@link ConcurrentBatchMessageBroker} and each batch is processed by the {@link BatchingMessageProcessor} with a
+ * single invocation of the method on one thread.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BatchMessageListenerContainerFactory extends AbstractAnnotationMessageListenerContainerFactory<BatchQueueListener> {
+    private final PayloadMapper payloadMapper;
+    private final SqsAsyncClientProvider sqsAsyncClientProvider;
+    private final QueueResolver queueResolver;
+    private final Environment environment;
+
+    @Override
+    protected Class<BatchQueueListener> getAnnotationClass() {
+        return BatchQueueListener.class;
+    }
+
+    @SuppressWarnings("Duplicates")
+    @Override
+    protected MessageListenerContainer wrapMethodContainingAnnotation(final Object bean, final Method method, final BatchQueueListener annotation) {
+        final SqsAsyncClient sqsAsyncClient = getSqsAsyncClient(annotation.sqsClient());
+
+        final QueueProperties queueProperties = QueueProperties.builder()
+                .queueUrl(queueResolver.resolveQueueUrl(sqsAsyncClient, annotation.value()))
+                .build();
+
+        return new CoreMessageListenerContainer(
+                IdentifierUtils.buildIdentifierForMethod(annotation.identifier(), bean.getClass(), method),
+                buildMessageBrokerSupplier(annotation),
+                buildMessageRetrieverSupplier(annotation, method, queueProperties, sqsAsyncClient),
+                buildProcessorSupplier(bean, method),
+                buildMessageResolverSupplier(queueProperties, sqsAsyncClient),
+                StaticCoreMessageListenerContainerProperties.builder()
+                        .shouldProcessAnyExtraRetrievedMessagesOnShutdown(annotation.processAnyExtraRetrievedMessagesOnShutdown())
+                        .shouldInterruptThreadsProcessingMessagesOnShutdown(annotation.interruptThreadsProcessingMessagesOnShutdown())
+                        .build()
+        );
+    }
+
+    private Supplier<MessageBroker> buildMessageBrokerSupplier(final BatchQueueListener annotation) {
+        final ConcurrentBatchMessageBrokerProperties properties = buildMessageBrokerProperties(annotation);
+        return () -> new ConcurrentBatchMessageBroker(properties);
+    }
+
+    private Supplier<MessageProcessor> buildProcessorSupplier(final Object bean, final Method method) {
+        return () -> new BatchingMessageProcessor(payloadMapper, method, bean);
+    }
+
+    private Supplier<MessageResolver> buildMessageResolverSupplier(final QueueProperties queueProperties,
+                                                                   final SqsAsyncClient sqsAsyncClient) {
+        return () -> new BatchingMessageResolver(queueProperties, sqsAsyncClient);
+    }
+
+    private Supplier<MessageRetriever> buildMessageRetrieverSupplier(final BatchQueueListener annotation,
+                                                                     final Method method,
+                                                                     final QueueProperties queueProperties,
+                                                                     final SqsAsyncClient sqsAsyncClient) {
+        final PrefetchingMessageRetrieverProperties properties = buildMessageRetrieverProperties(annotation, method);
+        return () -> new PrefetchingMessageRetriever(sqsAsyncClient, queueProperties, properties);
+    }
+
+    @VisibleForTesting
+    ConcurrentBatchMessageBrokerProperties buildMessageBrokerProperties(final BatchQueueListener annotation) {
+        return StaticConcurrentBatchMessageBrokerProperties.builder()
+                .maxBatchSize(getMaxBatchSize(annotation))
+                .maxBatchingPeriodInMs(getMaxBatchingPeriodInMs(annotation))
+                .concurrencyLevel(getConcurrentBatches(annotation))
+                .build();
+    }
+
+    /**
+     * Build the properties for the retriever so that there is always at least a full batch of messages prefetched, using enough concurrent requests to
+     * SQS to obtain a full batch at the same time.
+     *
+     * @param annotation the annotation for the listener
+     * @param method     the method that will be processing the batches of messages
+     * @return the properties for the retriever
+     */
+    @VisibleForTesting
+    PrefetchingMessageRetrieverProperties buildMessageRetrieverProperties(final BatchQueueListener annotation, final Method method) {
+        final int maxBatchSize = getMaxBatchSize(annotation);
+        return StaticPrefetchingMessageRetrieverProperties.builder()
+                .desiredMinPrefetchedMessages(maxBatchSize)
+                .maxPrefetchedMessages(Math.max(2 * maxBatchSize, AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS))
+                .maxConcurrentReceives((maxBatchSize + AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS - 1) / AwsConstants.MAX_NUMBER_OF_MESSAGES_FROM_SQS)
+                .messageVisibilityTimeoutInSeconds(getMessageVisibilityTimeoutInSeconds(annotation))
+                .requiredMessageAttributes(BatchingMessageProcessor.getRequiredMessageAttributes(method))
+                .build();
+    }
+
+    private int getMaxBatchSize(final BatchQueueListener annotation) {
+        if (StringUtils.isEmpty(annotation.maxBatchSizeString())) {
+            return annotation.maxBatchSize();
+        }
+
+        return Integer.parseInt(environment.resolvePlaceholders(annotation.maxBatchSizeString()));
+    }
+
+    private long getMaxBatchingPeriodInMs(final BatchQueueListener annotation) {
+        if (StringUtils.isEmpty(annotation.maxBatchingPeriodInMsString())) {
+            return annotation.maxBatchingPeriodInMs();
+        }
+
+        return Long.parseLong(environment.resolvePlaceholders(annotation.maxBatchingPeriodInMsString()));
+    }
+
+    private int getConcurrentBatches(final BatchQueueListener annotation) {
+        if (StringUtils.isEmpty(annotation.concurrentBatchesString())) {
+            return annotation.concurrentBatches();
+        }
+
+        return Integer.parseInt(environment.resolvePlaceholders(annotation.concurrentBatchesString()));
+    }
+
+    private int getMessageVisibilityTimeoutInSeconds(final BatchQueueListener annotation) {
+        if (StringUtils.isEmpty(annotation.messageVisibilityTimeoutInSecondsString())) {
+            return annotation.messageVisibilityTimeoutInSeconds();
+        }
+
+        return Integer.parseInt(environment.resolvePlaceholders(annotation.messageVisibilityTimeoutInSecondsString()));
+    }
+
+    private SqsAsyncClient getSqsAsyncClient(final String sqsClient) {
+        if (StringUtils.isEmpty(sqsClient)) {
+            return sqsAsyncClientProvider.getDefaultClient()
+                    .orElseThrow(() -> new MessageListenerContainerInitialisationException("Expected the default SQS Client but there is none"));
+        }
+
+        return sqsAsyncClientProvider.getClient(sqsClient)
+                .orElseThrow(() -> new MessageListenerContainerInitialisationException("Expected a client with id '" + sqsClient + "' but none were found"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.jashmore.sqs.spring.container.batch;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import com.jashmore.sqs.QueueProperties;
+import com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBroker;
+import com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerProperties;
+import com.jashmore.sqs.container.MessageListenerContainer;
+import com.jashmore.sqs.processor.argument.BatchAcknowledge;
+import com.jashmore.sqs.processor.batching.BatchingMessageProcessor;
+import com.jashmore.sqs.resolver.batching.BatchingMessageResolver;
+import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetriever;
+import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverProperties;
+import com.jashmore.sqs.spring.client.SqsAsyncClientProvider;
+import org.springframework.core.env.Environment;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Wrap a method with a {@link MessageListenerContainer} that will execute the method with batches of messages received on the provided queue.
+ *
+ * <p>The method can have a {@link java.util.List} of {@link software.amazon.awssdk.services.sqs.model.Message}s, a {@link java.util.List} annotated
+ * with {@link com.jashmore.sqs.argument.payload.Payload @Payload} and a {@link BatchAcknowledge} as parameters, see {@link BatchingMessageProcessor}
+ * for more details. For example:
+ *
+ * <pre class="code">
+ * &#064;BatchQueueListener(value = "myQueue", maxBatchSize = 25)
+ * public void process(&#064;Payload List&lt;MyPayload&gt; payloads) {
+ *     repository.saveAll(payloads);
+ * }
+ * </pre>
+ *
+ * <p>This is a simplified annotation that uses the {@link ConcurrentBatchMessageBroker}, {@link PrefetchingMessageRetriever},
+ * {@link BatchingMessageProcessor} and {@link BatchingMessageResolver} for the implementations of the framework. Not all of the properties for each
+ * implementation are available to simplify this usage.
+ *
+ * @see BatchMessageListenerContainerFactory for what processes this annotation
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface BatchQueueListener {
+    /**
+     * The queue name or url for the queue to listen to messages on, this may contain placeholders that can be resolved from the Spring Environment.
+     *
+     * <p>Examples of this field can be:
+     * <ul>
+     *     <li>"${my.queue.prop}" which would be resolved to "http://localhost:4576/q/myQueue" if the application.yml contains
+     *         my.queue.prop=http://localhost:4576/q/myQueue</li>
+     *     <li>"http://localhost:4576/q/myQueue" which will be used as is</li>
+     *     <li>"myQueue" which could be resolved to something like "http://localhost:4576/q/myQueue" by getting the URL from SQS</li>
+     * </ul>
+     *
+     * @return the queue name or URL of the queue
+     * @see Environment#resolveRequiredPlaceholders(String) for how the placeholders are resolved
+     * @see QueueProperties#getQueueUrl() for how the URL of the queue is resolved if a queue name is supplied here
+     */
+    String value();
+
+    /**
+     * The unique identifier for this listener.
+     *
+     * <p>This can be used if you need to access the {@link MessageListenerContainer} for this queue listener specifically to start/stop it
+     * specifically.
+     *
+     * <p>If no value is provided for the identifier the class path and method name is used as the unique identifier. For example, the method
+     * <pre>com.company.queues.MyQueue#method(String, String)</pre> would result in the following identifier <pre>my-queue-method</pre>.
+     *
+     * <p>The identifier for the queue will also be used to name the threads that will be executing the message processing. For example if your identifier
+     * is <pre>'my-queue-method'</pre> the threads that will be created will be named like <pre>'my-queue-method-0'</pre>, etc.
+     *
+     * @return the unique identifier for this queue listener
+     */
+    String identifier() default "";
+
+    /**
+     * The unique identifier for the {@link SqsAsyncClient} that should be used for this queue.
+     *
+     * <p>As queues can be set up across multiple AWS Accounts there can be multiple {@link SqsAsyncClient}s being
+     * provided by the {@link SqsAsyncClientProvider}. When this identifier is set, it will obtain the client to be used
+     * via the {@link SqsAsyncClientProvider#getClient(String)} method.
+     *
+     * <p>If this value is not set (empty), the default client will be provided by a call to {@link SqsAsyncClientProvider#getDefaultClient()}.
+     *
+     * @return the identifier for the client to use or empty if the default should be used
+     */
+    String sqsClient() default "";
+
+    /**
+     * The maximum number of messages that will be processed in a single invocation of the method.
+     *
+     * @return the maximum number of messages in a batch
+     * @see ConcurrentBatchMessageBrokerProperties#getMaxBatchSize() for more details and constraints
+     */
+    int maxBatchSize() default 10;
+
+    /**
+     * The maximum number of messages that will be processed in a single invocation of the method converted from a string representation.
+     *
+     * <p>This can be used when you need to load the value from Spring properties for example <pre>maxBatchSizeString = "${my.profile.property}"</pre>
+     * instead of having it hardcoded in {@link #maxBatchSize()}.
+     *
+     * <p>If this value is not empty, the value set by {@link #maxBatchSize()} will be ignored.
+     *
+     * @return the maximum number of messages in a batch as a string
+     * @see ConcurrentBatchMessageBrokerProperties#getMaxBatchSize() for more details and constraints
+     */
+    String maxBatchSizeString() default "";
+
+    /**
+     * The maximum period of time to wait for a batch to reach the {@link #maxBatchSize()} after its first message has been received, before the method
+     * is invoked with the messages collected so far.
+     *
+     * @return the maximum time in milliseconds to wait for a batch to be filled
+     * @see ConcurrentBatchMessageBrokerProperties#getMaxBatchingPeriodInMs() for more details and constraints
+     */
+    long maxBatchingPeriodInMs() default 1000L;
+
+    /**
+     * The maximum period of time to wait for a batch to reach the {@link #maxBatchSize()} converted from a string representation.
+     *
+     * <p>This can be used when you need to load the value from Spring properties for example
+     * <pre>maxBatchingPeriodInMsString = "${my.profile.property}"</pre> instead of having it hardcoded in {@link #maxBatchingPeriodInMs()}.
+     *
+     * <p>If this value is not empty, the value set by {@link #maxBatchingPeriodInMs()} will be ignored.
+     *
+     * @return the maximum time in milliseconds to wait for a batch to be filled as a string
+     * @see ConcurrentBatchMessageBrokerProperties#getMaxBatchingPeriodInMs() for more details and constraints
+     */
+    String maxBatchingPeriodInMsString() default "";
+
+    /**
+     * The number of batches of messages that can be processed at the same time.
+     *
+     * @return the number of batches being processed concurrently
+     * @see ConcurrentBatchMessageBrokerProperties#getConcurrencyLevel() for more details and constraints
+     */
+    int concurrentBatches() default 1;
+
+    /**
+     * The number of batches of messages that can be processed at the same time converted from a string representation.
+     *
+     * <p>This can be used when you need to load the value from Spring properties for example <pre>concurrentBatchesString = "${my.profile.property}"</pre>
+     * instead of having it hardcoded in {@link #concurrentBatches()}.
+     *
+     * <p>If this value is not empty, the value set by {@link #concurrentBatches()} will be ignored.
+     *
+     * @return the number of batches being processed concurrently as a string
+     * @see ConcurrentBatchMessageBrokerProperties#getConcurrencyLevel() for more details and constraints
+     */
+    String concurrentBatchesString() default "";
+
+    /**
+     * The message visibility that will be used for messages obtained from the queue.
+     *
+     * <p>As the messages in a batch are all processed together, this should allow for the time waiting for the batch to be filled as well as the time to
+     * process the batch.
+     *
+     * @return the message visibility for messages fetched from the queue
+     * @see PrefetchingMessageRetrieverProperties#getMessageVisibilityTimeoutInSeconds() for more details and constraints
+     */
+    int messageVisibilityTimeoutInSeconds() default 30;
+
+    /**
+     * The message visibility that will be used for messages obtained from the queue converted from a string representation.
+     *
+     * <p>This can be used when you need to load the value from Spring properties for example
+     * <pre>messageVisibilityTimeoutInSeconds = "${my.profile.property}"</pre> instead of having it hardcoded in {@link #messageVisibilityTimeoutInSeconds()}.
+     *
+     * @return the message visibility for messages fetched from the queue
+     * @see PrefetchingMessageRetrieverProperties#getMessageVisibilityTimeoutInSeconds() for more details and constraints
+     */
+    String messageVisibilityTimeoutInSecondsString() default "";
+
+    /**
+     * Determines whether any extra messages that may have been downloaded but not yet processed should be processed before shutting down the container.
+     *
+     * <p>The shutdown time for the container will be dependent on the time it takes to process these extra messages.
+     *
+     * @return if any extra messages should be processed on shutdown
+     */
+    boolean processAnyExtraRetrievedMessagesOnShutdown() default true;
+
+    /**
+     * Determines whether the threads that are processing messages should be interrupted during shutdown.
+     *
+     * @return whether to interrupt message processing threads on shutdown
+     */
+    boolean interruptThreadsProcessingMessagesOnShutdown() default false;
+}
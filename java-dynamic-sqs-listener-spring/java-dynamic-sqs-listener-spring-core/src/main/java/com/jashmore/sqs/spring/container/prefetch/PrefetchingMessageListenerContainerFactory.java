@@ -15,6 +15,7 @@ import com.jashmore.sqs.processor.MessageProcessor;
 import com.jashmore.sqs.resolver.MessageResolver;
 import com.jashmore.sqs.resolver.batching.BatchingMessageResolver;
 import com.jashmore.sqs.retriever.MessageRetriever;
+import com.jashmore.sqs.retriever.prefetch.NonBlockingPrefetchingMessageRetriever;
 import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetriever;
 import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverProperties;
 import com.jashmore.sqs.retriever.prefetch.StaticPrefetchingMessageRetrieverProperties;
@@ -64,7 +65,7 @@ public class PrefetchingMessageListenerContainerFactory extends AbstractAnnotati
         return new CoreMessageListenerContainer(
                 IdentifierUtils.buildIdentifierForMethod(annotation.identifier(), bean.getClass(), method),
                 buildMessageBrokerSupplier(annotation),
-                buildMessageRetrieverSupplier(annotation, queueProperties, sqsAsyncClient),
+                buildMessageRetrieverSupplier(annotation, method, queueProperties, sqsAsyncClient),
                 buildProcessorSupplier(queueProperties, sqsAsyncClient, bean, method),
                 buildMessageResolverSupplier(queueProperties, sqsAsyncClient),
                 StaticCoreMessageListenerContainerProperties.builder()
@@ -128,18 +129,24 @@ public class PrefetchingMessageListenerContainerFactory extends AbstractAnnotati
     }
 
     @VisibleForTesting
-    PrefetchingMessageRetrieverProperties buildMessageRetrieverProperties(final PrefetchingQueueListener annotation) {
+    PrefetchingMessageRetrieverProperties buildMessageRetrieverProperties(final PrefetchingQueueListener annotation, final Method method) {
         return StaticPrefetchingMessageRetrieverProperties.builder()
                 .desiredMinPrefetchedMessages(getDesiredMinPrefetchedMessages(annotation))
                 .maxPrefetchedMessages(getMaxPrefetchedMessages(annotation))
                 .messageVisibilityTimeoutInSeconds(getMessageVisibilityTimeoutInSeconds(annotation))
+                .requiredMessageAttributes(argumentResolverService.getRequiredMessageAttributes(method))
+                .shouldAdaptPrefetchWindow(annotation.adaptPrefetchWindow())
                 .build();
     }
 
     private Supplier<MessageRetriever> buildMessageRetrieverSupplier(final PrefetchingQueueListener annotation,
+                                                                     final Method method,
                                                                      final QueueProperties queueProperties,
                                                                      final SqsAsyncClient sqsAsyncClient) {
-        final PrefetchingMessageRetrieverProperties properties = buildMessageRetrieverProperties(annotation);
+        final PrefetchingMessageRetrieverProperties properties = buildMessageRetrieverProperties(annotation, method);
+        if (annotation.nonBlockingRetrieval()) {
+            return () -> new NonBlockingPrefetchingMessageRetriever(sqsAsyncClient, queueProperties, properties);
+        }
         return () -> new PrefetchingMessageRetriever(sqsAsyncClient, queueProperties, properties);
     }
 
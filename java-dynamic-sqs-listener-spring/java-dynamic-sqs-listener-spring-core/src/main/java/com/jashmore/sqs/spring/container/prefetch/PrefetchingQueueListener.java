@@ -10,7 +10,9 @@ import com.jashmore.sqs.broker.concurrent.ConcurrentMessageBrokerProperties;
 import com.jashmore.sqs.container.MessageListenerContainer;
 import com.jashmore.sqs.processor.CoreMessageProcessor;
 import com.jashmore.sqs.retriever.batching.BatchingMessageRetrieverProperties;
+import com.jashmore.sqs.retriever.prefetch.NonBlockingPrefetchingMessageRetriever;
 import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetriever;
+import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverProperties;
 import com.jashmore.sqs.retriever.prefetch.StaticPrefetchingMessageRetrieverProperties;
 import com.jashmore.sqs.spring.client.SqsAsyncClientProvider;
 import org.springframework.core.env.Environment;
@@ -158,6 +160,26 @@ public @interface PrefetchingQueueListener {
      */
     String messageVisibilityTimeoutInSecondsString() default "";
 
+    /**
+     * Determines whether the messages should be retrieved by the {@link NonBlockingPrefetchingMessageRetriever} instead of the
+     * {@link PrefetchingMessageRetriever}.
+     *
+     * <p>The non-blocking retriever does not need a dedicated thread for each listener as it is driven by the completion of the requests to SQS, which is
+     * useful when there are a large number of listeners in the application.
+     *
+     * @return whether the non-blocking retriever should be used
+     */
+    boolean nonBlockingRetrieval() default false;
+
+    /**
+     * Determines whether the prefetch window should be sized at runtime from the rate that messages are being consumed, using
+     * {@link #desiredMinPrefetchedMessages()} and {@link #maxPrefetchedMessages()} as the bounds of the window.
+     *
+     * @return whether the prefetch window should be adapted at runtime
+     * @see PrefetchingMessageRetrieverProperties#shouldAdaptPrefetchWindow() for more details
+     */
+    boolean adaptPrefetchWindow() default false;
+
     /**
      * Determines whether any extra messages that may have been downloaded but not yet processed should be processed before shutting down the container.
      *
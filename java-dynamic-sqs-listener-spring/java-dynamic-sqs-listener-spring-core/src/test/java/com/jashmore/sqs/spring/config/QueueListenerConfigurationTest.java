@@ -18,6 +18,7 @@ import com.jashmore.sqs.spring.container.DefaultMessageListenerContainerCoordina
 import com.jashmore.sqs.spring.container.MessageListenerContainerCoordinator;
 import com.jashmore.sqs.spring.container.MessageListenerContainerFactory;
 import com.jashmore.sqs.spring.container.basic.BasicMessageListenerContainerFactory;
+import com.jashmore.sqs.spring.container.batch.BatchMessageListenerContainerFactory;
 import com.jashmore.sqs.spring.container.prefetch.PrefetchingMessageListenerContainerFactory;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -285,7 +286,8 @@ class QueueListenerConfigurationTest {
                                 .map(MessageListenerContainerFactory::getClass)
                                 .collect(toSet());
 
-                        assertThat(MessageListenerContainerFactoryClasses).containsExactlyInAnyOrder(BasicMessageListenerContainerFactory.class, PrefetchingMessageListenerContainerFactory.class);
+                        assertThat(MessageListenerContainerFactoryClasses).containsExactlyInAnyOrder(BasicMessageListenerContainerFactory.class, PrefetchingMessageListenerContainerFactory.class,
+                                BatchMessageListenerContainerFactory.class);
                     });
         }
 
@@ -314,7 +316,7 @@ class QueueListenerConfigurationTest {
                         argumentResolversField.setAccessible(true);
                         assertThat(((List<MessageListenerContainerFactory>) argumentResolversField.get(service)))
                                 .containsExactlyElementsOf(messageListenerContainerFactories);
-                        assertThat(messageListenerContainerFactories).hasSize(3);
+                        assertThat(messageListenerContainerFactories).hasSize(4);
                     });
         }
 
@@ -176,7 +176,7 @@ class BasicMessageListenerContainerFactoryTest {
 
         // act
         final BatchingMessageRetrieverProperties properties
-                = queueListenerWrapper.batchingMessageRetrieverProperties(annotation);
+                = queueListenerWrapper.batchingMessageRetrieverProperties(annotation, method);
 
         // assert
         assertThat(properties).isEqualTo(StaticBatchingMessageRetrieverProperties.builder()
@@ -198,7 +198,7 @@ class BasicMessageListenerContainerFactoryTest {
 
         // act
         final BatchingMessageRetrieverProperties properties
-                = queueListenerWrapper.batchingMessageRetrieverProperties(annotation);
+                = queueListenerWrapper.batchingMessageRetrieverProperties(annotation, method);
 
         // assert
         assertThat(properties).isEqualTo(StaticBatchingMessageRetrieverProperties.builder()
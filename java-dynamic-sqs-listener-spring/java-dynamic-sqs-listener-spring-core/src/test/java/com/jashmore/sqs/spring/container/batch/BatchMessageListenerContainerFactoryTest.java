@@ -0,0 +1,172 @@
+package com.jashmore.sqs.spring.container.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jashmore.sqs.argument.RequiredMessageAttributes;
+import com.jashmore.sqs.argument.payload.Payload;
+import com.jashmore.sqs.argument.payload.mapper.PayloadMapper;
+import com.jashmore.sqs.broker.batch.ConcurrentBatchMessageBrokerProperties;
+import com.jashmore.sqs.broker.batch.StaticConcurrentBatchMessageBrokerProperties;
+import com.jashmore.sqs.container.CoreMessageListenerContainer;
+import com.jashmore.sqs.container.MessageListenerContainer;
+import com.jashmore.sqs.retriever.prefetch.PrefetchingMessageRetrieverProperties;
+import com.jashmore.sqs.retriever.prefetch.StaticPrefetchingMessageRetrieverProperties;
+import com.jashmore.sqs.spring.client.SqsAsyncClientProvider;
+import com.jashmore.sqs.spring.container.MessageListenerContainerInitialisationException;
+import com.jashmore.sqs.spring.queue.QueueResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.Environment;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+@SuppressWarnings("WeakerAccess")
+@ExtendWith(MockitoExtension.class)
+class BatchMessageListenerContainerFactoryTest {
+    @Mock
+    private PayloadMapper payloadMapper;
+
+    @Mock
+    private SqsAsyncClientProvider sqsAsyncClientProvider;
+
+    @Mock
+    private SqsAsyncClient defaultClient;
+
+    @Mock
+    private QueueResolver queueResolver;
+
+    @Mock
+    private Environment environment;
+
+    private BatchMessageListenerContainerFactory batchMessageListenerContainerFactory;
+
+    @BeforeEach
+    void setUp() {
+        batchMessageListenerContainerFactory = new BatchMessageListenerContainerFactory(payloadMapper, sqsAsyncClientProvider, queueResolver, environment);
+    }
+
+    @Test
+    void canBuildMessageListenerContainer() throws NoSuchMethodException {
+        // arrange
+        when(sqsAsyncClientProvider.getDefaultClient()).thenReturn(Optional.of(defaultClient));
+        final Object bean = new BatchMessageListenerContainerFactoryTest();
+        final Method method = BatchMessageListenerContainerFactoryTest.class.getMethod("myMethod", List.class);
+
+        // act
+        final MessageListenerContainer messageListenerContainer = batchMessageListenerContainerFactory.buildContainer(bean, method);
+
+        // assert
+        assertThat(messageListenerContainer).isInstanceOf(CoreMessageListenerContainer.class);
+        assertThat(messageListenerContainer.getIdentifier()).isEqualTo("batch-message-listener-container-factory-test-my-method");
+    }
+
+    @Test
+    void queueIsResolvedViaTheQueueResolver() throws NoSuchMethodException {
+        // arrange
+        when(sqsAsyncClientProvider.getDefaultClient()).thenReturn(Optional.of(defaultClient));
+        final Object bean = new BatchMessageListenerContainerFactoryTest();
+        final Method method = BatchMessageListenerContainerFactoryTest.class.getMethod("myMethod", List.class);
+
+        // act
+        batchMessageListenerContainerFactory.buildContainer(bean, method);
+
+        // assert
+        verify(queueResolver).resolveQueueUrl(defaultClient, "test");
+    }
+
+    @Test
+    void invalidMaxBatchSizeStringFailsToWrapMessageListener() throws Exception {
+        // arrange
+        when(sqsAsyncClientProvider.getDefaultClient()).thenReturn(Optional.of(defaultClient));
+        when(environment.resolvePlaceholders(anyString())).thenReturn("1");
+        when(environment.resolvePlaceholders("${prop.batchSize}")).thenReturn("Test Invalid");
+        final Object bean = new BatchMessageListenerContainerFactoryTest();
+        final Method method = BatchMessageListenerContainerFactoryTest.class.getMethod("methodWithFieldsUsingEnvironmentProperties", List.class);
+
+        // act
+        assertThrows(NumberFormatException.class, () -> batchMessageListenerContainerFactory.buildContainer(bean, method));
+    }
+
+    @Test
+    void brokerPropertiesCanBeBuiltFromStringProperties() throws Exception {
+        // arrange
+        when(environment.resolvePlaceholders("${prop.batchSize}")).thenReturn("5");
+        when(environment.resolvePlaceholders("${prop.batchingPeriod}")).thenReturn("200");
+        when(environment.resolvePlaceholders("${prop.concurrentBatches}")).thenReturn("3");
+        final Method method = BatchMessageListenerContainerFactoryTest.class.getMethod("methodWithFieldsUsingEnvironmentProperties", List.class);
+        final BatchQueueListener annotation = method.getAnnotation(BatchQueueListener.class);
+
+        // act
+        final ConcurrentBatchMessageBrokerProperties properties = batchMessageListenerContainerFactory.buildMessageBrokerProperties(annotation);
+
+        // assert
+        assertThat(properties).isEqualTo(StaticConcurrentBatchMessageBrokerProperties.builder()
+                .maxBatchSize(5)
+                .maxBatchingPeriodInMs(200L)
+                .concurrencyLevel(3)
+                .build()
+        );
+    }
+
+    @Test
+    void retrieverWillPrefetchAtLeastAFullBatchOfMessages() throws Exception {
+        // arrange
+        final Method method = BatchMessageListenerContainerFactoryTest.class.getMethod("methodWithFieldsUsingProperties", List.class);
+        final BatchQueueListener annotation = method.getAnnotation(BatchQueueListener.class);
+
+        // act
+        final PrefetchingMessageRetrieverProperties properties = batchMessageListenerContainerFactory.buildMessageRetrieverProperties(annotation, method);
+
+        // assert
+        assertThat(properties).isEqualTo(StaticPrefetchingMessageRetrieverProperties.builder()
+                .desiredMinPrefetchedMessages(25)
+                .maxPrefetchedMessages(50)
+                .maxConcurrentReceives(3)
+                .messageVisibilityTimeoutInSeconds(300)
+                .requiredMessageAttributes(RequiredMessageAttributes.none())
+                .build()
+        );
+    }
+
+    @Test
+    void whenNoDefaultSqsClientAvailableAndItIsRequestedTheListenerWillNotBeWrapped() throws Exception {
+        // arrange
+        final Object bean = new BatchMessageListenerContainerFactoryTest();
+        final Method method = BatchMessageListenerContainerFactoryTest.class.getMethod("myMethod", List.class);
+        when(sqsAsyncClientProvider.getDefaultClient()).thenReturn(Optional.empty());
+
+        // act
+        final MessageListenerContainerInitialisationException exception = assertThrows(MessageListenerContainerInitialisationException.class,
+                () -> batchMessageListenerContainerFactory.buildContainer(bean, method));
+
+        // assert
+        assertThat(exception).hasMessage("Expected the default SQS Client but there is none");
+    }
+
+    @BatchQueueListener("test")
+    public void myMethod(final List<Message> messages) {
+
+    }
+
+    @BatchQueueListener(value = "test2", maxBatchSizeString = "${prop.batchSize}", maxBatchingPeriodInMsString = "${prop.batchingPeriod}",
+            concurrentBatchesString = "${prop.concurrentBatches}")
+    public void methodWithFieldsUsingEnvironmentProperties(final List<Message> messages) {
+
+    }
+
+    @BatchQueueListener(value = "test2", maxBatchSize = 25, messageVisibilityTimeoutInSeconds = 300)
+    public void methodWithFieldsUsingProperties(@Payload final List<String> payloads) {
+
+    }
+}
@@ -193,13 +193,14 @@ class PrefetchingMessageListenerContainerFactoryTest {
         final PrefetchingQueueListener annotation = method.getAnnotation(PrefetchingQueueListener.class);
 
         // act
-        final PrefetchingMessageRetrieverProperties properties = prefetchingQueueListenerWrapper.buildMessageRetrieverProperties(annotation);
+        final PrefetchingMessageRetrieverProperties properties = prefetchingQueueListenerWrapper.buildMessageRetrieverProperties(annotation, method);
 
         // assert
         assertThat(properties).isEqualTo(StaticPrefetchingMessageRetrieverProperties.builder()
                 .maxPrefetchedMessages(30)
                 .desiredMinPrefetchedMessages(40)
                 .messageVisibilityTimeoutInSeconds(40)
+                .shouldAdaptPrefetchWindow(false)
                 .build()
         );
     }
@@ -211,17 +212,31 @@ class PrefetchingMessageListenerContainerFactoryTest {
         final PrefetchingQueueListener annotation = method.getAnnotation(PrefetchingQueueListener.class);
 
         // act
-        final PrefetchingMessageRetrieverProperties properties = prefetchingQueueListenerWrapper.buildMessageRetrieverProperties(annotation);
+        final PrefetchingMessageRetrieverProperties properties = prefetchingQueueListenerWrapper.buildMessageRetrieverProperties(annotation, method);
 
         // assert
         assertThat(properties).isEqualTo(StaticPrefetchingMessageRetrieverProperties.builder()
                 .maxPrefetchedMessages(20)
                 .desiredMinPrefetchedMessages(5)
                 .messageVisibilityTimeoutInSeconds(300)
+                .shouldAdaptPrefetchWindow(false)
                 .build()
         );
     }
 
+    @Test
+    void adaptivePrefetchWindowCanBeEnabledFromTheAnnotation() throws Exception {
+        // arrange
+        final Method method = PrefetchingMessageListenerContainerFactoryTest.class.getMethod("methodWithAdaptivePrefetchWindow");
+        final PrefetchingQueueListener annotation = method.getAnnotation(PrefetchingQueueListener.class);
+
+        // act
+        final PrefetchingMessageRetrieverProperties properties = prefetchingQueueListenerWrapper.buildMessageRetrieverProperties(annotation, method);
+
+        // assert
+        assertThat(properties.shouldAdaptPrefetchWindow()).isTrue();
+    }
+
     @Test
     void whenNoDefaultSqsClientAvailableAndItIsRequestedTheListenerWillNotBeWrapped() throws Exception {
         // arrange
@@ -290,6 +305,11 @@ class PrefetchingMessageListenerContainerFactoryTest {
 
     }
 
+    @PrefetchingQueueListener(value = "test2", adaptPrefetchWindow = true)
+    public void methodWithAdaptivePrefetchWindow() {
+
+    }
+
     @PrefetchingQueueListener(value = "test2", sqsClient = "clientId")
     public void methodUsingSpecificSqsAsyncClient() {
 
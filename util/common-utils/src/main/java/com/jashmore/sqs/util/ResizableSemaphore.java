@@ -1,11 +1,14 @@
 package com.jashmore.sqs.util;
 
 import java.util.concurrent.Semaphore;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * Semaphore that is able to dynamically update the number of available permits.
  */
 public class ResizableSemaphore extends Semaphore {
+    private final Object lock = new Object();
+    @GuardedBy("lock")
     private int maximumPermits;
 
     public ResizableSemaphore(final int permits) {
@@ -17,21 +20,25 @@ public class ResizableSemaphore extends Semaphore {
     /**
      * Change the maximum number of permits available.
      *
-     * <p>The changing of permit size is not thread safe and therefore this method should only be used by a single thread. E.g. only one thread has the
-     * responsibility of changing the permit size.
+     * <p>This can be called from any thread, for example when the permit size is changed as soon as a property changes instead of by the thread that is
+     * acquiring the permits. Any threads waiting for a permit will be woken if the permit size increases.
      *
      * @param permits new max size for permits
      */
     public void changePermitSize(final int permits) {
-        if (permits > this.maximumPermits) {
-            this.release(permits - this.maximumPermits);
-        } else if (permits < this.maximumPermits) {
-            this.reducePermits(this.maximumPermits - permits);
+        synchronized (lock) {
+            if (permits > this.maximumPermits) {
+                this.release(permits - this.maximumPermits);
+            } else if (permits < this.maximumPermits) {
+                this.reducePermits(this.maximumPermits - permits);
+            }
+            this.maximumPermits = permits;
         }
-        this.maximumPermits = permits;
     }
 
     public int getMaximumPermits() {
-        return maximumPermits;
+        synchronized (lock) {
+            return maximumPermits;
+        }
     }
 }
@@ -0,0 +1,87 @@
+package com.jashmore.sqs.util.properties;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A property value that notifies listeners each time that it changes, allowing components to react to a change immediately instead of polling for the
+ * value.
+ *
+ * <p>Obtaining the value via {@link #get()} is a single volatile read and therefore is cheap enough to be called for every message being processed.
+ *
+ * <p>The listeners are called on the thread that changed the value and therefore they should not perform any blocking operations. An exception thrown
+ * by a listener will be logged and will not prevent the other listeners from being notified. If the value is changed by multiple threads at the same time
+ * the listeners may be notified of the values out of order, so listeners that need the latest value should obtain it via {@link #get()}.
+ *
+ * @param <T> the type of the value of the property
+ */
+@Slf4j
+@ThreadSafe
+public class ObservableProperty<T> {
+    private final List<Consumer<T>> listeners;
+
+    private volatile T value;
+
+    public ObservableProperty(@Nullable final T initialValue) {
+        this.value = initialValue;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Get the current value of the property.
+     *
+     * @return the current value
+     */
+    @Nullable
+    public T get() {
+        return value;
+    }
+
+    /**
+     * Change the value of the property, notifying each of the listeners if the value is different to the current value.
+     *
+     * @param newValue the new value of the property
+     */
+    public void set(@Nullable final T newValue) {
+        synchronized (this) {
+            if (Objects.equals(value, newValue)) {
+                return;
+            }
+            value = newValue;
+        }
+
+        for (final Consumer<T> listener : listeners) {
+            try {
+                listener.accept(newValue);
+            } catch (final RuntimeException runtimeException) {
+                log.error("Error notifying listener of property change to {}", newValue, runtimeException);
+            }
+        }
+    }
+
+    /**
+     * Add a listener that will be notified each time that the value of the property changes.
+     *
+     * <p>The listener is not notified of the current value and therefore it should be obtained via {@link #get()} after the listener has been added.
+     *
+     * @param listener the listener to notify of the new value
+     */
+    public void addListener(final Consumer<T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener so that it will no longer be notified of changes to the value of the property.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(final Consumer<T> listener) {
+        listeners.remove(listener);
+    }
+}
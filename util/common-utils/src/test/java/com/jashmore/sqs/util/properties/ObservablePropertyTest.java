@@ -0,0 +1,86 @@
+package com.jashmore.sqs.util.properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jashmore.sqs.util.ExpectedTestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+class ObservablePropertyTest {
+    @Test
+    void initialValueIsReturnedBeforeTheValueIsChanged() {
+        // arrange
+        final ObservableProperty<Integer> property = new ObservableProperty<>(1);
+
+        // act
+        final Integer value = property.get();
+
+        // assert
+        assertThat(value).isEqualTo(1);
+    }
+
+    @Test
+    void listenersAreNotifiedWhenTheValueChanges() {
+        // arrange
+        final ObservableProperty<Integer> property = new ObservableProperty<>(1);
+        final List<Integer> notifiedValues = new ArrayList<>();
+        property.addListener(notifiedValues::add);
+
+        // act
+        property.set(2);
+
+        // assert
+        assertThat(property.get()).isEqualTo(2);
+        assertThat(notifiedValues).containsExactly(2);
+    }
+
+    @Test
+    void listenersAreNotNotifiedWhenTheValueIsTheSame() {
+        // arrange
+        final ObservableProperty<Integer> property = new ObservableProperty<>(1);
+        final List<Integer> notifiedValues = new ArrayList<>();
+        property.addListener(notifiedValues::add);
+
+        // act
+        property.set(1);
+
+        // assert
+        assertThat(notifiedValues).isEmpty();
+    }
+
+    @Test
+    void removedListenersAreNoLongerNotified() {
+        // arrange
+        final ObservableProperty<Integer> property = new ObservableProperty<>(1);
+        final List<Integer> notifiedValues = new ArrayList<>();
+        final Consumer<Integer> listener = notifiedValues::add;
+        property.addListener(listener);
+
+        // act
+        property.removeListener(listener);
+        property.set(2);
+
+        // assert
+        assertThat(notifiedValues).isEmpty();
+    }
+
+    @Test
+    void exceptionThrownByListenerWillStillNotifyTheOtherListeners() {
+        // arrange
+        final ObservableProperty<Integer> property = new ObservableProperty<>(null);
+        final List<Integer> notifiedValues = new ArrayList<>();
+        property.addListener(value -> {
+            throw new ExpectedTestException();
+        });
+        property.addListener(notifiedValues::add);
+
+        // act
+        property.set(2);
+
+        // assert
+        assertThat(notifiedValues).containsExactly(2);
+    }
+}